@@ -0,0 +1,42 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.api;
+
+/**
+ * Interface for {@link Analyzer}s that can expose a mergeable
+ * {@link PartialAnalyzerResult} in distributed execution, instead of a full
+ * {@link AnalyzerResult}.
+ *
+ * The component still needs to be distributable the normal way, ie. have an
+ * {@link AnalyzerResultReducer}, since not every execution engine makes use of
+ * partial results.
+ *
+ * @param <P>
+ *            the type of partial result
+ */
+public interface HasPartialAnalyzerResult<P extends PartialAnalyzerResult<P, ?>> {
+
+    /**
+     * Gets the partial result of this instance.
+     *
+     * @return a partial result object.
+     */
+    P getPartialResult();
+}
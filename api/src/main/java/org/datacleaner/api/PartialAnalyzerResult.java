@@ -0,0 +1,57 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.api;
+
+/**
+ * A partial, mergeable state of an {@link AnalyzerResult}, produced by
+ * {@link HasPartialAnalyzerResult} components when they are executed in
+ * distributed mode.
+ *
+ * Partial results are merged pairwise as they arrive, instead of being
+ * collected and passed to an {@link AnalyzerResultReducer}, and turned into
+ * the final result only once all partial results have been merged. This allows
+ * components to exchange compact intermediate state instead of building a full
+ * result for every partition of the data.
+ *
+ * @param <P>
+ *            the type of the partial result itself
+ * @param <R>
+ *            the type of the final result
+ */
+public interface PartialAnalyzerResult<P extends PartialAnalyzerResult<P, R>, R extends AnalyzerResult>
+        extends AnalyzerResult {
+
+    /**
+     * Merges another partial result into this one. Implementations are
+     * allowed to modify and return this instance.
+     *
+     * @param other
+     *            another partial result of the same component
+     * @return the merged partial result
+     */
+    P merge(P other);
+
+    /**
+     * Creates the final result from this (merged) partial result.
+     *
+     * @return the final result
+     */
+    R toResult();
+}
@@ -53,7 +53,11 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
 
     private static final Set<String> SUM_MEASURES = new HashSet<>(
             Arrays.asList(NumberAnalyzer.MEASURE_SUM, NumberAnalyzer.MEASURE_ROW_COUNT,
-                    NumberAnalyzer.MEASURE_NULL_COUNT));
+                    NumberAnalyzer.MEASURE_NULL_COUNT, NumberAnalyzer.MEASURE_SUM_OF_SQUARES));
+
+    private static final Set<String> SUMMARY_MEASURES = new HashSet<>(
+            Arrays.asList(NumberAnalyzer.MEASURE_MEAN, NumberAnalyzer.MEASURE_STANDARD_DEVIATION,
+                    NumberAnalyzer.MEASURE_VARIANCE, NumberAnalyzer.MEASURE_SECOND_MOMENT));
 
     @Override
     protected Serializable reduceValues(final List<Object> slaveValues, final String column, final String measure,
@@ -65,28 +69,75 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
             return maximum(slaveValues);
         } else if (NumberAnalyzer.MEASURE_LOWEST_VALUE.equals(measure)) {
             return minimum(slaveValues);
-        } else if (NumberAnalyzer.MEASURE_MEAN.equals(measure)) {
-            final StatisticalSummary summary = getSummary(column, results);
-            return summary.getMean();
-        } else if (NumberAnalyzer.MEASURE_STANDARD_DEVIATION.equals(measure)) {
+        } else if (NumberAnalyzer.MEASURE_GEOMETRIC_MEAN.equals(measure)) {
+            return geometricMean(column, results);
+        } else if (SUMMARY_MEASURES.contains(measure)) {
             final StatisticalSummary summary = getSummary(column, results);
-            return summary.getStandardDeviation();
-        } else if (NumberAnalyzer.MEASURE_VARIANCE.equals(measure)) {
-            final StatisticalSummary summary = getSummary(column, results);
-            return summary.getVariance();
+            if (summary == null) {
+                // no values at any slave
+                return null;
+            }
+            if (NumberAnalyzer.MEASURE_MEAN.equals(measure)) {
+                return summary.getMean();
+            } else if (NumberAnalyzer.MEASURE_STANDARD_DEVIATION.equals(measure)) {
+                return summary.getStandardDeviation();
+            } else if (NumberAnalyzer.MEASURE_VARIANCE.equals(measure)) {
+                return summary.getVariance();
+            } else {
+                // the second moment is reduced as well, so that a reduced
+                // result can be reduced again with other results
+                return summary.getVariance() * (summary.getN() - 1);
+            }
         }
 
         logger.warn("Encountered non-reduceable measure '{}'. Slave values are: {}", measure, slaveValues);
         return null;
     }
 
+    private Double geometricMean(final String column, final Collection<? extends NumberAnalyzerResult> results) {
+        final InputColumn<Number> col = new MockInputColumn<>(column);
+        double sumOfLogs = 0;
+        long n = 0;
+        for (final NumberAnalyzerResult analyzerResult : results) {
+            final Number geometricMean = analyzerResult.getGeometricMean(col);
+            if (geometricMean == null) {
+                // no values at this slave
+                continue;
+            }
+            final long valueCount = getValueCount(analyzerResult, col);
+            sumOfLogs += valueCount * Math.log(geometricMean.doubleValue());
+            n += valueCount;
+        }
+        if (n == 0) {
+            return null;
+        }
+        return Math.exp(sumOfLogs / n);
+    }
+
+    /**
+     * Gets the number of non-null values that the statistics of a result are
+     * based on.
+     */
+    private static long getValueCount(final NumberAnalyzerResult analyzerResult, final InputColumn<Number> col) {
+        final Number nullCount = analyzerResult.getNullCount(col);
+        return analyzerResult.getRowCount(col).longValue() - (nullCount == null ? 0 : nullCount.longValue());
+    }
+
     private StatisticalSummary getSummary(final String column,
             final Collection<? extends NumberAnalyzerResult> results) {
         final List<SummaryStatistics> statistics = new ArrayList<>(results.size());
+        final InputColumn<Number> col = new MockInputColumn<>(column);
         for (final NumberAnalyzerResult analyzerResult : results) {
+            if (analyzerResult.getLowestValue(col) == null) {
+                // no values at this slave
+                continue;
+            }
             final SummaryStatistics stats = buildStatistics(column, analyzerResult);
             statistics.add(stats);
         }
+        if (statistics.isEmpty()) {
+            return null;
+        }
         return AggregateSummaryStatistics.aggregate(statistics);
     }
 
@@ -98,37 +149,37 @@ public class NumberAnalyzerResultReducer extends AbstractCrosstabResultReducer<N
 
             @Override
             public long getN() {
-                return analyzerResult.getRowCount(col).longValue();
+                return getValueCount(analyzerResult, col);
             }
 
             @Override
             public double getSum() {
-                return analyzerResult.getSum(col).longValue();
+                return analyzerResult.getSum(col).doubleValue();
             }
 
             @Override
             public double getVariance() {
-                return analyzerResult.getVariance(col).longValue();
+                return analyzerResult.getVariance(col).doubleValue();
             }
 
             @Override
             public double getStandardDeviation() {
-                return analyzerResult.getStandardDeviation(col).longValue();
+                return analyzerResult.getStandardDeviation(col).doubleValue();
             }
 
             @Override
             public double getMean() {
-                return analyzerResult.getMean(col).longValue();
+                return analyzerResult.getMean(col).doubleValue();
             }
 
             @Override
             public double getMin() {
-                return analyzerResult.getLowestValue(col).longValue();
+                return analyzerResult.getLowestValue(col).doubleValue();
             }
 
             @Override
             public double getMax() {
-                return analyzerResult.getHighestValue(col).longValue();
+                return analyzerResult.getHighestValue(col).doubleValue();
             }
 
             @Override
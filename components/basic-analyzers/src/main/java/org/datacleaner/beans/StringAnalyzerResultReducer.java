@@ -78,6 +78,10 @@ public class StringAnalyzerResultReducer extends AbstractCrosstabResultReducer<S
                     (Number) nav.where(StringAnalyzer.DIMENSION_MEASURES, StringAnalyzer.MEASURE_ROW_COUNT).get();
             final Number averageMeasureValue = (Number) nav.where(StringAnalyzer.DIMENSION_MEASURES, measureName).get();
 
+            if (averageMeasureValue == null) {
+                // no values at this slave
+                continue;
+            }
             averageBuilder.addValue(averageMeasureValue, rowCount.intValue());
         }
 
@@ -0,0 +1,159 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.File;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.datacleaner.api.Alias;
+import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Configured;
+import org.datacleaner.api.Description;
+import org.datacleaner.api.Distributed;
+import org.datacleaner.api.FileProperty;
+import org.datacleaner.api.FileProperty.FileAccessMode;
+import org.datacleaner.api.HasLabelAdvice;
+import org.datacleaner.api.Provided;
+import org.datacleaner.api.Validate;
+import org.datacleaner.beans.writers.WriteDataResult;
+import org.datacleaner.beans.writers.WriteDataResultImpl;
+import org.datacleaner.components.categories.WriteSuperCategory;
+import org.datacleaner.descriptors.FilterDescriptor;
+import org.datacleaner.descriptors.TransformerDescriptor;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.output.OutputWriter;
+import org.datacleaner.user.UserPreferences;
+
+@Named("Create Parquet file")
+@Alias("Write to Parquet file")
+@Description("Write data to a Parquet file, a compressed columnar file format which can be queried efficiently by "
+        + "tools such as Spark, Hive and Presto. Column types are derived from the data types of the input columns.")
+@Categorized(superCategory = WriteSuperCategory.class)
+@Distributed(false)
+public class CreateParquetFileAnalyzer extends AbstractOutputWriterAnalyzer implements HasLabelAdvice {
+
+    public static final String PROPERTY_FILE = "File";
+    public static final String PROPERTY_COMPRESSION_CODEC = "Compression codec";
+    public static final String PROPERTY_DICTIONARY_ENCODING = "Dictionary encoding";
+    public static final String PROPERTY_ROW_GROUP_SIZE = "Row group size (MB)";
+    public static final String PROPERTY_MAX_FILE_SIZE = "Max file size (MB)";
+    public static final String PROPERTY_OVERWRITE_FILE_IF_EXISTS = "Overwrite file if exists";
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    @Inject
+    @Configured(value = PROPERTY_FILE, order = 1)
+    @FileProperty(accessMode = FileAccessMode.SAVE, extension = "parquet")
+    File file;
+
+    @Inject
+    @Configured(value = PROPERTY_COMPRESSION_CODEC, order = 2, required = false)
+    ParquetCompressionCodec compressionCodec = ParquetCompressionCodec.SNAPPY;
+
+    @Inject
+    @Description("Encode columns with few distinct values using a dictionary.")
+    @Configured(value = PROPERTY_DICTIONARY_ENCODING, order = 3, required = false)
+    boolean dictionaryEncoding = true;
+
+    @Inject
+    @Description("The amount of data to buffer in memory before it is written as a row group.")
+    @Configured(value = PROPERTY_ROW_GROUP_SIZE, order = 4, required = false)
+    int rowGroupSize = 128;
+
+    @Inject
+    @Description("If set, the output is split into numbered part files of approximately this size, "
+            + "named after the file. 0 means that all data is written to a single file.")
+    @Configured(value = PROPERTY_MAX_FILE_SIZE, order = 5, required = false)
+    int maxFileSize = 0;
+
+    @Inject
+    @Configured(value = PROPERTY_OVERWRITE_FILE_IF_EXISTS, order = 6)
+    boolean overwriteFileIfExists;
+
+    @Inject
+    @Provided
+    UserPreferences userPreferences;
+
+    @Override
+    public String getSuggestedLabel() {
+        if (file == null) {
+            return null;
+        }
+        return file.getName();
+    }
+
+    @Validate
+    public void validate() {
+        if (rowGroupSize <= 0) {
+            throw new IllegalStateException("Row group size must be a positive number");
+        }
+        if (rowGroupSize > Integer.MAX_VALUE / MEGABYTE) {
+            throw new IllegalStateException(
+                    "Row group size cannot be more than " + (Integer.MAX_VALUE / MEGABYTE) + " MB");
+        }
+        if (maxFileSize < 0) {
+            throw new IllegalStateException("Max file size cannot be negative");
+        }
+        if (!overwriteFileIfExists && ParquetOutputWriter.getPartFile(file, maxFileSize, 0).exists()) {
+            throw new IllegalStateException(
+                    "The file already exists. Please configure the job to overwrite the existing file.");
+        }
+    }
+
+    @Override
+    public void configureForFilterOutcome(final AnalysisJobBuilder ajb, final FilterDescriptor<?, ?> descriptor,
+            final String categoryName) {
+        final String dsName = ajb.getDatastore().getName();
+        final File saveDatastoreDirectory = userPreferences.getSaveDatastoreDirectory();
+        file = new File(saveDatastoreDirectory,
+                dsName + "-" + descriptor.getDisplayName() + "-" + categoryName + ".parquet");
+    }
+
+    @Override
+    public void configureForTransformedData(final AnalysisJobBuilder ajb, final TransformerDescriptor<?> descriptor) {
+        final String dsName = ajb.getDatastore().getName();
+        final File saveDatastoreDirectory = userPreferences.getSaveDatastoreDirectory();
+        file = new File(saveDatastoreDirectory, dsName + "-" + descriptor.getDisplayName() + ".parquet");
+    }
+
+    @Override
+    public OutputWriter createOutputWriter() {
+        final String[] columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columnNames[i] = fields == null ? columns[i].getName() : fields[i];
+        }
+        final ParquetCompressionCodec codec =
+                compressionCodec == null ? ParquetCompressionCodec.SNAPPY : compressionCodec;
+        return new ParquetOutputWriter(file, columnNames, columns, codec, dictionaryEncoding,
+                (int) (rowGroupSize * MEGABYTE), maxFileSize * MEGABYTE);
+    }
+
+    @Override
+    protected WriteDataResult getResultInternal(final int rowCount) {
+        // there is no Parquet datastore to register the output as
+        return new WriteDataResultImpl(rowCount, 0, 0);
+    }
+
+    public void setFile(final File file) {
+        this.file = file;
+    }
+}
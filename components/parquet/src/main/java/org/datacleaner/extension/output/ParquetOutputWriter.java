@@ -0,0 +1,224 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+
+/**
+ * {@link OutputWriter} for Parquet files. Rows are buffered by Parquet into
+ * row groups, encoded column by column and compressed.
+ *
+ * If a maximum file size is set, the output is split into numbered part files
+ * next to the configured file, and a new part is started whenever the current
+ * one reaches the maximum size.
+ */
+final class ParquetOutputWriter implements OutputWriter {
+
+    /**
+     * The number of rows between checks of the size of the current file
+     */
+    private static final int SIZE_CHECK_INTERVAL = 1000;
+
+    private final File _file;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+    private final ParquetRowWriteSupport _writeSupport;
+    private final ParquetCompressionCodec _compressionCodec;
+    private final boolean _dictionaryEncoding;
+    private final int _rowGroupSize;
+    private final long _maxFileSize;
+    private final Configuration _configuration;
+    private final List<File> _writtenFiles;
+    private ParquetWriter<Object[]> _writer;
+    private long _rowsInFile;
+
+    public ParquetOutputWriter(final File file, final String[] columnNames, final InputColumn<?>[] columns,
+            final ParquetCompressionCodec compressionCodec, final boolean dictionaryEncoding, final int rowGroupSize,
+            final long maxFileSize) {
+        _file = file;
+        _columns = columns;
+        _compressionCodec = compressionCodec;
+        _dictionaryEncoding = dictionaryEncoding;
+        _rowGroupSize = rowGroupSize;
+        _maxFileSize = maxFileSize;
+        _writeSupport = new ParquetRowWriteSupport(columnNames, columns);
+        _writtenFiles = new ArrayList<>();
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.putIfAbsent(columns[i], i);
+        }
+
+        // write directly to the local file system, without checksum files
+        _configuration = new Configuration(false);
+        _configuration.setClass("fs.file.impl", RawLocalFileSystem.class, FileSystem.class);
+        _configuration.setBoolean("fs.file.impl.disable.cache", true);
+    }
+
+    /**
+     * Gets the file that a part of the output is written to.
+     *
+     * @param file
+     *            the configured file
+     * @param maxFileSize
+     * @param partIndex
+     * @return
+     */
+    static File getPartFile(final File file, final long maxFileSize, final int partIndex) {
+        if (maxFileSize <= 0) {
+            return file;
+        }
+        final String name = file.getName();
+        final int extensionIndex = name.lastIndexOf('.');
+        final String baseName = extensionIndex == -1 ? name : name.substring(0, extensionIndex);
+        final String extension = extensionIndex == -1 ? "" : name.substring(extensionIndex);
+        return new File(file.getAbsoluteFile().getParentFile(),
+                baseName + "-" + String.format("%05d", partIndex) + extension);
+    }
+
+    /**
+     * Gets the files written so far
+     *
+     * @return
+     */
+    public List<File> getWrittenFiles() {
+        return Collections.unmodifiableList(_writtenFiles);
+    }
+
+    @Override
+    public OutputRow createRow() {
+        return new ParquetOutputRow();
+    }
+
+    private synchronized void writeRow(final Object[] values) {
+        try {
+            if (_writer == null) {
+                openWriter();
+            }
+            _writer.write(values);
+            _rowsInFile++;
+            if (_maxFileSize > 0 && _rowsInFile % SIZE_CHECK_INTERVAL == 0 && _writer.getDataSize() >= _maxFileSize) {
+                closeWriter();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to write Parquet file: " + _writtenFiles, e);
+        }
+    }
+
+    private void openWriter() throws IOException {
+        final File file = getPartFile(_file, _maxFileSize, _writtenFiles.size());
+        final Path path = new Path(file.getAbsoluteFile().toURI());
+        _writer = new ParquetWriterBuilder(path, _writeSupport).withConf(_configuration)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE).withCompressionCodec(_compressionCodec.getCodecName())
+                .withDictionaryEncoding(_dictionaryEncoding).withRowGroupSize(_rowGroupSize).build();
+        _writtenFiles.add(file);
+        _rowsInFile = 0;
+    }
+
+    private void closeWriter() throws IOException {
+        final ParquetWriter<Object[]> writer = _writer;
+        _writer = null;
+        writer.close();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (_writer == null && _writtenFiles.isEmpty()) {
+                // write a file with the schema, even if there are no rows
+                openWriter();
+            }
+            if (_writer != null) {
+                closeWriter();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to close Parquet file: " + _writtenFiles, e);
+        }
+    }
+
+    private static final class ParquetWriterBuilder extends ParquetWriter.Builder<Object[], ParquetWriterBuilder> {
+
+        private final WriteSupport<Object[]> _writeSupport;
+
+        ParquetWriterBuilder(final Path path, final WriteSupport<Object[]> writeSupport) {
+            super(path);
+            _writeSupport = writeSupport;
+        }
+
+        @Override
+        protected ParquetWriterBuilder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Object[]> getWriteSupport(final Configuration configuration) {
+            return _writeSupport;
+        }
+    }
+
+    private final class ParquetOutputRow implements OutputRow {
+
+        private final Object[] _values = new Object[_columns.length];
+
+        @Override
+        public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
+            final Integer index = _columnIndexes.get(inputColumn);
+            if (index != null) {
+                // the same column may be configured more than once
+                for (int i = index; i < _columns.length; i++) {
+                    if (_columns[i].equals(inputColumn)) {
+                        _values[i] = value;
+                    }
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public OutputRow setValues(final InputRow row) {
+            for (int i = 0; i < _columns.length; i++) {
+                _values[i] = row.getValue(_columns[i]);
+            }
+            return this;
+        }
+
+        @Override
+        public void write() {
+            writeRow(_values);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.convert.ConvertToBooleanTransformer;
+import org.datacleaner.components.convert.ConvertToDateTransformer;
+import org.datacleaner.components.convert.ConvertToNumberTransformer;
+import org.datacleaner.util.ReflectionUtils;
+
+/**
+ * {@link WriteSupport} which writes rows of values directly to the Parquet
+ * {@link RecordConsumer}. The (optional) Parquet type of each field is derived
+ * from the data type of its {@link InputColumn}.
+ *
+ * {@link BigDecimal} columns are written as DECIMAL(38,18), like Spark does by
+ * default, so values with more than 18 decimals are rounded. Columns of other
+ * (or unspecified) number types are written as DOUBLE, and thus lose precision
+ * beyond that of a double. Values which cannot be converted to the type of
+ * their field, or which are out of its range, are rejected before anything of
+ * the row is written.
+ */
+final class ParquetRowWriteSupport extends WriteSupport<Object[]> {
+
+    private static final String ILLEGAL_FIELD_NAME_CHARS = " ,;{}()\n\t=";
+
+    static final int DECIMAL_PRECISION = 38;
+    static final int DECIMAL_SCALE = 18;
+    private static final int DECIMAL_LENGTH = 16;
+    private static final BigDecimal MIN_LONG = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_LONG = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final MessageType _schema;
+    private final String[] _fieldNames;
+    private final PrimitiveTypeName[] _fieldTypes;
+    private final OriginalType[] _originalTypes;
+    private final Object[] _convertedValues;
+    private RecordConsumer _recordConsumer;
+
+    public ParquetRowWriteSupport(final String[] columnNames, final InputColumn<?>[] columns) {
+        _fieldNames = new String[columns.length];
+        _fieldTypes = new PrimitiveTypeName[columns.length];
+        _originalTypes = new OriginalType[columns.length];
+        _convertedValues = new Object[columns.length];
+
+        final Set<String> usedFieldNames = new HashSet<>();
+        final Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (int i = 0; i < columns.length; i++) {
+            _fieldNames[i] = toUniqueFieldName(toFieldName(columnNames[i]), usedFieldNames);
+            setFieldType(i, columns[i].getDataType());
+            if (_originalTypes[i] == OriginalType.DECIMAL) {
+                builder.addField(Types.optional(_fieldTypes[i]).length(DECIMAL_LENGTH).as(OriginalType.DECIMAL)
+                        .precision(DECIMAL_PRECISION).scale(DECIMAL_SCALE).named(_fieldNames[i]));
+            } else {
+                builder.addField(Types.optional(_fieldTypes[i]).as(_originalTypes[i]).named(_fieldNames[i]));
+            }
+        }
+        _schema = builder.named("datacleaner");
+    }
+
+    /**
+     * Replaces characters that Spark and Hive do not accept in field names
+     *
+     * @param columnName
+     * @return
+     */
+    static String toFieldName(final String columnName) {
+        final StringBuilder sb = new StringBuilder(columnName.length());
+        for (int i = 0; i < columnName.length(); i++) {
+            final char c = columnName.charAt(i);
+            sb.append(ILLEGAL_FIELD_NAME_CHARS.indexOf(c) == -1 ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends a number to a field name which is already used. Names are
+     * compared ignoring case, since Spark and Hive do not distinguish fields by
+     * case either.
+     *
+     * @param fieldName
+     * @param usedFieldNames
+     *            the (lower case) field names used so far
+     * @return
+     */
+    static String toUniqueFieldName(final String fieldName, final Set<String> usedFieldNames) {
+        String uniqueName = fieldName;
+        for (int i = 2; !usedFieldNames.add(uniqueName.toLowerCase(Locale.ROOT)); i++) {
+            uniqueName = fieldName + "_" + i;
+        }
+        return uniqueName;
+    }
+
+    private void setFieldType(final int index, final Class<?> dataType) {
+        if (dataType == null) {
+            _fieldTypes[index] = PrimitiveTypeName.BINARY;
+            _originalTypes[index] = OriginalType.UTF8;
+        } else if (dataType == Integer.class || dataType == Short.class || dataType == Byte.class) {
+            _fieldTypes[index] = PrimitiveTypeName.INT32;
+        } else if (dataType == Long.class) {
+            _fieldTypes[index] = PrimitiveTypeName.INT64;
+        } else if (dataType == Float.class) {
+            _fieldTypes[index] = PrimitiveTypeName.FLOAT;
+        } else if (dataType == BigDecimal.class) {
+            _fieldTypes[index] = PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+            _originalTypes[index] = OriginalType.DECIMAL;
+        } else if (ReflectionUtils.isNumber(dataType)) {
+            _fieldTypes[index] = PrimitiveTypeName.DOUBLE;
+        } else if (ReflectionUtils.isBoolean(dataType)) {
+            _fieldTypes[index] = PrimitiveTypeName.BOOLEAN;
+        } else if (ReflectionUtils.isDate(dataType)) {
+            _fieldTypes[index] = PrimitiveTypeName.INT64;
+            _originalTypes[index] = OriginalType.TIMESTAMP_MILLIS;
+        } else if (ReflectionUtils.isByteArray(dataType)) {
+            _fieldTypes[index] = PrimitiveTypeName.BINARY;
+        } else {
+            _fieldTypes[index] = PrimitiveTypeName.BINARY;
+            _originalTypes[index] = OriginalType.UTF8;
+        }
+    }
+
+    public MessageType getSchema() {
+        return _schema;
+    }
+
+    @Override
+    public WriteContext init(final Configuration configuration) {
+        return new WriteContext(_schema, Collections.emptyMap());
+    }
+
+    @Override
+    public void prepareForWrite(final RecordConsumer recordConsumer) {
+        _recordConsumer = recordConsumer;
+    }
+
+    @Override
+    public void write(final Object[] values) {
+        // convert all values before starting the record, so that an invalid
+        // value does not leave a partially written record behind. Writes are
+        // serialized by the ParquetWriter, so the buffer can be reused.
+        for (int i = 0; i < _fieldNames.length; i++) {
+            final Object value = values[i];
+            _convertedValues[i] = value == null ? null : convertValue(i, value);
+        }
+
+        _recordConsumer.startMessage();
+        for (int i = 0; i < _fieldNames.length; i++) {
+            final Object value = _convertedValues[i];
+            if (value != null) {
+                _recordConsumer.startField(_fieldNames[i], i);
+                addValue(i, value);
+                _recordConsumer.endField(_fieldNames[i], i);
+            }
+        }
+        _recordConsumer.endMessage();
+    }
+
+    private Object convertValue(final int index, final Object value) {
+        switch (_fieldTypes[index]) {
+        case INT32:
+            return toInt(value);
+        case INT64:
+            if (_originalTypes[index] == OriginalType.TIMESTAMP_MILLIS) {
+                return toDate(value).getTime();
+            }
+            return toLong(value);
+        case FLOAT:
+            return toNumber(value).floatValue();
+        case DOUBLE:
+            return toNumber(value).doubleValue();
+        case BOOLEAN:
+            return toBoolean(value);
+        case FIXED_LEN_BYTE_ARRAY:
+            return Binary.fromConstantByteArray(toDecimalBytes(value));
+        default:
+            if (_originalTypes[index] == null && value instanceof byte[]) {
+                return Binary.fromConstantByteArray((byte[]) value);
+            }
+            return Binary.fromString(value.toString());
+        }
+    }
+
+    private void addValue(final int index, final Object value) {
+        switch (_fieldTypes[index]) {
+        case INT32:
+            _recordConsumer.addInteger((Integer) value);
+            break;
+        case INT64:
+            _recordConsumer.addLong((Long) value);
+            break;
+        case FLOAT:
+            _recordConsumer.addFloat((Float) value);
+            break;
+        case DOUBLE:
+            _recordConsumer.addDouble((Double) value);
+            break;
+        case BOOLEAN:
+            _recordConsumer.addBoolean((Boolean) value);
+            break;
+        default:
+            _recordConsumer.addBinary((Binary) value);
+        }
+    }
+
+    private static int toInt(final Object value) {
+        final long longValue = toLong(value);
+        if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value out of range for INT32: " + value);
+        }
+        return (int) longValue;
+    }
+
+    private static long toLong(final Object value) {
+        final Number number = toNumber(value);
+        if (number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte) {
+            return number.longValue();
+        }
+
+        final BigDecimal decimal;
+        if (number instanceof BigDecimal) {
+            decimal = (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            decimal = new BigDecimal((BigInteger) number);
+        } else {
+            final double doubleValue = number.doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                throw new IllegalArgumentException("Value out of range for INT64: " + value);
+            }
+            decimal = new BigDecimal(doubleValue);
+        }
+        if (decimal.compareTo(MIN_LONG) < 0 || decimal.compareTo(MAX_LONG) > 0) {
+            throw new IllegalArgumentException("Value out of range for INT64: " + value);
+        }
+        return decimal.longValue();
+    }
+
+    private static Number toNumber(final Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        final Number number = ConvertToNumberTransformer.transformValue(value);
+        if (number == null) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+        return number;
+    }
+
+    /**
+     * Gets the big endian two's complement bytes of the unscaled value of a
+     * DECIMAL(38,18) value
+     */
+    static byte[] toDecimalBytes(final Object value) {
+        final Number number = toNumber(value);
+        final BigDecimal decimal =
+                number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+        final BigDecimal scaled = decimal.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP);
+        if (scaled.precision() > DECIMAL_PRECISION) {
+            throw new IllegalArgumentException(
+                    "Decimal value out of range for DECIMAL(" + DECIMAL_PRECISION + "," + DECIMAL_SCALE + "): "
+                            + value);
+        }
+        final byte[] unscaled = scaled.unscaledValue().toByteArray();
+        final byte[] bytes = new byte[DECIMAL_LENGTH];
+        final byte signExtension = (byte) (scaled.signum() < 0 ? 0xFF : 0x00);
+        final int offset = DECIMAL_LENGTH - unscaled.length;
+        for (int i = 0; i < DECIMAL_LENGTH; i++) {
+            bytes[i] = i < offset ? signExtension : unscaled[i - offset];
+        }
+        return bytes;
+    }
+
+    private static Date toDate(final Object value) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        final Date date = ConvertToDateTransformer.getInternalInstance().transformValue(value);
+        if (date == null) {
+            throw new IllegalArgumentException("Not a date: " + value);
+        }
+        return date;
+    }
+
+    private static boolean toBoolean(final Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        final Boolean bool = ConvertToBooleanTransformer.transformValue(value);
+        if (bool == null) {
+            throw new IllegalArgumentException("Not a boolean: " + value);
+        }
+        return bool;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.schema.MessageType;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.beans.writers.WriteDataResult;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+
+import junit.framework.TestCase;
+
+public class CreateParquetFileAnalyzerTest extends TestCase {
+
+    private final InputColumn<String> nameColumn = new MockInputColumn<>("Name", String.class);
+    private final InputColumn<Integer> ageColumn = new MockInputColumn<>("Age", Integer.class);
+    private final InputColumn<Double> scoreColumn = new MockInputColumn<>("Score", Double.class);
+    private final InputColumn<Boolean> activeColumn = new MockInputColumn<>("Active", Boolean.class);
+    private final InputColumn<Date> createdColumn = new MockInputColumn<>("Created at", Date.class);
+
+    private File directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        directory = new File("target/parquet-test-" + getName());
+        if (directory.exists()) {
+            for (final File file : directory.listFiles()) {
+                file.delete();
+            }
+        }
+        directory.mkdirs();
+    }
+
+    public void testWriteTypedColumns() throws Exception {
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "output.parquet");
+        analyzer.columns = new InputColumn<?>[] { nameColumn, ageColumn, scoreColumn, activeColumn, createdColumn };
+        analyzer.validate();
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(nameColumn, "foo").put(ageColumn, 42).put(scoreColumn, 1.5)
+                .put(activeColumn, true).put(createdColumn, new Date(1000)), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "bar").put(ageColumn, null).put(scoreColumn, "2.5")
+                .put(activeColumn, false).put(createdColumn, null), 1);
+
+        final WriteDataResult result = analyzer.getResult();
+        assertEquals(2, result.getWrittenRowCount());
+        assertNull(result.getDatastore(null));
+
+        final List<Group> groups = read(analyzer.file);
+        assertEquals(2, groups.size());
+
+        final MessageType schema = (MessageType) groups.get(0).getType();
+        assertEquals("message datacleaner {\n" + "  optional binary Name (UTF8);\n" + "  optional int32 Age;\n"
+                + "  optional double Score;\n" + "  optional boolean Active;\n"
+                + "  optional int64 Created_at (TIMESTAMP_MILLIS);\n" + "}\n", schema.toString());
+
+        final Group foo = groups.get(0);
+        assertEquals("foo", foo.getString("Name", 0));
+        assertEquals(42, foo.getInteger("Age", 0));
+        assertEquals(1.5, foo.getDouble("Score", 0));
+        assertTrue(foo.getBoolean("Active", 0));
+        assertEquals(1000L, foo.getLong("Created_at", 0));
+
+        final Group bar = groups.get(1);
+        assertEquals("bar", bar.getString("Name", 0));
+        assertEquals(0, bar.getFieldRepetitionCount("Age"));
+        assertEquals(2.5, bar.getDouble("Score", 0));
+        assertFalse(bar.getBoolean("Active", 0));
+        assertEquals(0, bar.getFieldRepetitionCount("Created_at"));
+    }
+
+    public void testRollFilesBySize() throws Exception {
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "rolled.parquet");
+        analyzer.columns = new InputColumn<?>[] { nameColumn, ageColumn };
+        analyzer.compressionCodec = ParquetCompressionCodec.GZIP;
+        analyzer.rowGroupSize = 1;
+        analyzer.maxFileSize = 1;
+        analyzer.validate();
+        analyzer.init();
+
+        final int rowCount = 100000;
+        for (int i = 0; i < rowCount; i++) {
+            analyzer.run(new MockInputRow().put(nameColumn, "name-" + i + "-" + (i * 7919L)).put(ageColumn, i), 1);
+        }
+        analyzer.getResult();
+
+        final List<File> files = ((ParquetOutputWriter) analyzer.outputWriter).getWrittenFiles();
+        assertTrue("Expected multiple files, got " + files, files.size() > 1);
+        assertEquals(new File(directory, "rolled-00000.parquet").getAbsolutePath(),
+                files.get(0).getAbsolutePath());
+
+        int total = 0;
+        for (final File file : files) {
+            total += read(file).size();
+        }
+        assertEquals(rowCount, total);
+        for (final File file : directory.listFiles()) {
+            assertFalse(file.getName(), file.getName().endsWith(".crc"));
+        }
+    }
+
+    public void testValidateExistingFile() throws Exception {
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "existing.parquet");
+        analyzer.file.createNewFile();
+        try {
+            analyzer.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("The file already exists. Please configure the job to overwrite the existing file.",
+                    e.getMessage());
+        }
+        analyzer.overwriteFileIfExists = true;
+        analyzer.validate();
+    }
+
+    public void testWriteDecimalColumn() throws Exception {
+        final InputColumn<BigDecimal> amountColumn = new MockInputColumn<>("Amount", BigDecimal.class);
+
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "decimal.parquet");
+        analyzer.columns = new InputColumn<?>[] { amountColumn };
+        analyzer.validate();
+        analyzer.init();
+
+        final String[] amounts = { "12345678901234567890.123456789012345678", "-0.1", "3" };
+        for (final String amount : amounts) {
+            analyzer.run(new MockInputRow().put(amountColumn, new BigDecimal(amount)), 1);
+        }
+        analyzer.getResult();
+
+        final List<Group> groups = read(analyzer.file);
+        assertEquals("message datacleaner {\n" + "  optional fixed_len_byte_array(16) Amount (DECIMAL(38,18));\n"
+                + "}\n", groups.get(0).getType().toString());
+
+        final List<String> values = new ArrayList<>();
+        for (final Group group : groups) {
+            final BigInteger unscaled = new BigInteger(group.getBinary("Amount", 0).getBytes());
+            values.add(new BigDecimal(unscaled, 18).stripTrailingZeros().toPlainString());
+        }
+        assertEquals("[12345678901234567890.123456789012345678, -0.1, 3]", values.toString());
+    }
+
+    public void testValidateRowGroupSize() throws Exception {
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "rowgroupsize.parquet");
+        analyzer.rowGroupSize = 2047;
+        analyzer.validate();
+
+        analyzer.rowGroupSize = 2048;
+        try {
+            analyzer.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Row group size cannot be more than 2047 MB", e.getMessage());
+        }
+    }
+
+    public void testRejectOutOfRangeValuesBeforeWritingRow() throws Exception {
+        final InputColumn<Long> idColumn = new MockInputColumn<>("Id", Long.class);
+
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "outofrange.parquet");
+        analyzer.columns = new InputColumn<?>[] { nameColumn, ageColumn, idColumn };
+        analyzer.validate();
+        analyzer.init();
+
+        try {
+            analyzer.run(new MockInputRow().put(nameColumn, "foo").put(ageColumn, 3000000000L).put(idColumn, 1L), 1);
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Value out of range for INT32: 3000000000", e.getMessage());
+        }
+        try {
+            analyzer.run(new MockInputRow().put(nameColumn, "bar").put(ageColumn, 1).put(idColumn, BigInteger.TEN.pow(20)), 1);
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Value out of range for INT64: 100000000000000000000", e.getMessage());
+        }
+        analyzer.run(new MockInputRow().put(nameColumn, "baz").put(ageColumn, 42L).put(idColumn, 2.0), 1);
+        analyzer.getResult();
+
+        final List<Group> groups = read(analyzer.file);
+        assertEquals(1, groups.size());
+        assertEquals("baz", groups.get(0).getString("Name", 0));
+        assertEquals(42, groups.get(0).getInteger("Age", 0));
+        assertEquals(2L, groups.get(0).getLong("Id", 0));
+    }
+
+    public void testDeduplicateFieldNames() throws Exception {
+        final InputColumn<String> column1 = new MockInputColumn<>("First name", String.class);
+        final InputColumn<String> column2 = new MockInputColumn<>("First_name", String.class);
+        final InputColumn<String> column3 = new MockInputColumn<>("first name", String.class);
+
+        final CreateParquetFileAnalyzer analyzer = new CreateParquetFileAnalyzer();
+        analyzer.file = new File(directory, "fieldnames.parquet");
+        analyzer.columns = new InputColumn<?>[] { column1, column2, column3, column1 };
+        analyzer.validate();
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(column1, "a").put(column2, "b").put(column3, "c"), 1);
+        analyzer.getResult();
+
+        final List<Group> groups = read(analyzer.file);
+        assertEquals("message datacleaner {\n" + "  optional binary First_name (UTF8);\n"
+                + "  optional binary First_name_2 (UTF8);\n" + "  optional binary first_name_3 (UTF8);\n"
+                + "  optional binary First_name_4 (UTF8);\n" + "}\n", groups.get(0).getType().toString());
+        assertEquals("a", groups.get(0).getString("First_name", 0));
+        assertEquals("b", groups.get(0).getString("First_name_2", 0));
+        assertEquals("c", groups.get(0).getString("first_name_3", 0));
+        assertEquals("a", groups.get(0).getString("First_name_4", 0));
+    }
+
+    private static List<Group> read(final File file) throws Exception {
+        final List<Group> groups = new ArrayList<>();
+        try (ParquetReader<Group> reader = ParquetReader
+                .builder(new GroupReadSupport(), new Path(file.getAbsoluteFile().toURI())).build()) {
+            Group group;
+            while ((group = reader.read()) != null) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+}
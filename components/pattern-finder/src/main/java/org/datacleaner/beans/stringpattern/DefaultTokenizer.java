@@ -22,7 +22,6 @@ package org.datacleaner.beans.stringpattern;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -38,6 +37,7 @@ public class DefaultTokenizer implements Serializable, Tokenizer {
 
     private final TokenizerConfiguration _configuration;
     private final boolean _predefinedTokens;
+    private transient PredefinedTokenTokenizer _predefinedTokenTokenizer;
 
     public DefaultTokenizer() {
         this(new TokenizerConfiguration());
@@ -61,7 +61,7 @@ public class DefaultTokenizer implements Serializable, Tokenizer {
 
     protected static List<SimpleToken> preliminaryTokenize(final String string,
             final TokenizerConfiguration configuration) {
-        final LinkedList<SimpleToken> result = new LinkedList<>();
+        final List<SimpleToken> result = new ArrayList<>(string.length() / 2 + 1);
         SimpleToken lastToken = null;
 
         final CharIterator ci = new CharIterator(string);
@@ -203,9 +203,7 @@ public class DefaultTokenizer implements Serializable, Tokenizer {
         final List<Token> tokens;
 
         if (_predefinedTokens) {
-            final List<PredefinedTokenDefinition> predefinedTokens = _configuration.getPredefinedTokens();
-            final PredefinedTokenTokenizer tokenizer = new PredefinedTokenTokenizer(predefinedTokens);
-            tokens = tokenizer.tokenize(pattern);
+            tokens = getPredefinedTokenTokenizer().tokenize(pattern);
             for (final ListIterator<Token> it = tokens.listIterator(); it.hasNext(); ) {
                 final Token token = it.next();
                 final TokenType tokenType = token.getType();
@@ -228,13 +226,23 @@ public class DefaultTokenizer implements Serializable, Tokenizer {
                 }
             }
         } else {
-            tokens = new ArrayList<>();
-            tokens.addAll(tokenizeInternal(pattern));
+            tokens = new ArrayList<>(tokenizeInternal(pattern));
         }
 
         return tokens;
     }
 
+    private PredefinedTokenTokenizer getPredefinedTokenTokenizer() {
+        // the tokenizer is stateless, so it can be reused across calls and
+        // threads. A benign race may create more than one instance.
+        PredefinedTokenTokenizer tokenizer = _predefinedTokenTokenizer;
+        if (tokenizer == null) {
+            tokenizer = new PredefinedTokenTokenizer(_configuration.getPredefinedTokens());
+            _predefinedTokenTokenizer = tokenizer;
+        }
+        return tokenizer;
+    }
+
     private List<SimpleToken> tokenizeInternal(final String string) {
         List<SimpleToken> tokens = preliminaryTokenize(string, _configuration);
 
@@ -40,7 +40,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class PatternFinder<R> {
 
-    private final ConcurrentHashMap<String, Collection<TokenPattern>> _patterns;
+    private final ConcurrentHashMap<Long, Collection<TokenPattern>> _patterns;
     private final TokenizerConfiguration _configuration;
     private final Tokenizer _tokenizer;
 
@@ -76,7 +76,7 @@ public abstract class PatternFinder<R> {
             throw new IllegalStateException("Error occurred while tokenizing value: " + value, e);
         }
 
-        final String patternCode = getPatternCode(tokens);
+        final long patternCode = getPatternCode(tokens);
         final Collection<TokenPattern> patterns = getOrCreatePatterns(patternCode);
 
         // lock on "patterns" since it is going to be the same collection for
@@ -112,7 +112,7 @@ public abstract class PatternFinder<R> {
      * @param patternCode
      * @return
      */
-    private Collection<TokenPattern> getOrCreatePatterns(final String patternCode) {
+    private Collection<TokenPattern> getOrCreatePatterns(final long patternCode) {
         // first try the cheapest get(..) method
         final Collection<TokenPattern> patterns = _patterns.get(patternCode);
         if (patterns != null) {
@@ -129,19 +129,22 @@ public abstract class PatternFinder<R> {
     }
 
     /**
-     * Creates an almost unique String code for a list of tokens. This code is
+     * Creates an almost unique 64 bit code for a list of tokens. This code is
      * used to improve search time when looking for potential matching patterns.
+     * Collisions are harmless since candidate patterns are always matched
+     * against the tokens afterwards.
      *
      * @param tokens
      * @return
      */
-    private String getPatternCode(final List<Token> tokens) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(tokens.size());
+    private long getPatternCode(final List<Token> tokens) {
+        // FNV-1a hash of the token count and token types
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ tokens.size()) * 0x100000001b3L;
         for (final Token token : tokens) {
-            sb.append(token.getType().ordinal());
+            hash = (hash ^ token.getType().ordinal()) * 0x100000001b3L;
         }
-        return sb.toString();
+        return hash;
     }
 
     public Collection<TokenPattern> getPatterns() {
@@ -36,6 +36,7 @@ import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.ExternalDocumentation;
 import org.datacleaner.api.ExternalDocumentation.DocumentationLink;
 import org.datacleaner.api.ExternalDocumentation.DocumentationType;
@@ -61,6 +62,7 @@ import org.slf4j.LoggerFactory;
         url = "http://kasper.eobjects.org/2010/09/pattern-finder-20-latest-feature-in.html",
         type = DocumentationType.TECH, version = "2.0") })
 @Concurrent(true)
+@DistinctCountAware
 public class PatternFinderAnalyzer implements Analyzer<PatternFinderResult> {
 
     public static final String PROPERTY_COLUMN = "Column";
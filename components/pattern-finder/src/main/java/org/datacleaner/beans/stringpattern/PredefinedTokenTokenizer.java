@@ -42,29 +42,39 @@ public class PredefinedTokenTokenizer implements Tokenizer {
         _predefinedTokenDefitions = predefinedTokenDefinitions;
     }
 
-    protected static List<Token> tokenizeInternal(String string,
+    protected static List<Token> tokenizeInternal(final String string,
             final PredefinedTokenDefinition predefinedTokenDefinition, final Pattern pattern) {
-        final LinkedList<Token> result = new LinkedList<>();
-        result.add(new UndefinedToken(string));
-
-        for (Matcher matcher = pattern.matcher(string); matcher.find(); matcher = pattern.matcher(string)) {
+        final List<Token> result = new ArrayList<>(3);
 
+        // a single matcher is reused by moving its region past each match,
+        // which is equivalent to matching on the remaining substring.
+        final Matcher matcher = pattern.matcher(string);
+        int offset = 0;
+        while (offset < string.length() && matcher.find()) {
             final int start = matcher.start();
             final int end = matcher.end();
 
-            result.removeLast();
+            if (start == end) {
+                // zero-length matches do not make a token - continue searching
+                // from the next character (which may be a surrogate pair)
+                if (end == string.length()) {
+                    break;
+                }
+                matcher.region(end + Character.charCount(string.codePointAt(end)), string.length());
+                continue;
+            }
 
-            if (start > 0) {
-                result.add(new UndefinedToken(string.substring(0, start)));
+            if (start > offset) {
+                result.add(new UndefinedToken(string.substring(offset, start)));
             }
             result.add(new PredefinedToken(predefinedTokenDefinition, string.substring(start, end)));
 
-            if (end == string.length()) {
-                break;
-            }
+            offset = end;
+            matcher.region(offset, string.length());
+        }
 
-            string = string.substring(end);
-            result.add(new UndefinedToken(string));
+        if (offset < string.length() || result.isEmpty()) {
+            result.add(new UndefinedToken(string.substring(offset)));
         }
 
         return result;
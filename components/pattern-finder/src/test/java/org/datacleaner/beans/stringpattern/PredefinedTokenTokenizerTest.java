@@ -86,6 +86,58 @@ public class PredefinedTokenTokenizerTest extends TestCase {
         assertEquals("Token['hello' (PREDEFINED greeting)]", tokens.get(1).toString());
     }
 
+    public void testAdjacentTokens() throws Exception {
+        final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("code", "AB");
+        final List<Token> tokens = PredefinedTokenTokenizer
+                .tokenizeInternal("ABAB-AB", pt, pt.getTokenRegexPatterns().iterator().next());
+        assertEquals(4, tokens.size());
+        assertEquals("Token['AB' (PREDEFINED code)]", tokens.get(0).toString());
+        assertEquals("Token['AB' (PREDEFINED code)]", tokens.get(1).toString());
+        assertEquals("UndefinedToken['-']", tokens.get(2).toString());
+        assertEquals("Token['AB' (PREDEFINED code)]", tokens.get(3).toString());
+    }
+
+    public void testOverlappingMatches() throws Exception {
+        // "aba" occurs twice in "ababa", but the occurrences overlap, so only
+        // the first one becomes a token
+        final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("aba", "aba");
+        final List<Token> tokens = PredefinedTokenTokenizer
+                .tokenizeInternal("ababa", pt, pt.getTokenRegexPatterns().iterator().next());
+        assertEquals(2, tokens.size());
+        assertEquals("Token['aba' (PREDEFINED aba)]", tokens.get(0).toString());
+        assertEquals("UndefinedToken['ba']", tokens.get(1).toString());
+    }
+
+    public void testAnchoredPatternOnlyMatchesAtStartOfRemainder() throws Exception {
+        // the remainder after a match is matched as if it was a separate
+        // string, so anchors apply to the start of the remainder
+        final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("number", "^[0-9]+");
+        final List<Token> tokens = PredefinedTokenTokenizer
+                .tokenizeInternal("12ab34", pt, pt.getTokenRegexPatterns().iterator().next());
+        assertEquals(2, tokens.size());
+        assertEquals("Token['12' (PREDEFINED number)]", tokens.get(0).toString());
+        assertEquals("UndefinedToken['ab34']", tokens.get(1).toString());
+    }
+
+    public void testEmptyMatchesAreIgnored() throws Exception {
+        final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("digits", "[0-9]*");
+        final Pattern pattern = pt.getTokenRegexPatterns().iterator().next();
+
+        List<Token> tokens = PredefinedTokenTokenizer.tokenizeInternal("ab12c", pt, pattern);
+        assertEquals(3, tokens.size());
+        assertEquals("UndefinedToken['ab']", tokens.get(0).toString());
+        assertEquals("Token['12' (PREDEFINED digits)]", tokens.get(1).toString());
+        assertEquals("UndefinedToken['c']", tokens.get(2).toString());
+
+        tokens = PredefinedTokenTokenizer.tokenizeInternal("abc", pt, pattern);
+        assertEquals(1, tokens.size());
+        assertEquals("UndefinedToken['abc']", tokens.get(0).toString());
+
+        tokens = new PredefinedTokenTokenizer(pt).tokenize("abc");
+        assertEquals(1, tokens.size());
+        assertEquals("UndefinedToken['abc']", tokens.get(0).toString());
+    }
+
     public void testSimpleTokenSeparation() throws Exception {
         final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("greeting", "hi", "hello", "howdy");
 
@@ -106,4 +158,15 @@ public class PredefinedTokenTokenizerTest extends TestCase {
         assertEquals("UndefinedToken[' world ']", tokens.get(5).toString());
         assertEquals("Token['hi' (PREDEFINED greeting)]", tokens.get(6).toString());
     }
+
+    public void testEmptyMatchesDoNotSplitSurrogatePairs() throws Exception {
+        // the pattern matches a lone low surrogate, which only occurs inside
+        // the surrogate pair of the emoji
+        final PredefinedTokenDefinition pt = new PredefinedTokenDefinition("low", "[\\uDE00]*");
+        final Pattern pattern = pt.getTokenRegexPatterns().iterator().next();
+
+        final List<Token> tokens = PredefinedTokenTokenizer.tokenizeInternal("a\uD83D\uDE00b", pt, pattern);
+        assertEquals(1, tokens.size());
+        assertEquals("a\uD83D\uDE00b", tokens.get(0).getString());
+    }
 }
@@ -35,8 +35,8 @@ import org.datacleaner.components.categories.ImproveSuperCategory;
 import org.datacleaner.components.categories.ReferenceDataCategory;
 import org.datacleaner.components.convert.ConvertToStringTransformer;
 import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.reference.MultiStringPatternMatcher;
 import org.datacleaner.reference.StringPattern;
-import org.datacleaner.reference.StringPatternConnection;
 
 @Named("String pattern matcher")
 @Description("Matches string values against a set of string patterns, producing a corresponding set "
@@ -56,7 +56,7 @@ public class StringPatternMatcherTransformer implements Transformer {
     @Provided
     DataCleanerConfiguration _configuration;
 
-    private StringPatternConnection[] stringPatternConnections;
+    private MultiStringPatternMatcher stringPatternMatcher;
 
     public StringPatternMatcherTransformer(final InputColumn<?> column, final StringPattern[] stringPatterns,
             final DataCleanerConfiguration configuration) {
@@ -71,19 +71,14 @@ public class StringPatternMatcherTransformer implements Transformer {
 
     @Initialize
     public void init() {
-        stringPatternConnections = new StringPatternConnection[_stringPatterns.length];
-        for (int i = 0; i < _stringPatterns.length; i++) {
-            stringPatternConnections[i] = _stringPatterns[i].openConnection(_configuration);
-        }
+        stringPatternMatcher = new MultiStringPatternMatcher(_stringPatterns, _configuration);
     }
 
     @Close
     public void close() {
-        if (stringPatternConnections != null) {
-            for (final StringPatternConnection stringPatternConnection : stringPatternConnections) {
-                stringPatternConnection.close();
-            }
-            stringPatternConnections = null;
+        if (stringPatternMatcher != null) {
+            stringPatternMatcher.close();
+            stringPatternMatcher = null;
         }
     }
 
@@ -108,11 +103,12 @@ public class StringPatternMatcherTransformer implements Transformer {
     }
 
     public Object[] doMatching(final Object value) {
-        final Object[] result = new Object[stringPatternConnections.length];
         final String stringValue = ConvertToStringTransformer.transformValue(value);
+        final boolean[] matchesArray = stringPatternMatcher.matches(stringValue);
+        final Object[] result = new Object[matchesArray.length];
 
         for (int i = 0; i < result.length; i++) {
-            final boolean matches = stringPatternConnections[i].matches(stringValue);
+            final boolean matches = matchesArray[i];
             if (_outputType == MatchOutputType.TRUE_FALSE) {
                 result[i] = matches;
             } else if (_outputType == MatchOutputType.INPUT_OR_NULL) {
@@ -68,7 +68,7 @@ public class RemoveDictionaryMatchesTransformerTest {
         // single-word) the result will vary a bit here. Multi-word matches will
         // represent the sentence as it is in the dictionary. Single-word
         // matches will represent the match found in the string.
-        assertEquals("assistant to the LEAD JUNIOR",
+        assertEquals("Assistant to the LEAD JUNIOR",
                 transformer.transform("ASSISTANT TO THE LEAD GURU OF JUNIOR EMPLOYEES")[1]);
 
         transformer.close();
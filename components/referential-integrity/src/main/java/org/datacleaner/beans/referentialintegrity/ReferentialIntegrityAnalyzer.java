@@ -19,9 +19,19 @@
  */
 package org.datacleaner.beans.referentialintegrity;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.util.HasName;
 import org.datacleaner.api.Alias;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Close;
@@ -37,14 +47,37 @@ import org.datacleaner.api.SchemaProperty;
 import org.datacleaner.api.TableProperty;
 import org.datacleaner.components.tablelookup.TableLookupTransformer;
 import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.storage.RowAnnotation;
 import org.datacleaner.storage.RowAnnotationFactory;
+import org.datacleaner.util.CompactStringSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Named("Referential integrity")
 @Description( "Check the integrity of a foreign key by checking that every value can be resolved in "
         + "another table (which may be in a different datastore altogether).")
 public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegrityAnalyzerResult> {
 
+    public enum LookupStrategy implements HasName {
+        LOOKUP_EACH_VALUE("Look up each value"),
+
+        PRELOAD_REFERENCED_VALUES("Preload referenced values");
+
+        private final String _name;
+
+        LookupStrategy(final String name) {
+            _name = name;
+        }
+
+        @Override
+        public String getName() {
+            return _name;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferentialIntegrityAnalyzer.class);
+
     private static final String PROPERTY_NAME_DATASTORE = "Datastore";
     private static final String PROPERTY_NAME_SCHEMA_NAME = "Schema name";
     private static final String PROPERTY_NAME_TABLE_NAME = "Table name";
@@ -87,6 +120,18 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
     @Description("Ignore null values")
     boolean ignoreNullValues = true;
 
+    @Inject
+    @Configured(required = false)
+    @Description("How to resolve foreign key values. Preloading reads the referenced column once and checks all "
+            + "values in memory, which is much faster than looking up each value when the referenced table fits.")
+    LookupStrategy lookupStrategy = LookupStrategy.LOOKUP_EACH_VALUE;
+
+    @Inject
+    @Configured(required = false)
+    @Description("The maximum number of distinct referenced values to preload. If the referenced column has more "
+            + "values than this, each value will be looked up instead.")
+    int maxPreloadedValues = 5000000;
+
     @Inject
     @Provided
     RowAnnotation annotation;
@@ -96,9 +141,17 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
     RowAnnotationFactory annotationFactory;
 
     private TableLookupTransformer _tableLookup;
+    private Set<String> _referencedValues;
 
     @Initialize
     public void init() {
+        if (lookupStrategy == LookupStrategy.PRELOAD_REFERENCED_VALUES) {
+            _referencedValues = loadReferencedValues();
+            if (_referencedValues != null) {
+                return;
+            }
+        }
+
         _tableLookup = new TableLookupTransformer(datastore, schemaName, tableName, new String[] { columnName },
                 new InputColumn<?>[] { foreignKey }, new String[] { columnName }, cacheLookups);
         _tableLookup.init();
@@ -118,6 +171,13 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
             }
         }
 
+        if (_referencedValues != null) {
+            if (!_referencedValues.contains(toLookupKey(value))) {
+                annotationFactory.annotate(row, distinctCount, annotation);
+            }
+            return;
+        }
+
         final Object[] result = _tableLookup.transform(row);
         assert result.length == 1;
 
@@ -127,6 +187,69 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
         }
     }
 
+    /**
+     * Reads all distinct values of the referenced column into memory in a single
+     * query.
+     *
+     * @return the set of referenced values, or null if there are more than
+     *         {@link #maxPreloadedValues} of them
+     */
+    private Set<String> loadReferencedValues() {
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final Column column = con.getSchemaNavigator().convertToColumns(schemaName, tableName,
+                    new String[] { columnName })[0];
+            if (column == null) {
+                throw new IllegalArgumentException("Could not find column: " + columnName);
+            }
+
+            final Query query = new Query().from(column.getTable()).selectDistinct().select(column);
+
+            // the query is distinct, so the values can be collected in a list
+            // and then be stored compactly
+            final List<String> values = new ArrayList<>();
+            try (DataSet dataSet = con.getDataContext().executeQuery(query)) {
+                while (dataSet.next()) {
+                    final Object value = dataSet.getRow().getValue(0);
+                    if (value == null) {
+                        continue;
+                    }
+                    values.add(toLookupKey(value));
+                    if (values.size() > maxPreloadedValues) {
+                        logger.info("Referenced column {} has more than {} values, falling back to looking up "
+                                + "each value", column, maxPreloadedValues);
+                        return null;
+                    }
+                }
+            }
+
+            final CompactStringSet referencedValues = new CompactStringSet(values);
+            logger.info("Preloaded {} referenced values from column {}", referencedValues.size(), column);
+            return referencedValues;
+        }
+    }
+
+    /**
+     * Normalizes a value so that e.g. an integer foreign key matches a long or
+     * decimal primary key, like it would when compared in a database query.
+     *
+     * @param value
+     * @return
+     */
+    private static String toLookupKey(final Object value) {
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+            } catch (final NumberFormatException e) {
+                // eg. NaN or infinity
+                return value.toString();
+            }
+        }
+        if (value instanceof Date) {
+            return Long.toString(((Date) value).getTime());
+        }
+        return value.toString();
+    }
+
     @Override
     public ReferentialIntegrityAnalyzerResult getResult() {
         return new ReferentialIntegrityAnalyzerResult(annotation, annotationFactory,
@@ -135,6 +258,7 @@ public class ReferentialIntegrityAnalyzer implements Analyzer<ReferentialIntegri
 
     @Close
     public void close() {
+        _referencedValues = null;
         if (_tableLookup != null) {
             _tableLookup.close();
             _tableLookup = null;
@@ -26,11 +26,14 @@ import org.datacleaner.api.InputRow;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.DatastoreCatalogImpl;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.AnalysisRunnerImpl;
+import org.datacleaner.storage.RowAnnotations;
 import org.datacleaner.test.TestHelper;
 
 import junit.framework.TestCase;
@@ -38,6 +41,36 @@ import junit.framework.TestCase;
 public class ReferentialIntegrityAnalyzerTest extends TestCase {
 
     public void testSimpleScenario() throws Throwable {
+        runScenario(ReferentialIntegrityAnalyzer.LookupStrategy.LOOKUP_EACH_VALUE);
+    }
+
+    public void testPreloadReferencedValues() throws Throwable {
+        runScenario(ReferentialIntegrityAnalyzer.LookupStrategy.PRELOAD_REFERENCED_VALUES);
+    }
+
+    public void testPreloadFallbackToLookupWhenTooManyValues() throws Throwable {
+        final ReferentialIntegrityAnalyzer analyzer = new ReferentialIntegrityAnalyzer();
+        analyzer.datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+        analyzer.foreignKey = new MockInputColumn<>("SALESREPEMPLOYEENUMBER", Integer.class);
+        analyzer.schemaName = "PUBLIC";
+        analyzer.tableName = "employees";
+        analyzer.columnName = "EMPLOYEENUMBER";
+        analyzer.lookupStrategy = ReferentialIntegrityAnalyzer.LookupStrategy.PRELOAD_REFERENCED_VALUES;
+        analyzer.maxPreloadedValues = 5;
+        analyzer.annotationFactory = RowAnnotations.getDefaultFactory();
+        analyzer.annotation = analyzer.annotationFactory.createAnnotation();
+
+        analyzer.init();
+        try {
+            analyzer.run(new MockInputRow().put(analyzer.foreignKey, 1002), 1);
+            analyzer.run(new MockInputRow().put(analyzer.foreignKey, -1), 1);
+            assertEquals(1, analyzer.getResult().getAnnotatedRowCount());
+        } finally {
+            analyzer.close();
+        }
+    }
+
+    private void runScenario(final ReferentialIntegrityAnalyzer.LookupStrategy lookupStrategy) throws Throwable {
         final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
 
         final DataCleanerConfigurationImpl configuration =
@@ -57,6 +90,7 @@ public class ReferentialIntegrityAnalyzerTest extends TestCase {
         referentialIntegrity.schemaName = "PUBLIC";
         referentialIntegrity.tableName = "employees";
         referentialIntegrity.columnName = "EMPLOYEENUMBER";
+        referentialIntegrity.lookupStrategy = lookupStrategy;
 
         final AnalysisJob analysisJob = jobBuilder.toAnalysisJob();
 
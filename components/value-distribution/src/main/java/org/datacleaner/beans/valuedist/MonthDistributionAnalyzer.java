@@ -36,6 +36,7 @@ import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.Distributed;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
@@ -49,6 +50,7 @@ import org.datacleaner.result.CrosstabResult;
 @Named("Month distribution")
 @Description("Finds the distribution of months from Date values.")
 @Concurrent(true)
+@DistinctCountAware
 @Categorized(DateAndTimeCategory.class)
 @Distributed(reducer = MonthDistributionResultReducer.class)
 public class MonthDistributionAnalyzer implements Analyzer<CrosstabResult> {
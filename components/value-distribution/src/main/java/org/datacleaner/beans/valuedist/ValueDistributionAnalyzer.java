@@ -32,6 +32,7 @@ import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.ExternalDocumentation;
 import org.datacleaner.api.ExternalDocumentation.DocumentationLink;
 import org.datacleaner.api.ExternalDocumentation.DocumentationType;
@@ -53,6 +54,7 @@ import org.slf4j.LoggerFactory;
         { @DocumentationLink(title = "Analyzer rundown", url = "https://www.youtube.com/watch?v=hZWxB_eu_A0",
                 type = DocumentationType.VIDEO, version = "4.0") })
 @Concurrent(true)
+@DistinctCountAware
 public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnalyzerResult> {
 
     public static final String PROPERTY_COLUMN = "Column";
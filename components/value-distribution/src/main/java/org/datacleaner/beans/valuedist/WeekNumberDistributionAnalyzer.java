@@ -39,6 +39,7 @@ import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.Distributed;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
@@ -53,6 +54,7 @@ import org.datacleaner.result.CrosstabResult;
 @Named("Week number distribution")
 @Description("Finds the distribution of week numbers from Date values.")
 @Concurrent(true)
+@DistinctCountAware
 @Categorized(DateAndTimeCategory.class)
 @Distributed(reducer = DatePartDistributionResultReducer.class)
 public class WeekNumberDistributionAnalyzer implements Analyzer<CrosstabResult> {
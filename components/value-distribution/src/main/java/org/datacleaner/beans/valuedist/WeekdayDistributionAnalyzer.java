@@ -32,22 +32,23 @@ import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.Distributed;
+import org.datacleaner.api.HasPartialAnalyzerResult;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.components.categories.DateAndTimeCategory;
-import org.datacleaner.result.Crosstab;
-import org.datacleaner.result.CrosstabDimension;
-import org.datacleaner.result.CrosstabNavigator;
 import org.datacleaner.result.CrosstabResult;
 
 @Named("Weekday distribution")
 @Description("Finds the distribution of weekdays from Date values.")
 @Concurrent(true)
+@DistinctCountAware
 @Categorized(DateAndTimeCategory.class)
 @Distributed(reducer = WeekdayDistributionResultReducer.class)
-public class WeekdayDistributionAnalyzer implements Analyzer<CrosstabResult> {
+public class WeekdayDistributionAnalyzer
+        implements Analyzer<CrosstabResult>, HasPartialAnalyzerResult<WeekdayDistributionPartialResult> {
 
     private final Map<InputColumn<Date>, Map<Integer, AtomicInteger>> distributionMap;
 
@@ -87,25 +88,19 @@ public class WeekdayDistributionAnalyzer implements Analyzer<CrosstabResult> {
 
     @Override
     public CrosstabResult getResult() {
-        final CrosstabDimension columnDimension = new CrosstabDimension("Column");
-        final CrosstabDimension weekdayDimension = new CrosstabDimension("Weekday");
-        weekdayDimension.addCategory("Sunday").addCategory("Monday").addCategory("Tuesday").addCategory("Wednesday")
-                .addCategory("Thursday").addCategory("Friday").addCategory("Saturday");
-        final Crosstab<Integer> crosstab = new Crosstab<>(Integer.class, columnDimension, weekdayDimension);
+        return getPartialResult().toResult();
+    }
+
+    @Override
+    public WeekdayDistributionPartialResult getPartialResult() {
+        final WeekdayDistributionPartialResult partialResult = new WeekdayDistributionPartialResult();
         for (final InputColumn<Date> col : dateColumns) {
-            columnDimension.addCategory(col.getName());
-            final CrosstabNavigator<Integer> nav = crosstab.where(columnDimension, col.getName());
             final Map<Integer, AtomicInteger> countMap = distributionMap.get(col);
-            nav.where(weekdayDimension, "Sunday").put(countMap.get(Calendar.SUNDAY).get());
-            nav.where(weekdayDimension, "Monday").put(countMap.get(Calendar.MONDAY).get());
-            nav.where(weekdayDimension, "Tuesday").put(countMap.get(Calendar.TUESDAY).get());
-            nav.where(weekdayDimension, "Wednesday").put(countMap.get(Calendar.WEDNESDAY).get());
-            nav.where(weekdayDimension, "Thursday").put(countMap.get(Calendar.THURSDAY).get());
-            nav.where(weekdayDimension, "Friday").put(countMap.get(Calendar.FRIDAY).get());
-            nav.where(weekdayDimension, "Saturday").put(countMap.get(Calendar.SATURDAY).get());
+            for (int i = Calendar.SUNDAY; i <= Calendar.SATURDAY; i++) {
+                partialResult.add(col.getName(), i, countMap.get(i).get());
+            }
         }
-
-        return new CrosstabResult(crosstab);
+        return partialResult;
     }
 
     // used only for unittesting
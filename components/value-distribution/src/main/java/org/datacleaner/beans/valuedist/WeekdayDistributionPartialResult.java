@@ -0,0 +1,100 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.valuedist;
+
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.datacleaner.api.PartialAnalyzerResult;
+import org.datacleaner.result.Crosstab;
+import org.datacleaner.result.CrosstabDimension;
+import org.datacleaner.result.CrosstabNavigator;
+import org.datacleaner.result.CrosstabResult;
+
+/**
+ * Partial result of {@link WeekdayDistributionAnalyzer}, which holds just the
+ * weekday counts of each column, so that the results of many partitions can be
+ * merged without building and reducing a crosstab for each of them.
+ */
+public final class WeekdayDistributionPartialResult
+        implements PartialAnalyzerResult<WeekdayDistributionPartialResult, CrosstabResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] WEEKDAY_NAMES =
+            { "Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
+
+    // weekday counts by column name, in column order
+    private final Map<String, int[]> _counts;
+
+    public WeekdayDistributionPartialResult() {
+        _counts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds to the count of a weekday of a column.
+     *
+     * @param columnName
+     * @param dayOfWeek
+     *            the day of the week, as in {@link Calendar#DAY_OF_WEEK}
+     * @param count
+     */
+    public void add(final String columnName, final int dayOfWeek, final int count) {
+        final int[] counts = getCounts(columnName);
+        counts[dayOfWeek - Calendar.SUNDAY] += count;
+    }
+
+    private int[] getCounts(final String columnName) {
+        return _counts.computeIfAbsent(columnName, name -> new int[WEEKDAY_NAMES.length]);
+    }
+
+    @Override
+    public WeekdayDistributionPartialResult merge(final WeekdayDistributionPartialResult other) {
+        for (final Entry<String, int[]> entry : other._counts.entrySet()) {
+            final int[] counts = getCounts(entry.getKey());
+            final int[] otherCounts = entry.getValue();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += otherCounts[i];
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public CrosstabResult toResult() {
+        final CrosstabDimension columnDimension = new CrosstabDimension("Column");
+        final CrosstabDimension weekdayDimension = new CrosstabDimension("Weekday");
+        for (final String weekdayName : WEEKDAY_NAMES) {
+            weekdayDimension.addCategory(weekdayName);
+        }
+        final Crosstab<Integer> crosstab = new Crosstab<>(Integer.class, columnDimension, weekdayDimension);
+        for (final Entry<String, int[]> entry : _counts.entrySet()) {
+            columnDimension.addCategory(entry.getKey());
+            final CrosstabNavigator<Integer> nav = crosstab.where(columnDimension, entry.getKey());
+            final int[] counts = entry.getValue();
+            for (int i = 0; i < WEEKDAY_NAMES.length; i++) {
+                nav.where(weekdayDimension, WEEKDAY_NAMES[i]).put(counts[i]);
+            }
+        }
+        return new CrosstabResult(crosstab);
+    }
+}
@@ -38,6 +38,7 @@ import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.Distributed;
 import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
@@ -51,6 +52,7 @@ import org.datacleaner.result.CrosstabResult;
 @Named("Year distribution")
 @Description("Finds the distribution of years from Date values.")
 @Concurrent(true)
+@DistinctCountAware
 @Categorized(DateAndTimeCategory.class)
 @Distributed(reducer = DatePartDistributionResultReducer.class)
 public class YearDistributionAnalyzer implements Analyzer<CrosstabResult> {
@@ -34,12 +34,15 @@ import org.datacleaner.descriptors.AnalyzerDescriptor;
 import org.datacleaner.descriptors.Descriptors;
 import org.datacleaner.descriptors.MetricDescriptor;
 import org.datacleaner.descriptors.MetricParameters;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.job.runner.AnalysisRunnerImpl;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.result.GroupedValueCountingAnalyzerResult;
 import org.datacleaner.result.ValueCountList;
 import org.datacleaner.result.ValueCountingAnalyzerResult;
 import org.datacleaner.test.TestHelper;
+import org.datacleaner.util.SystemProperties;
 import org.junit.Test;
 
 public class ValueDistributionAnalyzerTest {
@@ -64,6 +67,48 @@ public class ValueDistributionAnalyzerTest {
         }
     }
 
+    @Test
+    public void testDistinctValueBufferGivesSameResult() throws Throwable {
+        final ValueCountingAnalyzerResult unbuffered = runCountryDistribution(null);
+        final ValueCountingAnalyzerResult buffered = runCountryDistribution("10");
+
+        assertEquals(214, unbuffered.getTotalCount());
+        assertEquals(unbuffered.getTotalCount(), buffered.getTotalCount());
+        assertEquals(unbuffered.getDistinctCount(), buffered.getDistinctCount());
+        assertEquals(unbuffered.getUniqueCount(), buffered.getUniqueCount());
+        assertEquals(unbuffered.getCount("USA"), buffered.getCount("USA"));
+        assertEquals(unbuffered.getCount("Denmark"), buffered.getCount("Denmark"));
+    }
+
+    private ValueCountingAnalyzerResult runCountryDistribution(final String bufferSize) throws Throwable {
+        final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+        final DataCleanerConfigurationImpl configuration = new DataCleanerConfigurationImpl().withDatastores(datastore);
+
+        final String previousBufferSize = System.getProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE);
+        if (bufferSize == null) {
+            System.clearProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE);
+        } else {
+            System.setProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE, bufferSize);
+        }
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("customers.country");
+            ajb.addAnalyzer(ValueDistributionAnalyzer.class).addInputColumns(ajb.getSourceColumns());
+
+            final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(ajb.toAnalysisJob());
+            if (resultFuture.isErrornous()) {
+                throw resultFuture.getErrors().get(0);
+            }
+            return (ValueCountingAnalyzerResult) resultFuture.getResults().get(0);
+        } finally {
+            if (previousBufferSize == null) {
+                System.clearProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE);
+            } else {
+                System.setProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE, previousBufferSize);
+            }
+        }
+    }
+
     @Test
     public void testDescriptor() {
         final AnalyzerDescriptor<?> desc = Descriptors.ofAnalyzer(ValueDistributionAnalyzer.class);
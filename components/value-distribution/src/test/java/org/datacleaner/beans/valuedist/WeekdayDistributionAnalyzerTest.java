@@ -20,6 +20,7 @@
 package org.datacleaner.beans.valuedist;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -28,6 +29,7 @@ import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
 import org.datacleaner.descriptors.AnalyzerDescriptor;
 import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.result.Crosstab;
 import org.datacleaner.result.CrosstabResult;
 import org.datacleaner.result.renderer.CrosstabTextRenderer;
 
@@ -77,6 +79,42 @@ public class WeekdayDistributionAnalyzerTest extends TestCase {
         assertEquals("Saturday              0             1             0 ", resultLines[7]);
     }
 
+    public void testMergePartialResults() throws Exception {
+        @SuppressWarnings("unchecked") final InputColumn<Date>[] dateColumns = new InputColumn[2];
+        dateColumns[0] = new MockInputColumn<>("Order date", Date.class);
+        dateColumns[1] = new MockInputColumn<>("Shipment date", Date.class);
+
+        final WeekdayDistributionAnalyzer analyzer1 = new WeekdayDistributionAnalyzer();
+        analyzer1.setDateColumns(dateColumns);
+        analyzer1.init();
+        analyzer1.run(new MockInputRow(dateColumns, new Object[] { toDate(2010, 1, 1), toDate(2010, 1, 2) }), 1);
+        analyzer1.run(new MockInputRow(dateColumns, new Object[] { toDate(2010, 2, 1), null }), 2);
+
+        final WeekdayDistributionAnalyzer analyzer2 = new WeekdayDistributionAnalyzer();
+        analyzer2.setDateColumns(dateColumns);
+        analyzer2.init();
+        analyzer2.run(new MockInputRow(dateColumns, new Object[] { toDate(2010, 4, 1), toDate(2010, 1, 2) }), 3);
+
+        final CrosstabResult reduced = new WeekdayDistributionResultReducer()
+                .reduce(Arrays.asList(analyzer1.getResult(), analyzer2.getResult()));
+        final CrosstabResult merged = analyzer1.getPartialResult().merge(analyzer2.getPartialResult()).toResult();
+
+        final Crosstab<?> reducedCrosstab = reduced.getCrosstab();
+        final Crosstab<?> mergedCrosstab = merged.getCrosstab();
+        assertEquals(reducedCrosstab.getDimension(1).getCategories(), mergedCrosstab.getDimension(1).getCategories());
+        for (final InputColumn<Date> column : dateColumns) {
+            for (final String weekday : mergedCrosstab.getDimension(1).getCategories()) {
+                assertEquals(column.getName() + " " + weekday,
+                        ((Number) reducedCrosstab.where("Column", column.getName()).where("Weekday", weekday).get())
+                                .intValue(),
+                        ((Number) mergedCrosstab.where("Column", column.getName()).where("Weekday", weekday).get())
+                                .intValue());
+            }
+        }
+        assertEquals(3, mergedCrosstab.where("Column", "Order date").where("Weekday", "Thursday").get());
+        assertEquals(4, mergedCrosstab.where("Column", "Shipment date").where("Weekday", "Saturday").get());
+    }
+
     public void testDateGen() throws Exception {
         final Date d = toDate(2010, 1, 1);
         assertEquals("2010-01-01", new SimpleDateFormat("yyyy-MM-dd").format(d));
@@ -23,19 +23,22 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.metamodel.BatchUpdateScript;
+import org.apache.metamodel.UpdateCallback;
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
 import org.apache.metamodel.delete.RowDeletionBuilder;
-import org.apache.metamodel.insert.RowInsertionBuilder;
 import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
@@ -46,6 +49,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -79,7 +83,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Named("Delete from table")
-@Description("Delete records in a table. Records matching the specified condition(s) will be deleted in batch.")
+@Description("Delete records in a table. Records matching the specified condition(s) will be deleted in batch.\n"
+        + "By default every record is deleted with its own DELETE statement. When purging large amounts of records, "
+        + "set a key set size to delete many records per statement, using conditions like 'WHERE key IN (...)'.")
 @Categorized(superCategory = WriteSuperCategory.class)
 @Concurrent(true)
 public class DeleteFromTableAnalyzer
@@ -91,6 +97,14 @@ public class DeleteFromTableAnalyzer
 
     private static final String ERROR_MESSAGE_COLUMN_NAME = "update_table_error_message";
 
+    /**
+     * The maximum number of condition values in a single keyed DELETE
+     * statement. Oracle allows 1000 items in an IN list and SQL Server 2100
+     * parameters per statement, so 1000 is safe for both the IN list and the
+     * OR-of-ANDs form of composite keys.
+     */
+    static final int MAX_KEY_SET_VALUES = 1000;
+
     private static final Logger logger = LoggerFactory.getLogger(DeleteFromTableAnalyzer.class);
 
     @Inject
@@ -143,6 +157,18 @@ public class DeleteFromTableAnalyzer
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
+    @Inject
+    @Configured(value = "Key set size", required = false, order = 10)
+    @Description("Maximum number of records to delete with a single DELETE statement. 0 or 1 deletes record by "
+            + "record. At most " + MAX_KEY_SET_VALUES + " condition values (records x condition columns) are "
+            + "allowed per statement.")
+    int keySetSize = 0;
+
+    @Inject
+    @Configured(value = "Commit interval", required = false, order = 11)
+    @Description("Number of records to delete per transaction. 0 derives it from the buffer size.")
+    int commitInterval = 0;
+
     @Inject
     @Provided
     ComponentContext _componentContext;
@@ -151,13 +177,25 @@ public class DeleteFromTableAnalyzer
     private WriteBuffer _writeBuffer;
     private AtomicInteger _updatedRowCount;
     private AtomicInteger _errorRowCount;
-    private CsvDataContext _errorDataContext;
+    private ErrorRowAppender _errorRowAppender;
 
     @Validate
     public void validate() {
+        if (keySetSize < 0) {
+            throw new IllegalStateException("Key set size cannot be a negative number");
+        }
+        if (commitInterval < 0) {
+            throw new IllegalStateException("Commit interval cannot be a negative number");
+        }
         if (conditionValues.length != conditionColumnNames.length) {
             throw new IllegalStateException("Condition values and condition column names should have equal length");
         }
+        final int maxKeySetSize = MAX_KEY_SET_VALUES / Math.max(1, conditionColumnNames.length);
+        if (keySetSize > maxKeySetSize) {
+            throw new IllegalStateException("Key set size cannot be more than " + maxKeySetSize + " with "
+                    + conditionColumnNames.length + " condition column(s), since most databases limit the number of "
+                    + "values in a single statement");
+        }
     }
 
     @Initialize
@@ -165,10 +203,17 @@ public class DeleteFromTableAnalyzer
         _errorRowCount = new AtomicInteger();
         _updatedRowCount = new AtomicInteger();
         if (errorHandlingOption == ErrorHandlingOption.SAVE_TO_FILE) {
-            _errorDataContext = createErrorDataContext();
+            _errorRowAppender =
+                    new ErrorRowAppender(createErrorDataContext(), getErrorLogColumnNames(), ERROR_MESSAGE_COLUMN_NAME);
         }
 
-        final int bufferSize = bufferSizeOption.calculateBufferSize(0); //TODO what buffer size? needed?
+        final int bufferSize;
+        if (commitInterval > 0) {
+            bufferSize = commitInterval;
+        } else {
+            // the buffered records hold the condition values
+            bufferSize = bufferSizeOption.calculateBufferSize(conditionColumnNames.length);
+        }
         logger.info("Row buffer size set to {}", bufferSize);
 
         _writeBuffer = new WriteBuffer(bufferSize, this);
@@ -315,8 +360,10 @@ public class DeleteFromTableAnalyzer
         final int updatedRowCount = _updatedRowCount.get();
 
         final FileDatastore errorDatastore;
-        if (_errorDataContext != null) {
-            final Resource resource = _errorDataContext.getResource();
+        if (_errorRowAppender != null) {
+            // the error log is only materialized as a datastore once all records have been written
+            _errorRowAppender.close();
+            final Resource resource = _errorRowAppender.getResource();
             errorDatastore = new CsvDatastore(resource.getName(), resource);
         } else {
             errorDatastore = null;
@@ -326,6 +373,16 @@ public class DeleteFromTableAnalyzer
                 errorDatastore);
     }
 
+    @Close
+    public void close() {
+        if (_writeBuffer != null) {
+            _writeBuffer.close();
+        }
+        if (_errorRowAppender != null) {
+            _errorRowAppender.close();
+        }
+    }
+
     /**
      * Method invoked when flushing the buffer
      */
@@ -336,6 +393,10 @@ public class DeleteFromTableAnalyzer
             final Column[] whereColumns =
                     con.getSchemaNavigator().convertToColumns(schemaName, tableName, conditionColumnNames);
             final UpdateableDataContext dc = con.getUpdateableDataContext();
+            if (keySetSize > 1) {
+                dc.executeUpdate((BatchUpdateScript) callback -> deleteKeySets(callback, whereColumns, buffer));
+                return;
+            }
             dc.executeUpdate((BatchUpdateScript) callback -> {
                 int deleteCount = 0;
                 for (final Object[] rowData : buffer) {
@@ -370,21 +431,130 @@ public class DeleteFromTableAnalyzer
         }
     }
 
+    /**
+     * Deletes the buffered records using as few DELETE statements as possible,
+     * each covering up to {@link #keySetSize} distinct keys. Records with null
+     * condition values are deleted one by one, since they cannot be part of an
+     * IN list.
+     */
+    private void deleteKeySets(final UpdateCallback callback, final Column[] whereColumns,
+            final Iterable<Object[]> buffer) {
+        final Table table = whereColumns[0].getTable();
+
+        final Map<List<Object>, List<Object[]>> keys = new LinkedHashMap<>();
+        final List<Object[]> singleRecords = new ArrayList<>();
+        for (final Object[] rowData : buffer) {
+            final List<Object> key = Arrays.asList(rowData).subList(0, whereColumns.length);
+            if (key.contains(null)) {
+                singleRecords.add(rowData);
+            } else {
+                keys.computeIfAbsent(key, k -> new ArrayList<>(1)).add(rowData);
+            }
+        }
+
+        int deleteCount = 0;
+        int statementCount = 0;
+
+        final List<List<Object>> keySet = new ArrayList<>(Math.min(keySetSize, keys.size()));
+        final List<Object[]> keySetRecords = new ArrayList<>();
+        for (final Map.Entry<List<Object>, List<Object[]>> entry : keys.entrySet()) {
+            keySet.add(entry.getKey());
+            keySetRecords.addAll(entry.getValue());
+            if (keySet.size() == keySetSize) {
+                deleteCount += deleteKeySet(callback, table, whereColumns, keySet, keySetRecords);
+                statementCount++;
+                keySet.clear();
+                keySetRecords.clear();
+            }
+        }
+        if (!keySet.isEmpty()) {
+            deleteCount += deleteKeySet(callback, table, whereColumns, keySet, keySetRecords);
+            statementCount++;
+        }
+
+        for (final Object[] rowData : singleRecords) {
+            final List<Object> key = Arrays.asList(rowData).subList(0, whereColumns.length);
+            deleteCount += deleteKeySet(callback, table, whereColumns, Arrays.asList(key),
+                    Arrays.<Object[]> asList(rowData));
+            statementCount++;
+        }
+
+        if (deleteCount > 0) {
+            _componentContext.publishMessage(
+                    new ExecutionLogMessage(deleteCount + " deletes executed in " + statementCount + " statements"));
+        }
+    }
+
+    private int deleteKeySet(final UpdateCallback callback, final Table table, final Column[] whereColumns,
+            final List<List<Object>> keySet, final List<Object[]> records) {
+        final FilterItem filterItem;
+        if (keySet.size() == 1) {
+            filterItem = createKeyFilter(whereColumns, keySet.get(0));
+        } else if (whereColumns.length == 1) {
+            final List<Object> operand = new ArrayList<>(keySet.size());
+            for (final List<Object> key : keySet) {
+                operand.add(key.get(0));
+            }
+            filterItem = new FilterItem(new SelectItem(whereColumns[0]), OperatorType.IN, operand);
+        } else {
+            final FilterItem[] keyFilters = new FilterItem[keySet.size()];
+            for (int i = 0; i < keyFilters.length; i++) {
+                keyFilters[i] = createKeyFilter(whereColumns, keySet.get(i));
+            }
+            filterItem = new FilterItem(LogicalOperator.OR, keyFilters);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleting {} keys: {}", keySet.size(), keySet);
+        }
+
+        try {
+            callback.deleteFrom(table).where(filterItem).execute();
+        } catch (final RuntimeException e) {
+            for (final Object[] rowData : records) {
+                errorOccurred(rowData, e);
+            }
+            return 0;
+        }
+        _updatedRowCount.addAndGet(records.size());
+        return records.size();
+    }
+
+    private static FilterItem createKeyFilter(final Column[] whereColumns, final List<Object> key) {
+        final FilterItem[] items = new FilterItem[whereColumns.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new FilterItem(new SelectItem(whereColumns[i]), OperatorType.EQUALS_TO, key.get(i));
+        }
+        if (items.length == 1) {
+            return items[0];
+        }
+        return new FilterItem(LogicalOperator.AND, items);
+    }
+
     protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
-        _errorRowCount.incrementAndGet();
+        final int errorCount = _errorRowCount.incrementAndGet();
         if (errorHandlingOption == ErrorHandlingOption.STOP_JOB) {
             throw e;
         } else {
-            logger.warn("Error occurred while deleting record. Writing to error stream", e);
-            _errorDataContext.executeUpdate(cb -> {
-                RowInsertionBuilder insertBuilder = cb.insertInto(_errorDataContext.getDefaultSchema().getTable(0));
-
-                insertBuilder = insertBuilder.value(ERROR_MESSAGE_COLUMN_NAME, e.getMessage());
-                insertBuilder.execute();
-            });
+            if (errorCount == 1) {
+                logger.warn("Error occurred while deleting record. Writing to error stream", e);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Error occurred while deleting record. Writing to error stream", e);
+            }
+            _errorRowAppender.append(rowData, e.getMessage());
         }
     }
 
+    /**
+     * Gets the names of the error log columns of the values in the buffered
+     * records, by index.
+     */
+    private String[] getErrorLogColumnNames() {
+        // the error table holds the condition values, the additional error
+        // log values at the end of the buffered records are not logged
+        return conditionColumnNames.clone();
+    }
+
     @Override
     public void configureForTransformedData(final AnalysisJobBuilder analysisJobBuilder,
             final TransformerDescriptor<?> descriptor) {
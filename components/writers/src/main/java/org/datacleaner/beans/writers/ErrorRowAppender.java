@@ -0,0 +1,172 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.writers;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.csv.CsvDataContext;
+import org.apache.metamodel.csv.CsvWriter;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+
+/**
+ * Appends erroneous records to the CSV error log of a writer analyzer.
+ *
+ * Records are written through a single buffered writer that is kept open
+ * until {@link #close()}, so that the cost of logging a record does not
+ * depend on the size of the error log, as opposed to issuing an update on a
+ * {@link CsvDataContext} per record. The error log file has to exist with a
+ * header line before the appender is created.
+ */
+final class ErrorRowAppender implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Resource _resource;
+    private final CsvWriter _csvWriter;
+    private final int[] _valueIndexes;
+    private final int _errorMessageIndex;
+    private Writer _writer;
+
+    /**
+     * Creates an appender.
+     *
+     * @param dataContext
+     *            the data context of the error log, used to find the file and
+     *            its column layout
+     * @param rowColumnNames
+     *            the column names of the values in the records that will be
+     *            appended, by index. A null element means that the value is not
+     *            logged.
+     * @param errorMessageColumnName
+     *            the name of the column holding the error message
+     */
+    ErrorRowAppender(final CsvDataContext dataContext, final String[] rowColumnNames,
+            final String errorMessageColumnName) {
+        _resource = dataContext.getResource();
+
+        final CsvConfiguration configuration = dataContext.getConfiguration();
+        _csvWriter = new CsvWriter(configuration);
+
+        final List<String> fileColumnNames = dataContext.getDefaultSchema().getTable(0).getColumnNames();
+        _valueIndexes = new int[fileColumnNames.size()];
+        int errorMessageIndex = -1;
+        for (int i = 0; i < _valueIndexes.length; i++) {
+            final String fileColumnName = fileColumnNames.get(i);
+            _valueIndexes[i] = indexOf(rowColumnNames, fileColumnName);
+            if (fileColumnName.equals(errorMessageColumnName)) {
+                errorMessageIndex = i;
+            }
+        }
+        _errorMessageIndex = errorMessageIndex;
+
+        try {
+            final boolean needsLineBreak = needsLineBreak(_resource);
+            _writer = new BufferedWriter(new OutputStreamWriter(_resource.append(), configuration.getEncoding()),
+                    BUFFER_SIZE);
+            if (needsLineBreak) {
+                _writer.write('\n');
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not open error log for appending: " + _resource, e);
+        }
+    }
+
+    private static int indexOf(final String[] names, final String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (name.equals(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean needsLineBreak(final Resource resource) throws IOException {
+        final long size = resource.getSize();
+        if (size <= 0) {
+            return false;
+        }
+        try (InputStream in = resource.read()) {
+            long remaining = size - 1;
+            while (remaining > 0) {
+                final long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    return false;
+                }
+                remaining -= skipped;
+            }
+            return in.read() != '\n';
+        }
+    }
+
+    /**
+     * Appends a record to the error log.
+     *
+     * @param rowData
+     * @param errorMessage
+     */
+    public void append(final Object[] rowData, final String errorMessage) {
+        final String[] line = new String[_valueIndexes.length];
+        for (int i = 0; i < line.length; i++) {
+            final int valueIndex = _valueIndexes[i];
+            if (i == _errorMessageIndex) {
+                line[i] = errorMessage == null ? "" : errorMessage;
+            } else if (valueIndex != -1 && valueIndex < rowData.length && rowData[valueIndex] != null) {
+                line[i] = rowData[valueIndex].toString();
+            } else {
+                line[i] = "";
+            }
+        }
+        final String str = _csvWriter.buildLine(line);
+        synchronized (this) {
+            if (_writer == null) {
+                throw new IllegalStateException("Error log has already been closed: " + _resource);
+            }
+            try {
+                _writer.write(str);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not write to error log: " + _resource, e);
+            }
+        }
+    }
+
+    public Resource getResource() {
+        return _resource;
+    }
+
+    /**
+     * Flushes and closes the error log. Calling this method more than once has
+     * no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (_writer != null) {
+            FileHelper.safeClose(_writer);
+            _writer = null;
+        }
+    }
+}
@@ -21,6 +21,9 @@ package org.datacleaner.beans.writers;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -36,6 +39,7 @@ import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
 import org.apache.metamodel.delete.RowDeletionBuilder;
 import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Schema;
 import org.apache.metamodel.schema.Table;
@@ -44,6 +48,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -64,9 +69,11 @@ import org.datacleaner.api.Validate;
 import org.datacleaner.components.categories.WriteSuperCategory;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.FileDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.SchemaNavigator;
 import org.datacleaner.connection.UpdateableDatastore;
 import org.datacleaner.connection.UpdateableDatastoreConnection;
+import org.datacleaner.connection.bulk.JdbcBulkWriter;
 import org.datacleaner.util.WriteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -127,6 +134,12 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
                     + "but require more memory.")
     WriteBufferSizeOption bufferSizeOption = WriteBufferSizeOption.MEDIUM;
 
+    @Inject
+    @Configured(value = "Use bulk load", required = false)
+    @Description("Use a native bulk loading mechanism of the database, if available, to write batches. "
+            + "Batches that fail to bulk load are retried with regular inserts.")
+    boolean bulkLoad = false;
+
     @Inject
     @Configured(value = "How to handle insertion errors?")
     ErrorHandlingOption errorHandlingOption = ErrorHandlingOption.STOP_JOB;
@@ -142,6 +155,13 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
+    @Inject
+    @Configured(value = "Writer threads", required = false)
+    @Description("Number of background threads writing batches to the datastore, allowing records to be buffered "
+            + "while previous batches are written. 0 writes batches on the processing threads. Use more than 1 "
+            + "only for datastores that support concurrent writing connections.")
+    int writerThreads = 0;
+
     @Inject
     @Provided
     ComponentContext _componentContext;
@@ -150,10 +170,14 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
     private WriteBuffer _writeBuffer;
     private AtomicInteger _writtenRowCount;
     private AtomicInteger _errorRowCount;
-    private CsvDataContext _errorDataContext;
+    private ErrorRowAppender _errorRowAppender;
+    private volatile boolean _bulkLoadUnsupported;
 
     @Validate
     public void validate() {
+        if (writerThreads < 0) {
+            throw new IllegalStateException("Writer threads cannot be a negative number");
+        }
         if (values.length != columnNames.length) {
             throw new IllegalStateException(
                     "Length of 'Values' (" + values.length + ") and 'Column names' (" + columnNames.length
@@ -193,14 +217,16 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
 
         _errorRowCount = new AtomicInteger();
         _writtenRowCount = new AtomicInteger();
+        _bulkLoadUnsupported = false;
         if (errorHandlingOption == ErrorHandlingOption.SAVE_TO_FILE) {
-            _errorDataContext = createErrorDataContext();
+            _errorRowAppender =
+                    new ErrorRowAppender(createErrorDataContext(), getErrorLogColumnNames(), ERROR_MESSAGE_COLUMN_NAME);
         }
 
         final int bufferSize = bufferSizeOption.calculateBufferSize(values.length);
         logger.info("Row buffer size set to {}", bufferSize);
 
-        _writeBuffer = new WriteBuffer(bufferSize, this);
+        _writeBuffer = new WriteBuffer(bufferSize, this, writerThreads);
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
@@ -376,8 +402,10 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
         final int writtenRowCount = _writtenRowCount.get();
 
         final FileDatastore errorDatastore;
-        if (_errorDataContext != null) {
-            final Resource resource = _errorDataContext.getResource();
+        if (_errorRowAppender != null) {
+            // the error log is only materialized as a datastore once all records have been written
+            _errorRowAppender.close();
+            final Resource resource = _errorRowAppender.getResource();
             errorDatastore = new CsvDatastore(resource.getName(), resource);
         } else {
             errorDatastore = null;
@@ -387,6 +415,16 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
                 errorDatastore);
     }
 
+    @Close
+    public void close() {
+        if (_writeBuffer != null) {
+            _writeBuffer.close();
+        }
+        if (_errorRowAppender != null) {
+            _errorRowAppender.close();
+        }
+    }
+
     /**
      * Method invoked when flushing the buffer
      */
@@ -400,6 +438,10 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
                 logger.debug("Inserting into columns: {}", Arrays.toString(columns));
             }
 
+            if (bulkLoad && !_bulkLoadUnsupported && bulkLoad(con, columns, buffer)) {
+                return;
+            }
+
             final UpdateableDataContext dc = con.getUpdateableDataContext();
             dc.executeUpdate((BatchUpdateScript) callback -> {
                 int insertCount = 0;
@@ -430,30 +472,92 @@ public class InsertIntoTableAnalyzer implements Analyzer<WriteDataResult>, Actio
         }
     }
 
-    protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
-        _errorRowCount.incrementAndGet();
-        if (errorHandlingOption == ErrorHandlingOption.STOP_JOB) {
-            throw e;
-        } else {
-            logger.warn("Error occurred while inserting record. Writing to error stream", e);
-            _errorDataContext.executeUpdate(cb -> {
-                RowInsertionBuilder insertBuilder = cb.insertInto(_errorDataContext.getDefaultSchema().getTable(0));
-                for (int i = 0; i < columnNames.length; i++) {
-                    insertBuilder = insertBuilder.value(columnNames[i], rowData[i]);
+    /**
+     * Attempts to write a batch using the bulk loading mechanism of a JDBC
+     * datastore. The batch is written in a single transaction, so that it can
+     * be retried with regular inserts if it fails.
+     *
+     * @return true if the batch was written, false if it should be written
+     *         using regular inserts
+     */
+    private boolean bulkLoad(final UpdateableDatastoreConnection con, final Column[] columns,
+            final Iterable<Object[]> buffer) {
+        if (!(datastore instanceof JdbcDatastore) || !(con.getUpdateableDataContext() instanceof JdbcDataContext)) {
+            _bulkLoadUnsupported = true;
+            return false;
+        }
+
+        final JdbcDataContext dc = (JdbcDataContext) con.getUpdateableDataContext();
+        final Connection connection = dc.getConnection();
+        try {
+            // single connection datastores share the connection across writers
+            synchronized (connection) {
+                final JdbcBulkWriter bulkWriter = ((JdbcDatastore) datastore).getBulkWriter(connection.getMetaData());
+                if (bulkWriter == null) {
+                    logger.info("No bulk loading mechanism available for datastore: {}", datastore.getName());
+                    _bulkLoadUnsupported = true;
+                    return false;
                 }
 
-                if (additionalErrorLogValues != null) {
-                    for (int i = 0; i < additionalErrorLogValues.length; i++) {
-                        final String columnName =
-                                translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
-                        final Object value = rowData[columnNames.length + i];
-                        insertBuilder = insertBuilder.value(columnName, value);
+                final boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    final int insertCount = bulkWriter.write(connection, columns[0].getTable(), columns, buffer);
+                    connection.commit();
+                    _writtenRowCount.addAndGet(insertCount);
+                    if (insertCount > 0) {
+                        _componentContext.publishMessage(new ExecutionLogMessage(insertCount + " inserts executed"));
+                    }
+                    return true;
+                } catch (final SQLException e) {
+                    connection.rollback();
+                    if (e instanceof SQLFeatureNotSupportedException) {
+                        logger.warn("Bulk loading not supported, using regular inserts", e);
+                        _bulkLoadUnsupported = true;
+                    } else {
+                        logger.warn("Bulk loading of batch failed, retrying with regular inserts", e);
                     }
+                    return false;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
                 }
+            }
+        } catch (final SQLException e) {
+            logger.warn("Could not prepare connection for bulk loading, using regular inserts", e);
+            return false;
+        } finally {
+            dc.close(connection);
+        }
+    }
 
-                insertBuilder = insertBuilder.value(ERROR_MESSAGE_COLUMN_NAME, e.getMessage());
-                insertBuilder.execute();
-            });
+    protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
+        final int errorCount = _errorRowCount.incrementAndGet();
+        if (errorHandlingOption == ErrorHandlingOption.STOP_JOB) {
+            throw e;
+        } else {
+            if (errorCount == 1) {
+                logger.warn("Error occurred while inserting record. Writing to error stream", e);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Error occurred while inserting record. Writing to error stream", e);
+            }
+            _errorRowAppender.append(rowData, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the names of the error log columns of the values in the buffered
+     * records, by index.
+     */
+    private String[] getErrorLogColumnNames() {
+        final String[] names = new String[columnNames.length
+                + (additionalErrorLogValues == null ? 0 : additionalErrorLogValues.length)];
+        System.arraycopy(columnNames, 0, names, 0, columnNames.length);
+        if (additionalErrorLogValues != null) {
+            for (int i = 0; i < additionalErrorLogValues.length; i++) {
+                names[columnNames.length + i] =
+                        translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
+            }
         }
+        return names;
     }
 }
@@ -0,0 +1,129 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.writers;
+
+/**
+ * Compact map of 64-bit row key hashes to 64-bit row content hashes, used to
+ * detect new and changed rows without keeping the rows themselves in memory.
+ *
+ * The map uses open addressing with linear probing on a single primitive array,
+ * in which each entry occupies two adjacent longs (the key hash followed by the
+ * content hash), at a load factor of 37.5% to 75%. That amounts to roughly 21 to
+ * 43 bytes per entry. Key hash 0 is reserved to mark empty slots, which is why
+ * such keys are remapped. The class is not thread-safe.
+ *
+ * Note that keys are only identified by their hash. Two different keys with the
+ * same 64-bit hash are indistinguishable, so the second one would be treated as
+ * an update of the first. The probability of any such collision among n keys
+ * is about n^2 / 2^65, ie. around one in 370,000 for 10 million keys and one in
+ * 3,700 for 100 million keys.
+ */
+final class RowHashIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_LOAD_PERCENTAGE = 75;
+
+    // key hash and content hash of each slot, interleaved
+    private long[] _entries;
+    private int _capacity;
+    private int _size;
+
+    RowHashIndex() {
+        _capacity = INITIAL_CAPACITY;
+        _entries = new long[_capacity * 2];
+    }
+
+    /**
+     * Puts a content hash for a key hash.
+     *
+     * @param keyHash
+     * @param rowHash
+     * @return true if the key was not previously contained in the index
+     */
+    boolean put(final long keyHash, final long rowHash) {
+        final long key = normalizeKey(keyHash);
+        int slot = findSlot(_entries, _capacity, key);
+        if (_entries[slot * 2] == key) {
+            _entries[slot * 2 + 1] = rowHash;
+            return false;
+        }
+        if ((long) (_size + 1) * 100 > (long) _capacity * MAX_LOAD_PERCENTAGE) {
+            grow();
+            slot = findSlot(_entries, _capacity, key);
+        }
+        _entries[slot * 2] = key;
+        _entries[slot * 2 + 1] = rowHash;
+        _size++;
+        return true;
+    }
+
+    boolean containsKey(final long keyHash) {
+        final long key = normalizeKey(keyHash);
+        return _entries[findSlot(_entries, _capacity, key) * 2] == key;
+    }
+
+    /**
+     * Gets the content hash of a key hash. Callers should first check
+     * {@link #containsKey(long)}.
+     *
+     * @param keyHash
+     * @return
+     */
+    long get(final long keyHash) {
+        final long key = normalizeKey(keyHash);
+        final int slot = findSlot(_entries, _capacity, key);
+        if (_entries[slot * 2] != key) {
+            throw new IllegalArgumentException("No such key: " + keyHash);
+        }
+        return _entries[slot * 2 + 1];
+    }
+
+    int size() {
+        return _size;
+    }
+
+    private void grow() {
+        final long[] oldEntries = _entries;
+        final int oldCapacity = _capacity;
+        _capacity = oldCapacity * 2;
+        _entries = new long[_capacity * 2];
+        for (int i = 0; i < oldCapacity; i++) {
+            final long key = oldEntries[i * 2];
+            if (key != 0) {
+                final int slot = findSlot(_entries, _capacity, key);
+                _entries[slot * 2] = key;
+                _entries[slot * 2 + 1] = oldEntries[i * 2 + 1];
+            }
+        }
+    }
+
+    private static int findSlot(final long[] entries, final int capacity, final long key) {
+        final int mask = capacity - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (entries[slot * 2] != 0 && entries[slot * 2] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long normalizeKey(final long keyHash) {
+        return keyHash == 0 ? 1 : keyHash;
+    }
+}
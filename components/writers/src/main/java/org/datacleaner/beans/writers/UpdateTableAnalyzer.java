@@ -34,7 +34,6 @@ import org.apache.metamodel.BatchUpdateScript;
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.create.TableCreationBuilder;
 import org.apache.metamodel.csv.CsvDataContext;
-import org.apache.metamodel.insert.RowInsertionBuilder;
 import org.apache.metamodel.query.FilterItem;
 import org.apache.metamodel.query.OperatorType;
 import org.apache.metamodel.query.SelectItem;
@@ -47,6 +46,7 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
 import org.datacleaner.api.ColumnProperty;
 import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.Concurrent;
@@ -166,6 +166,13 @@ public class UpdateTableAnalyzer
     @Description("Additional values to write to error log")
     InputColumn<?>[] additionalErrorLogValues;
 
+    @Inject
+    @Configured(value = "Writer threads", required = false)
+    @Description("Number of background threads writing batches to the datastore, allowing records to be buffered "
+            + "while previous batches are written. 0 writes batches on the processing threads. Use more than 1 "
+            + "only for datastores that support concurrent writing connections.")
+    int writerThreads = 0;
+
     @Inject
     @Provided
     ComponentContext _componentContext;
@@ -175,10 +182,13 @@ public class UpdateTableAnalyzer
     private WriteBuffer _writeBuffer;
     private AtomicInteger _updatedRowCount;
     private AtomicInteger _errorRowCount;
-    private CsvDataContext _errorDataContext;
+    private ErrorRowAppender _errorRowAppender;
 
     @Validate
     public void validate() {
+        if (writerThreads < 0) {
+            throw new IllegalStateException("Writer threads cannot be a negative number");
+        }
         if (values.length != columnNames.length) {
             throw new IllegalStateException("Values and column names should have equal length");
         }
@@ -197,13 +207,14 @@ public class UpdateTableAnalyzer
         _errorRowCount = new AtomicInteger();
         _updatedRowCount = new AtomicInteger();
         if (errorHandlingOption == ErrorHandlingOption.SAVE_TO_FILE) {
-            _errorDataContext = createErrorDataContext();
+            _errorRowAppender =
+                    new ErrorRowAppender(createErrorDataContext(), getErrorLogColumnNames(), ERROR_MESSAGE_COLUMN_NAME);
         }
 
         final int bufferSize = bufferSizeOption.calculateBufferSize(values.length);
         logger.info("Row buffer size set to {}", bufferSize);
 
-        _writeBuffer = new WriteBuffer(bufferSize, this);
+        _writeBuffer = new WriteBuffer(bufferSize, this, writerThreads);
 
         try (UpdateableDatastoreConnection con = datastore.openConnection()) {
             final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
@@ -402,8 +413,10 @@ public class UpdateTableAnalyzer
         final int updatedRowCount = _updatedRowCount.get();
 
         final FileDatastore errorDatastore;
-        if (_errorDataContext != null) {
-            final Resource resource = _errorDataContext.getResource();
+        if (_errorRowAppender != null) {
+            // the error log is only materialized as a datastore once all records have been written
+            _errorRowAppender.close();
+            final Resource resource = _errorRowAppender.getResource();
             errorDatastore = new CsvDatastore(resource.getName(), resource);
         } else {
             errorDatastore = null;
@@ -413,6 +426,16 @@ public class UpdateTableAnalyzer
                 errorDatastore);
     }
 
+    @Close
+    public void close() {
+        if (_writeBuffer != null) {
+            _writeBuffer.close();
+        }
+        if (_errorRowAppender != null) {
+            _errorRowAppender.close();
+        }
+    }
+
     /**
      * Method invoked when flushing the buffer
      */
@@ -469,30 +492,33 @@ public class UpdateTableAnalyzer
     }
 
     protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
-        _errorRowCount.incrementAndGet();
+        final int errorCount = _errorRowCount.incrementAndGet();
         if (errorHandlingOption == ErrorHandlingOption.STOP_JOB) {
             throw e;
         } else {
-            logger.warn("Error occurred while updating record. Writing to error stream", e);
-            _errorDataContext.executeUpdate(cb -> {
-                RowInsertionBuilder insertBuilder = cb.insertInto(_errorDataContext.getDefaultSchema().getTable(0));
-                for (int i = 0; i < columnNames.length; i++) {
-                    insertBuilder = insertBuilder.value(columnNames[i], rowData[i]);
-                }
-
-                if (additionalErrorLogValues != null) {
-                    for (int i = 0; i < additionalErrorLogValues.length; i++) {
-                        final String columnName =
-                                translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
-                        final Object value = rowData[columnNames.length + i];
-                        insertBuilder = insertBuilder.value(columnName, value);
-                    }
-                }
+            if (errorCount == 1) {
+                logger.warn("Error occurred while updating record. Writing to error stream", e);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Error occurred while updating record. Writing to error stream", e);
+            }
+            _errorRowAppender.append(rowData, e.getMessage());
+        }
+    }
 
-                insertBuilder = insertBuilder.value(ERROR_MESSAGE_COLUMN_NAME, e.getMessage());
-                insertBuilder.execute();
-            });
+    /**
+     * Gets the names of the error log columns of the values in the buffered
+     * records, by index.
+     */
+    private String[] getErrorLogColumnNames() {
+        final int additionalCount = additionalErrorLogValues == null ? 0 : additionalErrorLogValues.length;
+        final String[] names = new String[columnNames.length + conditionColumnNames.length + additionalCount];
+        System.arraycopy(columnNames, 0, names, 0, columnNames.length);
+        System.arraycopy(conditionColumnNames, 0, names, columnNames.length, conditionColumnNames.length);
+        for (int i = 0; i < additionalCount; i++) {
+            names[columnNames.length + conditionColumnNames.length + i] =
+                    translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
         }
+        return names;
     }
 
     @Override
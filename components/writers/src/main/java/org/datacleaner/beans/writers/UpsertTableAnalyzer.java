@@ -0,0 +1,725 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.writers;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.metamodel.BatchUpdateScript;
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.create.TableCreationBuilder;
+import org.apache.metamodel.csv.CsvDataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.update.RowUpdationBuilder;
+import org.apache.metamodel.util.Action;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Close;
+import org.datacleaner.api.ColumnProperty;
+import org.datacleaner.api.ComponentContext;
+import org.datacleaner.api.Concurrent;
+import org.datacleaner.api.Configured;
+import org.datacleaner.api.Description;
+import org.datacleaner.api.ExecutionLogMessage;
+import org.datacleaner.api.FileProperty;
+import org.datacleaner.api.FileProperty.FileAccessMode;
+import org.datacleaner.api.HasLabelAdvice;
+import org.datacleaner.api.Initialize;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.api.MappedProperty;
+import org.datacleaner.api.Provided;
+import org.datacleaner.api.SchemaProperty;
+import org.datacleaner.api.TableProperty;
+import org.datacleaner.api.Validate;
+import org.datacleaner.components.categories.WriteSuperCategory;
+import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.FileDatastore;
+import org.datacleaner.connection.SchemaNavigator;
+import org.datacleaner.connection.UpdateableDatastore;
+import org.datacleaner.connection.UpdateableDatastoreConnection;
+import org.datacleaner.util.WriteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+@Named("Upsert table")
+@Description("Inserts new and updates changed records in a table in a registered datastore, based on a set of key "
+        + "columns.\nBefore processing, the key and a hash of the values of every record in the target table are "
+        + "loaded into memory. Incoming records are then compared to this index, so that only records with new keys "
+        + "are inserted and only records whose values differ from the target table are updated. Unchanged records "
+        + "are not written at all.\nKeys are compared by 64-bit hashes, so in the extremely unlikely event that two "
+        + "keys have the same hash, a record with a new key may be treated as an update and not be written. Records "
+        + "without a value for every key column cannot be matched, and are handled as errors.")
+@Categorized(superCategory = WriteSuperCategory.class)
+@Concurrent(true)
+public class UpsertTableAnalyzer implements Analyzer<WriteDataResult>, Action<Iterable<Object[]>>, HasLabelAdvice {
+
+    private static final String PROPERTY_NAME_VALUES = "Values";
+    private static final String PROPERTY_NAME_KEY_VALUES = "Key values";
+
+    private static final File TEMP_DIR = FileHelper.getTempDir();
+
+    private static final String ERROR_MESSAGE_COLUMN_NAME = "upsert_table_error_message";
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_NUMBER = 1;
+    private static final byte TYPE_DATE = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+
+    private static final Logger logger = LoggerFactory.getLogger(UpsertTableAnalyzer.class);
+
+    @Inject
+    @Configured(value = PROPERTY_NAME_VALUES, order = 1)
+    @Description("Values to insert or update in the table")
+    InputColumn<?>[] values;
+
+    @Inject
+    @Configured(order = 2)
+    @Description("Names of columns in the target table, which will be inserted or updated.")
+    @ColumnProperty
+    @MappedProperty(PROPERTY_NAME_VALUES)
+    String[] columnNames;
+
+    @Inject
+    @Configured(value = PROPERTY_NAME_KEY_VALUES, order = 3)
+    @Description("Values that identify a record in the table")
+    InputColumn<?>[] keyValues;
+
+    @Inject
+    @Configured(order = 4)
+    @Description("Names of columns in the target table, which identify a record.")
+    @ColumnProperty
+    @MappedProperty(PROPERTY_NAME_KEY_VALUES)
+    String[] keyColumnNames;
+
+    @Inject
+    @Configured(order = 5)
+    @Description("Datastore to write to")
+    UpdateableDatastore datastore;
+
+    @Inject
+    @Configured(order = 6, required = false)
+    @Description("Schema name of target table")
+    @SchemaProperty
+    String schemaName;
+
+    @Inject
+    @Configured(order = 7, required = false)
+    @Description("Table to target (upsert)")
+    @TableProperty
+    String tableName;
+
+    @Inject
+    @Configured(order = 8, value = "Buffer size")
+    @Description("How much data to buffer before committing batches of data. Large batches often perform better, "
+            + "but require more memory.")
+    WriteBufferSizeOption bufferSizeOption = WriteBufferSizeOption.MEDIUM;
+
+    @Inject
+    @Configured(value = "How to handle upsert errors?", order = 9)
+    ErrorHandlingOption errorHandlingOption = ErrorHandlingOption.STOP_JOB;
+
+    @Inject
+    @Configured(value = "Error log file location", required = false, order = 10)
+    @Description("Directory or file path for saving erroneous records")
+    @FileProperty(accessMode = FileAccessMode.SAVE, extension = ".csv")
+    File errorLogFile = TEMP_DIR;
+
+    @Inject
+    @Configured(required = false, order = 11)
+    @Description("Additional values to write to error log")
+    InputColumn<?>[] additionalErrorLogValues;
+
+    @Inject
+    @Configured(value = "Writer threads", required = false, order = 12)
+    @Description("Number of background threads writing batches to the datastore, allowing records to be compared "
+            + "and buffered while previous batches are written. 0 writes batches on the processing threads. Use more "
+            + "than 1 only for datastores that support concurrent writing connections. Records with the same key are "
+            + "always written in order.")
+    int writerThreads = 0;
+
+    @Inject
+    @Provided
+    ComponentContext _componentContext;
+
+    /**
+     * Serializes comparing and buffering of records, so that the buffer order
+     * matches the order in which records were compared
+     */
+    private final Object _bufferLock = new Object();
+
+    private Column[] _targetColumns;
+    private Column[] _targetKeyColumns;
+    /**
+     * The records in the target table. Changed only once a record has been
+     * written, and guarded by its own monitor, which also guards
+     * {@link #_pendingKeys}.
+     */
+    private RowHashIndex _index;
+    private Map<Long, PendingKey> _pendingKeys;
+    private WriteBuffer _writeBuffer;
+    private AtomicInteger _insertedRowCount;
+    private AtomicInteger _updatedRowCount;
+    private AtomicInteger _unchangedRowCount;
+    private AtomicInteger _errorRowCount;
+    private ErrorRowAppender _errorRowAppender;
+
+    /**
+     * The records of a key which have been buffered, but not yet written.
+     */
+    private static final class PendingKey {
+
+        private long _rowHash;
+        private int _bufferedCount;
+        private int _finishedCount;
+    }
+
+    /**
+     * A buffered record, kept in the first element of its row data.
+     */
+    private static final class PendingWrite {
+
+        private final boolean _update;
+        private final long _keyHash;
+        private final long _rowHash;
+        private final PendingKey _pendingKey;
+        private final int _sequence;
+        private boolean _written;
+        private boolean _finished;
+
+        private PendingWrite(final boolean update, final long keyHash, final long rowHash,
+                final PendingKey pendingKey) {
+            _update = update;
+            _keyHash = keyHash;
+            _rowHash = rowHash;
+            _pendingKey = pendingKey;
+            _sequence = pendingKey._bufferedCount;
+        }
+    }
+
+    @Validate
+    public void validate() {
+        if (writerThreads < 0) {
+            throw new IllegalStateException("Writer threads cannot be a negative number");
+        }
+        if (values.length != columnNames.length) {
+            throw new IllegalStateException("Values and column names should have equal length");
+        }
+        if (keyValues.length != keyColumnNames.length) {
+            throw new IllegalStateException("Key values and key column names should have equal length");
+        }
+        if (keyValues.length == 0) {
+            throw new IllegalStateException("At least one key column is required");
+        }
+    }
+
+    @Initialize
+    public void init() {
+        _insertedRowCount = new AtomicInteger();
+        _updatedRowCount = new AtomicInteger();
+        _unchangedRowCount = new AtomicInteger();
+        _errorRowCount = new AtomicInteger();
+        _pendingKeys = new HashMap<>();
+        if (errorHandlingOption == ErrorHandlingOption.SAVE_TO_FILE) {
+            _errorRowAppender =
+                    new ErrorRowAppender(createErrorDataContext(), getErrorLogColumnNames(), ERROR_MESSAGE_COLUMN_NAME);
+        }
+
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
+
+            final List<String> columnsNotFound = new ArrayList<>();
+
+            _targetColumns = schemaNavigator.convertToColumns(schemaName, tableName, columnNames);
+            for (int i = 0; i < _targetColumns.length; i++) {
+                if (_targetColumns[i] == null) {
+                    columnsNotFound.add(columnNames[i]);
+                }
+            }
+
+            _targetKeyColumns = schemaNavigator.convertToColumns(schemaName, tableName, keyColumnNames);
+            for (int i = 0; i < _targetKeyColumns.length; i++) {
+                if (_targetKeyColumns[i] == null) {
+                    columnsNotFound.add(keyColumnNames[i]);
+                }
+            }
+
+            if (!columnsNotFound.isEmpty()) {
+                throw new IllegalArgumentException("Could not find column(s): " + columnsNotFound);
+            }
+
+            _index = loadIndex(con.getDataContext());
+        }
+        logger.info("Loaded index of {} existing records in table {}", _index.size(), tableName);
+
+        final int bufferSize = bufferSizeOption.calculateBufferSize(values.length + keyValues.length);
+        logger.info("Row buffer size set to {}", bufferSize);
+
+        _writeBuffer = new WriteBuffer(bufferSize, this, writerThreads);
+    }
+
+    private RowHashIndex loadIndex(final DataContext dataContext) {
+        final Table table = _targetKeyColumns[0].getTable();
+        final Column[] selectColumns = new Column[_targetKeyColumns.length + _targetColumns.length];
+        System.arraycopy(_targetKeyColumns, 0, selectColumns, 0, _targetKeyColumns.length);
+        System.arraycopy(_targetColumns, 0, selectColumns, _targetKeyColumns.length, _targetColumns.length);
+
+        final RowHashIndex index = new RowHashIndex();
+        try (DataSet dataSet = dataContext.query().from(table).select(selectColumns).execute()) {
+            final Object[] rowData = new Object[selectColumns.length];
+            while (dataSet.next()) {
+                final Row row = dataSet.getRow();
+                for (int i = 0; i < selectColumns.length; i++) {
+                    rowData[i] = TypeConverter.convertType(row.getValue(i), selectColumns[i]);
+                }
+                if (getNullKeyIndex(rowData, 0) != -1) {
+                    // cannot be matched by an update
+                    continue;
+                }
+                final long keyHash = hash(rowData, 0, _targetKeyColumns.length);
+                final long rowHash = hash(rowData, _targetKeyColumns.length, rowData.length);
+                index.put(keyHash, rowHash);
+            }
+        }
+        return index;
+    }
+
+    private int getNullKeyIndex(final Object[] rowData, final int offset) {
+        for (int i = 0; i < _targetKeyColumns.length; i++) {
+            if (rowData[offset + i] == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getSuggestedLabel() {
+        if (datastore == null || tableName == null) {
+            return null;
+        }
+        return datastore.getName() + " - " + tableName;
+    }
+
+    private void validateCsvHeaders(final CsvDataContext dc) {
+        final Schema schema = dc.getDefaultSchema();
+        if (schema.getTableCount() == 0) {
+            // nothing to worry about, we will create the table ourselves
+            return;
+        }
+        final Table table = schema.getTable(0);
+
+        // verify that table names correspond to what we need!
+
+        for (final String columnName : getErrorLogColumnNames()) {
+            if (columnName != null && table.getColumnByName(columnName) == null) {
+                throw new IllegalStateException("Error log file does not have required column header: " + columnName);
+            }
+        }
+
+        final Column column = table.getColumnByName(ERROR_MESSAGE_COLUMN_NAME);
+        if (column == null) {
+            throw new IllegalStateException(
+                    "Error log file does not have required column: " + ERROR_MESSAGE_COLUMN_NAME);
+        }
+    }
+
+    private String translateAdditionalErrorLogColumnName(final String columnName) {
+        if (ArrayUtils.contains(columnNames, columnName) || ArrayUtils.contains(keyColumnNames, columnName)) {
+            return translateAdditionalErrorLogColumnName(columnName + "_add");
+        }
+        return columnName;
+    }
+
+    private CsvDataContext createErrorDataContext() {
+        final File file;
+
+        if (errorLogFile == null || TEMP_DIR.equals(errorLogFile)) {
+            try {
+                file = File.createTempFile("upsert_error", ".csv");
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not create new temp file", e);
+            }
+        } else if (errorLogFile.isDirectory()) {
+            file = new File(errorLogFile, "upsert_error_log.csv");
+        } else {
+            file = errorLogFile;
+        }
+
+        final CsvDataContext dc = new CsvDataContext(file);
+
+        final Schema schema = dc.getDefaultSchema();
+
+        if (file.exists() && file.length() > 0) {
+            validateCsvHeaders(dc);
+        } else {
+            // create table if no table exists.
+            dc.executeUpdate(cb -> {
+                TableCreationBuilder tableBuilder = cb.createTable(schema, "error_table");
+                for (final String columnName : getErrorLogColumnNames()) {
+                    if (columnName != null) {
+                        tableBuilder = tableBuilder.withColumn(columnName);
+                    }
+                }
+
+                tableBuilder = tableBuilder.withColumn(ERROR_MESSAGE_COLUMN_NAME);
+
+                tableBuilder.execute();
+            });
+        }
+
+        return dc;
+    }
+
+    @Override
+    public void run(final InputRow row, final int distinctCount) {
+        // buffered rows are laid out as [pending write, values..., key
+        // values..., additional error log values...]
+        final int additionalCount = additionalErrorLogValues == null ? 0 : additionalErrorLogValues.length;
+        final Object[] rowData = new Object[1 + values.length + keyValues.length + additionalCount];
+        for (int i = 0; i < values.length; i++) {
+            rowData[1 + i] = row.getValue(values[i]);
+        }
+        for (int i = 0; i < keyValues.length; i++) {
+            rowData[1 + values.length + i] = row.getValue(keyValues[i]);
+        }
+        for (int i = 0; i < additionalCount; i++) {
+            rowData[1 + values.length + keyValues.length + i] = row.getValue(additionalErrorLogValues[i]);
+        }
+
+        try {
+            // perform conversion in a separate loop, since it might crash and
+            // the error data will be more complete if first loop finished.
+            for (int i = 0; i < values.length; i++) {
+                rowData[1 + i] = TypeConverter.convertType(rowData[1 + i], _targetColumns[i]);
+            }
+            for (int i = 0; i < keyValues.length; i++) {
+                final int index = 1 + values.length + i;
+                rowData[index] = TypeConverter.convertType(rowData[index], _targetKeyColumns[i]);
+            }
+            final int nullKeyIndex = getNullKeyIndex(rowData, 1 + values.length);
+            if (nullKeyIndex != -1) {
+                throw new IllegalArgumentException(
+                        "Key column '" + keyColumnNames[nullKeyIndex] + "' has no value, so the record cannot be "
+                                + "matched to a record in the table");
+            }
+        } catch (final RuntimeException e) {
+            errorOccurred(rowData, e);
+            return;
+        }
+
+        final int keysEnd = 1 + values.length + keyValues.length;
+        final long keyHash = hash(rowData, 1 + values.length, keysEnd);
+        final long rowHash = hash(rowData, 1, 1 + values.length);
+
+        synchronized (_bufferLock) {
+            synchronized (_index) {
+                // compare with the last buffered record of the key, if any
+                PendingKey pendingKey = _pendingKeys.get(keyHash);
+                final boolean exists;
+                if (pendingKey != null) {
+                    exists = true;
+                    if (pendingKey._rowHash == rowHash) {
+                        _unchangedRowCount.incrementAndGet();
+                        return;
+                    }
+                } else {
+                    exists = _index.containsKey(keyHash);
+                    if (exists && _index.get(keyHash) == rowHash) {
+                        _unchangedRowCount.incrementAndGet();
+                        return;
+                    }
+                    pendingKey = new PendingKey();
+                    _pendingKeys.put(keyHash, pendingKey);
+                }
+                rowData[0] = new PendingWrite(exists, keyHash, rowHash, pendingKey);
+                pendingKey._rowHash = rowHash;
+                pendingKey._bufferedCount++;
+            }
+            _writeBuffer.addToBuffer(rowData);
+        }
+    }
+
+    @Override
+    public WriteDataResult getResult() {
+        _writeBuffer.flushBuffer();
+
+        logger.info("{} records were unchanged and therefore not written", _unchangedRowCount.get());
+
+        final FileDatastore errorDatastore;
+        if (_errorRowAppender != null) {
+            // the error log is only materialized as a datastore once all records have been written
+            _errorRowAppender.close();
+            final Resource resource = _errorRowAppender.getResource();
+            errorDatastore = new CsvDatastore(resource.getName(), resource);
+        } else {
+            errorDatastore = null;
+        }
+
+        return new WriteDataResultImpl(_insertedRowCount.get(), _updatedRowCount.get(), datastore, schemaName,
+                tableName, _errorRowCount.get(), errorDatastore);
+    }
+
+    @Close
+    public void close() {
+        if (_writeBuffer != null) {
+            _writeBuffer.close();
+        }
+        if (_errorRowAppender != null) {
+            _errorRowAppender.close();
+        }
+    }
+
+    /**
+     * Method invoked when flushing the buffer
+     */
+    @Override
+    public void run(final Iterable<Object[]> buffer) throws Exception {
+        try {
+            awaitEarlierBatches(buffer);
+            writeBatch(buffer);
+        } finally {
+            synchronized (_index) {
+                for (final Object[] rowData : buffer) {
+                    finish((PendingWrite) rowData[0]);
+                }
+                _index.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the records of earlier batches with the same keys as the
+     * records of a batch have been written. Batches are handed to the writers
+     * in order, so earlier batches never wait for later ones.
+     */
+    private void awaitEarlierBatches(final Iterable<Object[]> buffer) throws InterruptedException {
+        final Set<Long> keyHashes = new HashSet<>();
+        synchronized (_index) {
+            for (final Object[] rowData : buffer) {
+                final PendingWrite write = (PendingWrite) rowData[0];
+                if (keyHashes.add(write._keyHash)) {
+                    // records of the same key within a batch are written in
+                    // order by the batch itself
+                    while (write._pendingKey._finishedCount < write._sequence) {
+                        _index.wait();
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeBatch(final Iterable<Object[]> buffer) {
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final SchemaNavigator schemaNavigator = con.getSchemaNavigator();
+            final Column[] columns = schemaNavigator.convertToColumns(schemaName, tableName, columnNames);
+            final Column[] keyColumns = schemaNavigator.convertToColumns(schemaName, tableName, keyColumnNames);
+            final Table table = keyColumns[0].getTable();
+
+            con.getUpdateableDataContext().executeUpdate((BatchUpdateScript) callback -> {
+                for (final Object[] rowData : buffer) {
+                    final PendingWrite write = (PendingWrite) rowData[0];
+                    try {
+                        if (write._update) {
+                            RowUpdationBuilder updationBuilder = callback.update(table);
+                            for (int i = 0; i < columns.length; i++) {
+                                updationBuilder = updationBuilder.value(columns[i], rowData[1 + i]);
+                            }
+                            for (int i = 0; i < keyColumns.length; i++) {
+                                final Object value = rowData[1 + columns.length + i];
+                                updationBuilder = updationBuilder.where(
+                                        new FilterItem(new SelectItem(keyColumns[i]), OperatorType.EQUALS_TO, value));
+                            }
+                            updationBuilder.execute();
+                        } else {
+                            RowInsertionBuilder insertionBuilder = callback.insertInto(table);
+                            for (int i = 0; i < keyColumns.length; i++) {
+                                insertionBuilder =
+                                        insertionBuilder.value(keyColumns[i], rowData[1 + columns.length + i]);
+                            }
+                            for (int i = 0; i < columns.length; i++) {
+                                insertionBuilder = insertionBuilder.value(columns[i], rowData[1 + i]);
+                            }
+                            insertionBuilder.execute();
+                        }
+                        write._written = true;
+                    } catch (final RuntimeException e) {
+                        errorOccurred(rowData, e);
+                    }
+                }
+            });
+        }
+
+        // the batch has been committed, so the written records can be counted
+        // and added to the index
+        int insertCount = 0;
+        int updateCount = 0;
+        synchronized (_index) {
+            for (final Object[] rowData : buffer) {
+                final PendingWrite write = (PendingWrite) rowData[0];
+                if (write._written) {
+                    _index.put(write._keyHash, write._rowHash);
+                    if (write._update) {
+                        updateCount++;
+                    } else {
+                        insertCount++;
+                    }
+                }
+                finish(write);
+            }
+            _index.notifyAll();
+        }
+
+        _insertedRowCount.addAndGet(insertCount);
+        _updatedRowCount.addAndGet(updateCount);
+        if (_componentContext != null) {
+            _componentContext.publishMessage(
+                    new ExecutionLogMessage(insertCount + " inserts and " + updateCount + " updates executed"));
+        }
+    }
+
+    /**
+     * Marks a buffered record as no longer pending. Must be called while
+     * holding the monitor of {@link #_index}.
+     */
+    private void finish(final PendingWrite write) {
+        if (write._finished) {
+            return;
+        }
+        write._finished = true;
+        final PendingKey pendingKey = write._pendingKey;
+        pendingKey._finishedCount++;
+        if (pendingKey._finishedCount == pendingKey._bufferedCount) {
+            _pendingKeys.remove(write._keyHash);
+        }
+    }
+
+    protected void errorOccurred(final Object[] rowData, final RuntimeException e) {
+        final int errorCount = _errorRowCount.incrementAndGet();
+        if (errorHandlingOption == ErrorHandlingOption.STOP_JOB) {
+            throw e;
+        } else {
+            if (errorCount == 1) {
+                logger.warn("Error occurred while upserting record. Writing to error stream", e);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Error occurred while upserting record. Writing to error stream", e);
+            }
+            _errorRowAppender.append(rowData, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the names of the error log columns of the values in the buffered
+     * records, by index.
+     */
+    private String[] getErrorLogColumnNames() {
+        final int additionalCount = additionalErrorLogValues == null ? 0 : additionalErrorLogValues.length;
+        final String[] names = new String[1 + columnNames.length + keyColumnNames.length + additionalCount];
+        // the first element holds the pending write, which is not logged
+        System.arraycopy(columnNames, 0, names, 1, columnNames.length);
+        System.arraycopy(keyColumnNames, 0, names, 1 + columnNames.length, keyColumnNames.length);
+        for (int i = 0; i < additionalCount; i++) {
+            names[1 + columnNames.length + keyColumnNames.length + i] =
+                    translateAdditionalErrorLogColumnName(additionalErrorLogValues[i].getName());
+        }
+        return names;
+    }
+
+    /**
+     * Computes a 64-bit hash of a range of (type converted) values. Values are
+     * normalized first, so that eg. numbers of different types but with the
+     * same value get the same hash.
+     *
+     * @param rowData
+     * @param from
+     * @param to
+     * @return
+     */
+    static long hash(final Object[] rowData, final int from, final int to) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        for (int i = from; i < to; i++) {
+            final Object value = rowData[i];
+            if (value == null) {
+                hasher.putByte(TYPE_NULL);
+            } else if (value instanceof Number) {
+                final String str = normalizeNumber((Number) value);
+                hasher.putByte(TYPE_NUMBER).putInt(str.length()).putString(str, StandardCharsets.UTF_8);
+            } else if (value instanceof Date) {
+                hasher.putByte(TYPE_DATE).putLong(((Date) value).getTime());
+            } else if (value instanceof Boolean) {
+                hasher.putByte(TYPE_BOOLEAN).putBoolean((Boolean) value);
+            } else {
+                final String str = value.toString();
+                hasher.putByte(TYPE_STRING).putInt(str.length()).putString(str, StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static String normalizeNumber(final Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            final double d = number.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return Double.toString(d);
+            }
+        }
+        final BigDecimal bigDecimal;
+        if (number instanceof BigDecimal) {
+            bigDecimal = (BigDecimal) number;
+        } else {
+            bigDecimal = new BigDecimal(number.toString());
+        }
+        if (bigDecimal.signum() == 0) {
+            return "0";
+        }
+        return bigDecimal.stripTrailingZeros().toPlainString();
+    }
+}
@@ -21,6 +21,7 @@ package org.datacleaner.extension.output;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.datacleaner.api.Analyzer;
@@ -41,6 +42,7 @@ public abstract class AbstractOutputWriterAnalyzer implements Analyzer<WriteData
     public static final String PROPERTY_FIELD_NAMES = "Fields";
 
     private final AtomicInteger rowCount = new AtomicInteger(0);
+    private final AtomicBoolean outputWriterClosed = new AtomicBoolean(false);
     protected OutputWriter outputWriter;
     @Configured(PROPERTY_COLUMNS)
     InputColumn<?>[] columns;
@@ -70,10 +72,19 @@ public abstract class AbstractOutputWriterAnalyzer implements Analyzer<WriteData
 
     @Override
     public final WriteDataResult getResult() {
-        outputWriter.close();
+        closeOutputWriter();
         return getResultInternal(rowCount.get());
     }
 
+    /**
+     * Closes the output writer, unless it has already been closed.
+     */
+    protected final void closeOutputWriter() {
+        if (outputWriter != null && outputWriterClosed.compareAndSet(false, true)) {
+            outputWriter.close();
+        }
+    }
+
     protected abstract WriteDataResult getResultInternal(int rowCount);
 
     public abstract OutputWriter createOutputWriter();
@@ -86,13 +97,24 @@ public abstract class AbstractOutputWriterAnalyzer implements Analyzer<WriteData
 
     protected void writeRow(final InputRow row, final int distinctCount) {
         final OutputRow outputRow = outputWriter.createRow();
-        for (final InputColumn<?> col : columns) {
+        for (final InputColumn<?> col : getOutputRowColumns()) {
             @SuppressWarnings("unchecked") final InputColumn<Object> objectCol = (InputColumn<Object>) col;
             outputRow.setValue(objectCol, row.getValue(col));
         }
         outputRow.write();
     }
 
+    /**
+     * Gets the columns whose values are set on the output rows. By default
+     * these are the configured columns, but writers may need the values of
+     * additional columns, eg. for sorting or partitioning.
+     *
+     * @return
+     */
+    protected InputColumn<?>[] getOutputRowColumns() {
+        return columns;
+    }
+
     public InputColumn<?>[] getColumns() {
         return columns;
     }
@@ -20,37 +20,29 @@
 package org.datacleaner.extension.output;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.metamodel.csv.CsvConfiguration;
-import org.apache.metamodel.csv.CsvDataContext;
-import org.apache.metamodel.csv.CsvWriter;
-import org.apache.metamodel.data.DataSet;
-import org.apache.metamodel.data.Row;
-import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.Alias;
 import org.datacleaner.api.Categorized;
 import org.datacleaner.api.Close;
+import org.datacleaner.api.Concurrent;
 import org.datacleaner.api.Configured;
 import org.datacleaner.api.Description;
 import org.datacleaner.api.FileProperty;
 import org.datacleaner.api.FileProperty.FileAccessMode;
 import org.datacleaner.api.HasDistributionAdvice;
 import org.datacleaner.api.HasLabelAdvice;
-import org.datacleaner.api.Initialize;
 import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.MappedProperty;
 import org.datacleaner.api.Provided;
 import org.datacleaner.api.Validate;
 import org.datacleaner.beans.writers.WriteDataResult;
@@ -64,15 +56,18 @@ import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.output.OutputWriter;
 import org.datacleaner.output.csv.CsvOutputWriterFactory;
 import org.datacleaner.user.UserPreferences;
-import org.datacleaner.util.sort.SortMergeWriter;
+import org.datacleaner.util.sort.SortDirection;
 
 import com.google.common.base.Strings;
 
 @Named("Create CSV file")
 @Alias("Write to CSV file")
 @Description("Write data to a CSV file. CSV file writing is extremely fast and the file format is commonly "
-        + "used in many tools. But CSV files do not preserve data types.")
+        + "used in many tools. But CSV files do not preserve data types.\nRecords are written by multiple threads "
+        + "concurrently, so unless a column to sort on is configured, the records in the file are not necessarily "
+        + "in the same order as they were read in.")
 @Categorized(superCategory = WriteSuperCategory.class)
+@Concurrent(true)
 public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
         implements HasLabelAdvice, HasDistributionAdvice {
 
@@ -80,6 +75,14 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
     public static final String PROPERTY_OVERWRITE_FILE_IF_EXISTS = "Overwrite file if exists";
     public static final String PROPERTY_COLUMN_TO_BE_SORTED_ON = "Column to be sorted on";
     public static final String PROPERTY_INCLUDE_HEADER = "Include header";
+    public static final String PROPERTY_COMPRESS = "Compress with GZIP";
+    public static final String PROPERTY_SORT_DIRECTION = "Sort direction";
+    public static final String PROPERTY_ADDITIONAL_COLUMNS_TO_BE_SORTED_ON = "Additional columns to be sorted on";
+    public static final String PROPERTY_ADDITIONAL_SORT_DIRECTIONS = "Additional sort directions";
+    public static final String PROPERTY_OUTPUT_FILES = "Number of output files";
+    public static final String PROPERTY_PARTITION_COLUMN = "Partition by column";
+    public static final String PROPERTY_MERGE_OUTPUT_FILES = "Merge output files";
+    public static final String PROPERTY_WRITE_MANIFEST = "Write manifest";
 
     @Inject
     @Configured(value = PROPERTY_FILE, order = 1)
@@ -113,6 +116,48 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
     @Configured(order = 7, required = false, value = PROPERTY_COLUMN_TO_BE_SORTED_ON)
     InputColumn<?> columnToBeSortedOn;
 
+    @Inject
+    @Description("Compress the file with GZIP while writing it. Note that the resulting file cannot be "
+            + "registered as a CSV datastore.")
+    @Configured(order = 8, required = false, value = PROPERTY_COMPRESS)
+    boolean compress = false;
+
+    @Inject
+    @Configured(order = 9, required = false, value = PROPERTY_SORT_DIRECTION)
+    SortDirection sortDirection = SortDirection.ASCENDING;
+
+    @Inject
+    @Description("Optional columns to sort records with when the values of the column to be sorted on are equal.")
+    @Configured(order = 10, required = false, value = PROPERTY_ADDITIONAL_COLUMNS_TO_BE_SORTED_ON)
+    InputColumn<?>[] additionalColumnsToBeSortedOn;
+
+    @Inject
+    @Configured(order = 11, required = false, value = PROPERTY_ADDITIONAL_SORT_DIRECTIONS)
+    @MappedProperty(PROPERTY_ADDITIONAL_COLUMNS_TO_BE_SORTED_ON)
+    SortDirection[] additionalSortDirections;
+
+    @Inject
+    @Description("Write the data to this number of part files (part-00000.csv, part-00001.csv, ...) in parallel. "
+            + "Unless the files are merged, the file property denotes the directory of the part files.")
+    @Configured(order = 12, required = false, value = PROPERTY_OUTPUT_FILES)
+    int outputFiles = 1;
+
+    @Inject
+    @Description("An optional column to assign records to output files by, so that records with equal values are "
+            + "written to the same file. If not set, each thread writes to its own file.")
+    @Configured(order = 13, required = false, value = PROPERTY_PARTITION_COLUMN)
+    InputColumn<?> partitionColumn;
+
+    @Inject
+    @Description("Concatenate the output files into a single file when done.")
+    @Configured(order = 14, required = false, value = PROPERTY_MERGE_OUTPUT_FILES)
+    boolean mergeOutputFiles = false;
+
+    @Inject
+    @Description("Write a manifest file listing the output files and their record counts.")
+    @Configured(order = 15, required = false, value = PROPERTY_WRITE_MANIFEST)
+    boolean writeManifest = false;
+
     @Inject
     @Configured(value = PROPERTY_OVERWRITE_FILE_IF_EXISTS)
     boolean overwriteFileIfExists;
@@ -121,22 +166,7 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
     @Provided
     UserPreferences userPreferences;
 
-    private Resource _targetResource;
-    private int _indexOfColumnToBeSortedOn = -1;
-    private boolean _isColumnToBeSortedOnPresentInInput = true;
-    private File tempFile = null;
-
-    @Initialize
-    public void initTempFile() throws Exception {
-        if (_targetResource == null) {
-            if (columnToBeSortedOn != null) {
-                 tempFile = File.createTempFile("csv_file_analyzer", ".csv");
-                _targetResource = new FileResource(tempFile);
-            } else {
-                _targetResource = file;
-            }
-        }
-    }
+    private InputColumn<?>[] _outputRowColumns;
 
     @Override
     public String getSuggestedLabel() {
@@ -152,6 +182,32 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
             throw new IllegalStateException(
                     "The file already exists. Please configure the job to overwrite the existing file.");
         }
+        if (additionalColumnsToBeSortedOn != null && additionalColumnsToBeSortedOn.length > 0) {
+            if (columnToBeSortedOn == null) {
+                throw new IllegalStateException(
+                        "Additional columns to be sorted on require a column to be sorted on.");
+            }
+            if (additionalSortDirections != null
+                    && additionalSortDirections.length != additionalColumnsToBeSortedOn.length) {
+                throw new IllegalStateException(
+                        "The number of additional sort directions must match the number of additional columns.");
+            }
+        }
+        if (outputFiles < 1) {
+            throw new IllegalStateException("The number of output files must be at least 1.");
+        }
+        if (isSharded()) {
+            if (columnToBeSortedOn != null) {
+                throw new IllegalStateException("Sorted output cannot be written to multiple output files.");
+            }
+            if (!(file instanceof FileResource)) {
+                throw new IllegalStateException("Multiple output files can only be written to the local file system.");
+            }
+        }
+    }
+
+    private boolean isSharded() {
+        return outputFiles > 1;
     }
 
     @Override
@@ -174,42 +230,75 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
 
     @Override
     public OutputWriter createOutputWriter() {
-        final List<String> headers = new ArrayList<>();
+        final String[] headers = new String[columns.length];
         for (int i = 0; i < columns.length; i++) {
-            final String columnName = getColumnHeader(i);
-            headers.add(columnName);
-            if (columnToBeSortedOn != null) {
-                if (columns[i].equals(columnToBeSortedOn)) {
-                    _indexOfColumnToBeSortedOn = i;
-                }
-            }
+            headers[i] = getColumnHeader(i);
         }
 
         if (columnToBeSortedOn != null) {
-            if (_indexOfColumnToBeSortedOn == -1) {
-                _isColumnToBeSortedOnPresentInInput = false;
-                _indexOfColumnToBeSortedOn = columns.length;
-                headers.add(columnToBeSortedOn.getName());
-                final InputColumn<?>[] newColumns = new InputColumn<?>[columns.length + 1];
-                for (int i = 0; i < columns.length; i++) {
-                    newColumns[i] = columns[i];
+            return createSortedOutputWriter(headers);
+        }
+
+        if (isSharded()) {
+            final File target = ((FileResource) file).getFile();
+            if (partitionColumn != null && !Arrays.asList(columns).contains(partitionColumn)) {
+                // the partition column needs to be set on the output rows too
+                _outputRowColumns = Arrays.copyOf(columns, columns.length + 1);
+                _outputRowColumns[columns.length] = partitionColumn;
+            } else {
+                _outputRowColumns = columns;
+            }
+            return CsvOutputWriterFactory
+                    .getShardedWriter(target, outputFiles, partitionColumn, mergeOutputFiles, writeManifest, headers,
+                            getSafeEncoding(), separatorChar, getSafeQuoteChar(), getSafeEscapeChar(), includeHeader,
+                            compress, columns);
+        }
+
+        _outputRowColumns = columns;
+        return CsvOutputWriterFactory
+                .getWriter(file, headers, getSafeEncoding(), separatorChar, getSafeQuoteChar(),
+                        getSafeEscapeChar(), includeHeader, compress, columns);
+    }
+
+    private OutputWriter createSortedOutputWriter(final String[] headers) {
+        final List<InputColumn<?>> sortColumns = new ArrayList<>();
+        final List<SortDirection> sortDirections = new ArrayList<>();
+        sortColumns.add(columnToBeSortedOn);
+        sortDirections.add(sortDirection == null ? SortDirection.ASCENDING : sortDirection);
+        if (additionalColumnsToBeSortedOn != null) {
+            for (int i = 0; i < additionalColumnsToBeSortedOn.length; i++) {
+                sortColumns.add(additionalColumnsToBeSortedOn[i]);
+                if (additionalSortDirections == null || additionalSortDirections[i] == null) {
+                    sortDirections.add(SortDirection.ASCENDING);
+                } else {
+                    sortDirections.add(additionalSortDirections[i]);
                 }
-                newColumns[columns.length] = columnToBeSortedOn;
-                columns = newColumns;
             }
         }
 
-        if (_targetResource == null) {
-            try {
-                initTempFile();
-            } catch (final Exception e) {
-                throw new RuntimeException(e);
+        // sort columns which are not written are appended to the columns, so
+        // that their values are also set on the output rows
+        final int outputColumnCount = columns.length;
+        final List<InputColumn<?>> allColumns = new ArrayList<>(Arrays.asList(columns));
+        for (final InputColumn<?> sortColumn : sortColumns) {
+            if (!allColumns.contains(sortColumn)) {
+                allColumns.add(sortColumn);
             }
         }
+        _outputRowColumns = allColumns.toArray(new InputColumn<?>[allColumns.size()]);
 
-        return CsvOutputWriterFactory
-                .getWriter(_targetResource, headers.toArray(new String[0]), getSafeEncoding(), separatorChar,
-                        getSafeQuoteChar(), getSafeEscapeChar(), includeHeader, columns);
+        final CsvConfiguration csvConfiguration =
+                new CsvConfiguration(CsvConfiguration.DEFAULT_COLUMN_NAME_LINE, getSafeEncoding(), separatorChar,
+                        getSafeQuoteChar(), getSafeEscapeChar(), false, true);
+        return new SortedCsvOutputWriter(file, csvConfiguration, headers, _outputRowColumns,
+                outputColumnCount,
+                sortColumns.toArray(new InputColumn<?>[sortColumns.size()]),
+                sortDirections.toArray(new SortDirection[sortDirections.size()]), includeHeader, compress);
+    }
+
+    @Override
+    protected InputColumn<?>[] getOutputRowColumns() {
+        return _outputRowColumns == null ? columns : _outputRowColumns;
     }
 
     private String getSafeEncoding() {
@@ -246,70 +335,12 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
                 new CsvConfiguration(CsvConfiguration.DEFAULT_COLUMN_NAME_LINE, getSafeEncoding(), separatorChar,
                         getSafeQuoteChar(), getSafeEscapeChar(), false, true);
 
-        if (columnToBeSortedOn != null) {
-
-            final CsvDataContext tempDataContext = new CsvDataContext(_targetResource, csvConfiguration);
-            final Table table = tempDataContext.getDefaultSchema().getTable(0);
-
-            final Comparator<? super Row> comparator =
-                    SortHelper.createComparator(columnToBeSortedOn, _indexOfColumnToBeSortedOn);
-
-            final CsvWriter csvWriter = new CsvWriter(csvConfiguration);
-            final SortMergeWriter<Row, Writer> sortMergeWriter = new SortMergeWriter<Row, Writer>(comparator) {
-
-                @Override
-                protected void writeHeader(final Writer writer) throws IOException {
-                    final List<String> headers = new ArrayList<>(table.getColumnNames());
-                    if (!_isColumnToBeSortedOnPresentInInput) {
-                        headers.remove(columnToBeSortedOn.getName());
-                    }
-
-                    final String[] columnNames = headers.toArray(new String[0]);
-                    final String line = csvWriter.buildLine(columnNames);
-                    writer.write(line);
-                }
-
-                @Override
-                protected void writeRow(final Writer writer, final Row row, final int count) throws IOException {
-                    for (int i = 0; i < count; i++) {
-                        final List<Object> valuesList = new ArrayList<>(Arrays.asList(row.getValues()));
-                        if (!_isColumnToBeSortedOnPresentInInput) {
-                            valuesList.remove(_indexOfColumnToBeSortedOn);
-                        }
-
-                        final Object[] values = valuesList.toArray(new Object[0]);
-
-                        final String[] stringValues = new String[values.length];
-                        for (int j = 0; j < stringValues.length; j++) {
-                            final Object obj = values[j];
-                            if (obj != null) {
-                                stringValues[j] = obj.toString();
-                            }
-                        }
-                        final String line = csvWriter.buildLine(stringValues);
-                        writer.write(line);
-                    }
-                }
-
-                @Override
-                protected Writer createWriter(final Resource resource) {
-                    final OutputStream outputStream = resource.write();
-                    return FileHelper.getWriter(outputStream, getSafeEncoding());
-                }
-            };
-
-            // read from the temp file and sort it into the final file
-            try (DataSet dataSet = tempDataContext.query().from(table).selectAll().execute()) {
-                while (dataSet.next()) {
-                    final Row row = dataSet.getRow();
-                    sortMergeWriter.append(row);
-                }
-            }
-
-            sortMergeWriter.write(file);
+        final Datastore datastore;
+        if (compress || (isSharded() && !mergeOutputFiles)) {
+            datastore = null;
+        } else {
+            datastore = new CsvDatastore(file.getName(), file, csvConfiguration);
         }
-        
-        final Datastore datastore = new CsvDatastore(file.getName(), file, csvConfiguration);
         return new WriteDataResultImpl(rowCount, datastore, null, null);
     }
 
@@ -321,16 +352,17 @@ public class CreateCsvFileAnalyzer extends AbstractOutputWriterAnalyzer
         this.file = resource;
     }
 
-    @Override
-    public boolean isDistributable() {
-        return columnToBeSortedOn == null;
+    /**
+     * Makes sure that the file is closed and the background writer thread is
+     * ended if the job fails before the result is collected.
+     */
+    @Close(onSuccess = false)
+    public void closeOnFailure() {
+        closeOutputWriter();
     }
 
-    @Close
-    public void close() {
-        // delete the temporary file
-        if (tempFile != null) {
-            tempFile.delete();
-        }
+    @Override
+    public boolean isDistributable() {
+        return columnToBeSortedOn == null && !isSharded();
     }
 }
@@ -29,6 +29,9 @@ import org.apache.metamodel.excel.ExcelDataContext;
 import org.apache.metamodel.insert.RowInsertionBuilder;
 import org.apache.metamodel.schema.ColumnType;
 import org.apache.metamodel.schema.Table;
+import org.datacleaner.output.excel.ExcelOutputWriterFactory;
+import org.datacleaner.output.excel.StreamingExcelSheet;
+import org.datacleaner.output.excel.StreamingExcelWorkbook;
 import org.datacleaner.util.WriteBuffer;
 import org.datacleaner.util.sort.SortMergeWriter;
 
@@ -37,18 +40,30 @@ import org.datacleaner.util.sort.SortMergeWriter;
  * with the {@link SortMergeWriter} when inserting records into an excel
  * spreadsheet.
  *
+ * XLSX files are written to the {@link StreamingExcelWorkbook} that
+ * {@link ExcelOutputWriterFactory} shares between all writers of the file, other
+ * files through MetaModel.
+ *
  * Note: Most of this class is actually fairly generic. It could in the future
  * be applied to work on other {@link DataContext} types as well.
  */
 class ExcelDataContextWriter implements Closeable {
 
     private final ExcelDataContext _dataContext;
+    private final String _filename;
     private final String _sheetName;
     private final WriteBuffer _buffer;
+    private StreamingExcelSheet _sheet;
 
     public ExcelDataContextWriter(final File file, final String sheetName) {
-        _dataContext = new ExcelDataContext(file);
+        _filename = file.getPath();
         _sheetName = sheetName;
+        if (StreamingExcelWorkbook.isStreamingSupported(_filename)) {
+            _dataContext = null;
+            _buffer = null;
+            return;
+        }
+        _dataContext = new ExcelDataContext(file);
         _buffer = new WriteBuffer(2000, records -> _dataContext.executeUpdate(callback -> {
             final Table table = callback.getDataContext().getDefaultSchema().getTableByName(_sheetName);
             for (final Object[] objects : records) {
@@ -63,10 +78,21 @@ class ExcelDataContextWriter implements Closeable {
 
     @Override
     public void close() {
+        if (_dataContext == null) {
+            if (_sheet != null) {
+                ExcelOutputWriterFactory.release(_filename);
+            }
+            return;
+        }
         _buffer.flushBuffer();
     }
 
     public void createTable(final List<String> headers) {
+        if (_dataContext == null) {
+            _sheet = ExcelOutputWriterFactory.getSheet(_filename, _sheetName,
+                    headers.toArray(new String[headers.size()]));
+            return;
+        }
         final CreateTable createTable = new CreateTable(_dataContext.getDefaultSchema(), _sheetName);
         for (final String header : headers) {
             createTable.withColumn(header).ofType(ColumnType.STRING);
@@ -75,6 +101,10 @@ class ExcelDataContextWriter implements Closeable {
     }
 
     public void insertValues(final Object[] values) {
+        if (_sheet != null) {
+            _sheet.writeRow(values);
+            return;
+        }
         _buffer.addToBuffer(values);
     }
 }
@@ -0,0 +1,231 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.extension.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.csv.CsvWriter;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Resource;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.components.convert.ConvertToDateTransformer;
+import org.datacleaner.components.convert.ConvertToNumberTransformer;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+import org.datacleaner.util.ReflectionUtils;
+import org.datacleaner.util.sort.SortDirection;
+import org.datacleaner.util.sort.SortKeyBuilder;
+import org.datacleaner.util.sort.SortMergeWriter;
+import org.datacleaner.util.sort.SortRecord;
+
+/**
+ * {@link OutputWriter} for {@link CreateCsvFileAnalyzer} when sorting. A binary
+ * sort key is built once per row when it is written, and the rows are sorted
+ * with a {@link SortMergeWriter} and written to the CSV file when the writer is
+ * closed.
+ *
+ * The columns of the writer are the output columns followed by any sort
+ * columns which are not output columns. Sort values are normalised based on
+ * the data type of their column: numbers and dates are sorted by value and
+ * anything else is sorted lexicographically, ignoring case.
+ */
+final class SortedCsvOutputWriter implements OutputWriter {
+
+    private static final int TYPE_STRING = 0;
+    private static final int TYPE_NUMBER = 1;
+    private static final int TYPE_DATE = 2;
+
+    private final Resource _resource;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+    private final int _outputColumnCount;
+    private final int[] _sortColumnIndexes;
+    private final SortDirection[] _sortDirections;
+    private final int[] _sortColumnTypes;
+    private final SortMergeWriter<SortRecord, Writer> _sortMergeWriter;
+    private final ConcurrentMap<Thread, SortKeyBuilder> _keyBuilders;
+
+    /**
+     *
+     * @param resource
+     *            the resource to write to
+     * @param csvConfiguration
+     * @param columnNames
+     *            the header names of the output columns
+     * @param columns
+     *            the output columns followed by sort columns that are not
+     *            output columns
+     * @param outputColumnCount
+     *            the number of output columns
+     * @param sortColumns
+     * @param sortDirections
+     * @param includeHeader
+     * @param compress
+     */
+    public SortedCsvOutputWriter(final Resource resource, final CsvConfiguration csvConfiguration,
+            final String[] columnNames, final InputColumn<?>[] columns, final int outputColumnCount,
+            final InputColumn<?>[] sortColumns, final SortDirection[] sortDirections, final boolean includeHeader,
+            final boolean compress) {
+        _resource = resource;
+        _columns = columns;
+        _outputColumnCount = outputColumnCount;
+        _sortDirections = sortDirections;
+        _columnIndexes = new HashMap<>();
+        _keyBuilders = new ConcurrentHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.putIfAbsent(columns[i], i);
+        }
+
+        _sortColumnIndexes = new int[sortColumns.length];
+        _sortColumnTypes = new int[sortColumns.length];
+        for (int i = 0; i < sortColumns.length; i++) {
+            _sortColumnIndexes[i] = _columnIndexes.get(sortColumns[i]);
+            final Class<?> dataType = sortColumns[i].getDataType();
+            if (dataType != null && ReflectionUtils.isNumber(dataType)) {
+                _sortColumnTypes[i] = TYPE_NUMBER;
+            } else if (dataType != null && ReflectionUtils.isDate(dataType)) {
+                _sortColumnTypes[i] = TYPE_DATE;
+            } else {
+                _sortColumnTypes[i] = TYPE_STRING;
+            }
+        }
+
+        final CsvWriter csvWriter = new CsvWriter(csvConfiguration);
+        _sortMergeWriter = new SortMergeWriter<SortRecord, Writer>(SortRecord::compareTo) {
+
+            @Override
+            protected void writeHeader(final Writer writer) throws IOException {
+                if (includeHeader) {
+                    writer.write(csvWriter.buildLine(columnNames));
+                }
+            }
+
+            @Override
+            protected void writeRow(final Writer writer, final SortRecord row, final int count) throws IOException {
+                final String line = csvWriter.buildLine(row.getValues());
+                for (int i = 0; i < count; i++) {
+                    writer.write(line);
+                }
+            }
+
+            @Override
+            protected Writer createWriter(final Resource resource) {
+                OutputStream outputStream = resource.write();
+                if (compress) {
+                    try {
+                        outputStream = new GZIPOutputStream(outputStream);
+                    } catch (final IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return FileHelper.getWriter(outputStream, csvConfiguration.getEncoding());
+            }
+        };
+    }
+
+    @Override
+    public OutputRow createRow() {
+        return new SortedCsvOutputRow();
+    }
+
+    private void writeRow(final Object[] values) {
+        final SortKeyBuilder keyBuilder =
+                _keyBuilders.computeIfAbsent(Thread.currentThread(), thread -> new SortKeyBuilder());
+        keyBuilder.reset();
+        for (int i = 0; i < _sortColumnIndexes.length; i++) {
+            final Object value = values[_sortColumnIndexes[i]];
+            final SortDirection direction = _sortDirections[i];
+            if (value == null) {
+                keyBuilder.appendNull(direction);
+                continue;
+            }
+            switch (_sortColumnTypes[i]) {
+            case TYPE_NUMBER:
+                keyBuilder.appendNumber(ConvertToNumberTransformer.transformValue(value), direction);
+                break;
+            case TYPE_DATE:
+                final Date date = ConvertToDateTransformer.getInternalInstance().transformValue(value);
+                keyBuilder.appendDate(date, direction);
+                break;
+            default:
+                keyBuilder.appendString(value.toString().toLowerCase(Locale.ROOT), direction);
+            }
+        }
+
+        final String[] stringValues = new String[_outputColumnCount];
+        for (int i = 0; i < stringValues.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                stringValues[i] = value.toString();
+            }
+        }
+
+        _sortMergeWriter.append(new SortRecord(keyBuilder.build(), stringValues));
+    }
+
+    @Override
+    public void close() {
+        _keyBuilders.clear();
+        _sortMergeWriter.write(_resource);
+    }
+
+    private final class SortedCsvOutputRow implements OutputRow {
+
+        private final Object[] _values = new Object[_columns.length];
+
+        @Override
+        public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
+            final Integer index = _columnIndexes.get(inputColumn);
+            if (index != null) {
+                // the same column may be configured more than once
+                for (int i = index; i < _columns.length; i++) {
+                    if (_columns[i].equals(inputColumn)) {
+                        _values[i] = value;
+                    }
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public OutputRow setValues(final InputRow row) {
+            for (int i = 0; i < _columns.length; i++) {
+                _values[i] = row.getValue(_columns[i]);
+            }
+            return this;
+        }
+
+        @Override
+        public void write() {
+            writeRow(_values);
+        }
+    }
+}
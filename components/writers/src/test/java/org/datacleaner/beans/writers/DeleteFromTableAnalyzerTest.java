@@ -21,7 +21,9 @@ package org.datacleaner.beans.writers;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.util.Set;
@@ -35,6 +37,7 @@ import org.datacleaner.api.ComponentContext;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.connection.FileDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.PojoDatastore;
 import org.datacleaner.connection.UpdateableDatastore;
 import org.datacleaner.connection.UpdateableDatastoreConnection;
@@ -104,6 +107,29 @@ public class DeleteFromTableAnalyzerTest {
         deleteFromTable.validate();
     }
 
+    @Test
+    public void shouldLimitKeySetSizeByConditionColumnCount() throws Exception {
+        final DeleteFromTableAnalyzer deleteFromTable = new DeleteFromTableAnalyzer();
+        deleteFromTable.conditionColumnNames = new String[] { "col1" };
+        deleteFromTable.conditionValues = new InputColumn[] { new MockInputColumn<>("in1", Object.class) };
+        deleteFromTable.keySetSize = 1000;
+        deleteFromTable.validate();
+
+        deleteFromTable.conditionColumnNames = new String[] { "col1", "col2", "col3" };
+        deleteFromTable.conditionValues = new InputColumn[] { new MockInputColumn<>("in1", Object.class),
+                new MockInputColumn<>("in2", Object.class), new MockInputColumn<>("in3", Object.class) };
+        deleteFromTable.keySetSize = 333;
+        deleteFromTable.validate();
+
+        deleteFromTable.keySetSize = 334;
+        try {
+            deleteFromTable.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertThat(e.getMessage(), startsWith("Key set size cannot be more than 333 with 3 condition column(s)"));
+        }
+    }
+
     @Test
     public void shouldCorrectlyAppendErrorHandlingInfo() throws Exception {
         final File file = new File("target/valid-error-handling-file-for-update.csv.csv");
@@ -130,7 +156,7 @@ public class DeleteFromTableAnalyzerTest {
         assertThat(FileHelper.readFileAsString(file).replaceAll("\n", "\\[newline\\]"),
                 is(equalTo("foo,bar,extra1,update_table_error_message,extra2[newline]" + //
                         "f,b,e1,m,e2[newline]" + //
-                        "\"\",\"\",\"\",\"Could not convert blabla to number\",\"\"")));//
+                        "\"\",\"blabla\",\"\",\"Could not convert blabla to number\",\"\"")));//
     }
 
     @Test
@@ -168,4 +194,59 @@ public class DeleteFromTableAnalyzerTest {
         con.close();
     }
 
+    @Test
+    public void shouldDeleteKeySets() throws Exception {
+        final JdbcDatastore jdbcDatastore = new JdbcDatastore("my jdbc datastore",
+                "jdbc:hsqldb:mem:DeleteFromTable_shouldDeleteKeySets", "org.hsqldb.jdbcDriver");
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> {
+                final Table table = cb.createTable(dc.getDefaultSchema(), TEST_TABLE_NAME)
+                        .withColumn(VARCHAR_COLUMN_NAME).ofType(ColumnType.VARCHAR).withColumn(INTEGER_COLUMN_NAME)
+                        .ofType(ColumnType.INTEGER).execute();
+                for (int i = 0; i < 10; i++) {
+                    cb.insertInto(table).value(VARCHAR_COLUMN_NAME, i % 2 == 0 ? "even" : "odd")
+                            .value(INTEGER_COLUMN_NAME, i).execute();
+                }
+                cb.insertInto(table).value(VARCHAR_COLUMN_NAME, null).value(INTEGER_COLUMN_NAME, 10).execute();
+            });
+        }
+
+        final DeleteFromTableAnalyzer deleteFromTable = new DeleteFromTableAnalyzer();
+        deleteFromTable.datastore = jdbcDatastore;
+        deleteFromTable.tableName = TEST_TABLE_NAME;
+        deleteFromTable.conditionColumnNames = new String[] { VARCHAR_COLUMN_NAME, INTEGER_COLUMN_NAME };
+        deleteFromTable.keySetSize = 2;
+        deleteFromTable.commitInterval = 4;
+        deleteFromTable._componentContext = EasyMock.createMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>(VARCHAR_COLUMN_NAME, Object.class);
+        final InputColumn<Object> col2 = new MockInputColumn<>(INTEGER_COLUMN_NAME, Object.class);
+        deleteFromTable.conditionValues = new InputColumn[] { col1, col2 };
+
+        deleteFromTable.validate();
+        deleteFromTable.init();
+
+        deleteFromTable.run(new MockInputRow().put(col1, "even").put(col2, 0), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "odd").put(col2, "1"), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "odd").put(col2, 1), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "odd").put(col2, 4), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, "even").put(col2, 6), 2);
+        deleteFromTable.run(new MockInputRow().put(col1, "odd").put(col2, 7), 1);
+        deleteFromTable.run(new MockInputRow().put(col1, null).put(col2, 10), 1);
+
+        final WriteDataResult result = deleteFromTable.getResult();
+        assertThat(result.getUpdatesCount(), is(8));
+        assertThat(result.getErrorRowCount(), is(0));
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection();
+                DataSet ds = con.getDataContext().query().from(TEST_TABLE_NAME).select(INTEGER_COLUMN_NAME)
+                        .orderBy(INTEGER_COLUMN_NAME).execute()) {
+            final StringBuilder remaining = new StringBuilder();
+            while (ds.next()) {
+                remaining.append(ds.getRow().getValue(0)).append(' ');
+            }
+            assertThat(remaining.toString(), is(equalTo("2 3 4 5 8 9 ")));
+        }
+    }
 }
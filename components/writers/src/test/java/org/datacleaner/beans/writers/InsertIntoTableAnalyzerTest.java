@@ -195,6 +195,57 @@ public class InsertIntoTableAnalyzerTest extends TestCase {
         con.close();
     }
 
+    public void testBulkLoad() throws Exception {
+        final JdbcDatastore h2Datastore = new JdbcDatastore("h2", "jdbc:h2:mem:InsertIntoTable_testBulkLoad",
+                "org.h2.Driver");
+        try (UpdateableDatastoreConnection con = h2Datastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> cb.createTable(dc.getDefaultSchema(), "test_table").withColumn("foo")
+                    .ofType(ColumnType.VARCHAR).withColumn("bar").ofType(ColumnType.INTEGER).execute());
+        }
+
+        final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
+        insertIntoTable.datastore = h2Datastore;
+        insertIntoTable.tableName = "test_table";
+        insertIntoTable.columnNames = new String[] { "foo", "bar" };
+        insertIntoTable.bulkLoad = true;
+        insertIntoTable._componentContext = EasyMock.createMock(ComponentContext.class);
+
+        final InputColumn<Object> col1 = new MockInputColumn<>("in1", Object.class);
+        final InputColumn<Object> col2 = new MockInputColumn<>("in2", Object.class);
+
+        insertIntoTable.values = new InputColumn[] { col1, col2 };
+
+        insertIntoTable.validate();
+        insertIntoTable.init();
+
+        insertIntoTable.run(new MockInputRow().put(col1, "hello world").put(col2, 123), 1);
+        insertIntoTable.run(new MockInputRow().put(col1, null).put(col2, null), 1);
+        insertIntoTable.run(new MockInputRow().put(col1, "foo bar").put(col2, "3123"), 2);
+
+        final WriteDataResult result = insertIntoTable.getResult();
+        insertIntoTable.close();
+
+        assertEquals(4, result.getWrittenRowCount());
+        assertEquals(0, result.getErrorRowCount());
+
+        try (UpdateableDatastoreConnection con = h2Datastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            final Table table = dc.getDefaultSchema().getTableByName("test_table");
+            try (DataSet ds = dc.query().from(table).select("foo", "bar").orderBy("foo").execute()) {
+                assertTrue(ds.next());
+                assertEquals("Row[values=[null, null]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[foo bar, 3123]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[foo bar, 3123]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[hello world, 123]]", ds.getRow().toString());
+                assertFalse(ds.next());
+            }
+        }
+    }
+
     public void testErrorHandlingToTempFile() throws Exception {
         final InsertIntoTableAnalyzer insertIntoTable = new InsertIntoTableAnalyzer();
         insertIntoTable.datastore = jdbcDatastore;
@@ -0,0 +1,243 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.beans.writers;
+
+import java.io.File;
+import java.math.BigDecimal;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.UpdateableDataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.connection.JdbcDatastore;
+import org.datacleaner.connection.UpdateableDatastoreConnection;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+
+import junit.framework.TestCase;
+
+public class UpsertTableAnalyzerTest extends TestCase {
+
+    private JdbcDatastore jdbcDatastore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        jdbcDatastore = new JdbcDatastore("my datastore", "jdbc:hsqldb:mem:UpsertTable_" + getName(),
+                "org.hsqldb.jdbcDriver");
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> {
+                final Table table = cb.createTable(dc.getDefaultSchema(), "test_table").withColumn("id")
+                        .ofType(ColumnType.INTEGER).withColumn("name").ofType(ColumnType.VARCHAR).withColumn("amount")
+                        .ofType(ColumnType.DECIMAL).execute();
+
+                cb.insertInto(table).value("id", 1).value("name", "a").value("amount", 10).execute();
+                cb.insertInto(table).value("id", 2).value("name", "b").value("amount", 20).execute();
+                cb.insertInto(table).value("id", 3).value("name", "c").value("amount", 30).execute();
+            });
+        }
+    }
+
+    public void testInsertNewAndUpdateChangedRows() throws Exception {
+        final InputColumn<Object> idColumn = new MockInputColumn<>("id", Object.class);
+        final InputColumn<Object> nameColumn = new MockInputColumn<>("name", Object.class);
+        final InputColumn<Object> amountColumn = new MockInputColumn<>("amount", Object.class);
+
+        final UpsertTableAnalyzer upsertTableAnalyzer = new UpsertTableAnalyzer();
+        upsertTableAnalyzer.datastore = jdbcDatastore;
+        upsertTableAnalyzer.tableName = "test_table";
+        upsertTableAnalyzer.columnNames = new String[] { "name", "amount" };
+        upsertTableAnalyzer.values = new InputColumn<?>[] { nameColumn, amountColumn };
+        upsertTableAnalyzer.keyColumnNames = new String[] { "id" };
+        upsertTableAnalyzer.keyValues = new InputColumn<?>[] { idColumn };
+        upsertTableAnalyzer.bufferSizeOption = WriteBufferSizeOption.TINY;
+        upsertTableAnalyzer.validate();
+        upsertTableAnalyzer.init();
+
+        // unchanged, although given with other types than in the table
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, "1").put(nameColumn, "a").put(amountColumn, 10.0), 1);
+        // changed
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 2).put(nameColumn, "bb").put(amountColumn, 20), 1);
+        // new, and then changed again
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 4).put(nameColumn, "d").put(amountColumn, 40), 1);
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 4).put(nameColumn, "dd").put(amountColumn, 40), 1);
+        // new, and then repeated
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 5).put(nameColumn, null).put(amountColumn, 50), 1);
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 5).put(nameColumn, null).put(amountColumn, 50), 1);
+
+        final WriteDataResult result = upsertTableAnalyzer.getResult();
+        upsertTableAnalyzer.close();
+
+        assertEquals(0, result.getErrorRowCount());
+        assertEquals(2, result.getWrittenRowCount());
+        assertEquals(2, result.getUpdatesCount());
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final DataContext dc = con.getDataContext();
+            try (DataSet ds = dc.query().from("test_table").select("id", "name").orderBy("id").execute()) {
+                assertTrue(ds.next());
+                assertEquals("Row[values=[1, a]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[2, bb]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[3, c]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[4, dd]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[5, null]]", ds.getRow().toString());
+                assertFalse(ds.next());
+            }
+        }
+    }
+
+    public void testNullKeyIsHandledAsError() throws Exception {
+        final File errorLogFile = new File("target/upsert-error-log-" + getName() + ".csv");
+        errorLogFile.delete();
+
+        final InputColumn<Object> idColumn = new MockInputColumn<>("id", Object.class);
+        final InputColumn<Object> nameColumn = new MockInputColumn<>("name", Object.class);
+
+        final UpsertTableAnalyzer upsertTableAnalyzer = new UpsertTableAnalyzer();
+        upsertTableAnalyzer.datastore = jdbcDatastore;
+        upsertTableAnalyzer.tableName = "test_table";
+        upsertTableAnalyzer.columnNames = new String[] { "name" };
+        upsertTableAnalyzer.values = new InputColumn<?>[] { nameColumn };
+        upsertTableAnalyzer.keyColumnNames = new String[] { "id" };
+        upsertTableAnalyzer.keyValues = new InputColumn<?>[] { idColumn };
+        upsertTableAnalyzer.errorHandlingOption = ErrorHandlingOption.SAVE_TO_FILE;
+        upsertTableAnalyzer.errorLogFile = errorLogFile;
+        upsertTableAnalyzer.validate();
+        upsertTableAnalyzer.init();
+
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, null).put(nameColumn, "x"), 1);
+        upsertTableAnalyzer.run(new MockInputRow().put(idColumn, 4).put(nameColumn, "d"), 1);
+
+        final WriteDataResult result = upsertTableAnalyzer.getResult();
+        upsertTableAnalyzer.close();
+
+        assertEquals(1, result.getErrorRowCount());
+        assertEquals(1, result.getWrittenRowCount());
+        assertEquals(0, result.getUpdatesCount());
+
+        final DataContext errorDataContext = result.getErrorDatastore().openConnection().getDataContext();
+        try (DataSet ds = errorDataContext.query().from(errorDataContext.getDefaultSchema().getTable(0))
+                .select("name", "id", "upsert_table_error_message").execute()) {
+            assertTrue(ds.next());
+            assertEquals("Row[values=[x, , Key column 'id' has no value, so the record cannot be matched to a "
+                    + "record in the table]]", ds.getRow().toString());
+            assertFalse(ds.next());
+        }
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final DataContext dc = con.getDataContext();
+            try (DataSet ds = dc.query().from("test_table").selectCount().execute()) {
+                assertTrue(ds.next());
+                assertEquals(4, ((Number) ds.getRow().getValue(0)).intValue());
+            }
+        }
+    }
+
+    public void testWriteKeysInOrderWithMultipleWriterThreads() throws Exception {
+        final InputColumn<Object> idColumn = new MockInputColumn<>("id", Object.class);
+        final InputColumn<Object> nameColumn = new MockInputColumn<>("name", Object.class);
+
+        final UpsertTableAnalyzer upsertTableAnalyzer = new UpsertTableAnalyzer();
+        upsertTableAnalyzer.datastore = jdbcDatastore;
+        upsertTableAnalyzer.tableName = "test_table";
+        upsertTableAnalyzer.columnNames = new String[] { "name" };
+        upsertTableAnalyzer.values = new InputColumn<?>[] { nameColumn };
+        upsertTableAnalyzer.keyColumnNames = new String[] { "id" };
+        upsertTableAnalyzer.keyValues = new InputColumn<?>[] { idColumn };
+        upsertTableAnalyzer.bufferSizeOption = WriteBufferSizeOption.TINY;
+        upsertTableAnalyzer.writerThreads = 4;
+        upsertTableAnalyzer.validate();
+        upsertTableAnalyzer.init();
+
+        // every key is inserted and then updated a number of times, spread
+        // over many batches
+        final int keyCount = 50;
+        final int versionCount = 20;
+        for (int version = 0; version < versionCount; version++) {
+            for (int id = 10; id < 10 + keyCount; id++) {
+                upsertTableAnalyzer.run(new MockInputRow().put(idColumn, id).put(nameColumn, "v" + version), 1);
+            }
+        }
+
+        final WriteDataResult result = upsertTableAnalyzer.getResult();
+        upsertTableAnalyzer.close();
+
+        assertEquals(0, result.getErrorRowCount());
+        assertEquals(keyCount, result.getWrittenRowCount());
+        assertEquals(keyCount * (versionCount - 1), result.getUpdatesCount());
+
+        try (UpdateableDatastoreConnection con = jdbcDatastore.openConnection()) {
+            final DataContext dc = con.getDataContext();
+            try (DataSet ds = dc.query().from("test_table").select("id", "name").where("id").gte(10).execute()) {
+                int count = 0;
+                while (ds.next()) {
+                    assertEquals("v" + (versionCount - 1), ds.getRow().getValue(1));
+                    count++;
+                }
+                assertEquals(keyCount, count);
+            }
+        }
+    }
+
+    public void testHashNormalizesNumbers() throws Exception {
+        assertEquals(UpsertTableAnalyzer.hash(new Object[] { 10 }, 0, 1),
+                UpsertTableAnalyzer.hash(new Object[] { new BigDecimal("10.00") }, 0, 1));
+        assertEquals(UpsertTableAnalyzer.hash(new Object[] { 10L }, 0, 1),
+                UpsertTableAnalyzer.hash(new Object[] { 10.0d }, 0, 1));
+        assertFalse(UpsertTableAnalyzer.hash(new Object[] { 10 }, 0, 1) == UpsertTableAnalyzer
+                .hash(new Object[] { "10" }, 0, 1));
+        assertFalse(UpsertTableAnalyzer.hash(new Object[] { "a", "bc" }, 0, 2) == UpsertTableAnalyzer
+                .hash(new Object[] { "ab", "c" }, 0, 2));
+        assertFalse(UpsertTableAnalyzer.hash(new Object[] { null }, 0, 1) == UpsertTableAnalyzer
+                .hash(new Object[] { "" }, 0, 1));
+    }
+
+    public void testRowHashIndexGrows() throws Exception {
+        final RowHashIndex index = new RowHashIndex();
+        for (long i = 0; i < 5000; i++) {
+            assertTrue(index.put(i * 31, i));
+        }
+        assertFalse(index.put(0, 42));
+        assertEquals(5000, index.size());
+        assertEquals(42, index.get(0));
+        assertEquals(4999, index.get(4999 * 31));
+        assertFalse(index.containsKey(5));
+    }
+
+    public void testRowHashIndexWithClusteredSlots() throws Exception {
+        final RowHashIndex index = new RowHashIndex();
+        // keys which all start probing at the same slot
+        for (long i = 1; i <= 2000; i++) {
+            assertTrue(index.put(i << 40 | i << 8, -i));
+        }
+        assertEquals(2000, index.size());
+        for (long i = 1; i <= 2000; i++) {
+            assertEquals(-i, index.get(i << 40 | i << 8));
+        }
+        assertFalse(index.containsKey(2001L << 40 | 2001L << 8));
+    }
+}
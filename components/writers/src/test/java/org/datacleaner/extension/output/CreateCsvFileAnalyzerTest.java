@@ -21,19 +21,39 @@ package org.datacleaner.extension.output;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.Row;
+import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
+import org.datacleaner.beans.writers.WriteDataResult;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.connection.CsvDatastore;
+import org.datacleaner.connection.DatastoreCatalogImpl;
 import org.datacleaner.connection.UpdateableDatastoreConnection;
 import org.datacleaner.data.MockInputColumn;
 import org.datacleaner.data.MockInputRow;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.builder.AnalyzerComponentBuilder;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.job.runner.AnalysisRunnerImpl;
+import org.datacleaner.util.SystemProperties;
+import org.datacleaner.util.sort.SortDirection;
 import org.junit.After;
 import org.junit.Test;
 
@@ -54,7 +74,6 @@ public class CreateCsvFileAnalyzerTest {
         analyzer = new CreateCsvFileAnalyzer();
 
         analyzer.file = new FileResource("target/csvtest.csv");
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
         // Case 1 - file does not exists
         assertFalse(analyzer.file.isExists());
@@ -97,7 +116,6 @@ public class CreateCsvFileAnalyzerTest {
         final InputColumn<Integer> idColumn = new MockInputColumn<>("IdToSort", Integer.class);
 
         analyzer.file = new FileResource("target/csvtest-sortnumerical.csv");
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
         final String targetFilename = analyzer.file.getName();
 
@@ -154,7 +172,6 @@ public class CreateCsvFileAnalyzerTest {
         final InputColumn<String> idColumn = new MockInputColumn<>("IdToSort", String.class);
 
         analyzer.file = new FileResource("target/csvtest-sortnumerical.csv");
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
         final String targetFilename = analyzer.file.getName();
 
@@ -211,7 +228,6 @@ public class CreateCsvFileAnalyzerTest {
         final InputColumn<String> someColumn = new MockInputColumn<>("SomeColumn", String.class);
 
         analyzer.file = new FileResource("target/csvtest-sortlexicographiccasesensitivity.csv");
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
         final String targetFilename = analyzer.file.getName();
 
@@ -264,7 +280,6 @@ public class CreateCsvFileAnalyzerTest {
         final InputColumn<Integer> integerColumn = new MockInputColumn<>("IntegerColumn");
 
         analyzer.file = new FileResource("target/csvtest-customcolumnheaders.csv");
-        analyzer.initTempFile();
         assertNotNull(analyzer.file);
         final String targetFilename = analyzer.file.getName();
 
@@ -310,4 +325,227 @@ public class CreateCsvFileAnalyzerTest {
         }
     }
 
+    @Test
+    public void testCompressedOutput() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+
+        final InputColumn<String> stringColumn = new MockInputColumn<>("StringColumn");
+        final InputColumn<Integer> integerColumn = new MockInputColumn<>("IntegerColumn");
+
+        analyzer.file = new FileResource("target/csvtest-compressed.csv.gz");
+        analyzer.compress = true;
+
+        analyzer.columns = new InputColumn<?>[] { stringColumn, integerColumn };
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(stringColumn, "foo").put(integerColumn, 1), 1);
+        analyzer.run(new MockInputRow().put(stringColumn, "bar").put(integerColumn, 2), 1);
+
+        final WriteDataResult result = analyzer.getResult();
+        assertEquals(2, result.getWrittenRowCount());
+        assertNull(result.getDatastore(null));
+
+        final File file = ((FileResource) analyzer.file).getFile();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FileHelper.copy(in, out);
+            assertEquals("\"StringColumn\",\"IntegerColumn\"\n\"foo\",\"1\"\n\"bar\",\"2\"\n",
+                    new String(out.toByteArray(), FileHelper.DEFAULT_ENCODING));
+        }
+    }
+
+    @Test
+    public void testSortMultipleColumns() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+
+        final InputColumn<String> nameColumn = new MockInputColumn<>("Name", String.class);
+        final InputColumn<Integer> groupColumn = new MockInputColumn<>("Group", Integer.class);
+        final InputColumn<Integer> scoreColumn = new MockInputColumn<>("Score", Integer.class);
+
+        analyzer.file = new FileResource("target/csvtest-sortmultiplecolumns.csv");
+        analyzer.includeHeader = false;
+
+        analyzer.columns = new InputColumn<?>[] { nameColumn, scoreColumn };
+        analyzer.columnToBeSortedOn = groupColumn;
+        analyzer.additionalColumnsToBeSortedOn = new InputColumn<?>[] { scoreColumn };
+        analyzer.additionalSortDirections = new SortDirection[] { SortDirection.DESCENDING };
+        analyzer.validate();
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(nameColumn, "a").put(groupColumn, 2).put(scoreColumn, 10), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "b").put(groupColumn, 1).put(scoreColumn, 5), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "c").put(groupColumn, 2).put(scoreColumn, 30), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "d").put(groupColumn, 1).put(scoreColumn, 50), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "e").put(groupColumn, null).put(scoreColumn, null), 1);
+        analyzer.run(new MockInputRow().put(nameColumn, "d").put(groupColumn, 1).put(scoreColumn, 50), 1);
+
+        final WriteDataResult result = analyzer.getResult();
+        assertEquals(6, result.getWrittenRowCount());
+
+        final File file = ((FileResource) analyzer.file).getFile();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(file)) {
+            FileHelper.copy(in, out);
+        }
+        assertEquals("\"e\",\n\"d\",\"50\"\n\"d\",\"50\"\n\"b\",\"5\"\n\"c\",\"30\"\n\"a\",\"10\"\n",
+                new String(out.toByteArray(), FileHelper.DEFAULT_ENCODING));
+    }
+
+    @Test
+    public void testValidateAdditionalSortColumnsRequireSortColumn() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+        analyzer.file = new FileResource("target/csvtest-validatesort.csv");
+        analyzer.additionalColumnsToBeSortedOn = new InputColumn<?>[] { new MockInputColumn<>("foo") };
+        try {
+            analyzer.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Additional columns to be sorted on require a column to be sorted on.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMultipleOutputFilesPartitionedByColumn() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+
+        final InputColumn<String> nameColumn = new MockInputColumn<>("Name", String.class);
+        final InputColumn<String> countryColumn = new MockInputColumn<>("Country", String.class);
+
+        final File directory = new File("target/csvtest-partitioned.csv");
+        analyzer.file = new FileResource(directory);
+        analyzer.overwriteFileIfExists = true;
+        analyzer.outputFiles = 2;
+        analyzer.partitionColumn = countryColumn;
+        analyzer.columns = new InputColumn<?>[] { nameColumn };
+        analyzer.validate();
+        analyzer.init();
+
+        final String[] countries = { "DK", "NL", "DK", "US", "NL" };
+        for (int i = 0; i < countries.length; i++) {
+            analyzer.run(new MockInputRow().put(nameColumn, "name" + i).put(countryColumn, countries[i]), 1);
+        }
+
+        final WriteDataResult result = analyzer.getResult();
+        assertEquals(5, result.getWrittenRowCount());
+        assertNull(result.getDatastore(null));
+
+        // the configured columns are not changed by the partitioning
+        assertEquals(1, analyzer.columns.length);
+
+        final List<String> lines = new ArrayList<>();
+        final Map<String, String> partNamesByCountry = new HashMap<>();
+        for (final String partName : new String[] { "part-00000.csv", "part-00001.csv" }) {
+            final List<String> partLines = Files.readAllLines(new File(directory, partName).toPath());
+            assertEquals("\"Name\"", partLines.get(0));
+            for (final String line : partLines.subList(1, partLines.size())) {
+                lines.add(line);
+                final int index = Integer.parseInt(line.replaceAll("[^0-9]", ""));
+                final String previousPartName = partNamesByCountry.put(countries[index], partName);
+                if (previousPartName != null) {
+                    assertEquals("Rows of " + countries[index] + " in different files", previousPartName, partName);
+                }
+            }
+        }
+        lines.sort(null);
+        assertEquals("[\"name0\", \"name1\", \"name2\", \"name3\", \"name4\"]", lines.toString());
+        assertEquals(3, partNamesByCountry.size());
+    }
+
+    @Test
+    public void testDistinctValueBufferDoesNotCollapseWrittenRows() throws Throwable {
+        final File inputFile = new File("target/csvtest-distinct-input.csv");
+        Files.write(inputFile.toPath(), Arrays.asList("name", "foo", "bar", "foo", "foo", "bar"));
+        final File outputFile = new File("target/csvtest-distinct-output.csv");
+
+        final CsvDatastore datastore = new CsvDatastore("input", inputFile.getPath());
+        final DataCleanerConfiguration configuration =
+                new DataCleanerConfigurationImpl().withDatastoreCatalog(new DatastoreCatalogImpl(datastore));
+
+        final String previousBufferSize = System.getProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE);
+        System.setProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE, "100");
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("name");
+
+            final AnalyzerComponentBuilder<CreateCsvFileAnalyzer> writer = ajb.addAnalyzer(CreateCsvFileAnalyzer.class);
+            writer.addInputColumns(ajb.getSourceColumns());
+            writer.setConfiguredProperty(CreateCsvFileAnalyzer.PROPERTY_FILE, new FileResource(outputFile));
+            writer.setConfiguredProperty(CreateCsvFileAnalyzer.PROPERTY_OVERWRITE_FILE_IF_EXISTS, true);
+
+            final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(ajb.toAnalysisJob());
+            if (resultFuture.isErrornous()) {
+                throw resultFuture.getErrors().get(0);
+            }
+
+            final WriteDataResult result = (WriteDataResult) resultFuture.getResults().get(0);
+            assertEquals(5, result.getWrittenRowCount());
+            assertEquals("[\"name\", \"foo\", \"bar\", \"foo\", \"foo\", \"bar\"]",
+                    Files.readAllLines(outputFile.toPath()).toString());
+        } finally {
+            if (previousBufferSize == null) {
+                System.clearProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE);
+            } else {
+                System.setProperty(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE, previousBufferSize);
+            }
+            inputFile.delete();
+            outputFile.delete();
+        }
+    }
+
+    @Test
+    public void testValidateMultipleOutputFilesNotSorted() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+        analyzer.file = new FileResource("target/csvtest-validatesharded.csv");
+        analyzer.outputFiles = 2;
+        analyzer.columnToBeSortedOn = new MockInputColumn<>("foo");
+        try {
+            analyzer.validate();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Sorted output cannot be written to multiple output files.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCloseOnFailureClosesFile() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+
+        final InputColumn<String> nameColumn = new MockInputColumn<>("Name", String.class);
+        final File file = new File("target/csvtest-closeonfailure.csv");
+        analyzer.file = new FileResource(file);
+        analyzer.overwriteFileIfExists = true;
+        analyzer.columns = new InputColumn<?>[] { nameColumn };
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(nameColumn, "foo"), 1);
+
+        // the job failed, so the result is never collected
+        analyzer.closeOnFailure();
+        assertEquals("[\"Name\", \"foo\"]", Files.readAllLines(file.toPath()).toString());
+
+        // closing again has no effect
+        analyzer.closeOnFailure();
+    }
+
+    @Test
+    public void testCloseOnFailureAfterResultDoesNotMergeAgain() throws Exception {
+        analyzer = new CreateCsvFileAnalyzer();
+
+        final InputColumn<String> nameColumn = new MockInputColumn<>("Name", String.class);
+        final File file = new File("target/csvtest-closeafterresult.csv");
+        analyzer.file = new FileResource(file);
+        analyzer.overwriteFileIfExists = true;
+        analyzer.outputFiles = 2;
+        analyzer.mergeOutputFiles = true;
+        analyzer.columns = new InputColumn<?>[] { nameColumn };
+        analyzer.validate();
+        analyzer.init();
+
+        analyzer.run(new MockInputRow().put(nameColumn, "foo"), 1);
+        assertEquals(1, analyzer.getResult().getWrittenRowCount());
+
+        // a later component failed, the part files have already been merged
+        analyzer.closeOnFailure();
+        assertTrue(Files.readAllLines(file.toPath()).contains("\"foo\""));
+    }
 }
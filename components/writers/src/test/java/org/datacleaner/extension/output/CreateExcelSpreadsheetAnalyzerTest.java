@@ -382,4 +382,61 @@ public class CreateExcelSpreadsheetAnalyzerTest extends TestCase {
         }
     }
 
+    @Test
+    public void testSortedAndUnsortedSheetsInSameFile() throws Exception {
+        final String filename = "target/exceltest-sortedandunsorted.xlsx";
+        generatedFile = new File(filename);
+        generatedFile.delete();
+
+        final InputColumn<String> nameColumn = new MockInputColumn<>("Name");
+        final InputColumn<Integer> idColumn = new MockInputColumn<>("Id", Integer.class);
+
+        final CreateExcelSpreadsheetAnalyzer unsortedAnalyzer = new CreateExcelSpreadsheetAnalyzer();
+        unsortedAnalyzer.file = generatedFile;
+        unsortedAnalyzer.sheetName = "unsorted";
+        unsortedAnalyzer.columns = new InputColumn<?>[] { nameColumn, idColumn };
+        unsortedAnalyzer.validate();
+        unsortedAnalyzer.initTempFile();
+        unsortedAnalyzer.init();
+
+        final CreateExcelSpreadsheetAnalyzer sortedAnalyzer = new CreateExcelSpreadsheetAnalyzer();
+        sortedAnalyzer.file = generatedFile;
+        sortedAnalyzer.sheetName = "sorted";
+        sortedAnalyzer.columns = new InputColumn<?>[] { nameColumn, idColumn };
+        sortedAnalyzer.columnToBeSortedOn = idColumn;
+        sortedAnalyzer.validate();
+        sortedAnalyzer.initTempFile();
+        sortedAnalyzer.init();
+
+        final int[] ids = { 3, 1, 2 };
+        for (int i = 0; i < ids.length; i++) {
+            final InputRow row = new MockInputRow().put(nameColumn, "row" + i).put(idColumn, ids[i]);
+            unsortedAnalyzer.run(row, 1);
+            sortedAnalyzer.run(row, 1);
+        }
+
+        // the sorted sheet is written while the unsorted writer is still open
+        sortedAnalyzer.getResult();
+        sortedAnalyzer.close();
+        unsortedAnalyzer.getResult();
+
+        final ExcelDatastore outputDatastore =
+                new ExcelDatastore(filename, new FileResource(generatedFile), generatedFile.getAbsolutePath());
+        try (UpdateableDatastoreConnection connection = outputDatastore.openConnection()) {
+            final DataContext dataContext = connection.getDataContext();
+            assertEquals("[unsorted, sorted]", dataContext.getDefaultSchema().getTableNames().toString());
+            assertEquals("[row0, row1, row2]", getNames(dataContext, "unsorted").toString());
+            assertEquals("[row1, row2, row0]", getNames(dataContext, "sorted").toString());
+        }
+    }
+
+    private static List<Object> getNames(final DataContext dataContext, final String sheetName) {
+        final List<Object> names = new ArrayList<>();
+        try (DataSet dataSet = dataContext.query().from(sheetName).select("Name").execute()) {
+            while (dataSet.next()) {
+                names.add(dataSet.getRow().getValue(0));
+            }
+        }
+        return names;
+    }
 }
@@ -22,6 +22,7 @@ package org.datacleaner.connection;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -38,6 +39,10 @@ import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.schema.TableType;
+import org.datacleaner.connection.bulk.JdbcBulkWriter;
+import org.datacleaner.connection.bulk.MultiRowInsertJdbcBulkWriter;
+import org.datacleaner.connection.bulk.MySqlLoadDataJdbcBulkWriter;
+import org.datacleaner.connection.bulk.PostgresCopyJdbcBulkWriter;
 import org.datacleaner.util.ReadObjectBuilder;
 import org.datacleaner.util.StringUtils;
 import org.slf4j.Logger;
@@ -290,6 +295,49 @@ public class JdbcDatastore extends UsageAwareDatastore<UpdateableDataContext>
         }
     }
 
+    /**
+     * Gets a {@link JdbcBulkWriter} for loading batches of rows into the
+     * database. Subclasses may override this method to plug in other bulk
+     * loading mechanisms.
+     *
+     * @param metaData
+     *            the metadata of the connection that will be written to
+     * @return a bulk writer, or null if no bulk loading mechanism is available
+     *         for the database
+     * @throws SQLException
+     */
+    public JdbcBulkWriter getBulkWriter(final DatabaseMetaData metaData) throws SQLException {
+        final String databaseProductName = metaData.getDatabaseProductName();
+        if (databaseProductName == null) {
+            return null;
+        }
+        switch (databaseProductName) {
+        case JdbcDataContext.DATABASE_PRODUCT_POSTGRESQL:
+            return new PostgresCopyJdbcBulkWriter();
+        case JdbcDataContext.DATABASE_PRODUCT_MYSQL:
+            return new MySqlLoadDataJdbcBulkWriter();
+        case JdbcDataContext.DATABASE_PRODUCT_HSQLDB:
+            // multi-row VALUES is supported as of HSQLDB 2.0
+            return metaData.getDatabaseMajorVersion() >= 2 ? new MultiRowInsertJdbcBulkWriter() : null;
+        case JdbcDataContext.DATABASE_PRODUCT_SQLSERVER:
+            // multi-row VALUES is supported as of SQL Server 2008
+            return metaData.getDatabaseMajorVersion() >= 10 ? new MultiRowInsertJdbcBulkWriter() : null;
+        case JdbcDataContext.DATABASE_PRODUCT_SQLITE:
+            return new MultiRowInsertJdbcBulkWriter(MultiRowInsertJdbcBulkWriter.DEFAULT_MAX_ROWS_PER_STATEMENT,
+                    MultiRowInsertJdbcBulkWriter.SQLITE_MAX_PARAMETERS_PER_STATEMENT);
+        case JdbcDataContext.DATABASE_PRODUCT_H2:
+        case JdbcDataContext.DATABASE_PRODUCT_DB2:
+        case "Apache Derby":
+        case "MariaDB":
+            return new MultiRowInsertJdbcBulkWriter();
+        default:
+            if (databaseProductName.startsWith(JdbcDataContext.DATABASE_PRODUCT_DB2_PREFIX)) {
+                return new MultiRowInsertJdbcBulkWriter();
+            }
+            return null;
+        }
+    }
+
     protected Context getJndiNamingContext() throws NamingException {
         return new InitialContext();
     }
@@ -0,0 +1,260 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Iterator;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * Abstract {@link JdbcBulkWriter} for native loading mechanisms that consume
+ * rows as a stream of delimited text. Rows are rendered lazily while the stream
+ * is being read, so the batch is never held in memory a second time in text
+ * form.
+ */
+public abstract class AbstractDelimitedTextJdbcBulkWriter implements JdbcBulkWriter {
+
+    @Override
+    public final int write(final Connection connection, final Table table, final Column[] columns,
+            final Iterable<Object[]> rows) throws SQLException {
+        final RowsInputStream in = new RowsInputStream(rows.iterator(), columns);
+        final int loadedRows = load(connection, table, columns, in);
+        if (loadedRows != in.getRowCount()) {
+            // eg. rows that were skipped because of duplicate keys or bad data
+            throw new SQLException("Loaded " + loadedRows + " of " + in.getRowCount() + " rows of the batch");
+        }
+        return loadedRows;
+    }
+
+    /**
+     * Loads the delimited text stream into the table.
+     *
+     * @param connection
+     * @param table
+     * @param columns
+     * @param in
+     *            a UTF-8 encoded stream of rows, as rendered by
+     *            {@link #appendRow(StringBuilder, Column[], Object[])}
+     * @return the number of rows loaded. If this differs from the number of
+     *         rows in the stream, the batch is considered failed.
+     * @throws SQLException
+     */
+    protected abstract int load(Connection connection, Table table, Column[] columns, InputStream in)
+            throws SQLException;
+
+    /**
+     * Appends a value to a line of delimited text.
+     *
+     * @param sb
+     * @param column
+     * @param value
+     * @throws IllegalArgumentException
+     *             if the value cannot be represented as text for this loading
+     *             mechanism
+     */
+    protected abstract void appendValue(StringBuilder sb, Column column, Object value)
+            throws IllegalArgumentException;
+
+    protected void appendRow(final StringBuilder sb, final Column[] columns, final Object[] row) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            appendValue(sb, columns[i], row[i]);
+        }
+        sb.append('\n');
+    }
+
+    protected static String getColumnList(final Column[] columns) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(columns[i].getQuotedName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Renders a non-null, non-boolean value as text. Numbers are written in
+     * plain notation and dates in JDBC escape format, according to the column
+     * type.
+     *
+     * @param column
+     * @param value
+     * @return
+     * @throws IllegalArgumentException
+     *             if the value is binary
+     */
+    protected static String toText(final Column column, final Object value) throws IllegalArgumentException {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof byte[]) {
+            throw new IllegalArgumentException("Binary values are not supported in delimited text");
+        }
+        if (value instanceof Date && !(value instanceof Timestamp)) {
+            final long time = ((Date) value).getTime();
+            final ColumnType type = column.getType();
+            if (type == ColumnType.DATE) {
+                return new java.sql.Date(time).toString();
+            }
+            if (type == ColumnType.TIME) {
+                return new Time(time).toString();
+            }
+            return new Timestamp(time).toString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Invokes a public method reflectively, so that driver specific APIs can be
+     * used without a compile time dependency on the driver.
+     *
+     * @param target
+     * @param type
+     *            the public type declaring the method
+     * @param methodName
+     * @param parameterTypes
+     * @param args
+     * @return
+     * @throws SQLException
+     */
+    protected static Object invoke(final Object target, final Class<?> type, final String methodName,
+            final Class<?>[] parameterTypes, final Object... args) throws SQLException {
+        final Method method;
+        try {
+            method = type.getMethod(methodName, parameterTypes);
+        } catch (final NoSuchMethodException e) {
+            throw new SQLFeatureNotSupportedException("Method not available: " + methodName, e);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (final IllegalAccessException e) {
+            throw new SQLFeatureNotSupportedException("Method not accessible: " + methodName, e);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Loads a driver specific class from the classloader of the connection.
+     *
+     * @param connection
+     * @param classNames
+     *            candidate class names, in order of preference
+     * @return
+     * @throws SQLFeatureNotSupportedException
+     *             if none of the classes could be loaded
+     */
+    protected static Class<?> loadDriverClass(final Connection connection, final String... classNames)
+            throws SQLFeatureNotSupportedException {
+        for (final String className : classNames) {
+            try {
+                return Class.forName(className, true, connection.getClass().getClassLoader());
+            } catch (final ClassNotFoundException e) {
+                // try next
+            }
+        }
+        throw new SQLFeatureNotSupportedException("Driver classes not available: " + String.join(", ", classNames));
+    }
+
+    private final class RowsInputStream extends InputStream {
+
+        private final Iterator<Object[]> _rows;
+        private final Column[] _columns;
+        private final StringBuilder _line;
+        private byte[] _bytes;
+        private int _position;
+        private int _rowCount;
+
+        RowsInputStream(final Iterator<Object[]> rows, final Column[] columns) {
+            _rows = rows;
+            _columns = columns;
+            _line = new StringBuilder();
+            _bytes = new byte[0];
+            _position = 0;
+        }
+
+        private boolean ensureBytes() throws IOException {
+            while (_position >= _bytes.length) {
+                if (!_rows.hasNext()) {
+                    return false;
+                }
+                _line.setLength(0);
+                try {
+                    appendRow(_line, _columns, _rows.next());
+                } catch (final IllegalArgumentException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                _bytes = _line.toString().getBytes(StandardCharsets.UTF_8);
+                _position = 0;
+                _rowCount++;
+            }
+            return true;
+        }
+
+        int getRowCount() {
+            return _rowCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureBytes()) {
+                return -1;
+            }
+            return _bytes[_position++] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < length && ensureBytes()) {
+                final int count = Math.min(length - read, _bytes.length - _position);
+                System.arraycopy(_bytes, _position, buffer, offset + read, count);
+                _position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * Writes batches of rows into a JDBC table using a native or otherwise
+ * optimized loading mechanism, as an alternative to row-by-row inserts.
+ *
+ * Implementations may throw a {@link java.sql.SQLFeatureNotSupportedException}
+ * if the mechanism turns out to be unavailable on the given connection, in
+ * which case callers are expected to fall back to regular inserts.
+ */
+public interface JdbcBulkWriter {
+
+    /**
+     * Writes a batch of rows. The caller is responsible for transaction
+     * handling on the connection.
+     *
+     * @param connection
+     *            the connection to write with
+     * @param table
+     *            the table to write to
+     * @param columns
+     *            the columns to write values to
+     * @param rows
+     *            the rows to write. Each row holds the values of the columns
+     *            in the same order. Any additional trailing values are ignored.
+     * @return the number of rows written
+     * @throws SQLException
+     */
+    int write(Connection connection, Table table, Column[] columns, Iterable<Object[]> rows) throws SQLException;
+}
@@ -0,0 +1,174 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * {@link JdbcBulkWriter} which inserts several rows per statement, using the
+ * <code>INSERT INTO table (...) VALUES (...), (...)</code> syntax.
+ */
+public class MultiRowInsertJdbcBulkWriter implements JdbcBulkWriter {
+
+    public static final int DEFAULT_MAX_ROWS_PER_STATEMENT = 1000;
+    public static final int DEFAULT_MAX_PARAMETERS_PER_STATEMENT = 2000;
+
+    /**
+     * The default maximum number of host parameters in an SQLite statement
+     * (SQLITE_MAX_VARIABLE_NUMBER) prior to SQLite 3.32.
+     */
+    public static final int SQLITE_MAX_PARAMETERS_PER_STATEMENT = 999;
+
+    private final int _maxRowsPerStatement;
+    private final int _maxParametersPerStatement;
+
+    public MultiRowInsertJdbcBulkWriter() {
+        this(DEFAULT_MAX_ROWS_PER_STATEMENT, DEFAULT_MAX_PARAMETERS_PER_STATEMENT);
+    }
+
+    public MultiRowInsertJdbcBulkWriter(final int maxRowsPerStatement, final int maxParametersPerStatement) {
+        _maxRowsPerStatement = maxRowsPerStatement;
+        _maxParametersPerStatement = maxParametersPerStatement;
+    }
+
+    public int getMaxRowsPerStatement() {
+        return _maxRowsPerStatement;
+    }
+
+    public int getMaxParametersPerStatement() {
+        return _maxParametersPerStatement;
+    }
+
+    @Override
+    public int write(final Connection connection, final Table table, final Column[] columns,
+            final Iterable<Object[]> rows) throws SQLException {
+        final int rowsPerStatement =
+                Math.max(1, Math.min(_maxRowsPerStatement, _maxParametersPerStatement / columns.length));
+
+        int writtenRows = 0;
+        PreparedStatement fullStatement = null;
+        try {
+            final List<Object[]> chunk = new ArrayList<>(rowsPerStatement);
+            for (final Object[] row : rows) {
+                chunk.add(row);
+                if (chunk.size() == rowsPerStatement) {
+                    if (fullStatement == null) {
+                        fullStatement = connection.prepareStatement(createSql(table, columns, rowsPerStatement));
+                    }
+                    writtenRows += execute(fullStatement, columns, chunk);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                try (PreparedStatement st = connection.prepareStatement(createSql(table, columns, chunk.size()))) {
+                    writtenRows += execute(st, columns, chunk);
+                }
+            }
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+        return writtenRows;
+    }
+
+    private int execute(final PreparedStatement st, final Column[] columns, final List<Object[]> chunk)
+            throws SQLException {
+        int parameterIndex = 1;
+        for (final Object[] row : chunk) {
+            for (int i = 0; i < columns.length; i++) {
+                final Object value = row[i];
+                if (value == null) {
+                    st.setNull(parameterIndex, getJdbcType(columns[i]));
+                } else {
+                    st.setObject(parameterIndex, value);
+                }
+                parameterIndex++;
+            }
+        }
+        st.executeUpdate();
+        return chunk.size();
+    }
+
+    private static int getJdbcType(final Column column) {
+        final ColumnType type = column.getType();
+        if (type == null) {
+            return Types.NULL;
+        }
+        try {
+            return type.getJdbcType();
+        } catch (final IllegalStateException e) {
+            return Types.NULL;
+        }
+    }
+
+    protected String createSql(final Table table, final Column[] columns, final int rowCount) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("INSERT INTO ");
+        sb.append(getQualifiedTableName(table));
+        sb.append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(columns[i].getQuotedName());
+        }
+        sb.append(") VALUES ");
+        for (int row = 0; row < rowCount; row++) {
+            if (row != 0) {
+                sb.append(',');
+            }
+            sb.append('(');
+            for (int i = 0; i < columns.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                sb.append('?');
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the (schema-qualified and quoted if necessary) name of a table, for
+     * use in SQL statements.
+     *
+     * @param table
+     * @return
+     */
+    protected static String getQualifiedTableName(final Table table) {
+        final String schemaName = table.getSchema() == null ? null : table.getSchema().getQuotedName();
+        if (schemaName == null || schemaName.isEmpty()) {
+            return table.getQuotedName();
+        }
+        return schemaName + '.' + table.getQuotedName();
+    }
+}
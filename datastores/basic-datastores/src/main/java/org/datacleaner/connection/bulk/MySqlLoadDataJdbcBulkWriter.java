@@ -0,0 +1,109 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * {@link JdbcBulkWriter} for MySQL, which streams rows into a
+ * <code>LOAD DATA LOCAL INFILE</code> command. This requires the connection to
+ * be configured with <code>allowLoadLocalInfile=true</code>.
+ *
+ * Note that MySQL treats data conversion errors and duplicate keys as warnings
+ * when loading local files, truncating or skipping the offending values and
+ * rows. Any such warning fails the batch, so that it is retried with regular
+ * inserts and the offending rows are subject to the usual error handling.
+ */
+public class MySqlLoadDataJdbcBulkWriter extends AbstractDelimitedTextJdbcBulkWriter {
+
+    @Override
+    protected int load(final Connection connection, final Table table, final Column[] columns, final InputStream in)
+            throws SQLException {
+        // Connector/J 8 and 5 respectively
+        final Class<?> statementClass =
+                loadDriverClass(connection, "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement");
+
+        final String sql = "LOAD DATA LOCAL INFILE 'datacleaner-bulk-load.csv' INTO TABLE "
+                + MultiRowInsertJdbcBulkWriter.getQualifiedTableName(table) + " CHARACTER SET utf8mb4"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'"
+                + " LINES TERMINATED BY '\\n' (" + getColumnList(columns) + ")";
+
+        try (Statement st = connection.createStatement()) {
+            final Object mysqlStatement = st.unwrap(statementClass);
+            invoke(mysqlStatement, statementClass, "setLocalInfileInputStream", new Class[] { InputStream.class },
+                    in);
+            final int loadedRows = st.executeUpdate(sql);
+            final SQLWarning warning = st.getWarnings();
+            if (warning != null) {
+                throw new SQLException("LOAD DATA reported warnings: " + getMessages(warning), warning);
+            }
+            return loadedRows;
+        }
+    }
+
+    private static String getMessages(final SQLWarning firstWarning) {
+        final StringBuilder sb = new StringBuilder();
+        SQLWarning warning = firstWarning;
+        for (int i = 0; warning != null && i < 3; i++) {
+            if (i != 0) {
+                sb.append("; ");
+            }
+            sb.append(warning.getMessage());
+            warning = warning.getNextWarning();
+        }
+        if (warning != null) {
+            sb.append("; ...");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    protected void appendValue(final StringBuilder sb, final Column column, final Object value) {
+        if (value == null) {
+            sb.append("\\N");
+            return;
+        }
+        if (value instanceof Boolean) {
+            sb.append(((Boolean) value).booleanValue() ? '1' : '0');
+            return;
+        }
+        if (value instanceof Number) {
+            sb.append(toText(column, value));
+            return;
+        }
+        final String str = toText(column, value);
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            final char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+
+/**
+ * {@link JdbcBulkWriter} for PostgreSQL, which streams rows as CSV into a
+ * <code>COPY ... FROM STDIN</code> command using the driver's CopyManager.
+ */
+public class PostgresCopyJdbcBulkWriter extends AbstractDelimitedTextJdbcBulkWriter {
+
+    @Override
+    protected int load(final Connection connection, final Table table, final Column[] columns, final InputStream in)
+            throws SQLException {
+        final Class<?> pgConnectionClass = loadDriverClass(connection, "org.postgresql.PGConnection");
+        final Object pgConnection = connection.unwrap(pgConnectionClass);
+        final Object copyManager = invoke(pgConnection, pgConnectionClass, "getCopyAPI", new Class[0]);
+
+        final String sql = "COPY " + MultiRowInsertJdbcBulkWriter.getQualifiedTableName(table) + " ("
+                + getColumnList(columns) + ") FROM STDIN WITH (FORMAT csv, ENCODING 'UTF8')";
+
+        final Number rowCount = (Number) invoke(copyManager, copyManager.getClass(), "copyIn",
+                new Class[] { String.class, InputStream.class }, sql, in);
+        return rowCount.intValue();
+    }
+
+    @Override
+    protected void appendValue(final StringBuilder sb, final Column column, final Object value) {
+        if (value == null) {
+            // an unquoted empty value is NULL in CSV format
+            return;
+        }
+        if (value instanceof Boolean) {
+            sb.append(value);
+            return;
+        }
+        if (value instanceof Number) {
+            sb.append(toText(column, value));
+            return;
+        }
+        final String str = toText(column, value);
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            final char c = str.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.Table;
+
+import junit.framework.TestCase;
+
+public class AbstractDelimitedTextJdbcBulkWriterTest extends TestCase {
+
+    private final Column[] columns = new Column[] { new MutableColumn("str", ColumnType.VARCHAR),
+            new MutableColumn("num", ColumnType.DECIMAL), new MutableColumn("bool", ColumnType.BOOLEAN),
+            new MutableColumn("date", ColumnType.DATE), new MutableColumn("ts", ColumnType.TIMESTAMP) };
+
+    private final Object[] row = new Object[] { "say \"hi\" \\ bye", new BigDecimal("1E+3"), true,
+            new java.util.Date(Timestamp.valueOf("2017-03-04 00:00:00").getTime()),
+            Timestamp.valueOf("2017-03-04 12:30:00") };
+
+    public void testPostgresCsv() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        new PostgresCopyJdbcBulkWriter().appendRow(sb, columns, row);
+        new PostgresCopyJdbcBulkWriter().appendRow(sb, columns, new Object[5]);
+        assertEquals("\"say \"\"hi\"\" \\ bye\",1000,true,\"2017-03-04\",\"2017-03-04 12:30:00.0\"\n,,,,\n",
+                sb.toString());
+    }
+
+    public void testMySqlText() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        new MySqlLoadDataJdbcBulkWriter().appendRow(sb, columns, row);
+        new MySqlLoadDataJdbcBulkWriter().appendRow(sb, columns, new Object[5]);
+        assertEquals("\"say \\\"hi\\\" \\\\ bye\",1000,1,\"2017-03-04\",\"2017-03-04 12:30:00.0\"\n"
+                + "\\N,\\N,\\N,\\N,\\N\n", sb.toString());
+    }
+
+    public void testBinaryValueNotSupported() throws Exception {
+        try {
+            new PostgresCopyJdbcBulkWriter().appendRow(new StringBuilder(), new Column[] { columns[0] },
+                    new Object[] { new byte[0] });
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Binary values are not supported in delimited text", e.getMessage());
+        }
+    }
+
+    public void testFewerRowsLoadedThanWritten() throws Exception {
+        final AbstractDelimitedTextJdbcBulkWriter bulkWriter = new PostgresCopyJdbcBulkWriter() {
+            @Override
+            protected int load(final Connection connection, final Table table, final Column[] columns,
+                    final InputStream in) throws SQLException {
+                try {
+                    while (in.read() != -1) {
+                        // consume the whole stream
+                    }
+                } catch (final IOException e) {
+                    throw new SQLException(e);
+                }
+                // as if one of the rows was skipped by the database
+                return 1;
+            }
+        };
+
+        try {
+            bulkWriter.write(null, null, columns, Arrays.asList(row, new Object[5]));
+            fail("Exception expected");
+        } catch (final SQLException e) {
+            assertEquals("Loaded 1 of 2 rows of the batch", e.getMessage());
+        }
+    }
+}
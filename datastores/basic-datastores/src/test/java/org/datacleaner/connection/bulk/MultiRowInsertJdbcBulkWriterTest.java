@@ -0,0 +1,90 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.connection.bulk;
+
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.UpdateableDataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.jdbc.JdbcDataContext;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.connection.JdbcDatastore;
+import org.datacleaner.connection.UpdateableDatastoreConnection;
+
+import junit.framework.TestCase;
+
+public class MultiRowInsertJdbcBulkWriterTest extends TestCase {
+
+    public void testWriteToH2() throws Exception {
+        final JdbcDatastore datastore =
+                new JdbcDatastore("h2", "jdbc:h2:mem:MultiRowInsertJdbcBulkWriterTest", "org.h2.Driver");
+
+        try (UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final UpdateableDataContext dc = con.getUpdateableDataContext();
+            dc.executeUpdate(cb -> cb.createTable(dc.getDefaultSchema(), "test_table").withColumn("id")
+                    .ofType(ColumnType.INTEGER).withColumn("name").ofType(ColumnType.VARCHAR).execute());
+            final Table table = dc.getDefaultSchema().getTableByName("test_table");
+            final Column[] columns = table.getColumns().toArray(new Column[0]);
+
+            final List<Object[]> rows = Arrays.asList(new Object[] { 1, "foo", "ignored" },
+                    new Object[] { 2, null, "ignored" }, new Object[] { 3, "baz", "ignored" });
+
+            try (java.sql.Connection connection = datastore.createConnection()) {
+                final JdbcBulkWriter bulkWriter = datastore.getBulkWriter(connection.getMetaData());
+                assertTrue(bulkWriter instanceof MultiRowInsertJdbcBulkWriter);
+
+                // two rows per statement, to cover both full and partial
+                // statements
+                final int count = new MultiRowInsertJdbcBulkWriter(2, 100).write(connection, table, columns, rows);
+                assertEquals(3, count);
+            }
+
+            try (DataSet ds = dc.query().from(table).select(columns).orderBy(columns[0]).execute()) {
+                assertTrue(ds.next());
+                assertEquals("Row[values=[1, foo]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[2, null]]", ds.getRow().toString());
+                assertTrue(ds.next());
+                assertEquals("Row[values=[3, baz]]", ds.getRow().toString());
+                assertFalse(ds.next());
+            }
+        }
+    }
+
+    public void testSqliteParameterLimit() throws Exception {
+        final DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { DatabaseMetaData.class }, (proxy, method, args) -> {
+                    if ("getDatabaseProductName".equals(method.getName())) {
+                        return JdbcDataContext.DATABASE_PRODUCT_SQLITE;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        final JdbcDatastore datastore = new JdbcDatastore("sqlite", "jdbc:sqlite:foo.db", "org.sqlite.JDBC");
+        final MultiRowInsertJdbcBulkWriter bulkWriter =
+                (MultiRowInsertJdbcBulkWriter) datastore.getBulkWriter(metaData);
+        assertEquals(999, bulkWriter.getMaxParametersPerStatement());
+    }
+}
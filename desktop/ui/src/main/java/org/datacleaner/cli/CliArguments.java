@@ -68,6 +68,13 @@ public class CliArguments {
     private String outputFile;
     @Option(name = "-v", aliases = { "-var", "--variable" }, multiValued = true)
     private Map<String, String> variableOverrides;
+    @Option(name = "-checkpoint", aliases = { "--checkpoint-file" }, metaVar = "PATH",
+            usage = "Path to file in which to save checkpoints of the job's progress, to resume it with -resume. "
+                    + "Defaults to the path of the job file with a '.checkpoint' suffix when resuming")
+    private String checkpointFile;
+    @Option(name = "-resume", aliases = { "--resume" },
+            usage = "Resume the job from the last checkpoint of a previous run, instead of starting over")
+    private boolean resume;
     private boolean usageMode;
     private boolean versionMode;
 
@@ -190,6 +197,14 @@ public class CliArguments {
         return propertiesFile;
     }
 
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
     public CliOutputType getOutputType() {
         if (outputType == null) {
             return CliOutputType.TEXT;
@@ -44,6 +44,13 @@ import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.ImmutableRef;
 import org.apache.metamodel.util.LazyRef;
 import org.apache.metamodel.util.Resource;
+import org.datacleaner.cluster.DistributedAnalysisRunner;
+import org.datacleaner.cluster.JobCheckpointStore;
+import org.datacleaner.cluster.JobDivisionManager;
+import org.datacleaner.cluster.KeyRangeJobDivisionManager;
+import org.datacleaner.cluster.WorkQueueJobDivisionManager;
+import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.components.categories.WriteSuperCategory;
 import org.datacleaner.configuration.ConfigurationReaderInterceptor;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
@@ -55,6 +62,7 @@ import org.datacleaner.descriptors.ComponentDescriptor;
 import org.datacleaner.descriptors.ConfiguredPropertyDescriptor;
 import org.datacleaner.descriptors.FilterDescriptor;
 import org.datacleaner.descriptors.TransformerDescriptor;
+import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.JaxbJobReader;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.runner.AnalysisResultFuture;
@@ -74,6 +82,12 @@ import org.slf4j.LoggerFactory;
 public final class CliRunner implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(CliRunner.class);
 
+    /**
+     * The number of windows (slave jobs) that a job is divided into when
+     * running with checkpoints. A checkpoint is written after each window.
+     */
+    private static final int CHECKPOINT_WINDOWS = 20;
+
     private final CliArguments _arguments;
     private final Supplier<OutputStream> _outputStreamRef;
     private final Supplier<Writer> _writerRef;
@@ -367,8 +381,9 @@ public final class CliRunner implements Closeable {
                 FileHelper.safeClose(inputStream);
             }
 
-            final AnalysisRunner runner = new AnalysisRunnerImpl(configuration, new CliProgressAnalysisListener());
-            final AnalysisResultFuture resultFuture = runner.run(analysisJobBuilder.toAnalysisJob());
+            final AnalysisJob job = analysisJobBuilder.toAnalysisJob();
+            final AnalysisRunner runner = createAnalysisRunner(configuration, job);
+            final AnalysisResultFuture resultFuture = runner.run(job);
 
             resultFuture.await();
 
@@ -395,6 +410,70 @@ public final class CliRunner implements Closeable {
         }
     }
 
+    /**
+     * Creates the {@link AnalysisRunner} for running a job. If checkpoints are
+     * requested, the job is divided into key ranges of the source data, which
+     * are run one at a time as windows on a local {@link VirtualClusterManager},
+     * and the reduced results are saved after each window. A resumed job only
+     * runs the windows that are not in the last checkpoint.
+     *
+     * Checkpoints are refused for jobs that write data, since the records of
+     * the window that was interrupted would be written again when resuming. If
+     * the source table has no key column to divide it by, the job runs without
+     * checkpoints.
+     *
+     * @param configuration
+     * @param job
+     * @return
+     */
+    private AnalysisRunner createAnalysisRunner(final DataCleanerConfiguration configuration, final AnalysisJob job) {
+        final CliProgressAnalysisListener listener = new CliProgressAnalysisListener();
+
+        String checkpointFilePath = _arguments.getCheckpointFile();
+        if (checkpointFilePath == null && _arguments.isResume()) {
+            checkpointFilePath = _arguments.getJobFile() + ".checkpoint";
+        }
+        if (checkpointFilePath == null) {
+            return new AnalysisRunnerImpl(configuration, listener);
+        }
+
+        if (isWritingData(job)) {
+            throw new IllegalArgumentException("Checkpoints are not supported for jobs that write data, "
+                    + "since resuming would write the records of the interrupted window again");
+        }
+
+        // only divide by key ranges, since dividing by first row and max rows
+        // would make each window read all of the records that precede it
+        final KeyRangeJobDivisionManager keyRangeJobDivisionManager =
+                new KeyRangeJobDivisionManager(CHECKPOINT_WINDOWS);
+        if (keyRangeJobDivisionManager.getKeyColumn(job) == null) {
+            logger.warn("Job's source table has no key column to divide it into windows by, "
+                    + "running without checkpoints.");
+            return new AnalysisRunnerImpl(configuration, listener);
+        }
+
+        final JobCheckpointStore checkpointStore = new JobCheckpointStore(new File(checkpointFilePath));
+        final JobDivisionManager jobDivisionManager =
+                new WorkQueueJobDivisionManager(1, keyRangeJobDivisionManager, 0);
+        final VirtualClusterManager clusterManager = new VirtualClusterManager(configuration, jobDivisionManager);
+        final DistributedAnalysisRunner runner =
+                new DistributedAnalysisRunner(configuration, clusterManager, checkpointStore, listener);
+        if (!runner.isDistributable(job)) {
+            logger.warn("Job cannot be divided into windows for checkpoints, running without checkpoints.");
+            return new AnalysisRunnerImpl(configuration, listener);
+        }
+
+        if (!_arguments.isResume()) {
+            checkpointStore.delete();
+        }
+        return runner;
+    }
+
+    private boolean isWritingData(final AnalysisJob job) {
+        return job.flattened().flatMap(analysisJob -> analysisJob.getAnalyzerJobs().stream()).anyMatch(
+                analyzerJob -> analyzerJob.getDescriptor().getComponentSuperCategory() instanceof WriteSuperCategory);
+    }
+
     protected void printAnalyzers(final DataCleanerConfiguration configuration) {
         final Collection<AnalyzerDescriptor<?>> descriptors =
                 configuration.getEnvironment().getDescriptorProvider().getAnalyzerDescriptors();
@@ -69,4 +69,15 @@ public class CliArgumentsTest extends TestCase {
         args = CliArguments.parse("-job myjob.xml -conf conf.xml -var foo=bar -v bar=c:\\foo\bar\baz.csv".split(" "));
         assertEquals("{bar=c:\\foo\bar\baz.csv, foo=bar}", new TreeMap<>(args.getVariableOverrides()).toString());
     }
+
+    public void testCheckpointAndResume() throws Exception {
+        CliArguments args;
+        args = CliArguments.parse("-job myjob.xml -conf conf.xml".split(" "));
+        assertNull(args.getCheckpointFile());
+        assertFalse(args.isResume());
+
+        args = CliArguments.parse("-job myjob.xml -conf conf.xml -checkpoint myjob.checkpoint -resume".split(" "));
+        assertEquals("myjob.checkpoint", args.getCheckpointFile());
+        assertTrue(args.isResume());
+    }
 }
@@ -0,0 +1,213 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.inject.Named;
+
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.LogicalOperator;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.datacleaner.api.Categorized;
+import org.datacleaner.api.Configured;
+import org.datacleaner.api.Description;
+import org.datacleaner.api.Distributed;
+import org.datacleaner.api.HasLabelAdvice;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.api.QueryOptimizedFilter;
+import org.datacleaner.api.Validate;
+import org.datacleaner.components.categories.FilterCategory;
+
+/**
+ * Filter which selects the records whose key column value lies within a
+ * half-open range [lower bound, upper bound). Either bound may be left out to
+ * make the range unbounded in that direction.
+ *
+ * Unlike the {@link org.datacleaner.components.maxrows.MaxRowsFilter}, the
+ * query optimization of this filter translates into a WHERE clause on the key
+ * column, which a database can typically answer using an index instead of
+ * scanning and discarding the records before an offset. This makes it suitable
+ * for dividing a job into slices that are processed independently.
+ */
+@Named("Key range")
+@Description("Selects the records with a key value within a specific range.")
+@Categorized(value = FilterCategory.class)
+@Distributed(false)
+public class KeyRangeFilter implements QueryOptimizedFilter<KeyRangeFilter.Category>, HasLabelAdvice {
+
+    public enum Category {
+        VALID, INVALID
+    }
+
+    @Configured(order = 1)
+    @Description("The (numeric) key column to select the range on.")
+    InputColumn<Number> keyColumn;
+
+    @Configured(order = 2, required = false)
+    @Description("The lowest key value (inclusive) to select. Leave empty to not have a lower bound.")
+    Long lowerBound;
+
+    @Configured(order = 3, required = false)
+    @Description("The highest key value (exclusive) to select. Leave empty to not have an upper bound.")
+    Long upperBound;
+
+    @Configured(order = 4)
+    @Description("Whether or not to select the records with a null key value.")
+    boolean includeNulls = false;
+
+    public KeyRangeFilter() {
+    }
+
+    public KeyRangeFilter(final InputColumn<Number> keyColumn, final Long lowerBound, final Long upperBound,
+            final boolean includeNulls) {
+        this();
+        this.keyColumn = keyColumn;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.includeNulls = includeNulls;
+    }
+
+    @Validate
+    public void validate() {
+        if (lowerBound != null && upperBound != null && lowerBound.longValue() > upperBound.longValue()) {
+            throw new IllegalStateException("Lower bound is greater than the upper bound");
+        }
+    }
+
+    @Override
+    public String getSuggestedLabel() {
+        if (keyColumn == null) {
+            return null;
+        }
+        return (lowerBound == null ? "" : lowerBound + " =< ") + keyColumn.getName() + (upperBound == null ? ""
+                : " < " + upperBound);
+    }
+
+    @Override
+    public Category categorize(final InputRow inputRow) {
+        final Number value = inputRow.getValue(keyColumn);
+        return categorize(value);
+    }
+
+    protected Category categorize(final Number value) {
+        if (value == null) {
+            return includeNulls ? Category.VALID : Category.INVALID;
+        }
+        if (lowerBound != null && compare(value, lowerBound.longValue()) < 0) {
+            return Category.INVALID;
+        }
+        if (upperBound != null && compare(value, upperBound.longValue()) >= 0) {
+            return Category.INVALID;
+        }
+        return Category.VALID;
+    }
+
+    private static int compare(final Number value, final long bound) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return Long.compare(value.longValue(), bound);
+        }
+        final BigDecimal decimal;
+        if (value instanceof BigDecimal) {
+            decimal = (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            decimal = new BigDecimal((BigInteger) value);
+        } else {
+            decimal = new BigDecimal(value.toString());
+        }
+        return decimal.compareTo(BigDecimal.valueOf(bound));
+    }
+
+    @Override
+    public boolean isOptimizable(final Category category) {
+        // can only optimize the valid records
+        return category == Category.VALID;
+    }
+
+    @Override
+    public Query optimizeQuery(final Query q, final Category category) {
+        if (category != Category.VALID) {
+            throw new IllegalStateException("Can only optimize the VALID key range category");
+        }
+
+        final SelectItem selectItem = new SelectItem(keyColumn.getPhysicalColumn());
+
+        final FilterItem rangeItem;
+        if (lowerBound == null && upperBound == null) {
+            rangeItem = new FilterItem(selectItem, OperatorType.DIFFERENT_FROM, null);
+        } else if (lowerBound == null) {
+            rangeItem = new FilterItem(selectItem, OperatorType.LESS_THAN, upperBound);
+        } else if (upperBound == null) {
+            rangeItem = new FilterItem(selectItem, OperatorType.GREATER_THAN_OR_EQUAL, lowerBound);
+        } else {
+            rangeItem = new FilterItem(LogicalOperator.AND,
+                    new FilterItem(selectItem, OperatorType.GREATER_THAN_OR_EQUAL, lowerBound),
+                    new FilterItem(selectItem, OperatorType.LESS_THAN, upperBound));
+        }
+
+        if (includeNulls) {
+            if (lowerBound == null && upperBound == null) {
+                // everything is included
+                return q;
+            }
+            q.where(new FilterItem(LogicalOperator.OR, rangeItem,
+                    new FilterItem(selectItem, OperatorType.EQUALS_TO, null)));
+        } else {
+            q.where(rangeItem);
+        }
+        return q;
+    }
+
+    public InputColumn<Number> getKeyColumn() {
+        return keyColumn;
+    }
+
+    public void setKeyColumn(final InputColumn<Number> keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+
+    public Long getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(final Long lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Long getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(final Long upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public boolean isIncludeNulls() {
+        return includeNulls;
+    }
+
+    public void setIncludeNulls(final boolean includeNulls) {
+        this.includeNulls = includeNulls;
+    }
+}
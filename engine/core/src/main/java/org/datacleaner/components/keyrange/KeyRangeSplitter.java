@@ -0,0 +1,143 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FilterItem;
+import org.apache.metamodel.query.FunctionType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Divides the range of values of a numeric key column into ranges of equal
+ * width, based on the MIN and MAX values of the column. Used to read or
+ * process a table in slices that each select a range of keys, e.g. with the
+ * {@link KeyRangeFilter}.
+ */
+public final class KeyRangeSplitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyRangeSplitter.class);
+
+    private KeyRangeSplitter() {
+        // prevent instantiation
+    }
+
+    /**
+     * Calculates the points at which the key range of a column is split. Range
+     * N selects the keys from split point N-1 (inclusive) to split point N
+     * (exclusive), while the first and last ranges are unbounded downwards and
+     * upwards respectively.
+     *
+     * @param dataContext
+     * @param keyColumn
+     *            the numeric key column
+     * @param filterItems
+     *            filters that limit the rows to find the key range of
+     * @param divisionCount
+     *            the preferred number of ranges
+     * @param wholeNumbers
+     *            whether the split points should always be whole numbers. If
+     *            false, they are only whole numbers if the MIN and MAX values
+     *            of the column are.
+     * @return an ascending list of split points, either {@link Long}s or
+     *         {@link Double}s, which has fewer than
+     *         <code>divisionCount - 1</code> elements if the key range is too
+     *         narrow, and is empty if there is no range to divide
+     */
+    public static List<Number> calculateSplitPoints(final DataContext dataContext, final Column keyColumn,
+            final List<FilterItem> filterItems, final int divisionCount, final boolean wholeNumbers) {
+        final Query query = new Query().from(keyColumn.getTable())
+                .select(new SelectItem(FunctionType.MIN, keyColumn), new SelectItem(FunctionType.MAX, keyColumn));
+        for (final FilterItem filterItem : filterItems) {
+            query.where(filterItem);
+        }
+
+        final Object min;
+        final Object max;
+        try (DataSet dataSet = dataContext.executeQuery(query)) {
+            if (!dataSet.next()) {
+                return Collections.emptyList();
+            }
+            final Row row = dataSet.getRow();
+            min = row.getValue(0);
+            max = row.getValue(1);
+        }
+        if (!(min instanceof Number) || !(max instanceof Number)) {
+            // no rows, or no non-null values
+            return Collections.emptyList();
+        }
+
+        final boolean integral = wholeNumbers || (isIntegral((Number) min) && isIntegral((Number) max));
+        final List<Number> splitPoints =
+                calculateSplitPoints(new BigDecimal(min.toString()), new BigDecimal(max.toString()), divisionCount,
+                        integral);
+        logger.info("Key range of column {} is {} to {}, split points: {}", keyColumn.getName(), min, max,
+                splitPoints);
+        return splitPoints;
+    }
+
+    static List<Number> calculateSplitPoints(final BigDecimal min, final BigDecimal max, final int divisionCount,
+            final boolean integral) {
+        final BigDecimal span = max.subtract(min);
+        final List<Number> splitPoints = new ArrayList<>(Math.max(0, divisionCount - 1));
+        BigDecimal previous = min;
+        for (int i = 1; i < divisionCount; i++) {
+            BigDecimal splitPoint = min.add(span.multiply(BigDecimal.valueOf(i))
+                    .divide(BigDecimal.valueOf(divisionCount), 10, RoundingMode.HALF_UP));
+            if (integral) {
+                splitPoint = splitPoint.setScale(0, RoundingMode.CEILING);
+            }
+            if (splitPoint.compareTo(previous) <= 0 || splitPoint.compareTo(max) > 0) {
+                continue;
+            }
+            if (integral) {
+                try {
+                    splitPoints.add(splitPoint.longValueExact());
+                } catch (final ArithmeticException e) {
+                    logger.warn("Key range {} to {} exceeds the range of long values, it will not be divided", min,
+                            max);
+                    return Collections.emptyList();
+                }
+            } else {
+                splitPoints.add(splitPoint.doubleValue());
+            }
+            previous = splitPoint;
+        }
+        return splitPoints;
+    }
+
+    private static boolean isIntegral(final Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte || number instanceof BigInteger
+                || (number instanceof BigDecimal && ((BigDecimal) number).scale() <= 0);
+    }
+}
@@ -180,8 +180,17 @@ public abstract class AbstractRowProcessingPublisher implements RowProcessingPub
         if (component instanceof HasAnalyzerResult) {
             final HasAnalyzerResult<?> hasAnalyzerResult = (HasAnalyzerResult<?>) component;
             final AnalysisListener analysisListener = _publishers.getAnalysisListener();
-            return new CollectResultsTask(hasAnalyzerResult, _stream.getAnalysisJob(), consumer.getComponentJob(),
-                    resultQueue, analysisListener);
+            final CollectResultsTask collectResultsTask =
+                    new CollectResultsTask(hasAnalyzerResult, _stream.getAnalysisJob(), consumer.getComponentJob(),
+                            resultQueue, analysisListener);
+            if (consumer instanceof AnalyzerConsumer) {
+                final AnalyzerConsumer analyzerConsumer = (AnalyzerConsumer) consumer;
+                return () -> {
+                    analyzerConsumer.flushBufferedRows();
+                    collectResultsTask.execute();
+                };
+            }
+            return collectResultsTask;
         }
         return null;
     }
@@ -19,12 +19,18 @@
  */
 package org.datacleaner.job.runner;
 
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.datacleaner.api.Analyzer;
 import org.datacleaner.api.Concurrent;
+import org.datacleaner.api.DistinctCountAware;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.job.AnalyzerJob;
 import org.datacleaner.job.FilterOutcomes;
+import org.datacleaner.util.SystemProperties;
 
 final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements RowProcessingConsumer {
 
@@ -32,6 +38,8 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
     private final Analyzer<?> _analyzer;
     private final InputColumn<?>[] _inputColumns;
     private final boolean _concurrent;
+    private final int _distinctValueBufferSize;
+    private final ConcurrentMap<Thread, DistinctValueBuffer> _distinctValueBuffers;
 
     public AnalyzerConsumer(final Analyzer<?> analyzer, final AnalyzerJob analyzerJob,
             final InputColumn<?>[] inputColumns, final RowProcessingPublisher publisher) {
@@ -40,6 +48,28 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
         _analyzerJob = analyzerJob;
         _inputColumns = inputColumns;
         _concurrent = determineConcurrent();
+        _distinctValueBufferSize = determineDistinctValueBufferSize();
+        if (_distinctValueBufferSize > 0) {
+            // buffers are kept per thread, so that concurrent analyzers can
+            // also buffer without contention. A map is used rather than a
+            // ThreadLocal so that the buffers of pooled worker threads can be
+            // released by whichever thread flushes them.
+            _distinctValueBuffers = new ConcurrentHashMap<>();
+        } else {
+            _distinctValueBuffers = null;
+        }
+    }
+
+    private int determineDistinctValueBufferSize() {
+        if (_inputColumns == null || _inputColumns.length != 1) {
+            return 0;
+        }
+        if (_analyzerJob.getDescriptor().getAnnotation(DistinctCountAware.class) == null) {
+            // only analyzers that are known to handle distinct counts can
+            // have their records collapsed
+            return 0;
+        }
+        return SystemProperties.getInt(SystemProperties.ENGINE_DISTINCT_VALUE_BUFFER_SIZE, 0);
     }
 
     private boolean determineConcurrent() {
@@ -69,10 +99,31 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
     @Override
     public void consumeInternal(final InputRow row, final int distinctCount, final FilterOutcomes outcomes,
             final RowProcessingChain chain) {
-        _analyzer.run(row, distinctCount);
+        if (_distinctValueBuffers == null) {
+            _analyzer.run(row, distinctCount);
+        } else {
+            _distinctValueBuffers.computeIfAbsent(Thread.currentThread(),
+                    thread -> new DistinctValueBuffer(_analyzer, _inputColumns[0], _distinctValueBufferSize))
+                    .add(row, distinctCount);
+        }
         chain.processNext(row, distinctCount, outcomes);
     }
 
+    /**
+     * Passes any rows that have been buffered for distinct value aggregation
+     * on to the analyzer and releases the buffers, so that no references to
+     * the analyzer or buffered rows are retained by the processing threads.
+     */
+    public synchronized void flushBufferedRows() {
+        if (_distinctValueBuffers != null) {
+            final Iterator<DistinctValueBuffer> it = _distinctValueBuffers.values().iterator();
+            while (it.hasNext()) {
+                it.next().flush();
+                it.remove();
+            }
+        }
+    }
+
     @Override
     public AnalyzerJob getComponentJob() {
         return _analyzerJob;
@@ -38,6 +38,7 @@ import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
 import org.datacleaner.job.concurrent.TaskListener;
 import org.datacleaner.job.tasks.Task;
 import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.util.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -145,6 +146,26 @@ public class ConsumeRowHandler {
         return delegate.consume();
     }
 
+    /**
+     * Passes on any rows that consumers have buffered (see
+     * {@link SystemProperties#ENGINE_DISTINCT_VALUE_BUFFER_SIZE}). Must be
+     * invoked before retrieving results from the analyzers of this handler.
+     */
+    public void flushBufferedRows() {
+        flushBufferedRows(_consumers);
+    }
+
+    private static void flushBufferedRows(final Collection<RowProcessingConsumer> consumers) {
+        for (final RowProcessingConsumer consumer : consumers) {
+            if (consumer instanceof AnalyzerConsumer) {
+                ((AnalyzerConsumer) consumer).flushBufferedRows();
+            }
+            for (final ActiveOutputDataStream activeOutputDataStream : consumer.getActiveOutputDataStreams()) {
+                flushBufferedRows(activeOutputDataStream.getPublisher().getConsumers());
+            }
+        }
+    }
+
     private List<RowProcessingConsumer> extractConsumers(final AnalysisJob analysisJob,
             final DataCleanerConfiguration configuration, final Configuration rowConsumeConfiguration) {
         final InjectionManagerFactory injectionManagerFactory =
@@ -0,0 +1,107 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+
+/**
+ * Buffer which collapses rows with the same value of a single input column
+ * into one invocation of {@link Analyzer#run(InputRow, int)} with the combined
+ * distinct count. For each distinct value the first row that carried it is
+ * kept as the representative row, so that row annotations (and thereby
+ * drill-to-detail samples) still point to a real record.
+ *
+ * If a buffer turns out to only contain unique values, the buffer disables
+ * itself since there is nothing to gain for high-cardinality columns.
+ *
+ * Each buffer is meant to be filled by a single thread. The methods are
+ * synchronized only so that a buffer can safely be flushed from another thread
+ * once processing has ended.
+ */
+final class DistinctValueBuffer {
+
+    private static final class Entry {
+        private final InputRow _row;
+        private int _count;
+
+        private Entry(final InputRow row, final int count) {
+            _row = row;
+            _count = count;
+        }
+    }
+
+    private final Analyzer<?> _analyzer;
+    private final InputColumn<?> _inputColumn;
+    private final int _maxDistinctValues;
+    private final Map<Object, Entry> _entries;
+    private int _bufferedRows;
+    private boolean _enabled;
+
+    DistinctValueBuffer(final Analyzer<?> analyzer, final InputColumn<?> inputColumn, final int maxDistinctValues) {
+        _analyzer = analyzer;
+        _inputColumn = inputColumn;
+        _maxDistinctValues = maxDistinctValues;
+        _entries = new LinkedHashMap<>();
+        _bufferedRows = 0;
+        _enabled = true;
+    }
+
+    public synchronized void add(final InputRow row, final int distinctCount) {
+        if (!_enabled) {
+            _analyzer.run(row, distinctCount);
+            return;
+        }
+
+        final Object value = row.getValue(_inputColumn);
+        final Entry entry = _entries.get(value);
+        if (entry == null) {
+            if (_entries.size() >= _maxDistinctValues) {
+                final boolean uniqueValues = _bufferedRows == _entries.size();
+                flush();
+                if (uniqueValues) {
+                    _enabled = false;
+                    _analyzer.run(row, distinctCount);
+                    return;
+                }
+            }
+            _entries.put(value, new Entry(row, distinctCount));
+        } else {
+            entry._count += distinctCount;
+        }
+        _bufferedRows++;
+    }
+
+    /**
+     * Passes all buffered values on to the analyzer. Must be invoked before the
+     * result of the analyzer is retrieved.
+     */
+    public synchronized void flush() {
+        for (final Entry entry : _entries.values()) {
+            _analyzer.run(entry._row, entry._count);
+        }
+        _entries.clear();
+        _bufferedRows = 0;
+    }
+}
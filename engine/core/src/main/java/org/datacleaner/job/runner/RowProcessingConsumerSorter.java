@@ -38,9 +38,10 @@ import org.datacleaner.job.InputColumnSourceJob;
 
 /**
  * Helping class for the row processing publisher, that will help sort the
- * consumers correctly
+ * consumers correctly. Also used by runners that need the processing order of
+ * the consumers without running them through a publisher.
  */
-class RowProcessingConsumerSorter {
+public class RowProcessingConsumerSorter {
 
     private final Collection<? extends RowProcessingConsumer> _consumers;
 
@@ -0,0 +1,168 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single background thread which writes chunks of encoded CSV lines to an
+ * {@link OutputStream}. Chunks are handed over through a bounded queue, which
+ * blocks producers if the writer can't keep up, and are recycled after being
+ * written.
+ */
+final class CsvChunkWriter implements Closeable {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int MAX_PENDING_CHUNKS = 32;
+    private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+    private final OutputStream _outputStream;
+    private final BlockingQueue<ByteBuffer> _pendingChunks;
+    private final Queue<ByteBuffer> _freeChunks;
+    private final Thread _thread;
+    private volatile Throwable _error;
+    private volatile boolean _closed;
+
+    public CsvChunkWriter(final OutputStream outputStream, final String name) {
+        _outputStream = outputStream;
+        _pendingChunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+        _freeChunks = new ConcurrentLinkedQueue<>();
+        _thread = new Thread(this::writeChunks, "CsvChunkWriter-" + name);
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * Gets an empty chunk to encode lines into.
+     *
+     * @return
+     */
+    public ByteBuffer newChunk() {
+        final ByteBuffer chunk = _freeChunks.poll();
+        if (chunk == null) {
+            return ByteBuffer.allocate(CHUNK_SIZE);
+        }
+        return chunk;
+    }
+
+    /**
+     * Hands over a chunk for writing. The chunk must contain only complete
+     * lines, since chunks from different threads are written in the order they
+     * are handed over.
+     *
+     * @param chunk
+     *            the chunk, positioned after the last byte to write
+     */
+    public void write(final ByteBuffer chunk) {
+        if (_closed) {
+            throw new IllegalStateException("CSV output has already been closed");
+        }
+        checkError();
+        chunk.flip();
+        if (!chunk.hasRemaining()) {
+            recycle(chunk);
+            return;
+        }
+        try {
+            _pendingChunks.put(chunk);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing over CSV output", e);
+        }
+    }
+
+    private void writeChunks() {
+        while (true) {
+            final ByteBuffer chunk;
+            try {
+                chunk = _pendingChunks.take();
+            } catch (final InterruptedException e) {
+                _error = e;
+                return;
+            }
+            if (chunk == END_OF_STREAM) {
+                return;
+            }
+            if (_error == null) {
+                try {
+                    _outputStream.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                } catch (final Throwable e) {
+                    // keep draining the queue so that producers don't block
+                    _error = e;
+                }
+            }
+            recycle(chunk);
+        }
+    }
+
+    private void recycle(final ByteBuffer chunk) {
+        if (chunk.capacity() == CHUNK_SIZE) {
+            chunk.clear();
+            _freeChunks.offer(chunk);
+        }
+    }
+
+    private void checkError() {
+        final Throwable error = _error;
+        if (error != null) {
+            throw new IllegalStateException("Writing CSV output failed", error);
+        }
+    }
+
+    /**
+     * Waits for all handed over chunks to be written and closes the output
+     * stream. The output stream is closed and the background thread is ended
+     * even if writing failed. Closing an already closed writer has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+
+        try {
+            _pendingChunks.put(END_OF_STREAM);
+            _thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            _thread.interrupt();
+            throw new IllegalStateException("Interrupted while closing CSV output", e);
+        } finally {
+            try {
+                _outputStream.close();
+            } catch (final IOException e) {
+                if (_error == null) {
+                    _error = e;
+                }
+            }
+        }
+
+        checkError();
+    }
+}
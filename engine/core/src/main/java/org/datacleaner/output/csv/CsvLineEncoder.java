@@ -0,0 +1,170 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import org.apache.metamodel.csv.CsvConfiguration;
+
+/**
+ * Builds and encodes CSV lines directly into chunks of a
+ * {@link CsvChunkWriter}, reusing its character and byte buffers from line to
+ * line. Quoting and escaping follows the rules of MetaModel's CsvWriter.
+ *
+ * Instances are not thread-safe and are meant to be used by a single thread.
+ */
+final class CsvLineEncoder {
+
+    private final CsvChunkWriter _chunkWriter;
+    private final char _separatorChar;
+    private final char _quoteChar;
+    private final char _escapeChar;
+    private final CharsetEncoder _charsetEncoder;
+
+    private char[] _chars;
+    private int _length;
+    private ByteBuffer _chunk;
+
+    public CsvLineEncoder(final CsvChunkWriter chunkWriter, final CsvConfiguration csvConfiguration) {
+        _chunkWriter = chunkWriter;
+        _separatorChar = csvConfiguration.getSeparatorChar();
+        _quoteChar = csvConfiguration.getQuoteChar();
+        _escapeChar = csvConfiguration.getEscapeChar();
+        _charsetEncoder = Charset.forName(csvConfiguration.getEncoding()).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        _chars = new char[256];
+    }
+
+    public void writeLine(final Object[] values) {
+        buildLine(values);
+
+        if (_chunk == null) {
+            _chunk = _chunkWriter.newChunk();
+        }
+        if (encodeLine(_chunk)) {
+            return;
+        }
+
+        // the line did not fit, hand over the chunk and retry with an empty one
+        _chunkWriter.write(_chunk);
+        _chunk = _chunkWriter.newChunk();
+        if (encodeLine(_chunk)) {
+            return;
+        }
+
+        // the line is larger than a chunk, so it gets a buffer of its own
+        ByteBuffer lineBuffer = ByteBuffer.allocate(Math.max(_length * 4, CsvChunkWriter.CHUNK_SIZE * 2));
+        while (!encodeLine(lineBuffer)) {
+            lineBuffer = ByteBuffer.allocate(lineBuffer.capacity() * 2);
+        }
+        _chunkWriter.write(lineBuffer);
+    }
+
+    /**
+     * Hands over any buffered lines to the chunk writer.
+     */
+    public void flush() {
+        if (_chunk != null) {
+            _chunkWriter.write(_chunk);
+            _chunk = null;
+        }
+    }
+
+    private boolean encodeLine(final ByteBuffer target) {
+        final int start = target.position();
+        _charsetEncoder.reset();
+        final CharBuffer source = CharBuffer.wrap(_chars, 0, _length);
+        CoderResult result = _charsetEncoder.encode(source, target, true);
+        if (!result.isOverflow()) {
+            result = _charsetEncoder.flush(target);
+        }
+        if (result.isOverflow()) {
+            target.position(start);
+            return false;
+        }
+        if (result.isError()) {
+            try {
+                result.throwException();
+            } catch (final CharacterCodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return true;
+    }
+
+    private void buildLine(final Object[] values) {
+        _length = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                append(_separatorChar);
+            }
+            final Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            final String str = value.toString();
+            if (_quoteChar != CsvConfiguration.NOT_A_CHAR) {
+                append(_quoteChar);
+            }
+            appendValue(str);
+            if (_quoteChar != CsvConfiguration.NOT_A_CHAR) {
+                append(_quoteChar);
+            }
+        }
+        append('\n');
+    }
+
+    private void appendValue(final String str) {
+        final int length = str.length();
+        if (_escapeChar == CsvConfiguration.NOT_A_CHAR) {
+            ensureCapacity(length);
+            str.getChars(0, length, _chars, _length);
+            _length += length;
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            final char c = str.charAt(i);
+            if (c == _quoteChar || c == _escapeChar
+                    || (_quoteChar == CsvConfiguration.NOT_A_CHAR && c == _separatorChar)) {
+                append(_escapeChar);
+            }
+            append(c);
+        }
+    }
+
+    private void append(final char c) {
+        ensureCapacity(1);
+        _chars[_length++] = c;
+    }
+
+    private void ensureCapacity(final int additional) {
+        final int required = _length + additional;
+        if (required > _chars.length) {
+            _chars = Arrays.copyOf(_chars, Math.max(required, _chars.length * 2));
+        }
+    }
+}
@@ -19,66 +19,42 @@
  */
 package org.datacleaner.output.csv;
 
-import java.io.OutputStream;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Supplier;
-
-import org.apache.metamodel.csv.CsvConfiguration;
-import org.apache.metamodel.csv.CsvWriter;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.output.OutputRow;
 
 final class CsvOutputRow implements OutputRow {
 
-    private final Map<InputColumn<?>, Object> _map;
+    private final CsvOutputWriter _outputWriter;
     private final InputColumn<?>[] _columns;
-    private final Supplier<OutputStream> _outputStreamRef;
-    private final CsvConfiguration _csvConfiguration;
+    private final Object[] _values;
 
-    public CsvOutputRow(final Supplier<OutputStream> outputStreamRef, final CsvConfiguration csvConfiguration,
-            final InputColumn<?>[] columns) {
-        _outputStreamRef = outputStreamRef;
-        _csvConfiguration = csvConfiguration;
+    public CsvOutputRow(final CsvOutputWriter outputWriter, final InputColumn<?>[] columns) {
+        _outputWriter = outputWriter;
         _columns = columns;
-        _map = new HashMap<>();
+        _values = new Object[columns.length];
     }
 
     @Override
     public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
-        _map.put(inputColumn, value);
+        final int index = _outputWriter.getColumnIndex(inputColumn);
+        if (index != -1) {
+            _values[index] = value;
+        }
         return this;
     }
 
     @Override
     public OutputRow setValues(final InputRow row) {
-        for (final InputColumn<?> column : _columns) {
-            final Object value = row.getValue(column);
-            @SuppressWarnings("unchecked") final InputColumn<Object> objectColumn = (InputColumn<Object>) column;
-            setValue(objectColumn, value);
+        for (int i = 0; i < _columns.length; i++) {
+            _values[i] = row.getValue(_columns[i]);
         }
         return this;
     }
 
     @Override
     public void write() {
-        final String[] values = new String[_columns.length];
-        for (int i = 0; i < values.length; i++) {
-            final Object value = _map.get(_columns[i]);
-            if (value != null) {
-                values[i] = value.toString();
-            }
-        }
-        final CsvWriter csvWriter = new CsvWriter(_csvConfiguration);
-        final String line = csvWriter.buildLine(values);
-        final OutputStream outputStream = _outputStreamRef.get();
-        try {
-            final byte[] bytes = line.getBytes(_csvConfiguration.getEncoding());
-            outputStream.write(bytes);
-        } catch (final Exception e) {
-            throw new IllegalStateException(e);
-        }
+        _outputWriter.writeLine(_values);
     }
 
 }
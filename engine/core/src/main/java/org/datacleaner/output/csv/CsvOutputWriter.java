@@ -19,55 +19,104 @@
  */
 package org.datacleaner.output.csv;
 
-import java.io.BufferedOutputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.metamodel.csv.CsvConfiguration;
-import org.apache.metamodel.csv.CsvWriter;
-import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.LazyRef;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.output.OutputRow;
 import org.datacleaner.output.OutputWriter;
 
+/**
+ * {@link OutputWriter} for CSV files. Each writing thread encodes lines into
+ * its own reusable buffers, and completed chunks of lines are written to the
+ * resource by a single background thread, optionally GZIP compressed.
+ */
 final class CsvOutputWriter implements OutputWriter {
 
-    private final LazyRef<OutputStream> _outputStreamRef;
+    private final LazyRef<CsvChunkWriter> _chunkWriterRef;
     private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
     private final CsvConfiguration _csvConfiguration;
+    private final ConcurrentMap<Thread, CsvLineEncoder> _lineEncoders;
 
     public CsvOutputWriter(final Resource resource, final CsvConfiguration csvConfiguration, final String[] columnNames,
-            final InputColumn<?>[] columns) {
+            final InputColumn<?>[] columns, final boolean compress) {
         _csvConfiguration = csvConfiguration;
         _columns = columns;
-        _outputStreamRef = new LazyRef<OutputStream>() {
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.put(columns[i], i);
+        }
+        _lineEncoders = new ConcurrentHashMap<>();
+        _chunkWriterRef = new LazyRef<CsvChunkWriter>() {
             @Override
-            protected OutputStream fetch() throws Throwable {
-                final OutputStream outputStream = resource.write();
+            protected CsvChunkWriter fetch() throws Throwable {
+                OutputStream outputStream = resource.write();
+                if (compress) {
+                    outputStream = new GZIPOutputStream(outputStream, CsvChunkWriter.CHUNK_SIZE);
+                }
+                final CsvChunkWriter chunkWriter = new CsvChunkWriter(outputStream, resource.getName());
                 if (csvConfiguration.getColumnNameLineNumber() != CsvConfiguration.NO_COLUMN_NAME_LINE) {
-                    final CsvWriter csvWriter = new CsvWriter(_csvConfiguration);
-                    final String headerLine = csvWriter.buildLine(columnNames);
-                    final byte[] bytes = headerLine.getBytes(csvConfiguration.getEncoding());
-                    outputStream.write(bytes);
-                    outputStream.flush();
+                    final CsvLineEncoder headerEncoder = new CsvLineEncoder(chunkWriter, _csvConfiguration);
+                    headerEncoder.writeLine(columnNames);
+                    headerEncoder.flush();
                 }
-                // 512 kb buffer
-                final int bufferSize = 1024 * 512;
-                return new BufferedOutputStream(outputStream, bufferSize);
+                return chunkWriter;
             }
         };
     }
 
     @Override
     public OutputRow createRow() {
-        return new CsvOutputRow(_outputStreamRef, _csvConfiguration, _columns);
+        return new CsvOutputRow(this, _columns);
+    }
+
+    int getColumnIndex(final InputColumn<?> column) {
+        final Integer index = _columnIndexes.get(column);
+        if (index == null) {
+            return -1;
+        }
+        return index;
     }
 
+    /**
+     * Opens the resource (and writes the header) even if no lines are written
+     */
+    void open() {
+        _chunkWriterRef.get();
+    }
+
+    void writeLine(final Object[] values) {
+        _lineEncoders.computeIfAbsent(Thread.currentThread(),
+                thread -> new CsvLineEncoder(_chunkWriterRef.get(), _csvConfiguration)).writeLine(values);
+    }
+
+    /**
+     * Flushes the lines of all threads and closes the resource. The background
+     * writer thread is ended even if flushing fails.
+     */
     @Override
-    public void close() {
-        if (_outputStreamRef.isFetched()) {
-            FileHelper.safeClose(_outputStreamRef.get());
+    public synchronized void close() {
+        if (_chunkWriterRef.isFetched()) {
+            try {
+                // the encoders are removed as they are flushed, so that the
+                // writing threads don't retain their buffers
+                final Iterator<CsvLineEncoder> it = _lineEncoders.values().iterator();
+                while (it.hasNext()) {
+                    it.next().flush();
+                    it.remove();
+                }
+            } finally {
+                _chunkWriterRef.get().close();
+            }
         }
     }
 
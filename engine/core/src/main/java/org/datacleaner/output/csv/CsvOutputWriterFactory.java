@@ -20,6 +20,9 @@
 package org.datacleaner.output.csv;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +77,27 @@ public final class CsvOutputWriterFactory {
     public static OutputWriter getWriter(final Resource resource, final String[] headers, final String encoding,
             final char separatorChar, final char quoteChar, final char escapeChar, final boolean includeHeader,
             final InputColumn<?>... columns) {
+        return getWriter(resource, headers, encoding, separatorChar, quoteChar, escapeChar, includeHeader, false,
+                columns);
+    }
+
+    /**
+     * Creates a CSV output writer, optionally compressing the output with GZIP
+     *
+     * @param resource
+     * @param headers
+     * @param encoding
+     * @param separatorChar
+     * @param quoteChar
+     * @param escapeChar
+     * @param includeHeader
+     * @param compress
+     * @param columns
+     * @return
+     */
+    public static OutputWriter getWriter(final Resource resource, final String[] headers, final String encoding,
+            final char separatorChar, final char quoteChar, final char escapeChar, final boolean includeHeader,
+            final boolean compress, final InputColumn<?>... columns) {
         final CsvConfiguration csvConfiguration =
                 getConfiguration(encoding, separatorChar, quoteChar, escapeChar, includeHeader);
 
@@ -93,11 +117,11 @@ public final class CsvOutputWriterFactory {
 
                 outputWritersPerPath.put(qualifiedPath, outputWriter);
                 counters.put(qualifiedPath, new AtomicInteger(1));
-                outputWriter = new CsvOutputWriter(resource, csvConfiguration, headers, columns);
+                outputWriter = new CsvOutputWriter(resource, csvConfiguration, headers, columns, compress);
 
                 // write the headers
             } else {
-                outputWriter = new CsvOutputWriter(resource, csvConfiguration, headers, columns);
+                outputWriter = new CsvOutputWriter(resource, csvConfiguration, headers, columns, compress);
                 counters.get(qualifiedPath).incrementAndGet();
             }
         }
@@ -105,6 +129,96 @@ public final class CsvOutputWriterFactory {
         return outputWriter;
     }
 
+    /**
+     * Creates a CSV output writer which writes rows to a number of part files
+     * (part-00000.csv, part-00001.csv, ...) in parallel.
+     *
+     * @param target
+     *            the directory to write the part files to, or the file to
+     *            merge them into if merge is true
+     * @param parts
+     *            the number of part files
+     * @param keyColumn
+     *            an optional column to partition rows by. If null, each
+     *            writing thread writes to its own part file. The column is not
+     *            written unless it is also one of the columns.
+     * @param merge
+     *            whether to concatenate the part files into the target file
+     *            (in part order) when the writer is closed
+     * @param writeManifest
+     *            whether to write a manifest listing the part files and their
+     *            row counts (when not merging)
+     * @param headers
+     * @param encoding
+     * @param separatorChar
+     * @param quoteChar
+     * @param escapeChar
+     * @param includeHeader
+     * @param compress
+     * @param columns
+     * @return
+     */
+    public static OutputWriter getShardedWriter(final File target, final int parts, final InputColumn<?> keyColumn,
+            final boolean merge, final boolean writeManifest, final String[] headers, final String encoding,
+            final char separatorChar, final char quoteChar, final char escapeChar, final boolean includeHeader,
+            final boolean compress, final InputColumn<?>... columns) {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Number of parts must be at least 1");
+        }
+
+        final File directory;
+        try {
+            if (merge) {
+                final File parentFile = target.getAbsoluteFile().getParentFile();
+                parentFile.mkdirs();
+                directory = Files.createTempDirectory(parentFile.toPath(), "." + target.getName() + "-").toFile();
+            } else {
+                directory = target;
+                directory.mkdirs();
+                deletePartFiles(directory);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not create directory for part files of " + target, e);
+        }
+
+        InputColumn<?>[] allColumns = columns;
+        if (keyColumn != null && !Arrays.asList(columns).contains(keyColumn)) {
+            allColumns = Arrays.copyOf(columns, columns.length + 1);
+            allColumns[columns.length] = keyColumn;
+        }
+
+        final String name = target.getName();
+        final int extensionIndex = name.indexOf('.');
+        final String extension = extensionIndex == -1 ? "" : name.substring(extensionIndex);
+
+        final File[] partFiles = new File[parts];
+        final CsvOutputWriter[] partWriters = new CsvOutputWriter[parts];
+        for (int i = 0; i < parts; i++) {
+            partFiles[i] = new File(directory, String.format("part-%05d", i) + extension);
+            // a merged file only has a header line in the beginning
+            final boolean partHeader = includeHeader && (!merge || i == 0);
+            final CsvConfiguration csvConfiguration =
+                    getConfiguration(encoding, separatorChar, quoteChar, escapeChar, partHeader);
+            partWriters[i] = new CsvOutputWriter(new FileResource(partFiles[i]), csvConfiguration, headers, columns,
+                    compress);
+        }
+
+        final File manifestFile =
+                writeManifest && !merge ? new File(directory, ShardedCsvOutputWriter.MANIFEST_FILENAME) : null;
+        return new ShardedCsvOutputWriter(partFiles, partWriters, allColumns, columns.length, keyColumn,
+                merge ? target : null, manifestFile);
+    }
+
+    private static void deletePartFiles(final File directory) {
+        final File[] files = directory.listFiles(
+                (dir, name) -> name.startsWith("part-") || name.equals(ShardedCsvOutputWriter.MANIFEST_FILENAME));
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+    }
+
     private static CsvConfiguration getConfiguration(final String encoding, final char separatorChar,
             final char quoteChar, final char escapeChar, final boolean includeHeader) {
         final int headerLine;
@@ -0,0 +1,221 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+
+/**
+ * {@link OutputWriter} which spreads rows over a number of part files, each
+ * written by its own {@link CsvOutputWriter}. Rows are assigned to parts either
+ * by the hash of a key column, so that equal keys end up in the same part, or
+ * by the writing thread, so that threads do not compete for the same file.
+ *
+ * When closed, the parts can be listed in a manifest file, or concatenated in
+ * part order into a single file.
+ */
+final class ShardedCsvOutputWriter implements OutputWriter {
+
+    public static final String MANIFEST_FILENAME = "_manifest.csv";
+
+    private final File[] _partFiles;
+    private final CsvOutputWriter[] _partWriters;
+    private final AtomicLong[] _partRowCounts;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+    private final int _outputColumnCount;
+    private final int _keyColumnIndex;
+    private final File _mergeTarget;
+    private final File _manifestFile;
+    private final AtomicInteger _threadCounter;
+    private final ThreadLocal<Integer> _threadPartIndex;
+
+    /**
+     *
+     * @param partFiles
+     *            the part files to write
+     * @param partWriters
+     *            the writers of each part file
+     * @param columns
+     *            the output columns, optionally followed by the key column
+     * @param outputColumnCount
+     *            the number of output columns
+     * @param keyColumn
+     *            the column to partition rows by, or null to partition rows
+     *            by thread
+     * @param mergeTarget
+     *            a file to merge the parts into, or null to keep the parts
+     * @param manifestFile
+     *            a file to list the parts in, or null
+     */
+    public ShardedCsvOutputWriter(final File[] partFiles, final CsvOutputWriter[] partWriters,
+            final InputColumn<?>[] columns, final int outputColumnCount, final InputColumn<?> keyColumn,
+            final File mergeTarget, final File manifestFile) {
+        _partFiles = partFiles;
+        _partWriters = partWriters;
+        _columns = columns;
+        _outputColumnCount = outputColumnCount;
+        _mergeTarget = mergeTarget;
+        _manifestFile = manifestFile;
+        _partRowCounts = new AtomicLong[partWriters.length];
+        for (int i = 0; i < _partRowCounts.length; i++) {
+            _partRowCounts[i] = new AtomicLong();
+        }
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.putIfAbsent(columns[i], i);
+        }
+        _keyColumnIndex = keyColumn == null ? -1 : _columnIndexes.get(keyColumn);
+        _threadCounter = new AtomicInteger();
+        _threadPartIndex =
+                ThreadLocal.withInitial(() -> Math.floorMod(_threadCounter.getAndIncrement(), _partWriters.length));
+    }
+
+    /**
+     * Gets the part that a key value belongs to. The assignment only depends
+     * on the string representation of the value, so it is stable across runs.
+     *
+     * @param value
+     * @param parts
+     * @return
+     */
+    static int getPartIndex(final Object value, final int parts) {
+        if (value == null) {
+            return 0;
+        }
+        return Math.floorMod(value.toString().hashCode(), parts);
+    }
+
+    @Override
+    public OutputRow createRow() {
+        return new ShardedCsvOutputRow();
+    }
+
+    private void writeLine(final Object[] values) {
+        final int partIndex;
+        if (_keyColumnIndex == -1) {
+            partIndex = _threadPartIndex.get();
+        } else {
+            partIndex = getPartIndex(values[_keyColumnIndex], _partWriters.length);
+        }
+        if (values.length == _outputColumnCount) {
+            _partWriters[partIndex].writeLine(values);
+        } else {
+            _partWriters[partIndex].writeLine(Arrays.copyOf(values, _outputColumnCount));
+        }
+        _partRowCounts[partIndex].incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        // all part writers are closed, even if closing one of them fails
+        RuntimeException error = null;
+        for (final CsvOutputWriter partWriter : _partWriters) {
+            try {
+                partWriter.open();
+                partWriter.close();
+            } catch (final RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+
+        if (_mergeTarget != null) {
+            merge();
+        } else if (_manifestFile != null) {
+            writeManifest();
+        }
+    }
+
+    private void merge() {
+        try (OutputStream out = Files.newOutputStream(_mergeTarget.toPath())) {
+            for (final File partFile : _partFiles) {
+                Files.copy(partFile.toPath(), out);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to merge part files into " + _mergeTarget, e);
+        }
+        for (final File partFile : _partFiles) {
+            partFile.delete();
+        }
+        _partFiles[0].getParentFile().delete();
+    }
+
+    private void writeManifest() {
+        try (Writer writer = FileHelper.getBufferedWriter(_manifestFile, FileHelper.UTF_8_ENCODING)) {
+            writer.write("file,rows\n");
+            for (int i = 0; i < _partFiles.length; i++) {
+                writer.write(_partFiles[i].getName() + "," + _partRowCounts[i].get() + "\n");
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to write manifest file " + _manifestFile, e);
+        }
+    }
+
+    private final class ShardedCsvOutputRow implements OutputRow {
+
+        private final Object[] _values = new Object[_columns.length];
+
+        @Override
+        public <E> OutputRow setValue(final InputColumn<? super E> inputColumn, final E value) {
+            final Integer index = _columnIndexes.get(inputColumn);
+            if (index != null) {
+                // the same column may be configured more than once
+                for (int i = index; i < _columns.length; i++) {
+                    if (_columns[i].equals(inputColumn)) {
+                        _values[i] = value;
+                    }
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public OutputRow setValues(final InputRow row) {
+            for (int i = 0; i < _columns.length; i++) {
+                _values[i] = row.getValue(_columns[i]);
+            }
+            return this;
+        }
+
+        @Override
+        public void write() {
+            writeLine(_values);
+        }
+    }
+}
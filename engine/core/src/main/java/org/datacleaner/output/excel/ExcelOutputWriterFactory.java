@@ -33,14 +33,21 @@ import org.apache.metamodel.util.MutableRef;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.output.OutputWriter;
 
+/**
+ * Factory for Excel {@link OutputWriter}s. XLSX files are written using a
+ * {@link StreamingExcelWorkbook}, which is shared by all writers of the same
+ * file and written when the last of them is closed. XLS files are written
+ * through MetaModel's {@link ExcelDataContext}.
+ */
 public final class ExcelOutputWriterFactory {
 
     private static final Map<String, AtomicInteger> counters = new HashMap<>();
     private static final Map<String, UpdateableDataContext> dataContexts = new HashMap<>();
+    private static final Map<String, StreamingExcelWorkbook> workbooks = new HashMap<>();
 
     public static OutputWriter getWriter(final String filename, final String sheetName, String[] columnNames,
             final InputColumn<?>... columns) {
-        final ExcelOutputWriter outputWriter;
+        final OutputWriter outputWriter;
 
         if (columnNames == null || columnNames.length != columns.length) {
             columnNames = new String[columns.length];
@@ -51,7 +58,10 @@ public final class ExcelOutputWriterFactory {
 
         synchronized (dataContexts) {
             UpdateableDataContext dataContext = dataContexts.get(filename);
-            if (dataContext == null) {
+            if (StreamingExcelWorkbook.isStreamingSupported(filename)) {
+                final StreamingExcelSheet sheet = getSheet(filename, sheetName, columnNames);
+                outputWriter = new StreamingExcelOutputWriter(filename, sheet, columns);
+            } else if (dataContext == null) {
 
                 final File file = new File(filename);
                 dataContext = new ExcelDataContext(file);
@@ -95,11 +105,41 @@ public final class ExcelOutputWriterFactory {
         return table;
     }
 
-    protected static void release(final String filename) {
-        final int count = counters.get(filename).decrementAndGet();
-        if (count == 0) {
-            synchronized (dataContexts) {
+    /**
+     * Gets a sheet of the shared {@link StreamingExcelWorkbook} of an XLSX
+     * file, for writers that do not write {@link InputColumn} values. Every
+     * call must be followed by a call to {@link #release(String)} when done
+     * writing.
+     *
+     * @param filename
+     * @param sheetName
+     * @param columnNames
+     * @return
+     */
+    public static StreamingExcelSheet getSheet(final String filename, final String sheetName,
+            final String[] columnNames) {
+        synchronized (dataContexts) {
+            StreamingExcelWorkbook workbook = workbooks.get(filename);
+            if (workbook == null) {
+                workbook = new StreamingExcelWorkbook(new File(filename));
+                workbooks.put(filename, workbook);
+                counters.put(filename, new AtomicInteger(0));
+            }
+            final StreamingExcelSheet sheet = workbook.getOrCreateSheet(sheetName, columnNames);
+            counters.get(filename).incrementAndGet();
+            return sheet;
+        }
+    }
+
+    public static void release(final String filename) {
+        synchronized (dataContexts) {
+            final int count = counters.get(filename).decrementAndGet();
+            if (count == 0) {
                 dataContexts.remove(filename);
+                final StreamingExcelWorkbook workbook = workbooks.remove(filename);
+                if (workbook != null) {
+                    workbook.close();
+                }
             }
         }
     }
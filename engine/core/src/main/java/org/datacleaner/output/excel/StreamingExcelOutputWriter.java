@@ -0,0 +1,73 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.output.OutputRow;
+import org.datacleaner.output.OutputWriter;
+
+/**
+ * {@link OutputWriter} for XLSX files which streams rows into a
+ * {@link StreamingExcelSheet}.
+ */
+final class StreamingExcelOutputWriter implements OutputWriter {
+
+    private final String _filename;
+    private final StreamingExcelSheet _sheet;
+    private final InputColumn<?>[] _columns;
+    private final Map<InputColumn<?>, Integer> _columnIndexes;
+
+    public StreamingExcelOutputWriter(final String filename, final StreamingExcelSheet sheet,
+            final InputColumn<?>[] columns) {
+        _filename = filename;
+        _sheet = sheet;
+        _columns = columns;
+        _columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            _columnIndexes.put(columns[i], i);
+        }
+    }
+
+    @Override
+    public OutputRow createRow() {
+        return new StreamingExcelOutputRow(this, _columns);
+    }
+
+    int getColumnIndex(final InputColumn<?> column) {
+        final Integer index = _columnIndexes.get(column);
+        if (index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    void writeRow(final Object[] values) {
+        _sheet.writeRow(values);
+    }
+
+    @Override
+    public void close() {
+        ExcelOutputWriterFactory.release(_filename);
+    }
+
+}
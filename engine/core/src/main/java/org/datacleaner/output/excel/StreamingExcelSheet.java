@@ -0,0 +1,118 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.util.Date;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+/**
+ * A logical sheet of a {@link StreamingExcelWorkbook}. Rows are appended to the
+ * current physical sheet, and when it is full writing continues in a new sheet
+ * with the same header row.
+ *
+ * Cell values are written the same way as MetaModel's Excel module does.
+ */
+public final class StreamingExcelSheet {
+
+    private final StreamingExcelWorkbook _workbook;
+    private final String _sheetName;
+    private final String[] _columnNames;
+    private final int _maxRows;
+    private SXSSFSheet _sheet;
+    private int _sheetNumber;
+    private int _rowIndex;
+
+    StreamingExcelSheet(final StreamingExcelWorkbook workbook, final String sheetName, final String[] columnNames,
+            final int maxRows) {
+        this(workbook, sheetName, columnNames, maxRows, null, 0);
+    }
+
+    /**
+     * Creates a logical sheet.
+     *
+     * @param workbook
+     * @param sheetName
+     * @param columnNames
+     * @param maxRows
+     * @param existingSheet
+     *            a sheet that existed in the file beforehand, to append rows
+     *            to, or null to create a new sheet
+     * @param existingRowCount
+     *            the number of rows in the existing sheet. The header row is
+     *            only written if the existing sheet is empty.
+     */
+    StreamingExcelSheet(final StreamingExcelWorkbook workbook, final String sheetName, final String[] columnNames,
+            final int maxRows, final SXSSFSheet existingSheet, final int existingRowCount) {
+        if (maxRows < 2) {
+            throw new IllegalArgumentException("Max rows per sheet must be at least 2");
+        }
+        _workbook = workbook;
+        _sheetName = sheetName;
+        _columnNames = columnNames;
+        _maxRows = maxRows;
+        _sheetNumber = 1;
+        if (existingSheet == null) {
+            openSheet(sheetName);
+        } else {
+            _sheet = existingSheet;
+            _rowIndex = existingRowCount;
+            if (_rowIndex == 0) {
+                appendRow(_columnNames);
+            }
+        }
+    }
+
+    public synchronized void writeRow(final Object[] values) {
+        if (_rowIndex >= _maxRows) {
+            _sheetNumber++;
+            openSheet(_workbook.getRolloverSheetName(_sheetName, _sheetNumber));
+        }
+        appendRow(values);
+    }
+
+    private void openSheet(final String name) {
+        _sheet = _workbook.createPhysicalSheet(name);
+        _rowIndex = 0;
+        appendRow(_columnNames);
+    }
+
+    private void appendRow(final Object[] values) {
+        final Row row = _sheet.createRow(_rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            final Cell cell = row.createCell(i);
+            if (value instanceof Number) {
+                cell.setCellValue(((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                cell.setCellValue((Boolean) value);
+            } else if (value instanceof Date) {
+                cell.setCellValue((Date) value);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+}
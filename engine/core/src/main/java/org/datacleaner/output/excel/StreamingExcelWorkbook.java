@@ -0,0 +1,185 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.metamodel.util.FileHelper;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Writes an XLSX workbook in a streaming manner. Only a sliding window of rows
+ * per sheet is kept in memory, older rows are spilled to (compressed) temporary
+ * files until the workbook is closed and written to its file.
+ *
+ * Several sheets can be written concurrently by different threads. Sheets that
+ * already exist in the file are preserved, and rows written to them are
+ * appended after their existing rows. Note that the existing rows of such
+ * sheets are held in memory.
+ */
+public final class StreamingExcelWorkbook implements Closeable {
+
+    private static final int ROW_WINDOW_SIZE = 1000;
+    private static final int SHEET_NAME_MAX_LENGTH = 31;
+
+    private final File _file;
+    private final int _maxRowsPerSheet;
+    private final SXSSFWorkbook _workbook;
+    private final Map<String, StreamingExcelSheet> _sheets;
+
+    public StreamingExcelWorkbook(final File file) {
+        this(file, SpreadsheetVersion.EXCEL2007.getMaxRows());
+    }
+
+    /**
+     * Creates a streaming workbook.
+     *
+     * @param file
+     *            the file to write to. If it exists, its sheets are preserved.
+     * @param maxRowsPerSheet
+     *            the amount of rows (including the header row) after which
+     *            writing continues in a new sheet
+     */
+    public StreamingExcelWorkbook(final File file, final int maxRowsPerSheet) {
+        _file = file;
+        _maxRowsPerSheet = maxRowsPerSheet;
+        _sheets = new HashMap<>();
+
+        final XSSFWorkbook existingWorkbook;
+        if (file.exists() && file.length() > 0) {
+            try (InputStream in = new FileInputStream(file)) {
+                existingWorkbook = new XSSFWorkbook(in);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not read existing workbook: " + file, e);
+            }
+        } else {
+            existingWorkbook = new XSSFWorkbook();
+        }
+        _workbook = new SXSSFWorkbook(existingWorkbook, ROW_WINDOW_SIZE);
+        _workbook.setCompressTempFiles(true);
+    }
+
+    /**
+     * Determines if a file can be written using a {@link StreamingExcelWorkbook}
+     *
+     * @param filename
+     * @return
+     */
+    public static boolean isStreamingSupported(final String filename) {
+        return filename.toLowerCase(Locale.ENGLISH).endsWith(".xlsx");
+    }
+
+    /**
+     * Determines if the workbook contains a sheet, either created by this
+     * workbook or existing in the file beforehand.
+     *
+     * @param sheetName
+     * @return
+     */
+    public synchronized boolean containsSheet(final String sheetName) {
+        return _workbook.getSheet(sheetName) != null;
+    }
+
+    /**
+     * Gets a sheet for writing, creating it (with a header row) if it does not
+     * exist yet. If the sheet existed in the file beforehand, rows are appended
+     * to it.
+     *
+     * @param sheetName
+     * @param columnNames
+     * @return
+     */
+    public synchronized StreamingExcelSheet getOrCreateSheet(final String sheetName, final String[] columnNames) {
+        StreamingExcelSheet sheet = _sheets.get(sheetName);
+        if (sheet == null) {
+            final SXSSFSheet existingSheet = _workbook.getSheet(sheetName);
+            if (existingSheet == null) {
+                sheet = new StreamingExcelSheet(this, sheetName, columnNames, _maxRowsPerSheet);
+            } else {
+                final XSSFSheet existingRows = _workbook.getXSSFWorkbook().getSheet(sheetName);
+                final int existingRowCount =
+                        existingRows.getPhysicalNumberOfRows() == 0 ? 0 : existingRows.getLastRowNum() + 1;
+                sheet = new StreamingExcelSheet(this, sheetName, columnNames, _maxRowsPerSheet, existingSheet,
+                        existingRowCount);
+            }
+            _sheets.put(sheetName, sheet);
+        }
+        return sheet;
+    }
+
+    synchronized SXSSFSheet createPhysicalSheet(final String sheetName) {
+        return _workbook.createSheet(sheetName);
+    }
+
+    /**
+     * Gets the name of the n'th sheet that a logical sheet rolls over to.
+     *
+     * @param sheetName
+     * @param number
+     * @return
+     */
+    synchronized String getRolloverSheetName(final String sheetName, int number) {
+        while (true) {
+            final String suffix = " (" + number + ")";
+            final String baseName = sheetName.length() + suffix.length() > SHEET_NAME_MAX_LENGTH
+                    ? sheetName.substring(0, SHEET_NAME_MAX_LENGTH - suffix.length()) : sheetName;
+            final String name = baseName + suffix;
+            if (!containsSheet(name)) {
+                return name;
+            }
+            number++;
+        }
+    }
+
+    /**
+     * Writes the workbook to its file and removes temporary files.
+     */
+    @Override
+    public synchronized void close() {
+        try (OutputStream out = new FileOutputStream(_file)) {
+            _workbook.write(out);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write workbook: " + _file, e);
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Removes temporary files without writing the workbook.
+     */
+    public synchronized void discard() {
+        _workbook.dispose();
+        FileHelper.safeClose(_workbook);
+    }
+}
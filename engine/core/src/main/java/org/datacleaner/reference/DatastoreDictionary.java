@@ -21,9 +21,7 @@ package org.datacleaner.reference;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
@@ -34,6 +32,7 @@ import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.DatastoreConnection;
 import org.datacleaner.job.NoSuchColumnException;
 import org.datacleaner.job.NoSuchDatastoreException;
+import org.datacleaner.util.CompactStringSet;
 import org.datacleaner.util.ReadObjectBuilder;
 
 /**
@@ -89,7 +88,7 @@ public final class DatastoreDictionary extends AbstractReferenceData implements
             query.getSelectClause().setDistinct(true);
         }
 
-        final Set<String> values = new HashSet<>();
+        final CompactStringSet.Builder values = new CompactStringSet.Builder(false);
 
         try (DataSet dataSet = dataContext.executeQuery(query)) {
             while (dataSet.next()) {
@@ -100,7 +99,7 @@ public final class DatastoreDictionary extends AbstractReferenceData implements
             }
         }
 
-        return new SimpleDictionary(getName(), values);
+        return new SimpleDictionary(getName(), values.build(), false);
     }
 
     @Override
@@ -0,0 +1,234 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.reference.regexswap.RegexSwapStringPattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Matches string values against a whole set of {@link StringPattern}s at once.
+ *
+ * The expressions of the regex based string patterns that must match the
+ * entire string are combined into a single anchored pattern which is used as a
+ * pre-filter: At the start of the value a capturing lookahead per expression,
+ * anchored to the end of the value, records which of them can match the whole
+ * value. Each lookahead is thus only attempted at one position, whereas
+ * evaluating such a pattern on its own searches for a match at every position
+ * of the value. Only the candidates found this way are evaluated individually
+ * to determine exactly which of them match.
+ *
+ * Patterns that do not need to match the entire string are always evaluated
+ * individually, since combining them would still require trying every
+ * expression at every position of the value. The same applies to expressions
+ * that cannot safely be combined (eg. because they use backreferences or named
+ * groups, which depend on group numbering) and to non-regex string patterns.
+ */
+public final class MultiStringPatternMatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiStringPatternMatcher.class);
+
+    private static final Pattern NOT_COMBINABLE_PATTERN = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+
+    private final StringPatternConnection[] _connections;
+    private final int[] _combinedIndexes;
+    private final int[] _combinedGroups;
+    private final int[] _individualIndexes;
+    private final Pattern _combinedPattern;
+
+    public MultiStringPatternMatcher(final StringPattern[] stringPatterns,
+            final DataCleanerConfiguration configuration) {
+        _connections = new StringPatternConnection[stringPatterns.length];
+        for (int i = 0; i < stringPatterns.length; i++) {
+            _connections[i] = stringPatterns[i].openConnection(configuration);
+        }
+
+        final List<Integer> combinedIndexes = new ArrayList<>();
+        final List<Integer> combinedGroups = new ArrayList<>();
+        final List<Integer> individualIndexes = new ArrayList<>();
+        final StringBuilder lookaheadExpressions = new StringBuilder();
+        int group = 1;
+        for (int i = 0; i < stringPatterns.length; i++) {
+            final String expression = getAnchoredExpression(stringPatterns[i]);
+            final String lookaheadExpression = getLookaheadExpression(expression);
+            final int groupCount = getGroupCount(lookaheadExpression);
+            if (groupCount == -1 || NOT_COMBINABLE_PATTERN.matcher(expression).find()) {
+                individualIndexes.add(i);
+            } else {
+                lookaheadExpressions.append(lookaheadExpression);
+                combinedIndexes.add(i);
+                combinedGroups.add(group);
+                group += groupCount;
+            }
+        }
+
+        Pattern combinedPattern = null;
+        if (!combinedIndexes.isEmpty()) {
+            try {
+                combinedPattern = Pattern.compile(lookaheadExpressions.toString());
+            } catch (final PatternSyntaxException e) {
+                logger.info("Could not combine string pattern expressions, matching them individually", e);
+            }
+        }
+
+        if (combinedPattern == null) {
+            individualIndexes.addAll(combinedIndexes);
+            combinedIndexes.clear();
+            combinedGroups.clear();
+        }
+
+        _combinedPattern = combinedPattern;
+        _combinedIndexes = toArray(combinedIndexes);
+        _combinedGroups = toArray(combinedGroups);
+        _individualIndexes = toArray(individualIndexes);
+    }
+
+    /**
+     * Wraps an expression in an optional capturing lookahead which is anchored
+     * to the end of the value, or returns null if there is no expression.
+     */
+    private static String getLookaheadExpression(final String expression) {
+        if (expression == null) {
+            return null;
+        }
+        return "(?:(?=((?:" + expression + ")\\z)))?";
+    }
+
+    /**
+     * Gets the number of capturing groups of an expression, or -1 if the
+     * expression is not available or does not compile on its own. Checking the
+     * wrapped expression on its own means that expressions which do not
+     * survive being embedded (eg. because of a trailing comment in comments
+     * mode) are not combined, without affecting the other expressions.
+     */
+    private static int getGroupCount(final String expression) {
+        if (expression == null) {
+            return -1;
+        }
+        try {
+            return Pattern.compile(expression).matcher("").groupCount();
+        } catch (final PatternSyntaxException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the expression of a string pattern if it is a regex based pattern
+     * that must match the entire string, or null otherwise.
+     */
+    private static String getAnchoredExpression(final StringPattern stringPattern) {
+        if (stringPattern instanceof RegexStringPattern) {
+            final RegexStringPattern regexStringPattern = (RegexStringPattern) stringPattern;
+            if (regexStringPattern.isMatchEntireString()) {
+                return regexStringPattern.getExpression();
+            }
+            return null;
+        }
+        if (stringPattern instanceof RegexSwapStringPattern) {
+            // regex swap patterns always match the entire string
+            return ((RegexSwapStringPattern) stringPattern).getRegex().getExpression();
+        }
+        return null;
+    }
+
+    private static int[] toArray(final List<Integer> list) {
+        final int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Matches a value against all the string patterns.
+     *
+     * @param string
+     *            the value to match
+     * @return an array with an element for each string pattern, indicating
+     *         whether or not the value matched it
+     */
+    public boolean[] matches(final String string) {
+        final boolean[] result = new boolean[_connections.length];
+
+        for (final int i : _individualIndexes) {
+            result[i] = _connections[i].matches(string);
+        }
+
+        for (final int i : getCandidateIndexes(string)) {
+            result[i] = _connections[i].matches(string);
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluates the combined pattern once at the start of a value to find the
+     * combined string patterns whose expression can match the entire value.
+     * Only these are candidates for matching the value, all others are known
+     * not to match.
+     *
+     * @param string
+     *            the value to scan
+     * @return the indexes of the candidate string patterns
+     */
+    private int[] getCandidateIndexes(final String string) {
+        if (_combinedIndexes.length == 0 || string == null) {
+            return new int[0];
+        }
+
+        final Matcher matcher = _combinedPattern.matcher(string);
+        if (!matcher.lookingAt()) {
+            return new int[0];
+        }
+
+        int foundCount = 0;
+        final int[] found = new int[_combinedIndexes.length];
+        for (int j = 0; j < _combinedIndexes.length; j++) {
+            if (matcher.start(_combinedGroups[j]) != -1) {
+                found[foundCount++] = _combinedIndexes[j];
+            }
+        }
+        return Arrays.copyOf(found, foundCount);
+    }
+
+    /**
+     * Gets the indexes of the string patterns that are pre-filtered using the
+     * combined pattern.
+     */
+    int[] getCombinedIndexes() {
+        return _combinedIndexes.clone();
+    }
+
+    @Override
+    public void close() {
+        for (final StringPatternConnection connection : _connections) {
+            connection.close();
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.datacleaner.reference;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -31,15 +32,16 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.util.CompactStringSet;
 import org.datacleaner.util.ReadObjectBuilder;
 import org.datacleaner.util.ReadObjectBuilder.Adaptor;
 
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Sets;
 
 /**
  * The simplest possible Dictionary implementation. Based on an in-memory
- * {@link Set} of values.
+ * {@link Set} of values, which is stored as a {@link CompactStringSet} to keep
+ * the memory footprint of large dictionaries low.
  */
 public final class SimpleDictionary extends AbstractReferenceData implements Dictionary {
 
@@ -53,7 +55,7 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
     }
 
     public SimpleDictionary(final String name, final boolean caseSensitive, final String... values) {
-        this(name, createValueSet(values, caseSensitive), caseSensitive);
+        this(name, Arrays.asList(values), caseSensitive);
     }
 
     public SimpleDictionary(final String name, final Collection<String> values) {
@@ -62,8 +64,8 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
 
     public SimpleDictionary(final String name, final Collection<String> values, final boolean caseSensitive) {
         super(name);
-        if (caseSensitive) {
-            _valueSet = Sets.newHashSet(values);
+        if (values instanceof CompactStringSet && ((CompactStringSet) values).isCaseSensitive() == caseSensitive) {
+            _valueSet = (CompactStringSet) values;
         } else {
             _valueSet = createValueSet(values.iterator(), caseSensitive);
         }
@@ -75,18 +77,14 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
     }
 
     private static Set<String> createValueSet(final Iterator<?> iterator, final boolean caseSensitive) {
-        final Set<String> valueSet = Sets.newHashSet();
+        final CompactStringSet.Builder builder = new CompactStringSet.Builder(caseSensitive);
         while (iterator.hasNext()) {
             final Object value = iterator.next();
             if (value != null) {
-                if (caseSensitive) {
-                    valueSet.add(value.toString());
-                } else {
-                    valueSet.add(value.toString().toLowerCase());
-                }
+                builder.add(value.toString());
             }
         }
-        return valueSet;
+        return builder.build();
     }
 
     private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
@@ -140,6 +138,10 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
 
             @Override
             public Iterator<String> getLengthSortedValues() {
+                if (_valueSet instanceof CompactStringSet) {
+                    return ((CompactStringSet) _valueSet).lengthSortedIterator();
+                }
+                // a value set deserialized from an older version
                 final SortedSet<String> connectionValueSet = new TreeSet<>(
                         Comparator.comparingInt(String::length).reversed().thenComparing(String::compareTo));
                 connectionValueSet.addAll(_valueSet);
@@ -151,7 +153,9 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
                 if (value == null) {
                     return false;
                 }
-                if (!_caseSensitive) {
+                if (!_caseSensitive && !isCaseInsensitiveSet(_valueSet)) {
+                    // a value set deserialized from an older version, which
+                    // contains lower cased values
                     value = value.toLowerCase();
                 }
                 return _valueSet.contains(value);
@@ -163,6 +167,10 @@ public final class SimpleDictionary extends AbstractReferenceData implements Dic
         };
     }
 
+    private static boolean isCaseInsensitiveSet(final Set<String> valueSet) {
+        return valueSet instanceof CompactStringSet && !((CompactStringSet) valueSet).isCaseSensitive();
+    }
+
     public Set<String> getValueSet() {
         return _valueSet;
     }
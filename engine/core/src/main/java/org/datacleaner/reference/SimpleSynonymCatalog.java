@@ -53,6 +53,10 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
 
     private final boolean _caseSensitive;
 
+    // lookup maps derived from the synonym map, shared by all connections
+    private transient volatile Map<String, String> _singleWordSynonymMap;
+    private transient volatile SortedMap<String, String> _multiWordSynonymMap;
+
     public SimpleSynonymCatalog(final String name) {
         this(name, new HashMap<>());
     }
@@ -81,6 +85,24 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
         }
     }
 
+    private Map<String, String> getSingleWordSynonymMap() {
+        Map<String, String> synonymMap = _singleWordSynonymMap;
+        if (synonymMap == null) {
+            synonymMap = createSingleWordSynonymMap();
+            _singleWordSynonymMap = synonymMap;
+        }
+        return synonymMap;
+    }
+
+    private SortedMap<String, String> getMultiWordSynonymMap() {
+        SortedMap<String, String> synonymMap = _multiWordSynonymMap;
+        if (synonymMap == null) {
+            synonymMap = createMultiWordSynonymMap();
+            _multiWordSynonymMap = synonymMap;
+        }
+        return synonymMap;
+    }
+
     private Map<String, String> createSingleWordSynonymMap() {
         if (_caseSensitive) {
             // in the case-sensitive scenario we can simply reuse the normal
@@ -154,8 +176,8 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
     public SynonymCatalogConnection openConnection(final DataCleanerConfiguration configuration) {
         return new SynonymCatalogConnection() {
 
-            private final SortedMap<String, String> _sortedMultiWordSynonymMap = createMultiWordSynonymMap();
-            private final Map<String, String> _singleWordSynonymMap = createSingleWordSynonymMap();
+            private final SortedMap<String, String> _sortedMultiWordSynonymMap = getMultiWordSynonymMap();
+            private final Map<String, String> _connectionSingleWordSynonymMap = getSingleWordSynonymMap();
 
             @Override
             public Collection<Synonym> getSynonyms() {
@@ -181,7 +203,7 @@ public final class SimpleSynonymCatalog extends AbstractReferenceData implements
                     return null;
                 }
                 final String key = _caseSensitive ? term : term.toLowerCase();
-                return _singleWordSynonymMap.get(key);
+                return _connectionSingleWordSynonymMap.get(key);
             }
 
             @Override
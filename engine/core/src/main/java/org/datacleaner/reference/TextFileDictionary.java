@@ -23,13 +23,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.reflect.Field;
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Resource;
 import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.util.CompactStringSet;
 import org.datacleaner.util.ReadObjectBuilder;
 import org.datacleaner.util.ReadObjectBuilder.Adaptor;
 import org.datacleaner.util.convert.ResourceConverter;
@@ -85,18 +84,30 @@ public final class TextFileDictionary extends AbstractReferenceData implements D
 
     @Override
     public DictionaryConnection openConnection(final DataCleanerConfiguration configuration) {
+        return toSimpleDictionary(configuration).openConnection(configuration);
+    }
+
+    /**
+     * Reads the text file and creates an in-memory {@link SimpleDictionary}
+     * with the same name and values. Useful when the same dictionary is used
+     * many times, or needs to be shipped to places where the file is not
+     * reachable.
+     *
+     * @param configuration
+     * @return
+     */
+    public SimpleDictionary toSimpleDictionary(final DataCleanerConfiguration configuration) {
         final ResourceConverter rc = new ResourceConverter(configuration);
         final Resource resource = rc.fromString(Resource.class, _filename);
-        final Set<String> values = resource.read(in -> {
-            final Set<String> values1 = new HashSet<>();
+        // values are encoded as they are read, since SimpleDictionary stores
+        // them in a compact form anyway, removing duplicates on the way
+        final CompactStringSet values = resource.read(in -> {
+            final CompactStringSet.Builder builder = new CompactStringSet.Builder(_caseSensitive);
             final BufferedReader reader = FileHelper.getBufferedReader(in, getEncoding());
             try {
                 String line = reader.readLine();
                 while (line != null) {
-                    if (!_caseSensitive) {
-                        line = line.toLowerCase();
-                    }
-                    values1.add(line);
+                    builder.add(line);
                     line = reader.readLine();
                 }
             } catch (final IOException e) {
@@ -104,11 +115,10 @@ public final class TextFileDictionary extends AbstractReferenceData implements D
             } finally {
                 FileHelper.safeClose(reader);
             }
-            return values1;
+            return builder.build();
         });
 
-        final SimpleDictionary simpleDictionary = new SimpleDictionary(getName(), values, _caseSensitive);
-        return simpleDictionary.openConnection(configuration);
+        return new SimpleDictionary(getName(), values, _caseSensitive);
     }
 
     @Override
@@ -72,6 +72,17 @@ public final class TextFileSynonymCatalog extends AbstractReferenceData implemen
 
     @Override
     public SynonymCatalogConnection openConnection(final DataCleanerConfiguration configuration) {
+        return toSimpleSynonymCatalog(configuration).openConnection(configuration);
+    }
+
+    /**
+     * Reads the text file and creates an in-memory {@link SimpleSynonymCatalog}
+     * with the same name and synonyms.
+     *
+     * @param configuration
+     * @return
+     */
+    public SimpleSynonymCatalog toSimpleSynonymCatalog(final DataCleanerConfiguration configuration) {
         final ResourceConverter rc = new ResourceConverter(configuration);
         final Resource resource = rc.fromString(Resource.class, _filename);
 
@@ -107,7 +118,7 @@ public final class TextFileSynonymCatalog extends AbstractReferenceData implemen
             return synonyms1;
         });
 
-        return new SimpleSynonymCatalog(getName(), synonyms, _caseSensitive).openConnection(configuration);
+        return new SimpleSynonymCatalog(getName(), synonyms, _caseSensitive);
     }
 
     private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
@@ -99,6 +99,10 @@ public abstract class AbstractCrosstabResultReducer<R extends CrosstabResult> im
     protected static Number maximum(final List<?> slaveValues) {
         Number max = null;
         for (final Object slaveValue : slaveValues) {
+            if (slaveValue == null) {
+                // no values at this slave
+                continue;
+            }
             if (max == null) {
                 max = (Number) slaveValue;
             } else {
@@ -120,6 +124,10 @@ public abstract class AbstractCrosstabResultReducer<R extends CrosstabResult> im
     protected static Number minimum(final List<?> slaveValues) {
         Number min = null;
         for (final Object slaveValue : slaveValues) {
+            if (slaveValue == null) {
+                // no values at this slave
+                continue;
+            }
             if (min == null) {
                 min = (Number) slaveValue;
             } else {
@@ -0,0 +1,617 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * An immutable, memory efficient {@link java.util.Set} of strings, intended for
+ * large sets of reference data such as dictionaries.
+ *
+ * Values are stored UTF-8 encoded and sorted, in blocks of
+ * {@value #BLOCK_SIZE} values where each value only stores the suffix that
+ * differs from the previous value in the block (front coding). Lookups do a
+ * binary search on the first values of the blocks, comparing them in place in
+ * the encoded data, and then a short scan of a single block. No strings or
+ * byte arrays are created for the looked up value.
+ *
+ * A set can be case insensitive, in which case the values keep their original
+ * spelling and case is only folded while comparing values.
+ *
+ * Being immutable, a {@link CompactStringSet} can safely be shared between
+ * threads.
+ */
+public final class CompactStringSet extends AbstractSet<String> implements Serializable {
+
+    /**
+     * Builds a {@link CompactStringSet} from values that are added one at a
+     * time. Values are sorted and encoded in chunks while they are added, and
+     * the encoded chunks are merged when the set is built, so that only a
+     * single chunk of values is ever held as strings.
+     */
+    public static final class Builder {
+
+        private final boolean _ignoreCase;
+        private final List<String> _chunk;
+        private final List<CompactStringSet> _encodedChunks;
+
+        public Builder(final boolean caseSensitive) {
+            _ignoreCase = !caseSensitive;
+            _chunk = new ArrayList<>();
+            _encodedChunks = new ArrayList<>();
+        }
+
+        /**
+         * Adds a value to the set. Null values are ignored and duplicate values
+         * are only stored once.
+         *
+         * @param value
+         * @return
+         */
+        public Builder add(final String value) {
+            if (value != null) {
+                _chunk.add(value);
+                if (_chunk.size() >= CHUNK_SIZE) {
+                    encodeChunk();
+                }
+            }
+            return this;
+        }
+
+        public Builder addAll(final Collection<String> values) {
+            for (final String value : values) {
+                add(value);
+            }
+            return this;
+        }
+
+        private void encodeChunk() {
+            if (_chunk.isEmpty()) {
+                return;
+            }
+            _chunk.sort(comparator(_ignoreCase));
+            final Encoder encoder = new Encoder(_ignoreCase);
+            for (final String value : _chunk) {
+                encoder.add(value);
+            }
+            _chunk.clear();
+            _encodedChunks.add(new CompactStringSet(encoder));
+        }
+
+        public CompactStringSet build() {
+            encodeChunk();
+            if (_encodedChunks.size() == 1) {
+                return _encodedChunks.remove(0);
+            }
+
+            final List<Iterator<String>> iterators = new ArrayList<>(_encodedChunks.size());
+            for (final CompactStringSet encodedChunk : _encodedChunks) {
+                iterators.add(encodedChunk.iterator());
+            }
+            final Encoder encoder = new Encoder(_ignoreCase);
+            final Iterator<String> merged = Iterators.mergeSorted(iterators, comparator(_ignoreCase));
+            while (merged.hasNext()) {
+                encoder.add(merged.next());
+            }
+            _encodedChunks.clear();
+            return new CompactStringSet(encoder);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int BLOCK_SIZE = 16;
+
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Reads values from the encoded data, one at a time, into a reusable
+     * buffer.
+     */
+    private final class Cursor {
+        private int _offset;
+        private int _index;
+        private byte[] _buffer = new byte[64];
+        private int _length;
+
+        private Cursor(final int blockIndex) {
+            _offset = blockIndex < _blockOffsets.length ? _blockOffsets[blockIndex] : _data.length;
+            _index = blockIndex * BLOCK_SIZE;
+        }
+
+        private boolean hasNext() {
+            return _index < _size;
+        }
+
+        private void next() {
+            final int shared;
+            if (_index % BLOCK_SIZE == 0) {
+                shared = 0;
+            } else {
+                shared = readVarInt();
+            }
+            final int suffixLength = readVarInt();
+            _length = shared + suffixLength;
+            if (_buffer.length < _length) {
+                _buffer = Arrays.copyOf(_buffer, Math.max(_length, _buffer.length * 2));
+            }
+            System.arraycopy(_data, _offset, _buffer, shared, suffixLength);
+            _offset += suffixLength;
+            _index++;
+        }
+
+        private int readVarInt() {
+            int result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = _data[_offset++];
+                result |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return result;
+        }
+
+        private String getString() {
+            return new String(_buffer, 0, _length, StandardCharsets.UTF_8);
+        }
+
+        private int compareTo(final String value) {
+            return compareEncoded(_buffer, 0, _length, value, _ignoreCase, false);
+        }
+
+        private boolean startsWith(final String prefix) {
+            return compareEncoded(_buffer, 0, _length, prefix, _ignoreCase, true) == 0;
+        }
+    }
+
+    /**
+     * Encodes values, which must be added in the order of the set, skipping
+     * duplicates.
+     */
+    private static final class Encoder {
+        private final boolean _ignoreCase;
+        private final GrowableByteArray _data;
+        private int[] _blockOffsets;
+        private int _size;
+        private String _previous;
+        private byte[] _previousBytes;
+
+        private Encoder(final boolean ignoreCase) {
+            _ignoreCase = ignoreCase;
+            _data = new GrowableByteArray(256);
+            _blockOffsets = new int[16];
+            _size = 0;
+        }
+
+        private void add(final String value) {
+            if (_previous != null && compareStrings(_previous, value, _ignoreCase) == 0) {
+                return;
+            }
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (_size % BLOCK_SIZE == 0) {
+                final int blockIndex = _size / BLOCK_SIZE;
+                if (blockIndex == _blockOffsets.length) {
+                    _blockOffsets = Arrays.copyOf(_blockOffsets, blockIndex * 2);
+                }
+                _blockOffsets[blockIndex] = _data.length();
+                _data.writeVarInt(bytes.length);
+                _data.write(bytes, 0, bytes.length);
+            } else {
+                final int shared = commonPrefixLength(_previousBytes, bytes);
+                _data.writeVarInt(shared);
+                _data.writeVarInt(bytes.length - shared);
+                _data.write(bytes, shared, bytes.length - shared);
+            }
+            _previous = value;
+            _previousBytes = bytes;
+            _size++;
+        }
+    }
+
+    private final byte[] _data;
+    private final int[] _blockOffsets;
+    private final int _size;
+    private final boolean _ignoreCase;
+    private transient volatile int[] _lengthSortedIndexes;
+
+    /**
+     * Creates a case sensitive {@link CompactStringSet} containing the
+     * (non-null) values of a collection. Duplicate values are allowed in the
+     * collection, they are only stored once.
+     *
+     * @param values
+     */
+    public CompactStringSet(final Collection<String> values) {
+        this(new Builder(true).addAll(values).build());
+    }
+
+    private CompactStringSet(final CompactStringSet set) {
+        _data = set._data;
+        _blockOffsets = set._blockOffsets;
+        _size = set._size;
+        _ignoreCase = set._ignoreCase;
+    }
+
+    private CompactStringSet(final Encoder encoder) {
+        _data = encoder._data.toByteArray();
+        _blockOffsets = Arrays.copyOf(encoder._blockOffsets, (encoder._size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        _size = encoder._size;
+        _ignoreCase = encoder._ignoreCase;
+    }
+
+    private static int commonPrefixLength(final byte[] b1, final byte[] b2) {
+        final int max = Math.min(b1.length, b2.length);
+        int i = 0;
+        while (i < max && b1[i] == b2[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Comparator<String> comparator(final boolean ignoreCase) {
+        return (s1, s2) -> compareStrings(s1, s2, ignoreCase);
+    }
+
+    /**
+     * Gets the code point that will be compared for a code point of a string.
+     * Unpaired surrogates are replaced like the UTF-8 encoder does, and case is
+     * folded in the same way as {@link String#equalsIgnoreCase(String)} does
+     * if required.
+     */
+    private static int comparableCodePoint(final int codePoint, final boolean ignoreCase) {
+        if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            return '?';
+        }
+        if (ignoreCase) {
+            return Character.toLowerCase(Character.toUpperCase(codePoint));
+        }
+        return codePoint;
+    }
+
+    /**
+     * Compares strings in code point order, which equals the order of the
+     * UTF-8 encoded values.
+     */
+    private static int compareStrings(final String s1, final String s2, final boolean ignoreCase) {
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < s1.length() && i2 < s2.length()) {
+            final int codePoint1 = s1.codePointAt(i1);
+            final int codePoint2 = s2.codePointAt(i2);
+            i1 += Character.charCount(codePoint1);
+            i2 += Character.charCount(codePoint2);
+            final int diff = comparableCodePoint(codePoint1, ignoreCase) - comparableCodePoint(codePoint2, ignoreCase);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        if (i1 < s1.length()) {
+            return 1;
+        }
+        if (i2 < s2.length()) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Compares a UTF-8 encoded value with a string, decoding the value in
+     * place.
+     *
+     * @param bytes
+     * @param offset
+     *            the offset of the encoded value in the byte array
+     * @param length
+     *            the length of the encoded value
+     * @param value
+     *            the string to compare with
+     * @param ignoreCase
+     * @param prefix
+     *            whether to only compare the encoded value up to the length
+     *            of the string, ie. whether to check if the string is a prefix
+     *            of the encoded value
+     * @return
+     */
+    private static int compareEncoded(final byte[] bytes, int offset, final int length, final String value,
+            final boolean ignoreCase, final boolean prefix) {
+        final int end = offset + length;
+        int i = 0;
+        while (offset < end && i < value.length()) {
+            final int b = bytes[offset] & 0xff;
+            final int encodedCodePoint;
+            if (b < 0x80) {
+                encodedCodePoint = b;
+                offset += 1;
+            } else if (b < 0xe0) {
+                encodedCodePoint = ((b & 0x1f) << 6) | (bytes[offset + 1] & 0x3f);
+                offset += 2;
+            } else if (b < 0xf0) {
+                encodedCodePoint = ((b & 0x0f) << 12) | ((bytes[offset + 1] & 0x3f) << 6) | (bytes[offset + 2] & 0x3f);
+                offset += 3;
+            } else {
+                encodedCodePoint = ((b & 0x07) << 18) | ((bytes[offset + 1] & 0x3f) << 12)
+                        | ((bytes[offset + 2] & 0x3f) << 6) | (bytes[offset + 3] & 0x3f);
+                offset += 4;
+            }
+            final int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            final int diff =
+                    comparableCodePoint(encodedCodePoint, ignoreCase) - comparableCodePoint(codePoint, ignoreCase);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        if (i < value.length()) {
+            return -1;
+        }
+        if (offset < end && !prefix) {
+            return 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Determines whether values are compared case sensitively in this set.
+     *
+     * @return
+     */
+    public boolean isCaseSensitive() {
+        return !_ignoreCase;
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (!(obj instanceof String) || _size == 0) {
+            return false;
+        }
+        final String value = (String) obj;
+        final int blockIndex = findBlock(value);
+        if (blockIndex < 0) {
+            return false;
+        }
+
+        final Cursor cursor = new Cursor(blockIndex);
+        final int end = Math.min(_size, (blockIndex + 1) * BLOCK_SIZE);
+        while (cursor._index < end) {
+            cursor.next();
+            final int comparison = cursor.compareTo(value);
+            if (comparison == 0) {
+                return true;
+            } else if (comparison > 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the last block whose first value is less than or equal to the
+     * given value. The first values are compared where they are stored in
+     * the encoded data.
+     *
+     * @param value
+     * @return the block index, or -1 if the value is less than all values in
+     *         the set
+     */
+    private int findBlock(final String value) {
+        int low = 0;
+        int high = _blockOffsets.length - 1;
+        int result = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+
+            // the first value of a block is stored in full, after its length
+            int offset = _blockOffsets[mid];
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = _data[offset++];
+                length |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            if (compareEncoded(_data, offset, length, value, _ignoreCase, false) <= 0) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Iterates the values in code point order.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return prefixIterator("");
+    }
+
+    /**
+     * Iterates the values that start with a particular prefix, in code point
+     * order.
+     *
+     * @param prefix
+     * @return
+     */
+    public Iterator<String> prefixIterator(final String prefix) {
+        final Cursor cursor = new Cursor(Math.max(0, findBlock(prefix)));
+
+        return new Iterator<String>() {
+            private String _next = advance();
+
+            private String advance() {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    if (cursor.startsWith(prefix)) {
+                        return cursor.getString();
+                    }
+                    if (cursor.compareTo(prefix) > 0) {
+                        // passed the range of values with the prefix
+                        return null;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return _next != null;
+            }
+
+            @Override
+            public String next() {
+                if (_next == null) {
+                    throw new NoSuchElementException();
+                }
+                final String result = _next;
+                _next = advance();
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Iterates the values ordered by length (longest first), and by code point
+     * order for values of the same length. The ordering is computed only once
+     * per set, and only stores the ordering, not the values.
+     *
+     * @return
+     */
+    public Iterator<String> lengthSortedIterator() {
+        final int[] indexes = getLengthSortedIndexes();
+        return new Iterator<String>() {
+            private int _position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return _position < indexes.length;
+            }
+
+            @Override
+            public String next() {
+                if (_position >= indexes.length) {
+                    throw new NoSuchElementException();
+                }
+                return get(indexes[_position++]);
+            }
+        };
+    }
+
+    private String get(final int index) {
+        final Cursor cursor = new Cursor(index / BLOCK_SIZE);
+        do {
+            cursor.next();
+        } while (cursor._index <= index);
+        return cursor.getString();
+    }
+
+    private int[] getLengthSortedIndexes() {
+        int[] indexes = _lengthSortedIndexes;
+        if (indexes == null) {
+            // counting sort on the (UTF-16) string lengths
+            final int[] lengths = new int[_size];
+            int maxLength = 0;
+            final Cursor cursor = new Cursor(0);
+            for (int i = 0; i < _size; i++) {
+                cursor.next();
+                lengths[i] = cursor.getString().length();
+                maxLength = Math.max(maxLength, lengths[i]);
+            }
+
+            final int[] positions = new int[maxLength + 2];
+            for (final int length : lengths) {
+                positions[maxLength - length + 1]++;
+            }
+            for (int i = 1; i < positions.length; i++) {
+                positions[i] += positions[i - 1];
+            }
+
+            indexes = new int[_size];
+            for (int i = 0; i < _size; i++) {
+                indexes[positions[maxLength - lengths[i]]++] = i;
+            }
+            _lengthSortedIndexes = indexes;
+        }
+        return indexes;
+    }
+
+    /**
+     * Simple growable byte array, used while encoding the values.
+     */
+    private static final class GrowableByteArray {
+        private byte[] _bytes;
+        private int _length;
+
+        private GrowableByteArray(final int initialCapacity) {
+            _bytes = new byte[initialCapacity];
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (_bytes.length < capacity) {
+                _bytes = Arrays.copyOf(_bytes, Math.max(capacity, _bytes.length + (_bytes.length >> 1)));
+            }
+        }
+
+        private void write(final byte[] bytes, final int offset, final int length) {
+            ensureCapacity(_length + length);
+            System.arraycopy(bytes, offset, _bytes, _length, length);
+            _length += length;
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(_length + 5);
+            while ((value & ~0x7f) != 0) {
+                _bytes[_length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            _bytes[_length++] = (byte) value;
+        }
+
+        private int length() {
+            return _length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(_bytes, _length);
+        }
+    }
+}
@@ -130,6 +130,16 @@ public class SystemProperties {
      */
     public static final String QUERY_SELECTCLAUSE_OPTIMIZE = "datacleaner.query.selectclause.optimize";
 
+    /**
+     * Determines the maximum number of distinct values that the engine will
+     * buffer (per thread) for an analyzer consuming a single column, in order to
+     * invoke it once per distinct value with a combined distinct count. Only
+     * applies to analyzers annotated with
+     * {@link org.datacleaner.api.DistinctCountAware}. If not set (or 0) rows are
+     * passed to analyzers one by one.
+     */
+    public static final String ENGINE_DISTINCT_VALUE_BUFFER_SIZE = "datacleaner.engine.distinctvalues.buffer";
+
     /**
      * Gets a system property string, or a replacement value if the property is
      * null or blank.
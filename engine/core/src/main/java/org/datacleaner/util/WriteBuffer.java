@@ -19,12 +19,18 @@
  */
 package org.datacleaner.util;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.util.Action;
 import org.slf4j.Logger;
@@ -33,22 +39,81 @@ import org.slf4j.LoggerFactory;
 /**
  * Provides a buffering mechanism that enables writing rows periodically instead
  * of instantly.
+ *
+ * By default batches are written inline by the thread that fills up the
+ * buffer. When created with one or more writer threads, full batches are
+ * instead handed off to a background writer stage, so that producers can keep
+ * filling the buffer while previous batches are being written. The number of
+ * batches in flight is bounded by the number of writer threads, which provides
+ * back-pressure towards the producers. Errors raised by the flush action are
+ * rethrown to the producers on the next call to {@link #addToBuffer(Object[])}
+ * or {@link #flushBuffer()}.
  */
-public class WriteBuffer {
+public class WriteBuffer implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(WriteBuffer.class);
 
     private final BlockingQueue<Object[]> _buffer;
     private final Action<Iterable<Object[]>> _flushAction;
     private final AtomicInteger _batchNumber;
+    private final int _writerThreads;
+    private final ExecutorService _writerExecutor;
+    private final Semaphore _writerPermits;
+    private final AtomicReference<Exception> _writerError;
 
     public WriteBuffer(final int bufferSize, final Action<Iterable<Object[]>> flushAction) {
+        this(bufferSize, flushAction, 0);
+    }
+
+    /**
+     * Creates a write buffer.
+     *
+     * @param bufferSize
+     *            the amount of rows to buffer before writing a batch
+     * @param flushAction
+     *            the action that writes a batch. If more than one writer
+     *            thread is used, the action must be able to run concurrently.
+     * @param writerThreads
+     *            the number of background writer threads, or 0 to write
+     *            batches inline on the thread that fills the buffer
+     */
+    public WriteBuffer(final int bufferSize, final Action<Iterable<Object[]>> flushAction, final int writerThreads) {
         if (bufferSize <= 0) {
             throw new IllegalArgumentException("Buffer size must be a positive integer");
         }
+        if (writerThreads < 0) {
+            throw new IllegalArgumentException("Writer threads cannot be a negative number");
+        }
         _batchNumber = new AtomicInteger();
         _buffer = new ArrayBlockingQueue<>(bufferSize);
         _flushAction = flushAction;
+        _writerThreads = writerThreads;
+        _writerError = new AtomicReference<>();
+        if (writerThreads == 0) {
+            _writerExecutor = null;
+            _writerPermits = null;
+        } else {
+            _writerExecutor = Executors.newFixedThreadPool(writerThreads, createWriterThreadFactory());
+            _writerPermits = new Semaphore(writerThreads);
+        }
+    }
+
+    private static ThreadFactory createWriterThreadFactory() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "WriteBuffer-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Determines whether batches are written by a background writer stage.
+     *
+     * @return
+     */
+    public boolean isAsynchronous() {
+        return _writerExecutor != null;
     }
 
     protected Queue<Object[]> getBuffer() {
@@ -56,12 +121,26 @@ public class WriteBuffer {
     }
 
     public final void addToBuffer(final Object[] rowData) {
+        rethrowWriterError();
         while (!_buffer.offer(rowData)) {
-            flushBuffer();
+            writeBatch();
         }
     }
 
+    /**
+     * Writes all buffered rows. In asynchronous mode this method also awaits
+     * all batches that are currently being written by the background writer
+     * stage.
+     */
     public final void flushBuffer() {
+        writeBatch();
+        if (isAsynchronous()) {
+            awaitWriters();
+            rethrowWriterError();
+        }
+    }
+
+    private void writeBatch() {
         final int flushSize = _buffer.size();
         if (flushSize == 0) {
             return;
@@ -78,16 +157,70 @@ public class WriteBuffer {
             return;
         }
 
-        try {
-            final int batchNo = _batchNumber.incrementAndGet();
-            logger.info("Write batch no. {} starting", batchNo);
-            _flushAction.run(copy);
-            logger.info("Write batch no. {} finished", batchNo);
-        } catch (final Exception e) {
-            if (e instanceof RuntimeException) {
-                throw (RuntimeException) e;
+        final int batchNo = _batchNumber.incrementAndGet();
+        if (!isAsynchronous()) {
+            try {
+                runFlushAction(batchNo, copy);
+            } catch (final Exception e) {
+                throw wrap(e);
             }
-            throw new IllegalStateException(e);
+            return;
+        }
+
+        // blocks while all writers are busy, which bounds the amount of
+        // buffered batches in memory
+        _writerPermits.acquireUninterruptibly();
+        try {
+            _writerExecutor.execute(() -> {
+                try {
+                    runFlushAction(batchNo, copy);
+                } catch (final Exception e) {
+                    logger.error("Write batch no. {} failed", batchNo, e);
+                    _writerError.compareAndSet(null, e);
+                } finally {
+                    _writerPermits.release();
+                }
+            });
+        } catch (final RuntimeException e) {
+            _writerPermits.release();
+            throw e;
+        }
+    }
+
+    private void runFlushAction(final int batchNo, final List<Object[]> batch) throws Exception {
+        logger.info("Write batch no. {} starting", batchNo);
+        _flushAction.run(batch);
+        logger.info("Write batch no. {} finished", batchNo);
+    }
+
+    private void awaitWriters() {
+        _writerPermits.acquireUninterruptibly(_writerThreads);
+        _writerPermits.release(_writerThreads);
+    }
+
+    private void rethrowWriterError() {
+        final Exception e = _writerError.get();
+        if (e != null) {
+            throw wrap(e);
+        }
+    }
+
+    private static RuntimeException wrap(final Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    /**
+     * Stops the background writer stage, if any, after any batches that are
+     * currently being written. Rows that have not been flushed are discarded.
+     */
+    @Override
+    public void close() {
+        if (isAsynchronous()) {
+            awaitWriters();
+            _writerExecutor.shutdown();
         }
     }
 }
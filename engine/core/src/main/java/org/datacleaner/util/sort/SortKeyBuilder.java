@@ -0,0 +1,272 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.sort;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds binary sort keys which can be compared byte by byte (unsigned) using
+ * {@link #compare(byte[], byte[])}, instead of converting and comparing typed
+ * values on every comparison.
+ *
+ * A key consists of one field per sort column. Each field starts with a type
+ * tag, so that nulls sort before numbers, dates and strings, followed by a
+ * normalised representation of the value:
+ *
+ * <ul>
+ * <li>Numbers and dates are written as 8 bytes with the sign bit flipped (and
+ * the remaining bits of negative numbers inverted). For numbers these are the
+ * bits of the nearest double, followed by the (decimal encoded) difference
+ * between the exact value and that double, so that eg. longs above 2^53 and
+ * {@link BigDecimal}s keep their order and identity.</li>
+ * <li>Strings are written as UTF-16 (big endian) with zero bytes escaped as
+ * 0x00 0xFF, and terminated by a zero byte.</li>
+ * </ul>
+ *
+ * Descending fields are inverted byte by byte. Every key ends with an end
+ * marker so that a terminated string never becomes a prefix of another key.
+ */
+public final class SortKeyBuilder {
+
+    private static final byte TAG_NULL = 0x01;
+    private static final byte TAG_NUMBER = 0x02;
+    private static final byte TAG_DATE = 0x03;
+    private static final byte TAG_STRING = 0x04;
+    private static final byte END_MARKER = 0x01;
+
+    private static final byte REMAINDER_BELOW_ALL = 0x01;
+    private static final byte REMAINDER_NEGATIVE = 0x02;
+    private static final byte REMAINDER_ZERO = 0x03;
+    private static final byte REMAINDER_POSITIVE = 0x04;
+    private static final byte REMAINDER_ABOVE_ALL = 0x05;
+
+    private static final long MAX_EXACT_DOUBLE_LONG = 1L << 53;
+
+    private byte[] _bytes;
+    private int _length;
+
+    public SortKeyBuilder() {
+        _bytes = new byte[64];
+        _length = 0;
+    }
+
+    /**
+     * Compares two keys built by a {@link SortKeyBuilder}
+     *
+     * @param key1
+     * @param key2
+     * @return
+     */
+    public static int compare(final byte[] key1, final byte[] key2) {
+        final int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            final int diff = (key1[i] & 0xFF) - (key2[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return key1.length - key2.length;
+    }
+
+    public SortKeyBuilder appendNull(final SortDirection direction) {
+        final int start = _length;
+        write(TAG_NULL);
+        finishField(start, direction);
+        return this;
+    }
+
+    public SortKeyBuilder appendNumber(final Number value, final SortDirection direction) {
+        if (value == null) {
+            return appendNull(direction);
+        }
+        final int start = _length;
+        write(TAG_NUMBER);
+        final double doubleValue = value.doubleValue();
+        final long bits = Double.doubleToLongBits(doubleValue);
+        writeLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+        writeRemainder(value, doubleValue);
+        finishField(start, direction);
+        return this;
+    }
+
+    /**
+     * Writes the difference between a number and its nearest double, which
+     * orders numbers that are rounded to the same double.
+     */
+    private void writeRemainder(final Number value, final double doubleValue) {
+        if (value instanceof Double || value instanceof Float || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            // exactly representable as a double
+            if (doubleValue == Double.POSITIVE_INFINITY) {
+                write(REMAINDER_ABOVE_ALL);
+            } else if (doubleValue == Double.NEGATIVE_INFINITY) {
+                write(REMAINDER_BELOW_ALL);
+            } else {
+                write(REMAINDER_ZERO);
+            }
+            return;
+        }
+        if (value instanceof Long && Math.abs(value.longValue()) <= MAX_EXACT_DOUBLE_LONG) {
+            write(REMAINDER_ZERO);
+            return;
+        }
+
+        final BigDecimal exactValue = toBigDecimal(value);
+        if (exactValue == null) {
+            write(REMAINDER_ZERO);
+            return;
+        }
+        if (Double.isInfinite(doubleValue)) {
+            // beyond the range of doubles, but still below/above the infinities
+            writeDecimal(exactValue);
+            return;
+        }
+        writeDecimal(exactValue.subtract(new BigDecimal(doubleValue)));
+    }
+
+    private static BigDecimal toBigDecimal(final Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Long || value instanceof AtomicLong) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        // other number types are compared by their double value only
+        return null;
+    }
+
+    /**
+     * Writes a decimal as a sign, followed by (for non-zero values) the
+     * exponent and significant digits of its absolute value, all inverted for
+     * negative values.
+     */
+    private void writeDecimal(final BigDecimal value) {
+        final int signum = value.signum();
+        if (signum == 0) {
+            write(REMAINDER_ZERO);
+            return;
+        }
+        write(signum < 0 ? REMAINDER_NEGATIVE : REMAINDER_POSITIVE);
+        final int start = _length;
+
+        final BigDecimal normalized = value.abs().stripTrailingZeros();
+        final String digits = normalized.unscaledValue().toString();
+        // the value is 0.<digits> * 10^exponent
+        final int exponent = digits.length() - normalized.scale();
+        writeInt(exponent ^ Integer.MIN_VALUE);
+        for (int i = 0; i < digits.length(); i++) {
+            write((byte) digits.charAt(i));
+        }
+        write((byte) 0x00);
+
+        if (signum < 0) {
+            for (int i = start; i < _length; i++) {
+                _bytes[i] = (byte) ~_bytes[i];
+            }
+        }
+    }
+
+    public SortKeyBuilder appendDate(final Date value, final SortDirection direction) {
+        if (value == null) {
+            return appendNull(direction);
+        }
+        final int start = _length;
+        write(TAG_DATE);
+        writeLong(value.getTime() ^ Long.MIN_VALUE);
+        finishField(start, direction);
+        return this;
+    }
+
+    public SortKeyBuilder appendString(final String value, final SortDirection direction) {
+        if (value == null) {
+            return appendNull(direction);
+        }
+        final int start = _length;
+        write(TAG_STRING);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            writeEscaped((byte) (c >>> 8));
+            writeEscaped((byte) c);
+        }
+        write((byte) 0x00);
+        finishField(start, direction);
+        return this;
+    }
+
+    /**
+     * Creates the key of the appended fields and resets the builder.
+     *
+     * @return
+     */
+    public byte[] build() {
+        write(END_MARKER);
+        final byte[] key = Arrays.copyOf(_bytes, _length);
+        _length = 0;
+        return key;
+    }
+
+    /**
+     * Discards any fields appended since the last key was built.
+     */
+    public void reset() {
+        _length = 0;
+    }
+
+    private void finishField(final int start, final SortDirection direction) {
+        if (direction == SortDirection.DESCENDING) {
+            for (int i = start; i < _length; i++) {
+                _bytes[i] = (byte) ~_bytes[i];
+            }
+        }
+    }
+
+    private void writeEscaped(final byte b) {
+        write(b);
+        if (b == 0x00) {
+            write((byte) 0xFF);
+        }
+    }
+
+    private void writeInt(final int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            write((byte) (value >>> shift));
+        }
+    }
+
+    private void writeLong(final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            write((byte) (value >>> shift));
+        }
+    }
+
+    private void write(final byte b) {
+        if (_length == _bytes.length) {
+            _bytes = Arrays.copyOf(_bytes, _length * 2);
+        }
+        _bytes[_length++] = b;
+    }
+}
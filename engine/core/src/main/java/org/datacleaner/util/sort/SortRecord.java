@@ -0,0 +1,148 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.sort;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+/**
+ * A record for {@link SortMergeWriter} consisting of a precomputed sort key
+ * (see {@link SortKeyBuilder}) and the string values to write.
+ *
+ * Records with equal keys are ordered by their values, ignoring case first, so
+ * only records with identical values are considered equal.
+ */
+public final class SortRecord implements Externalizable, Comparable<SortRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    private byte[] _key;
+    private String[] _values;
+
+    /**
+     * Constructor used for deserialization only
+     */
+    public SortRecord() {
+    }
+
+    public SortRecord(final byte[] key, final String[] values) {
+        _key = key;
+        _values = values;
+    }
+
+    public byte[] getKey() {
+        return _key;
+    }
+
+    public String[] getValues() {
+        return _values;
+    }
+
+    @Override
+    public int compareTo(final SortRecord other) {
+        final int keyResult = SortKeyBuilder.compare(_key, other._key);
+        if (keyResult != 0) {
+            return keyResult;
+        }
+        final int ignoreCaseResult = compareValues(other, true);
+        if (ignoreCaseResult != 0) {
+            return ignoreCaseResult;
+        }
+        return compareValues(other, false);
+    }
+
+    private int compareValues(final SortRecord other, final boolean ignoreCase) {
+        final int length = Math.min(_values.length, other._values.length);
+        for (int i = 0; i < length; i++) {
+            final String value1 = _values[i];
+            final String value2 = other._values[i];
+            if (value1 != value2) {
+                if (value1 == null) {
+                    return -1;
+                }
+                if (value2 == null) {
+                    return 1;
+                }
+                final int result = ignoreCase ? value1.compareToIgnoreCase(value2) : value1.compareTo(value2);
+                if (result != 0) {
+                    return result;
+                }
+            }
+        }
+        return _values.length - other._values.length;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof SortRecord) {
+            final SortRecord other = (SortRecord) obj;
+            return Arrays.equals(_key, other._key) && Arrays.equals(_values, other._values);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(_key) + Arrays.hashCode(_values);
+    }
+
+    @Override
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeInt(_key.length);
+        out.write(_key);
+        out.writeInt(_values.length);
+        for (final String value : _values) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(value.length());
+                out.writeChars(value);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(final ObjectInput in) throws IOException {
+        _key = new byte[in.readInt()];
+        in.readFully(_key);
+        _values = new String[in.readInt()];
+        for (int i = 0; i < _values.length; i++) {
+            final int length = in.readInt();
+            if (length != -1) {
+                final char[] chars = new char[length];
+                for (int j = 0; j < length; j++) {
+                    chars[j] = in.readChar();
+                }
+                _values[i] = new String(chars);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SortRecord" + Arrays.toString(_values);
+    }
+}
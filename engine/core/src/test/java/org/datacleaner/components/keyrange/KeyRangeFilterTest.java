@@ -0,0 +1,103 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import java.math.BigDecimal;
+
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.schema.MutableColumn;
+import org.apache.metamodel.schema.MutableTable;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.keyrange.KeyRangeFilter.Category;
+import org.datacleaner.data.MetaModelInputColumn;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.descriptors.FilterDescriptor;
+
+import junit.framework.TestCase;
+
+public class KeyRangeFilterTest extends TestCase {
+
+    private final MutableTable table = new MutableTable("orders");
+    private final MutableColumn column = new MutableColumn("id", ColumnType.INTEGER, table, 0, false);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        table.addColumn(column);
+    }
+
+    public void testDescriptor() throws Exception {
+        final FilterDescriptor<KeyRangeFilter, Category> desc = Descriptors.ofFilter(KeyRangeFilter.class);
+
+        assertEquals("Key range", desc.getDisplayName());
+        assertTrue(desc.isQueryOptimizable());
+    }
+
+    public void testCategorize() throws Exception {
+        final InputColumn<Number> col = new MockInputColumn<>("id", Number.class);
+        final KeyRangeFilter f = new KeyRangeFilter(col, 10L, 20L, false);
+
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, 9)));
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, 10)));
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, 19L)));
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, 19.99d)));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, new BigDecimal("20.0"))));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, null)));
+
+        f.setIncludeNulls(true);
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, null)));
+    }
+
+    public void testCategorizeUnbounded() throws Exception {
+        final InputColumn<Number> col = new MockInputColumn<>("id", Number.class);
+        final KeyRangeFilter f = new KeyRangeFilter(col, null, 0L, false);
+
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, Long.MIN_VALUE)));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, 0)));
+
+        f.setUpperBound(null);
+        f.setLowerBound(0L);
+        assertEquals(Category.VALID, f.categorize(new MockInputRow().put(col, Long.MAX_VALUE)));
+        assertEquals(Category.INVALID, f.categorize(new MockInputRow().put(col, -1)));
+    }
+
+    public void testOptimizeQuery() throws Exception {
+        final KeyRangeFilter f = new KeyRangeFilter(createInputColumn(), 10L, 20L, false);
+
+        final Query q = f.optimizeQuery(new Query().from(table).select(column), Category.VALID);
+        assertEquals("SELECT orders.id FROM orders WHERE (orders.id >= 10 AND orders.id < 20)", q.toSql());
+    }
+
+    public void testOptimizeQueryIncludeNulls() throws Exception {
+        final KeyRangeFilter f = new KeyRangeFilter(createInputColumn(), null, 20L, true);
+
+        final Query q = f.optimizeQuery(new Query().from(table).select(column), Category.VALID);
+        assertEquals("SELECT orders.id FROM orders WHERE (orders.id < 20 OR orders.id IS NULL)", q.toSql());
+    }
+
+    @SuppressWarnings("unchecked")
+    private InputColumn<Number> createInputColumn() {
+        final InputColumn<?> inputColumn = new MetaModelInputColumn(column);
+        return (InputColumn<Number>) inputColumn;
+    }
+}
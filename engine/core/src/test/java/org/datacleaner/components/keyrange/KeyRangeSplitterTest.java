@@ -0,0 +1,53 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.components.keyrange;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class KeyRangeSplitterTest extends TestCase {
+
+    public void testIntegralSplitPoints() throws Exception {
+        assertEquals(Arrays.asList(26L, 51L, 76L),
+                KeyRangeSplitter.calculateSplitPoints(new BigDecimal("1"), new BigDecimal("100"), 4, true));
+    }
+
+    public void testNarrowRangeHasNoEmptyRanges() throws Exception {
+        assertEquals(Arrays.asList(2L, 3L),
+                KeyRangeSplitter.calculateSplitPoints(new BigDecimal("1"), new BigDecimal("3"), 10, true));
+        assertEquals(Collections.emptyList(),
+                KeyRangeSplitter.calculateSplitPoints(new BigDecimal("5"), new BigDecimal("5"), 10, true));
+    }
+
+    public void testDecimalSplitPoints() throws Exception {
+        assertEquals(Arrays.asList(0.25, 0.5, 0.75),
+                KeyRangeSplitter.calculateSplitPoints(new BigDecimal("0.0"), new BigDecimal("1.0"), 4, false));
+        assertEquals(Arrays.asList(1L),
+                KeyRangeSplitter.calculateSplitPoints(new BigDecimal("0.0"), new BigDecimal("1.0"), 4, true));
+    }
+
+    public void testRangeBeyondLongValues() throws Exception {
+        assertEquals(Collections.emptyList(), KeyRangeSplitter
+                .calculateSplitPoints(BigDecimal.ZERO, new BigDecimal("1e30"), 4, true));
+    }
+}
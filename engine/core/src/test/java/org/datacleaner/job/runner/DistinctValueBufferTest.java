@@ -0,0 +1,91 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.job.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datacleaner.api.Analyzer;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.api.InputRow;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.data.MockInputRow;
+import org.datacleaner.result.ListResult;
+
+import junit.framework.TestCase;
+
+public class DistinctValueBufferTest extends TestCase {
+
+    private final InputColumn<String> column = new MockInputColumn<>("col", String.class);
+    private final List<String> invocations = new ArrayList<>();
+    private final Analyzer<ListResult<String>> analyzer = new Analyzer<ListResult<String>>() {
+        @Override
+        public void run(final InputRow row, final int distinctCount) {
+            invocations.add(row.getValue(column) + "=" + distinctCount + "@" + row.getId());
+        }
+
+        @Override
+        public ListResult<String> getResult() {
+            return new ListResult<>(invocations);
+        }
+    };
+
+    public void testCollapseRepeatedValues() throws Exception {
+        final DistinctValueBuffer buffer = new DistinctValueBuffer(analyzer, column, 10);
+        buffer.add(new MockInputRow(1).put(column, "foo"), 1);
+        buffer.add(new MockInputRow(2).put(column, "bar"), 1);
+        buffer.add(new MockInputRow(3).put(column, "foo"), 1);
+        buffer.add(new MockInputRow(4).put(column, null), 1);
+        buffer.add(new MockInputRow(5).put(column, null), 2);
+
+        assertTrue(invocations.isEmpty());
+
+        buffer.flush();
+        assertEquals("[foo=2@1, bar=1@2, null=3@4]", invocations.toString());
+
+        buffer.flush();
+        assertEquals(3, invocations.size());
+    }
+
+    public void testFlushWhenFull() throws Exception {
+        final DistinctValueBuffer buffer = new DistinctValueBuffer(analyzer, column, 2);
+        buffer.add(new MockInputRow(1).put(column, "foo"), 1);
+        buffer.add(new MockInputRow(2).put(column, "foo"), 1);
+        buffer.add(new MockInputRow(3).put(column, "bar"), 1);
+        buffer.add(new MockInputRow(4).put(column, "baz"), 1);
+
+        assertEquals("[foo=2@1, bar=1@3]", invocations.toString());
+
+        buffer.flush();
+        assertEquals("[foo=2@1, bar=1@3, baz=1@4]", invocations.toString());
+    }
+
+    public void testDisableForUniqueValues() throws Exception {
+        final DistinctValueBuffer buffer = new DistinctValueBuffer(analyzer, column, 2);
+        buffer.add(new MockInputRow(1).put(column, "a"), 1);
+        buffer.add(new MockInputRow(2).put(column, "b"), 1);
+        buffer.add(new MockInputRow(3).put(column, "c"), 1);
+
+        assertEquals("[a=1@1, b=1@2, c=1@3]", invocations.toString());
+
+        buffer.add(new MockInputRow(4).put(column, "c"), 1);
+        assertEquals("[a=1@1, b=1@2, c=1@3, c=1@4]", invocations.toString());
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.csv.CsvWriter;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.FileResource;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.output.OutputWriter;
+
+import junit.framework.TestCase;
+
+public class CsvOutputWriterTest extends TestCase {
+
+    private final InputColumn<String> col1 = new MockInputColumn<>("foo", String.class);
+    private final InputColumn<Integer> col2 = new MockInputColumn<>("bar", Integer.class);
+
+    public void testQuotingAndEscapingLikeCsvWriter() throws Exception {
+        final String[][] values = { { "hello", "world" }, { "with \"quotes\"", null }, { "back\\slash", "a,b" },
+                { "næsten", "😀" } };
+
+        for (final char quoteChar : new char[] { '"', CsvConfiguration.NOT_A_CHAR }) {
+            for (final char escapeChar : new char[] { '\\', CsvConfiguration.NOT_A_CHAR }) {
+                final File file = new File("target/CsvOutputWriterTest-quoting.csv");
+                final OutputWriter writer = CsvOutputWriterFactory
+                        .getWriter(new FileResource(file), new String[] { "foo", "bar" }, "UTF-8", ',', quoteChar,
+                                escapeChar, true, col1, col2);
+                for (final String[] row : values) {
+                    writer.createRow().setValue(col1, row[0]).setValue(col2, row[1] == null ? null : 1).write();
+                }
+                writer.close();
+
+                final CsvWriter csvWriter =
+                        new CsvWriter(new CsvConfiguration(1, "UTF-8", ',', quoteChar, escapeChar));
+                final StringBuilder expected = new StringBuilder(csvWriter.buildLine(new String[] { "foo", "bar" }));
+                for (final String[] row : values) {
+                    expected.append(csvWriter.buildLine(new String[] { row[0], row[1] == null ? null : "1" }));
+                }
+
+                final String actual = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                assertEquals(expected.toString(), actual);
+            }
+        }
+    }
+
+    public void testMultiThreadedWriting() throws Exception {
+        final File file = new File("target/CsvOutputWriterTest-multithreaded.csv");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getWriter(new FileResource(file), new String[] { "foo", "bar" }, "UTF-8", ',', '"', '\\', false,
+                        col1, col2);
+
+        final int threadCount = 4;
+        final int rowsPerThread = 20000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadNo = t;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < rowsPerThread; i++) {
+                    writer.createRow().setValue(col1, "thread" + threadNo).setValue(col2, i).write();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(threadCount * rowsPerThread, lines.size());
+
+        final List<String> expected = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < rowsPerThread; i++) {
+                expected.add("\"thread" + t + "\",\"" + i + "\"");
+            }
+        }
+        Collections.sort(expected);
+        Collections.sort(lines);
+        assertEquals(expected, lines);
+    }
+
+    public void testLineLargerThanChunk() throws Exception {
+        final File file = new File("target/CsvOutputWriterTest-large.csv");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getWriter(new FileResource(file), new String[] { "foo", "bar" }, "UTF-8", ',', '"', '\\', false,
+                        col1, col2);
+
+        final char[] chars = new char[CsvChunkWriter.CHUNK_SIZE * 3];
+        Arrays.fill(chars, 'x');
+        final String largeValue = new String(chars);
+
+        writer.createRow().setValue(col1, "small").setValue(col2, 1).write();
+        writer.createRow().setValue(col1, largeValue).setValue(col2, 2).write();
+        writer.createRow().setValue(col1, "small").setValue(col2, 3).write();
+        writer.close();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("\"small\",\"1\"", "\"" + largeValue + "\",\"2\"", "\"small\",\"3\""), lines);
+    }
+
+    public void testCompressedOutput() throws Exception {
+        final File file = new File("target/CsvOutputWriterTest-compressed.csv.gz");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getWriter(new FileResource(file), new String[] { "foo", "bar" }, "UTF-8", ';', '"', '\\', true, true,
+                        col1, col2);
+        writer.createRow().setValue(col1, "hello").setValue(col2, 1).write();
+        writer.close();
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FileHelper.copy(in, out);
+            assertEquals("\"foo\";\"bar\"\n\"hello\";\"1\"\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    public void testCloseEndsWriterThread() throws Exception {
+        final File file = new File("target/CsvOutputWriterTest-close.csv");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getWriter(new FileResource(file), new String[] { "foo", "bar" }, "UTF-8", ',', '"', '\\', false,
+                        col1, col2);
+        writer.createRow().setValue(col1, "hello").setValue(col2, 1).write();
+        assertTrue(isThreadAlive("CsvChunkWriter-" + file.getName()));
+
+        writer.close();
+        assertFalse(isThreadAlive("CsvChunkWriter-" + file.getName()));
+
+        // closing again has no effect
+        writer.close();
+        assertEquals(Arrays.asList("\"hello\",\"1\""), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    public void testChunkWriterClosesStreamWhenWritingFails() throws Exception {
+        final AtomicBoolean streamClosed = new AtomicBoolean(false);
+        final OutputStream failingStream = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void close() {
+                streamClosed.set(true);
+            }
+        };
+
+        final CsvChunkWriter chunkWriter = new CsvChunkWriter(failingStream, "failing");
+        final ByteBuffer chunk = chunkWriter.newChunk();
+        chunk.put((byte) 'x');
+        chunkWriter.write(chunk);
+
+        try {
+            chunkWriter.close();
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Writing CSV output failed", e.getMessage());
+            assertEquals("Disk full", e.getCause().getMessage());
+        }
+        assertTrue(streamClosed.get());
+        assertFalse(isThreadAlive("CsvChunkWriter-failing"));
+
+        try {
+            chunkWriter.write(chunkWriter.newChunk());
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("CSV output has already been closed", e.getMessage());
+        }
+    }
+
+    private static boolean isThreadAlive(final String name) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().equals(name) && t.isAlive());
+    }
+}
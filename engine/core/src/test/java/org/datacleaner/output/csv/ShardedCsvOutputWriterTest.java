@@ -0,0 +1,123 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.csv;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.util.FileHelper;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.data.MockInputColumn;
+import org.datacleaner.output.OutputWriter;
+
+import junit.framework.TestCase;
+
+public class ShardedCsvOutputWriterTest extends TestCase {
+
+    private final InputColumn<String> col1 = new MockInputColumn<>("foo", String.class);
+    private final InputColumn<Integer> col2 = new MockInputColumn<>("bar", Integer.class);
+    private final InputColumn<String> keyColumn = new MockInputColumn<>("key", String.class);
+
+    public void testPartitionByKeyColumnWithManifest() throws Exception {
+        final File directory = new File("target/ShardedCsvOutputWriterTest-key.csv");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getShardedWriter(directory, 3, keyColumn, false, true, new String[] { "foo", "bar" }, "UTF-8", ',',
+                        '"', '\\', true, false, col1, col2);
+        for (int i = 0; i < 30; i++) {
+            final String key = "key" + (i % 5);
+            writer.createRow().setValue(col1, key).setValue(col2, i).setValue(keyColumn, key).write();
+        }
+        writer.close();
+
+        final List<String> partNames = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < 3; i++) {
+            final File partFile = new File(directory, "part-0000" + i + ".csv");
+            partNames.add(partFile.getName());
+            final List<String> lines = Files.readAllLines(partFile.toPath(), StandardCharsets.UTF_8);
+            assertEquals("\"foo\",\"bar\"", lines.get(0));
+            for (final String line : lines.subList(1, lines.size())) {
+                final String key = line.substring(1, line.indexOf('"', 1));
+                assertEquals(line, i, ShardedCsvOutputWriter.getPartIndex(key, 3));
+                total++;
+            }
+        }
+        assertEquals(30, total);
+
+        final String manifest = FileHelper.readFileAsString(new File(directory, "_manifest.csv"));
+        final List<String> manifestLines = Arrays.asList(manifest.split("\n"));
+        assertEquals("file,rows", manifestLines.get(0));
+        assertEquals(4, manifestLines.size());
+        int manifestTotal = 0;
+        for (int i = 1; i < manifestLines.size(); i++) {
+            final String[] tokens = manifestLines.get(i).split(",");
+            assertEquals(partNames.get(i - 1), tokens[0]);
+            manifestTotal += Integer.parseInt(tokens[1]);
+        }
+        assertEquals(30, manifestTotal);
+    }
+
+    public void testPartitionByThreadAndMerge() throws Exception {
+        final File file = new File("target/ShardedCsvOutputWriterTest-merged.csv");
+        final OutputWriter writer = CsvOutputWriterFactory
+                .getShardedWriter(file, 4, null, true, false, new String[] { "foo", "bar" }, "UTF-8", ',', '"',
+                        '\\', true, false, col1, col2);
+
+        final int rowsPerThread = 5000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int threadNo = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < rowsPerThread; i++) {
+                    writer.createRow().setValue(col1, "thread" + threadNo).setValue(col2, i).write();
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1 + 4 * rowsPerThread, lines.size());
+        assertEquals("\"foo\",\"bar\"", lines.get(0));
+        assertEquals(1, lines.stream().filter(line -> line.equals("\"foo\",\"bar\"")).count());
+
+        // each thread wrote to its own part, so its rows are contiguous and in order
+        for (int t = 0; t < 4; t++) {
+            final String firstLine = lines.get(1 + t * rowsPerThread);
+            final String thread = firstLine.substring(0, firstLine.indexOf(','));
+            for (int i = 0; i < rowsPerThread; i++) {
+                assertEquals(thread + ",\"" + i + "\"", lines.get(1 + t * rowsPerThread + i));
+            }
+        }
+
+        final File[] leftovers = file.getAbsoluteFile().getParentFile()
+                .listFiles((dir, name) -> name.startsWith("." + file.getName()));
+        assertEquals(0, leftovers.length);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.output.excel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+public class StreamingExcelWorkbookTest extends TestCase {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = new File("target/StreamingExcelWorkbookTest-" + getName() + ".xlsx");
+        file.delete();
+    }
+
+    public void testIsStreamingSupported() throws Exception {
+        assertTrue(StreamingExcelWorkbook.isStreamingSupported("foo.xlsx"));
+        assertTrue(StreamingExcelWorkbook.isStreamingSupported("FOO.XLSX"));
+        assertFalse(StreamingExcelWorkbook.isStreamingSupported("foo.xls"));
+    }
+
+    public void testWriteValuesAndRollOver() throws Exception {
+        final StreamingExcelWorkbook workbook = new StreamingExcelWorkbook(file, 3);
+        final StreamingExcelSheet sheet = workbook.getOrCreateSheet("data", new String[] { "name", "amount" });
+        sheet.writeRow(new Object[] { "foo", 1 });
+        sheet.writeRow(new Object[] { "bar", null });
+        sheet.writeRow(new Object[] { "baz", 3.5 });
+        sheet.writeRow(new Object[] { true, 4 });
+        sheet.writeRow(new Object[] { "qux", 5 });
+        workbook.close();
+
+        try (InputStream in = new FileInputStream(file); Workbook result = new XSSFWorkbook(in)) {
+            assertEquals(3, result.getNumberOfSheets());
+            assertEquals("data", result.getSheetName(0));
+            assertEquals("data (2)", result.getSheetName(1));
+            assertEquals("data (3)", result.getSheetName(2));
+
+            assertEquals("[name, amount] [foo, 1.0] [bar]", toString(result.getSheetAt(0)));
+            assertEquals("[name, amount] [baz, 3.5] [TRUE, 4.0]", toString(result.getSheetAt(1)));
+            assertEquals("[name, amount] [qux, 5.0]", toString(result.getSheetAt(2)));
+        }
+    }
+
+    public void testConcurrentSheetsAndExistingSheetsPreserved() throws Exception {
+        final StreamingExcelWorkbook workbook1 = new StreamingExcelWorkbook(file);
+        workbook1.getOrCreateSheet("existing", new String[] { "a" }).writeRow(new Object[] { "x" });
+        workbook1.close();
+
+        final StreamingExcelWorkbook workbook2 = new StreamingExcelWorkbook(file);
+        assertTrue(workbook2.containsSheet("existing"));
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final StreamingExcelSheet sheet = workbook2.getOrCreateSheet("sheet" + i, new String[] { "n" });
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    sheet.writeRow(new Object[] { j });
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        workbook2.close();
+
+        try (InputStream in = new FileInputStream(file); Workbook result = new XSSFWorkbook(in)) {
+            assertEquals(5, result.getNumberOfSheets());
+            assertEquals("[a] [x]", toString(result.getSheet("existing")));
+            for (int i = 0; i < 4; i++) {
+                final Sheet sheet = result.getSheet("sheet" + i);
+                assertEquals(5000, sheet.getLastRowNum());
+                assertEquals(4999.0, sheet.getRow(5000).getCell(0).getNumericCellValue());
+            }
+        }
+    }
+
+    public void testAppendToExistingSheet() throws Exception {
+        final StreamingExcelWorkbook workbook1 = new StreamingExcelWorkbook(file);
+        final StreamingExcelSheet sheet1 = workbook1.getOrCreateSheet("existing", new String[] { "a" });
+        sheet1.writeRow(new Object[] { "x" });
+        sheet1.writeRow(new Object[] { "y" });
+        workbook1.close();
+
+        final StreamingExcelWorkbook workbook2 = new StreamingExcelWorkbook(file, 4);
+        final StreamingExcelSheet sheet2 = workbook2.getOrCreateSheet("existing", new String[] { "a" });
+        sheet2.writeRow(new Object[] { "z" });
+        sheet2.writeRow(new Object[] { "w" });
+        workbook2.close();
+
+        try (InputStream in = new FileInputStream(file); Workbook result = new XSSFWorkbook(in)) {
+            assertEquals(2, result.getNumberOfSheets());
+            assertEquals("[a] [x] [y] [z]", toString(result.getSheet("existing")));
+            assertEquals("[a] [w]", toString(result.getSheet("existing (2)")));
+        }
+    }
+
+    private static String toString(final Sheet sheet) {
+        final StringBuilder sb = new StringBuilder();
+        for (final Row row : sheet) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            final List<String> values = new ArrayList<>();
+            row.forEach(cell -> values.add(cell.toString()));
+            sb.append(values);
+        }
+        return sb.toString();
+    }
+}
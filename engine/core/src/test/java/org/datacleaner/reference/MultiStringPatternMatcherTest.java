@@ -0,0 +1,129 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.reference;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class MultiStringPatternMatcherTest extends TestCase {
+
+    public void testMatchesSameAsIndividualPatterns() throws Exception {
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("Danish email", "[a-z]+@[a-z]+\\.dk", true),
+                new RegexStringPattern("Any email", "[a-z]+@[a-z]+\\.[a-z]+", false),
+                new RegexStringPattern("Repeated word", "\\b(\\w+) \\1\\b", false),
+                new RegexStringPattern("Number", "[0-9]+", true) };
+
+        final String[] values = new String[] { "kasper@eobjects.dk", "hello kasper@eobjects.org", "hello hello",
+                "123", "12 3", "", null };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            for (final String value : values) {
+                final boolean[] expected = new boolean[stringPatterns.length];
+                for (int i = 0; i < stringPatterns.length; i++) {
+                    try (StringPatternConnection connection = stringPatterns[i].openConnection(null)) {
+                        expected[i] = connection.matches(value);
+                    }
+                }
+                assertEquals("Value: " + value, Arrays.toString(expected), Arrays.toString(matcher.matches(value)));
+            }
+
+            assertEquals("[true, true, false, false]", Arrays.toString(matcher.matches("kasper@eobjects.dk")));
+            assertEquals("[false, false, true, false]", Arrays.toString(matcher.matches("hello hello")));
+            assertEquals("[false, false, false, false]", Arrays.toString(matcher.matches("foo")));
+        }
+    }
+
+    public void testPatternsMatchingAtDifferentAndOverlappingPositions() throws Exception {
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("Starts with word", "^[a-z]+", false),
+                new RegexStringPattern("Two digits", "[0-9]{2}", false),
+                new RegexStringPattern("Three digits", "[0-9]{3}", false),
+                new RegexStringPattern("Ends with foo", "(?i)(f)(o+)$", false),
+                new RegexStringPattern("Only digits", "[0-9]+", true) };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            assertEquals("[true, true, true, true, false]", Arrays.toString(matcher.matches("abc 123 FOO")));
+            assertEquals("[false, true, false, false, false]", Arrays.toString(matcher.matches("12 x 34")));
+            assertEquals("[false, true, true, false, true]", Arrays.toString(matcher.matches("123")));
+            assertEquals("[true, false, false, true, false]", Arrays.toString(matcher.matches("foo")));
+            assertEquals("[false, false, false, false, false]", Arrays.toString(matcher.matches(" 1 x")));
+        }
+    }
+
+    public void testOnlyEntireStringPatternsAreCombined() throws Exception {
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("Number", "[0-9]+", true),
+                new RegexStringPattern("Contains number", "[0-9]+", false),
+                new RegexStringPattern("Repeated word", "(\\w+) \\1", true),
+                new RegexStringPattern("Word", "[a-z]+", true) };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            assertEquals("[0, 3]", Arrays.toString(matcher.getCombinedIndexes()));
+            assertEquals("[true, true, false, false]", Arrays.toString(matcher.matches("123")));
+            assertEquals("[false, true, false, false]", Arrays.toString(matcher.matches("abc123")));
+            assertEquals("[false, false, true, false]", Arrays.toString(matcher.matches("ab ab")));
+            assertEquals("[false, false, false, true]", Arrays.toString(matcher.matches("abcd")));
+        }
+    }
+
+    public void testEntireStringMatchIsDeterminedByFirstMatch() throws Exception {
+        // "match entire string" requires the first match to span the value,
+        // so the combined pattern must only be used for pre-filtering
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("A or AB", "a|ab", true),
+                new RegexStringPattern("AB or A", "ab|a", true) };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            assertEquals("[0, 1]", Arrays.toString(matcher.getCombinedIndexes()));
+            assertEquals("[false, true]", Arrays.toString(matcher.matches("ab")));
+            assertEquals("[true, true]", Arrays.toString(matcher.matches("a")));
+        }
+    }
+
+    public void testInlineFlagsDoNotAffectOtherPatterns() throws Exception {
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("Comments", "(?x) a b  # spaces are ignored\n", true),
+                new RegexStringPattern("With space", "a b", true),
+                new RegexStringPattern("Case insensitive", "(?i)abc", true),
+                new RegexStringPattern("Case sensitive", "abc", true) };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            assertEquals("[0, 1, 2, 3]", Arrays.toString(matcher.getCombinedIndexes()));
+            assertEquals("[true, false, false, false]", Arrays.toString(matcher.matches("ab")));
+            assertEquals("[false, true, false, false]", Arrays.toString(matcher.matches("a b")));
+            assertEquals("[false, false, true, false]", Arrays.toString(matcher.matches("ABC")));
+            assertEquals("[false, false, true, true]", Arrays.toString(matcher.matches("abc")));
+        }
+    }
+
+    public void testExpressionThatCannotBeEmbeddedIsMatchedIndividually() throws Exception {
+        final StringPattern[] stringPatterns = new StringPattern[] {
+                new RegexStringPattern("Number", "[0-9]+", true),
+                new RegexStringPattern("Trailing comment", "(?x) a b  # spaces are ignored", true) };
+
+        try (MultiStringPatternMatcher matcher = new MultiStringPatternMatcher(stringPatterns, null)) {
+            assertEquals("[0]", Arrays.toString(matcher.getCombinedIndexes()));
+            assertEquals("[false, true]", Arrays.toString(matcher.matches("ab")));
+            assertEquals("[true, false]", Arrays.toString(matcher.matches("12")));
+        }
+    }
+}
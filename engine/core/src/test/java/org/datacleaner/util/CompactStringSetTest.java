@@ -0,0 +1,156 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang.SerializationUtils;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+public class CompactStringSetTest extends TestCase {
+
+    public void testContainsAndIterate() throws Exception {
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add("value" + i);
+        }
+        values.add("æøå");
+        values.add("");
+        values.add("value1");
+        values.add(null);
+
+        final CompactStringSet set = new CompactStringSet(values);
+        final Set<String> expected = new TreeSet<>(values.subList(0, 1002));
+
+        assertEquals(1002, set.size());
+        assertEquals(expected, set);
+        assertEquals(new ArrayList<>(expected), Lists.newArrayList(set.iterator()));
+
+        for (final String value : expected) {
+            assertTrue(value, set.contains(value));
+        }
+        assertFalse(set.contains("value"));
+        assertFalse(set.contains("value1000"));
+        assertFalse(set.contains("Value1"));
+        assertFalse(set.contains("a"));
+        assertFalse(set.contains("zzz"));
+        assertFalse(set.contains(null));
+        assertFalse(set.contains(1));
+    }
+
+    public void testEmpty() throws Exception {
+        final CompactStringSet set = new CompactStringSet(new ArrayList<>());
+        assertEquals(0, set.size());
+        assertFalse(set.contains(""));
+        assertFalse(set.iterator().hasNext());
+        assertFalse(set.lengthSortedIterator().hasNext());
+    }
+
+    public void testPrefixIterator() throws Exception {
+        final CompactStringSet set =
+                new CompactStringSet(Arrays.asList("foo", "foobar", "fo", "bar", "baz", "food", "fop", "g"));
+
+        assertEquals("[foo, foobar, food]", Lists.newArrayList(set.prefixIterator("foo")).toString());
+        assertEquals("[bar, baz]", Lists.newArrayList(set.prefixIterator("ba")).toString());
+        assertEquals("[]", Lists.newArrayList(set.prefixIterator("x")).toString());
+        assertEquals("[]", Lists.newArrayList(set.prefixIterator("a")).toString());
+        assertEquals(8, Lists.newArrayList(set.prefixIterator("")).size());
+    }
+
+    public void testLengthSortedIterator() throws Exception {
+        final CompactStringSet set =
+                new CompactStringSet(Arrays.asList("b", "aaa", "cc", "a", "bbb", "", "ab"));
+
+        assertEquals("[aaa, bbb, ab, cc, a, b, ]", Lists.newArrayList(set.lengthSortedIterator()).toString());
+    }
+
+    public void testEqualsAndSerialize() throws Exception {
+        final CompactStringSet set = new CompactStringSet(Arrays.asList("foo", "bar", "baz"));
+        assertEquals(new HashSet<>(Arrays.asList("foo", "bar", "baz")), set);
+        assertEquals(set, new HashSet<>(Arrays.asList("foo", "bar", "baz")));
+        assertEquals(new HashSet<>(Arrays.asList("foo", "bar", "baz")).hashCode(), set.hashCode());
+
+        final Object copy = SerializationUtils.clone(set);
+        assertEquals(set, copy);
+        assertTrue(((CompactStringSet) copy).contains("baz"));
+    }
+
+    public void testCaseInsensitive() throws Exception {
+        final CompactStringSet set = new CompactStringSet.Builder(false).addAll(
+                Arrays.asList("Foo", "FOOBAR", "bar", "BAR", "Æble", "straße")).build();
+
+        assertFalse(set.isCaseSensitive());
+        assertEquals(5, set.size());
+        assertEquals("[bar, Foo, FOOBAR, straße, Æble]", Lists.newArrayList(set.iterator()).toString());
+
+        assertTrue(set.contains("foo"));
+        assertTrue(set.contains("FOO"));
+        assertTrue(set.contains("Bar"));
+        assertTrue(set.contains("æBLE"));
+        assertTrue(set.contains("STRAßE"));
+        assertFalse(set.contains("fo"));
+        assertFalse(set.contains("foob"));
+
+        assertEquals("[Foo, FOOBAR]", Lists.newArrayList(set.prefixIterator("fOo")).toString());
+        assertEquals("[]", Lists.newArrayList(set.prefixIterator("x")).toString());
+    }
+
+    public void testBuildFromManyUnorderedValues() throws Exception {
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add("value" + ((i * 7919) % 10000));
+        }
+        values.addAll(values.subList(0, 500));
+
+        final CompactStringSet.Builder builder = new CompactStringSet.Builder(true);
+        values.forEach(builder::add);
+        final CompactStringSet set = builder.build();
+
+        final Set<String> expected = new TreeSet<>(values);
+        assertEquals(10000, set.size());
+        assertEquals(new ArrayList<>(expected), Lists.newArrayList(set.iterator()));
+        for (final String value : expected) {
+            assertTrue(value, set.contains(value));
+        }
+        assertFalse(set.contains("value10000"));
+    }
+
+    public void testCodePointOrder() throws Exception {
+        // a supplementary character is ordered after U+FFFD in code point
+        // order, but before it in UTF-16 order
+        final String supplementary = new String(Character.toChars(0x1F600));
+        final CompactStringSet set =
+                new CompactStringSet(Arrays.asList(supplementary, "\uFFFD", "a" + supplementary, "a"));
+
+        assertEquals(Arrays.asList("a", "a" + supplementary, "\uFFFD", supplementary),
+                Lists.newArrayList(set.iterator()));
+        assertTrue(set.contains(supplementary));
+        assertTrue(set.contains("a" + supplementary));
+        assertFalse(set.contains("\uD83D"));
+    }
+}
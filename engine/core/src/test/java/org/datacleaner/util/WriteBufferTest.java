@@ -19,6 +19,7 @@
  */
 package org.datacleaner.util;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
@@ -47,4 +48,55 @@ public class WriteBufferTest extends TestCase {
         assertEquals(1, buffer.getBuffer().size());
         assertEquals(5, counter.get());
     }
+
+    public void testAsynchronousFlush() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final WriteBuffer buffer = new WriteBuffer(2, rows -> {
+            latch.await();
+            for (@SuppressWarnings("unused") final Object[] row : rows) {
+                counter.incrementAndGet();
+            }
+        }, 1);
+        assertTrue(buffer.isAsynchronous());
+
+        buffer.addToBuffer(new Object[0]);
+        buffer.addToBuffer(new Object[0]);
+        buffer.addToBuffer(new Object[0]);
+
+        // the first batch is handed off, but blocked in the writer
+        assertEquals(1, buffer.getBuffer().size());
+        assertEquals(0, counter.get());
+
+        latch.countDown();
+        buffer.flushBuffer();
+        assertEquals(0, buffer.getBuffer().size());
+        assertEquals(3, counter.get());
+
+        buffer.close();
+    }
+
+    public void testAsynchronousFlushError() throws Exception {
+        final WriteBuffer buffer = new WriteBuffer(1, rows -> {
+            throw new IllegalArgumentException("foo");
+        }, 2);
+
+        buffer.addToBuffer(new Object[0]);
+        try {
+            buffer.flushBuffer();
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("foo", e.getMessage());
+        }
+
+        try {
+            buffer.addToBuffer(new Object[0]);
+            fail("Exception expected");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("foo", e.getMessage());
+        }
+
+        buffer.close();
+    }
 }
@@ -0,0 +1,110 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.sort;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class SortKeyBuilderTest extends TestCase {
+
+    private final SortKeyBuilder builder = new SortKeyBuilder();
+
+    public void testNumbers() throws Exception {
+        final Number[] values = { 12, -3.5, null, 0, 1e10, -1e10, 2.25, Long.MAX_VALUE, -1 };
+        assertEquals("[null, -1.0E10, -3.5, -1, 0, 2.25, 12, 1.0E10, 9223372036854775807]",
+                sort(values, SortDirection.ASCENDING));
+        assertEquals("[9223372036854775807, 1.0E10, 12, 2.25, 0, -1, -3.5, -1.0E10, null]",
+                sort(values, SortDirection.DESCENDING));
+    }
+
+    public void testNumbersBeyondDoublePrecision() throws Exception {
+        // note that the double 0.1 is slightly more than 0.1000000000000000000001
+        final long large = (1L << 53) + 1;
+        final Number[] values = { large, large - 1, Long.MAX_VALUE, Long.MAX_VALUE - 1, -large, -large + 1,
+                new BigDecimal("0.1000000000000000000001"), 0.1, new BigDecimal("0.0999999999999999999999"),
+                new BigDecimal("1E+400"), new BigDecimal("-1E+400"), new BigDecimal("2E+400"),
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                new BigInteger("9223372036854775808") };
+        assertEquals("[-Infinity, -1E+400, -9007199254740993, -9007199254740992, 0.0999999999999999999999, "
+                + "0.1000000000000000000001, 0.1, 9007199254740992, 9007199254740993, 9223372036854775806, "
+                + "9223372036854775807, 9223372036854775808, 1E+400, 2E+400, Infinity]",
+                sort(values, SortDirection.ASCENDING));
+        assertEquals("[Infinity, 2E+400, 1E+400, 9223372036854775808, 9223372036854775807, 9223372036854775806, "
+                + "9007199254740993, 9007199254740992, 0.1, 0.1000000000000000000001, 0.0999999999999999999999, "
+                + "-9007199254740992, -9007199254740993, -1E+400, -Infinity]",
+                sort(values, SortDirection.DESCENDING));
+    }
+
+    public void testEqualNumbersOfDifferentTypes() throws Exception {
+        final byte[] key = builder.appendNumber(42, SortDirection.ASCENDING).build();
+        assertEquals(0, SortKeyBuilder.compare(key, builder.appendNumber(42L, SortDirection.ASCENDING).build()));
+        assertEquals(0, SortKeyBuilder.compare(key, builder.appendNumber(42.0, SortDirection.ASCENDING).build()));
+        assertEquals(0, SortKeyBuilder.compare(key,
+                builder.appendNumber(new BigDecimal("42.000"), SortDirection.ASCENDING).build()));
+        assertEquals(0, SortKeyBuilder.compare(key,
+                builder.appendNumber(BigInteger.valueOf(42), SortDirection.ASCENDING).build()));
+    }
+
+    public void testDates() throws Exception {
+        final byte[] epoch = builder.appendDate(new Date(0), SortDirection.ASCENDING).build();
+        final byte[] before = builder.appendDate(new Date(-1000), SortDirection.ASCENDING).build();
+        final byte[] after = builder.appendDate(new Date(1000), SortDirection.ASCENDING).build();
+        assertTrue(SortKeyBuilder.compare(before, epoch) < 0);
+        assertTrue(SortKeyBuilder.compare(epoch, after) < 0);
+    }
+
+    public void testStrings() throws Exception {
+        final String[] values = { "b", "ab", "a", "", null, "a\u0000", "a\u0001", "æ", "abc" };
+        assertEquals("[null, , a, a\u0000, a\u0001, ab, abc, b, æ]", sort(values, SortDirection.ASCENDING));
+        assertEquals("[æ, b, abc, ab, a\u0001, a\u0000, a, , null]", sort(values, SortDirection.DESCENDING));
+    }
+
+    public void testMultipleFields() throws Exception {
+        final byte[] key1 = builder.appendString("a", SortDirection.ASCENDING).appendNumber(1, SortDirection.DESCENDING)
+                .build();
+        final byte[] key2 = builder.appendString("a", SortDirection.ASCENDING).appendNumber(2, SortDirection.DESCENDING)
+                .build();
+        final byte[] key3 = builder.appendString("ab", SortDirection.ASCENDING).appendNumber(3,
+                SortDirection.DESCENDING).build();
+        assertTrue(SortKeyBuilder.compare(key2, key1) < 0);
+        assertTrue(SortKeyBuilder.compare(key1, key3) < 0);
+        assertEquals(0, SortKeyBuilder.compare(key1,
+                builder.appendString("a", SortDirection.ASCENDING).appendNumber(1.0, SortDirection.DESCENDING).build()));
+    }
+
+    private String sort(final Object[] values, final SortDirection direction) {
+        final List<Object> list = new ArrayList<>(Arrays.asList(values));
+        list.sort((o1, o2) -> SortKeyBuilder.compare(toKey(o1, direction), toKey(o2, direction)));
+        return list.toString();
+    }
+
+    private byte[] toKey(final Object value, final SortDirection direction) {
+        if (value instanceof String) {
+            return builder.appendString((String) value, direction).build();
+        }
+        return builder.appendNumber((Number) value, direction).build();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.util.sort;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.util.InMemoryResource;
+import org.apache.metamodel.util.Resource;
+
+public class SortRecordTest extends TestCase {
+
+    public void testCompareToTieBreaksOnValues() throws Exception {
+        final byte[] key = new SortKeyBuilder().appendString("x", SortDirection.ASCENDING).build();
+        final SortRecord upper = new SortRecord(key, new String[] { "Foo", "1" });
+        final SortRecord lower = new SortRecord(key, new String[] { "foo", "1" });
+        final SortRecord lowerOther = new SortRecord(key, new String[] { "foo", "0" });
+        final SortRecord withNull = new SortRecord(key, new String[] { null, "1" });
+
+        assertTrue(lowerOther.compareTo(upper) < 0);
+        assertTrue(upper.compareTo(lower) < 0);
+        assertTrue(withNull.compareTo(upper) < 0);
+        assertEquals(0, upper.compareTo(new SortRecord(key, new String[] { "Foo", "1" })));
+    }
+
+    public void testSortMergeWithTempFiles() throws Exception {
+        final SortKeyBuilder keyBuilder = new SortKeyBuilder();
+        final StringWriter result = new StringWriter();
+        final SortMergeWriter<SortRecord, StringWriter> sortMergeWriter =
+                new SortMergeWriter<SortRecord, StringWriter>(3, SortRecord::compareTo) {
+                    @Override
+                    protected void writeHeader(final StringWriter writer) throws IOException {
+                    }
+
+                    @Override
+                    protected void writeRow(final StringWriter writer, final SortRecord row, final int count)
+                            throws IOException {
+                        for (int i = 0; i < count; i++) {
+                            writer.write(Arrays.toString(row.getValues()));
+                        }
+                    }
+
+                    @Override
+                    protected StringWriter createWriter(final Resource resource) {
+                        return result;
+                    }
+                };
+
+        final int[] numbers = { 5, 3, 9, 1, 3, 7, 2, 8 };
+        for (final int number : numbers) {
+            final byte[] key = keyBuilder.appendNumber(number, SortDirection.DESCENDING).build();
+            sortMergeWriter.append(new SortRecord(key, new String[] { "n" + number, null }));
+        }
+        sortMergeWriter.write(new InMemoryResource("out"));
+
+        assertEquals("[n9, null][n8, null][n7, null][n5, null][n3, null][n3, null][n2, null][n1, null]",
+                result.toString());
+    }
+}
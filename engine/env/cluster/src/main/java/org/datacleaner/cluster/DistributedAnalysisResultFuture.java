@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.datacleaner.api.AnalyzerResult;
@@ -45,13 +46,20 @@ public final class DistributedAnalysisResultFuture extends AbstractAnalysisResul
     private final List<AnalysisResultFuture> _results;
     private final Map<ComponentJob, AnalyzerResult> _resultMap;
     private final List<AnalysisResultReductionException> _reductionErrors;
+    private final JobCheckpointer _checkpointer;
     private volatile Date _creationDate;
     private volatile boolean _cancelled;
 
     public DistributedAnalysisResultFuture(final List<AnalysisResultFuture> results,
             final DistributedAnalysisResultReducer reducer) {
-        _results = results;
+        this(results, reducer, null);
+    }
+
+    DistributedAnalysisResultFuture(final List<AnalysisResultFuture> results,
+            final DistributedAnalysisResultReducer reducer, final JobCheckpointer checkpointer) {
+        _results = new CopyOnWriteArrayList<>(results);
         _reducer = reducer;
+        _checkpointer = checkpointer;
         _resultMap = new HashMap<>();
         _reductionErrors = new ArrayList<>();
         _cancelled = false;
@@ -97,18 +105,51 @@ public final class DistributedAnalysisResultFuture extends AbstractAnalysisResul
 
     @Override
     public void await() {
-        for (final AnalysisResultFuture result : _results) {
-            result.await();
-        }
-        if (_resultMap.isEmpty()) {
-            synchronized (this) {
-                if (_resultMap.isEmpty() && _reductionErrors.isEmpty()) {
-                    _reducer.reduce(_results, _resultMap, _reductionErrors);
+        synchronized (this) {
+            while (true) {
+                // reduce the slave results that are done, in whatever order
+                // they finish
+                AnalysisResultFuture pendingResult = null;
+                for (int i = 0; i < _results.size(); i++) {
+                    final AnalysisResultFuture result = _results.get(i);
+                    if (result instanceof ReducedAnalysisResultFuture) {
+                        continue;
+                    }
+                    if (result.isDone()) {
+                        reduce(i, result);
+                    } else if (pendingResult == null) {
+                        pendingResult = result;
+                    }
                 }
+
+                if (pendingResult == null) {
+                    break;
+                }
+                pendingResult.await();
+            }
+
+            _reducer.finish(_resultMap);
+            if (_checkpointer != null) {
+                _checkpointer.finish(!hasErrors());
             }
         }
     }
 
+    private void reduce(final int index, final AnalysisResultFuture result) {
+        if (!_reducer.reduce(result, _resultMap, _reductionErrors)) {
+            // keep the errornous result, it's errors are reported
+            return;
+        }
+
+        // replace the slave result with a placeholder, to let go of the
+        // (potentially large) slave result now that it has been reduced
+        _results.set(index, new ReducedAnalysisResultFuture(result.getCreationDate()));
+
+        if (_checkpointer != null && _reductionErrors.isEmpty()) {
+            _checkpointer.reduced(index, _resultMap);
+        }
+    }
+
     @Override
     public void await(final long timeout, final TimeUnit timeUnit) {
         final long offsetMillis = System.currentTimeMillis();
@@ -133,12 +174,16 @@ public final class DistributedAnalysisResultFuture extends AbstractAnalysisResul
     @Override
     public boolean isSuccessful() {
         await();
+        return !hasErrors();
+    }
+
+    private boolean hasErrors() {
         for (final AnalysisResultFuture result : _results) {
             if (result.isErrornous()) {
-                return false;
+                return true;
             }
         }
-        return _reductionErrors.isEmpty();
+        return !_reductionErrors.isEmpty();
     }
 
     @Override
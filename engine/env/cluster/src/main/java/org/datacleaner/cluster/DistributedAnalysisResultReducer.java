@@ -19,10 +19,14 @@
  */
 package org.datacleaner.cluster;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.datacleaner.api.AnalyzerResult;
@@ -37,7 +41,6 @@ import org.datacleaner.job.runner.AnalysisListener;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.RowProcessingPublisher;
 import org.datacleaner.lifecycle.LifeCycleHelper;
-import org.datacleaner.util.CollectionUtils2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,7 +56,11 @@ final class DistributedAnalysisResultReducer {
     private final LifeCycleHelper _lifeCycleHelper;
     private final RowProcessingPublisher _publisher;
     private final AnalysisListener _analysisListener;
-    private final AtomicBoolean _hasRun;
+    private final AtomicBoolean _slaveFailed;
+    private final AtomicBoolean _finished;
+    private final Set<AnalyzerJob> _failedAnalyzerJobs;
+    private final AnalyzerJobHelper _masterAnalyzerJobHelper;
+    private final Map<AnalyzerJob, AnalyzerResultReducer<AnalyzerResult>> _reducers;
 
     public DistributedAnalysisResultReducer(final AnalysisJob masterJob, final LifeCycleHelper lifeCycleHelper,
             final RowProcessingPublisher publisher, final AnalysisListener analysisListener) {
@@ -61,136 +68,183 @@ final class DistributedAnalysisResultReducer {
         _lifeCycleHelper = lifeCycleHelper;
         _publisher = publisher;
         _analysisListener = analysisListener;
-        _hasRun = new AtomicBoolean(false);
+        _slaveFailed = new AtomicBoolean(false);
+        _finished = new AtomicBoolean(false);
+        _failedAnalyzerJobs = new HashSet<>();
+        _masterAnalyzerJobHelper = new AnalyzerJobHelper(masterJob);
+        _reducers = new HashMap<>();
     }
 
-    public void reduce(final List<AnalysisResultFuture> results, final Map<ComponentJob, AnalyzerResult> resultMap,
+    /**
+     * Reduces the result of a single slave job into the results that have been
+     * reduced so far. Slave results can be passed in any order, typically the
+     * order in which the slave jobs finish, which means that the master only
+     * needs to hold the reduced results and a single slave result at a time.
+     *
+     * @param slaveResult
+     * @param resultMap
+     * @param reductionErrors
+     * @return whether or not reduction can continue. If a slave job failed,
+     *         reduction is stopped and the result map is cleared.
+     */
+    public boolean reduce(final AnalysisResultFuture slaveResult, final Map<ComponentJob, AnalyzerResult> resultMap,
             final List<AnalysisResultReductionException> reductionErrors) {
-        final int size = results.size();
-        try {
-            logger.debug("Starting reduce phase of {} results", size);
-            reduceResults(results, resultMap, reductionErrors);
-            logger.debug("Finished reduce phase of {} results", size);
-        } finally {
-            closeNonDistributableComponents();
+        if (_slaveFailed.get()) {
+            return false;
         }
-    }
 
-    private void closeNonDistributableComponents() {
-        _publisher.closeConsumers();
+        if (slaveResult.isErrornous()) {
+            logger.error("Encountered errorneous slave result. Result reduction will stop. Result={}", slaveResult);
+            final List<Throwable> errors = slaveResult.getErrors();
+            if (!errors.isEmpty()) {
+                final Throwable firstError = errors.get(0);
+                logger.error("Encountered error before reducing results (showing stack trace of invoking the reducer): "
+                        + firstError.getMessage(), new Throwable());
+                _analysisListener.errorUnknown(_masterJob, firstError);
+            }
+
+            // error occurred!
+            _slaveFailed.set(true);
+            resultMap.clear();
+            return false;
+        }
+
+        // fold the slave results in one by one, so that a slave result which
+        // is decoded lazily is never held in memory all at once
+        final Set<AnalyzerJob> reducedAnalyzerJobs = new HashSet<>();
+        for (final Entry<ComponentJob, AnalyzerResult> entry : slaveResult.getResultMap().entrySet()) {
+            if (!(entry.getKey() instanceof AnalyzerJob)) {
+                continue;
+            }
+
+            final AnalyzerJob slaveAnalyzerJob = (AnalyzerJob) entry.getKey();
+            final AnalyzerJob masterAnalyzerJob = _masterAnalyzerJobHelper.getAnalyzerJob(slaveAnalyzerJob);
+            if (masterAnalyzerJob == null) {
+                throw new IllegalStateException(
+                        "Could not resolve master component matching [" + slaveAnalyzerJob + "] in slave result: "
+                                + slaveResult);
+            }
+            reducedAnalyzerJobs.add(masterAnalyzerJob);
+
+            if (_failedAnalyzerJobs.contains(masterAnalyzerJob)) {
+                continue;
+            }
+
+            final AnalyzerResult analyzerResult = entry.getValue();
+            final AnalyzerResult reducedSoFar = resultMap.get(masterAnalyzerJob);
+            if (reducedSoFar == null) {
+                resultMap.put(masterAnalyzerJob, analyzerResult);
+            } else {
+                logger.debug("Reducing slave result into previously reduced result for component: {}",
+                        masterAnalyzerJob);
+                reduce(masterAnalyzerJob, Arrays.asList(reducedSoFar, analyzerResult), resultMap, reductionErrors);
+            }
+        }
+
+        for (final AnalyzerJob masterAnalyzerJob : _masterJob.getAnalyzerJobs()) {
+            if (!reducedAnalyzerJobs.contains(masterAnalyzerJob)) {
+                throw new IllegalStateException(
+                        "Could not resolve slave component matching [" + masterAnalyzerJob + "] in slave result: "
+                                + slaveResult);
+            }
+        }
+        return true;
     }
 
     /**
-     * Reduces all the analyzer results of an analysis
+     * Finishes the reduction when all slave results have been reduced.
      *
-     * @param results
      * @param resultMap
-     * @param reductionErrors
      */
-    private void reduceResults(final List<AnalysisResultFuture> results,
-            final Map<ComponentJob, AnalyzerResult> resultMap,
-            final List<AnalysisResultReductionException> reductionErrors) {
-
-        if (_hasRun.get()) {
-            // already reduced
+    public void finish(final Map<ComponentJob, AnalyzerResult> resultMap) {
+        if (_finished.getAndSet(true)) {
             return;
         }
 
-        _hasRun.set(true);
-
-        for (final AnalysisResultFuture result : results) {
-            if (result.isErrornous()) {
-                logger.error("Encountered errorneous slave result. Result reduction will stop. Result={}", result);
-                final List<Throwable> errors = result.getErrors();
-                if (!errors.isEmpty()) {
-                    final Throwable firstError = errors.get(0);
-                    logger.error(
-                            "Encountered error before reducing results (showing stack trace of invoking the reducer): "
-                                    + firstError.getMessage(), new Throwable());
-                    _analysisListener.errorUnknown(_masterJob, firstError);
+        try {
+            if (!_slaveFailed.get()) {
+                for (final AnalyzerJob analyzerJob : _masterJob.getAnalyzerJobs()) {
+                    final AnalyzerResult result = resultMap.get(analyzerJob);
+                    if (result != null) {
+                        _analysisListener.componentSuccess(_masterJob, analyzerJob, result);
+                    }
                 }
-
-                // error occurred!
-                return;
             }
+        } finally {
+            closeReducers();
+            closeNonDistributableComponents();
         }
+    }
 
-        final Collection<AnalyzerJob> analyzerJobs = _masterJob.getAnalyzerJobs();
-        for (final AnalyzerJob masterAnalyzerJob : analyzerJobs) {
-            final Collection<AnalyzerResult> slaveResults = new ArrayList<>();
-            logger.info("Reducing {} slave results for component: {}", results.size(), masterAnalyzerJob);
-            for (final AnalysisResultFuture result : results) {
-
-                final Map<ComponentJob, AnalyzerResult> slaveResultMap = result.getResultMap();
-                final List<AnalyzerJob> slaveAnalyzerJobs =
-                        CollectionUtils2.filterOnClass(slaveResultMap.keySet(), AnalyzerJob.class);
-                final AnalyzerJobHelper analyzerJobHelper = new AnalyzerJobHelper(slaveAnalyzerJobs);
-                final AnalyzerJob slaveAnalyzerJob = analyzerJobHelper.getAnalyzerJob(masterAnalyzerJob);
-                if (slaveAnalyzerJob == null) {
-                    throw new IllegalStateException(
-                            "Could not resolve slave component matching [" + masterAnalyzerJob + "] in slave result: "
-                                    + result);
-                }
+    private void closeReducers() {
+        final boolean success = !_slaveFailed.get();
+        for (final Entry<AnalyzerJob, AnalyzerResultReducer<AnalyzerResult>> entry : _reducers.entrySet()) {
+            closeReducer(entry.getKey(), entry.getValue(), success);
+        }
+        _reducers.clear();
+    }
 
-                final AnalyzerResult analyzerResult = result.getResult(slaveAnalyzerJob);
-                slaveResults.add(analyzerResult);
-            }
+    private void closeReducer(final AnalyzerJob analyzerJob, final AnalyzerResultReducer<AnalyzerResult> reducer,
+            final boolean success) {
+        _lifeCycleHelper.close(Descriptors.ofComponent(analyzerJob.getDescriptor().getResultReducerClass()), reducer,
+                success);
+    }
 
-            reduce(masterAnalyzerJob, slaveResults, resultMap, reductionErrors);
-        }
+    private void closeNonDistributableComponents() {
+        _publisher.closeConsumers();
     }
 
     /**
-     * Reduces result for a single analyzer
+     * Reduces result for a single analyzer. The reducer of the analyzer is
+     * created and initialized the first time it is needed and is then reused
+     * for the results of the subsequent slaves, until the reduction finishes.
      *
      * @param analyzerJob
      * @param slaveResults
      * @param resultMap
      * @param reductionErrors
      */
-    @SuppressWarnings("unchecked")
     private void reduce(final AnalyzerJob analyzerJob, final Collection<AnalyzerResult> slaveResults,
             final Map<ComponentJob, AnalyzerResult> resultMap,
             final List<AnalysisResultReductionException> reductionErrors) {
-
-        if (slaveResults.size() == 1) {
-            // special case where these was only 1 slave job
-            final AnalyzerResult firstResult = slaveResults.iterator().next();
-            resultMap.put(analyzerJob, firstResult);
-            _analysisListener.componentSuccess(_masterJob, analyzerJob, firstResult);
-            return;
-        }
-
-        final Class<? extends AnalyzerResultReducer<?>> reducerClass =
-                analyzerJob.getDescriptor().getResultReducerClass();
-
-        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
-                Descriptors.ofComponent(reducerClass);
-
         AnalyzerResultReducer<AnalyzerResult> reducer = null;
-        boolean success = false;
         try {
-            reducer = (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
-
-            _lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
-            _lifeCycleHelper.initialize(reducerDescriptor, reducer);
+            reducer = getReducer(analyzerJob);
 
             final AnalyzerResult reducedResult = reducer.reduce(slaveResults);
             resultMap.put(analyzerJob, reducedResult);
-
-            success = true;
-            _analysisListener.componentSuccess(_masterJob, analyzerJob, reducedResult);
-
         } catch (final Exception e) {
             final AnalysisResultReductionException reductionError =
                     new AnalysisResultReductionException(analyzerJob, slaveResults, e);
             reductionErrors.add(reductionError);
+            resultMap.remove(analyzerJob);
+            _failedAnalyzerJobs.add(analyzerJob);
 
-            _analysisListener.errorInComponent(_masterJob, analyzerJob, null, e);
-        } finally {
             if (reducer != null) {
-                _lifeCycleHelper.close(reducerDescriptor, reducer, success);
+                _reducers.remove(analyzerJob);
+                closeReducer(analyzerJob, reducer, false);
             }
+
+            _analysisListener.errorInComponent(_masterJob, analyzerJob, null, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnalyzerResultReducer<AnalyzerResult> getReducer(final AnalyzerJob analyzerJob) {
+        AnalyzerResultReducer<AnalyzerResult> reducer = _reducers.get(analyzerJob);
+        if (reducer == null) {
+            final Class<? extends AnalyzerResultReducer<?>> reducerClass =
+                    analyzerJob.getDescriptor().getResultReducerClass();
+
+            final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
+                    Descriptors.ofComponent(reducerClass);
+
+            reducer = (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
+
+            _lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
+            _lifeCycleHelper.initialize(reducerDescriptor, reducer);
+            _reducers.put(analyzerJob, reducer);
         }
+        return reducer;
     }
 }
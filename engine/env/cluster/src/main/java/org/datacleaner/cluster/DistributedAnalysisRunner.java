@@ -20,19 +20,29 @@
 package org.datacleaner.cluster;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
 
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.LazyRef;
 import org.apache.metamodel.util.SharedExecutorService;
+import org.datacleaner.api.AnalyzerResult;
 import org.datacleaner.api.InputColumn;
 import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter.Category;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.InjectionManager;
 import org.datacleaner.data.MetaModelInputColumn;
 import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.AnalyzerJob;
+import org.datacleaner.job.AnalyzerJobHelper;
+import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.FilterComponentBuilder;
 import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
@@ -49,6 +59,8 @@ import org.datacleaner.job.runner.RowProcessingPublishers;
 import org.datacleaner.job.runner.RowProcessingStream;
 import org.datacleaner.job.tasks.Task;
 import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.util.CollectionUtils2;
 import org.datacleaner.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +76,7 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
     private final ClusterManager _clusterManager;
     private final DataCleanerConfiguration _configuration;
     private final CompositeAnalysisListener _analysisListener;
+    private final JobCheckpointStore _checkpointStore;
 
     public DistributedAnalysisRunner(final DataCleanerConfiguration configuration,
             final ClusterManager clusterManager) {
@@ -72,8 +85,28 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
 
     public DistributedAnalysisRunner(final DataCleanerConfiguration configuration, final ClusterManager clusterManager,
             final AnalysisListener... listeners) {
+        this(configuration, clusterManager, null, listeners);
+    }
+
+    /**
+     * Creates a {@link DistributedAnalysisRunner} which writes a
+     * {@link JobCheckpoint} every time a slave job has been reduced. If the
+     * checkpoint store contains a checkpoint of a previous (failed) run of the
+     * same job, divided into the same slave jobs, the job is resumed from the
+     * checkpoint: only the slave jobs that were not completed are dispatched,
+     * and their results are reduced with the results of the checkpoint.
+     *
+     * @param configuration
+     * @param clusterManager
+     * @param checkpointStore
+     *            the store of checkpoints, or null to not write checkpoints
+     * @param listeners
+     */
+    public DistributedAnalysisRunner(final DataCleanerConfiguration configuration, final ClusterManager clusterManager,
+            final JobCheckpointStore checkpointStore, final AnalysisListener... listeners) {
         _configuration = configuration;
         _clusterManager = clusterManager;
+        _checkpointStore = checkpointStore;
         _analysisListener = new CompositeAnalysisListener(listeners);
     }
 
@@ -147,8 +180,8 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
                 logger.info("Expected rows of the job was zero. Job will run on a local virtual slave.");
 
                 // when there are no expected rows we still need to build a
-                // single slave job, but run it locally, since the job lifecycle
-                // still needs to be guaranteed.
+                // single slave job, but run it locally, since the job
+                // lifecycle still needs to be guaranteed.
                 final DistributedJobContext context = new DistributedJobContextImpl(_configuration, job, 0, 1);
 
                 // use a virtual cluster, which just runs the job locally.
@@ -156,17 +189,40 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
                 resultFuture = localCluster.dispatchJob(job, context);
             } else {
                 final JobDivisionManager jobDivisionManager = _clusterManager.getJobDivisionManager();
-                final int chunks = jobDivisionManager.calculateDivisionCount(job, expectedRows);
-                final int rowsPerChunk = (expectedRows + 1) / chunks;
-
-                logger.info(
-                        "Expected rows was {}. A total number of {} slave jobs will be built, each of approx. {} rows.",
-                        expectedRows, chunks, rowsPerChunk);
-
-                final List<AnalysisResultFuture> results = dispatchJobs(job, chunks, rowsPerChunk, publisher);
-                final DistributedAnalysisResultReducer reducer =
-                        new DistributedAnalysisResultReducer(job, lifeCycleHelper, publisher, _analysisListener);
-                resultFuture = new DistributedAnalysisResultFuture(results, reducer);
+                final Column keyColumn = getKeyColumn(jobDivisionManager, job);
+                if (keyColumn != null) {
+                    // divide by key ranges, which spares the slaves from paging
+                    // through the records that precede their slice
+                    final List<Long> splitPoints =
+                            getKeyRangeJobDivisionManager(jobDivisionManager).calculateSplitPoints(job, keyColumn);
+                    final int chunks = splitPoints.size() + 1;
+
+                    logger.info("A total number of {} slave jobs will be built, divided by key ranges of column {}.",
+                            chunks, keyColumn.getName());
+
+                    final IntFunction<Long> lowerBounds = i -> i == 0 ? null : splitPoints.get(i - 1);
+                    final IntFunction<Long> upperBounds = i -> i == chunks - 1 ? null : splitPoints.get(i);
+                    final DistributedAnalysisResultReducer reducer =
+                            new DistributedAnalysisResultReducer(job, lifeCycleHelper, publisher, _analysisListener);
+                    resultFuture = dispatchAndReduce(job, chunks,
+                            i -> buildSlaveJob(job, i, keyColumn, lowerBounds.apply(i), upperBounds.apply(i)),
+                            i -> keyColumn.getName() + " >= " + lowerBounds.apply(i) + " AND " + keyColumn.getName()
+                                    + " < " + upperBounds.apply(i), reducer);
+                } else {
+                    final int chunks = jobDivisionManager.calculateDivisionCount(job, expectedRows);
+                    final int rowsPerChunk = (expectedRows + 1) / chunks;
+
+                    logger.info("Expected rows was {}. A total number of {} slave jobs will be built, "
+                            + "each of approx. {} rows.", expectedRows, chunks, rowsPerChunk);
+
+                    final DistributedAnalysisResultReducer reducer =
+                            new DistributedAnalysisResultReducer(job, lifeCycleHelper, publisher, _analysisListener);
+                    resultFuture = dispatchAndReduce(job, chunks,
+                            i -> buildSlaveJob(job, i, getFirstRow(i, rowsPerChunk),
+                                    getMaxRows(i, chunks, rowsPerChunk)),
+                            i -> "firstRow=" + getFirstRow(i, rowsPerChunk) + " AND maxRows=" + getMaxRows(i, chunks,
+                                    rowsPerChunk), reducer);
+                }
             }
 
         } catch (final RuntimeException e) {
@@ -201,17 +257,146 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
 
     public List<AnalysisResultFuture> dispatchJobs(final AnalysisJob job, final int chunks, final int rowsPerChunk,
             final RowProcessingPublisher publisher) {
+        return dispatchJobs(job, chunks,
+                i -> buildSlaveJob(job, i, getFirstRow(i, rowsPerChunk), getMaxRows(i, chunks, rowsPerChunk)));
+    }
+
+    private static int getFirstRow(final int slaveJobIndex, final int rowsPerChunk) {
+        return (slaveJobIndex * rowsPerChunk) + 1;
+    }
+
+    private static int getMaxRows(final int slaveJobIndex, final int chunks, final int rowsPerChunk) {
+        if (slaveJobIndex == chunks - 1) {
+            return Integer.MAX_VALUE - getFirstRow(slaveJobIndex, rowsPerChunk) - 1;
+        }
+        return rowsPerChunk;
+    }
+
+    /**
+     * Dispatches the slave jobs and creates the result future which reduces
+     * their results. If a checkpoint store is configured, checkpoints are
+     * written as the slave jobs are reduced, and the slave jobs completed by a
+     * matching previous checkpoint are not dispatched again.
+     *
+     * @param job
+     * @param chunks
+     * @param slaveJobFactory
+     * @param chunkDescriptionFactory
+     * @param reducer
+     * @return
+     */
+    private AnalysisResultFuture dispatchAndReduce(final AnalysisJob job, final int chunks,
+            final IntFunction<AnalysisJob> slaveJobFactory, final IntFunction<String> chunkDescriptionFactory,
+            final DistributedAnalysisResultReducer reducer) {
+        if (_checkpointStore == null) {
+            return new DistributedAnalysisResultFuture(dispatchJobs(job, chunks, slaveJobFactory), reducer);
+        }
+
+        final List<String> windowDescriptions = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            windowDescriptions.add(chunkDescriptionFactory.apply(i));
+        }
+
         final List<AnalysisResultFuture> results = new ArrayList<>();
+        final List<Integer> resultWindows = new ArrayList<>();
+        final Set<Integer> completedWindows;
+        final JobCheckpoint checkpoint = readCheckpoint(job, windowDescriptions);
+        if (checkpoint == null) {
+            completedWindows = Collections.emptySet();
+        } else {
+            logger.info("Resuming job from checkpoint: {}", checkpoint);
+            completedWindows = checkpoint.getCompletedWindows();
+            results.add(createCheckpointResultFuture(checkpoint));
+            resultWindows.add(-1);
+        }
+
+        final List<Integer> remainingWindows = new ArrayList<>();
         for (int i = 0; i < chunks; i++) {
-            final int firstRow = (i * rowsPerChunk) + 1;
-            final int maxRows;
-            if (i == chunks - 1) {
-                maxRows = Integer.MAX_VALUE - firstRow - 1;
-            } else {
-                maxRows = rowsPerChunk;
+            if (!completedWindows.contains(i)) {
+                remainingWindows.add(i);
             }
+        }
+
+        final List<AnalysisResultFuture> slaveResults =
+                dispatchJobs(job, remainingWindows.size(), i -> slaveJobFactory.apply(remainingWindows.get(i)));
+        results.addAll(slaveResults);
+        resultWindows.addAll(remainingWindows);
+
+        if (slaveResults.size() != remainingWindows.size()) {
+            // dispatching failed, the results no longer correspond to the
+            // windows. Keep the previous checkpoint as it is.
+            return new DistributedAnalysisResultFuture(results, reducer);
+        }
+
+        final JobCheckpointer checkpointer =
+                new JobCheckpointer(_checkpointStore, windowDescriptions, completedWindows, resultWindows);
+        return new DistributedAnalysisResultFuture(results, reducer, checkpointer);
+    }
+
+    /**
+     * Reads the checkpoint of a previous run of the job, if it matches the job
+     * and the windows (slave jobs) that it is divided into.
+     *
+     * @param job
+     * @param windowDescriptions
+     * @return the checkpoint to resume from, or null if the job should be run
+     *         from the beginning
+     */
+    private JobCheckpoint readCheckpoint(final AnalysisJob job, final List<String> windowDescriptions) {
+        final JobCheckpoint checkpoint = _checkpointStore.read();
+        if (checkpoint == null) {
+            return null;
+        }
+
+        if (!windowDescriptions.equals(checkpoint.getWindowDescriptions())) {
+            logger.warn("Checkpoint in {} was made for other windows of the source data, job will not be resumed: {}",
+                    _checkpointStore.getFile(), checkpoint.getWindowDescriptions());
+            return null;
+        }
 
-            final AnalysisJob slaveJob = buildSlaveJob(job, i, firstRow, maxRows);
+        final Map<ComponentJob, AnalyzerResult> checkpointResults = checkpoint.getReducedResult().getResultMap();
+        final AnalyzerJobHelper analyzerJobHelper =
+                new AnalyzerJobHelper(CollectionUtils2.filterOnClass(checkpointResults.keySet(), AnalyzerJob.class));
+        for (final AnalyzerJob analyzerJob : job.getAnalyzerJobs()) {
+            if (analyzerJobHelper.getAnalyzerJob(analyzerJob) == null) {
+                logger.warn("Checkpoint in {} has no result for {}, job will not be resumed",
+                        _checkpointStore.getFile(), analyzerJob);
+                return null;
+            }
+        }
+
+        return checkpoint;
+    }
+
+    private AnalysisResultFuture createCheckpointResultFuture(final JobCheckpoint checkpoint) {
+        final LazyRef<AnalysisResult> resultRef = new LazyRef<AnalysisResult>() {
+            @Override
+            protected AnalysisResult fetch() {
+                return checkpoint.getReducedResult();
+            }
+        };
+        resultRef.get();
+        return new LazyRefAnalysisResultFuture(resultRef, new ArrayList<>());
+    }
+
+    private List<AnalysisResultFuture> dispatchJobs(final AnalysisJob job, final int chunks,
+            final IntFunction<AnalysisJob> slaveJobFactory) {
+        final JobDivisionManager jobDivisionManager = _clusterManager.getJobDivisionManager();
+        if (jobDivisionManager instanceof WorkQueueJobDivisionManager) {
+            // let the slaves pull the slave jobs from a queue, building each
+            // slave job once it is pulled
+            final WorkQueueJobDivisionManager workQueueJobDivisionManager =
+                    (WorkQueueJobDivisionManager) jobDivisionManager;
+            final SlaveJobQueue queue =
+                    new SlaveJobQueue(_configuration, _clusterManager, job, _analysisListener, chunks,
+                            slaveJobFactory, workQueueJobDivisionManager.getSlaveCount(),
+                            workQueueJobDivisionManager.getSpeculationFactor());
+            return queue.start();
+        }
+
+        final List<AnalysisResultFuture> results = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            final AnalysisJob slaveJob = slaveJobFactory.apply(i);
             final DistributedJobContext context = new DistributedJobContextImpl(_configuration, job, i, chunks);
 
             try {
@@ -266,6 +451,72 @@ public final class DistributedAnalysisRunner implements AnalysisRunner {
         }
     }
 
+    /**
+     * Creates a slave job by copying the original job and adding a
+     * {@link KeyRangeFilter} as a default requirement. The first slave job also
+     * selects the records with a null key value.
+     *
+     * @param job
+     * @param slaveJobIndex
+     * @param keyColumn
+     * @param lowerBound
+     * @param upperBound
+     * @return
+     */
+    private AnalysisJob buildSlaveJob(final AnalysisJob job, final int slaveJobIndex, final Column keyColumn,
+            final Long lowerBound, final Long upperBound) {
+        logger.info("Building slave job {} with {} >= {} and {} < {}", slaveJobIndex + 1, keyColumn.getName(),
+                lowerBound, keyColumn.getName(), upperBound);
+
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(_configuration, job)) {
+
+            InputColumn<?> sourceColumn = jobBuilder.getSourceColumnByName(keyColumn.getName());
+            if (sourceColumn == null) {
+                jobBuilder.addSourceColumn(keyColumn);
+                sourceColumn = jobBuilder.getSourceColumnByName(keyColumn.getName());
+            }
+
+            final FilterComponentBuilder<KeyRangeFilter, KeyRangeFilter.Category> keyRangeFilter =
+                    jobBuilder.addFilter(KeyRangeFilter.class);
+            keyRangeFilter.getComponentInstance().setKeyColumn(toNumberColumn(sourceColumn));
+            keyRangeFilter.getComponentInstance().setLowerBound(lowerBound);
+            keyRangeFilter.getComponentInstance().setUpperBound(upperBound);
+            keyRangeFilter.getComponentInstance().setIncludeNulls(slaveJobIndex == 0);
+
+            jobBuilder.setDefaultRequirement(keyRangeFilter, KeyRangeFilter.Category.VALID);
+
+            // in assertion/test mode do an early validation
+            assert jobBuilder.isConfigured(true);
+
+            return jobBuilder.toAnalysisJob();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static InputColumn<Number> toNumberColumn(final InputColumn<?> inputColumn) {
+        return (InputColumn<Number>) inputColumn;
+    }
+
+    private Column getKeyColumn(final JobDivisionManager jobDivisionManager, final AnalysisJob job) {
+        final KeyRangeJobDivisionManager keyRangeJobDivisionManager = getKeyRangeJobDivisionManager(jobDivisionManager);
+        if (keyRangeJobDivisionManager == null) {
+            return null;
+        }
+        return keyRangeJobDivisionManager.getKeyColumn(job);
+    }
+
+    private KeyRangeJobDivisionManager getKeyRangeJobDivisionManager(final JobDivisionManager jobDivisionManager) {
+        if (jobDivisionManager instanceof WorkQueueJobDivisionManager) {
+            // the chunks of the work queue may be divided by key ranges
+            return getKeyRangeJobDivisionManager(
+                    ((WorkQueueJobDivisionManager) jobDivisionManager).getChunkDivisionManager());
+        }
+        if (jobDivisionManager instanceof KeyRangeJobDivisionManager) {
+            return (KeyRangeJobDivisionManager) jobDivisionManager;
+        }
+        return null;
+    }
+
     /**
      * Finds a source column which is appropriate for an ORDER BY clause in the
      * generated paginated queries
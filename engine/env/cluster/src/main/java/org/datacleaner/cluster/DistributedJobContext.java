@@ -34,4 +34,14 @@ public interface DistributedJobContext {
     int getJobDivisionCount();
 
     int getJobDivisionIndex();
+
+    /**
+     * Gets the index of the slave node that the job is dispatched to. Unless
+     * the slave jobs are processed in a work queue (see
+     * {@link WorkQueueJobDivisionManager}), this is the same as the job
+     * division index.
+     *
+     * @return
+     */
+    int getSlaveIndex();
 }
@@ -0,0 +1,98 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.datacleaner.result.AnalysisResult;
+
+/**
+ * A checkpoint of a job which is executed as a number of slave jobs (windows)
+ * by the {@link DistributedAnalysisRunner}. The checkpoint records which
+ * windows have completed, and the analyzer results of those windows, reduced
+ * into a single result.
+ *
+ * Each window is identified by a description of the source records it covers
+ * (such as a key range or a row range), so that a checkpoint is only resumed
+ * if the job is divided into the same windows as when the checkpoint was made.
+ */
+public final class JobCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> _windowDescriptions;
+    private final Set<Integer> _completedWindows;
+    private final AnalysisResult _reducedResult;
+    private final Date _creationDate;
+
+    public JobCheckpoint(final List<String> windowDescriptions, final Set<Integer> completedWindows,
+            final AnalysisResult reducedResult) {
+        _windowDescriptions = new ArrayList<>(windowDescriptions);
+        _completedWindows = new TreeSet<>(completedWindows);
+        _reducedResult = reducedResult;
+        _creationDate = new Date();
+    }
+
+    /**
+     * Gets the descriptions of the source records covered by each window of
+     * the job.
+     *
+     * @return
+     */
+    public List<String> getWindowDescriptions() {
+        return Collections.unmodifiableList(_windowDescriptions);
+    }
+
+    /**
+     * Gets the indexes of the windows that have completed and are included in
+     * the reduced result.
+     *
+     * @return
+     */
+    public Set<Integer> getCompletedWindows() {
+        return Collections.unmodifiableSet(_completedWindows);
+    }
+
+    /**
+     * Gets the analyzer results of the completed windows, reduced into a single
+     * result.
+     *
+     * @return
+     */
+    public AnalysisResult getReducedResult() {
+        return _reducedResult;
+    }
+
+    public Date getCreationDate() {
+        return _creationDate;
+    }
+
+    @Override
+    public String toString() {
+        return "JobCheckpoint[completedWindows=" + _completedWindows.size() + " of " + _windowDescriptions.size()
+                + ",creationDate=" + _creationDate + "]";
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores {@link JobCheckpoint}s in a file. A checkpoint is first written to a
+ * temporary file which then replaces the checkpoint file, so that the
+ * checkpoint file always contains the last complete checkpoint, even if the
+ * process is killed while writing a checkpoint.
+ */
+public class JobCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobCheckpointStore.class);
+
+    private final File _file;
+
+    public JobCheckpointStore(final File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Checkpoint file cannot be null");
+        }
+        _file = file;
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Reads the last checkpoint.
+     *
+     * @return the last checkpoint, or null if there is no checkpoint or it
+     *         could not be read
+     */
+    public JobCheckpoint read() {
+        if (!_file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ChangeAwareObjectInputStream(
+                new BufferedInputStream(new FileInputStream(_file)))) {
+            return (JobCheckpoint) in.readObject();
+        } catch (final Exception e) {
+            logger.warn("Could not read checkpoint file: {}", _file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a checkpoint, replacing the previous checkpoint.
+     *
+     * @param checkpoint
+     */
+    public void write(final JobCheckpoint checkpoint) {
+        final File tempFile = new File(_file.getPath() + ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeObject(checkpoint);
+            }
+            Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not write checkpoint file: " + _file, e);
+        }
+        logger.info("Wrote checkpoint to {}: {}", _file, checkpoint);
+    }
+
+    /**
+     * Deletes the checkpoint, if any.
+     */
+    public void delete() {
+        if (_file.exists() && !_file.delete()) {
+            logger.warn("Could not delete checkpoint file: {}", _file);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.result.SimpleAnalysisResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helper class of the {@link DistributedAnalysisResultFuture} which writes a
+ * {@link JobCheckpoint} every time a slave job (window) has been reduced.
+ */
+final class JobCheckpointer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobCheckpointer.class);
+
+    private final JobCheckpointStore _checkpointStore;
+    private final List<String> _windowDescriptions;
+    private final List<Integer> _resultWindows;
+    private final Set<Integer> _completedWindows;
+    private final AtomicBoolean _finished;
+
+    /**
+     * Creates a {@link JobCheckpointer}
+     *
+     * @param checkpointStore
+     * @param windowDescriptions
+     *            the descriptions of all windows of the job
+     * @param completedWindows
+     *            the windows that were completed by a previous checkpoint
+     * @param resultWindows
+     *            the window index of each result of the
+     *            {@link DistributedAnalysisResultFuture}, or -1 for a result
+     *            that is not a window (but the result of a previous
+     *            checkpoint)
+     */
+    public JobCheckpointer(final JobCheckpointStore checkpointStore, final List<String> windowDescriptions,
+            final Set<Integer> completedWindows, final List<Integer> resultWindows) {
+        _checkpointStore = checkpointStore;
+        _windowDescriptions = windowDescriptions;
+        _completedWindows = new TreeSet<>(completedWindows);
+        _resultWindows = resultWindows;
+        _finished = new AtomicBoolean(false);
+    }
+
+    /**
+     * Writes a checkpoint after a result has been reduced.
+     *
+     * @param resultIndex
+     * @param resultMap
+     *            the results reduced so far
+     */
+    public void reduced(final int resultIndex, final Map<ComponentJob, AnalyzerResult> resultMap) {
+        final int window = _resultWindows.get(resultIndex);
+        if (window == -1) {
+            return;
+        }
+        _completedWindows.add(window);
+        if (_completedWindows.size() == _windowDescriptions.size()) {
+            // the job is done, no need for a checkpoint
+            return;
+        }
+
+        final SimpleAnalysisResult reducedResult = new SimpleAnalysisResult(new HashMap<>(resultMap));
+        try {
+            _checkpointStore.write(new JobCheckpoint(_windowDescriptions, _completedWindows, reducedResult));
+        } catch (final RuntimeException e) {
+            // a missing checkpoint is not a reason to fail the job
+            logger.warn("Failed to write checkpoint after window {} ({})", window + 1,
+                    _windowDescriptions.get(window), e);
+        }
+    }
+
+    /**
+     * Finishes checkpointing when all results have been reduced. The
+     * checkpoint is removed if the job was successful, and kept for resuming
+     * the job otherwise.
+     *
+     * @param successful
+     */
+    public void finish(final boolean successful) {
+        if (_finished.getAndSet(true)) {
+            return;
+        }
+        if (successful) {
+            _checkpointStore.delete();
+        } else {
+            logger.info("Job failed, keeping the last checkpoint in {} to resume from",
+                    _checkpointStore.getFile());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
+import org.datacleaner.components.keyrange.KeyRangeSplitter;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.job.AnalysisJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JobDivisionManager} which divides the master job into slave jobs
+ * that each select a range of values of a numeric key column, using the
+ * {@link KeyRangeFilter}.
+ *
+ * Compared to dividing the job by first row and max rows, this means that each
+ * slave only reads its own slice of the source table (typically using the
+ * index of the key column), instead of scanning and discarding all the records
+ * that precede its slice. The ranges are determined by the MIN and MAX values
+ * of the key column, so some of them may turn out to be empty.
+ *
+ * The key column is either specified explicitly, or picked as the single
+ * numeric primary key of the source table, or as the first numeric indexed
+ * column. If no key column is available, or the datastore does not benefit
+ * from query optimization (such as file based datastores), the
+ * {@link DistributedAnalysisRunner} falls back to dividing the job by first row
+ * and max rows.
+ */
+public class KeyRangeJobDivisionManager implements JobDivisionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyRangeJobDivisionManager.class);
+
+    private final int _divisionCount;
+    private final String _keyColumnName;
+
+    public KeyRangeJobDivisionManager(final int divisionCount) {
+        this(divisionCount, null);
+    }
+
+    /**
+     * Creates a new {@link KeyRangeJobDivisionManager}
+     *
+     * @param divisionCount
+     *            the preferred number of divisions
+     * @param keyColumnName
+     *            the name of the key column to divide on, or null to pick the
+     *            primary key or an indexed column of the source table
+     */
+    public KeyRangeJobDivisionManager(final int divisionCount, final String keyColumnName) {
+        if (divisionCount <= 0) {
+            throw new IllegalArgumentException("Division count must be a positive integer");
+        }
+        _divisionCount = divisionCount;
+        _keyColumnName = keyColumnName;
+    }
+
+    @Override
+    public int calculateDivisionCount(final AnalysisJob masterJob, final int expectedRows) {
+        return _divisionCount;
+    }
+
+    /**
+     * Finds the key column to divide a master job on.
+     *
+     * @param masterJob
+     * @return the key column, or null if the job cannot be divided by key
+     *         ranges
+     */
+    public Column getKeyColumn(final AnalysisJob masterJob) {
+        final Datastore datastore = masterJob.getDatastore();
+        if (!datastore.getPerformanceCharacteristics().isQueryOptimizationPreferred()) {
+            logger.info("Datastore '{}' does not prefer query optimization, key ranges will not be used",
+                    datastore.getName());
+            return null;
+        }
+
+        final Table table = getSourceTable(masterJob);
+        if (table == null) {
+            return null;
+        }
+
+        if (_keyColumnName != null) {
+            final Column column = table.getColumnByName(_keyColumnName);
+            if (column == null || !isNumber(column)) {
+                logger.warn("Key column '{}' is not a numeric column of table {}", _keyColumnName, table.getName());
+                return null;
+            }
+            return column;
+        }
+
+        final List<Column> primaryKeys = table.getPrimaryKeys();
+        if (primaryKeys.size() == 1 && isNumber(primaryKeys.get(0))) {
+            return primaryKeys.get(0);
+        }
+
+        for (final Column column : table.getColumns()) {
+            if (column.isIndexed() && isNumber(column)) {
+                return column;
+            }
+        }
+
+        logger.info("No numeric primary key or indexed column found in table {}, key ranges will not be used",
+                table.getName());
+        return null;
+    }
+
+    /**
+     * Calculates the points at which the key range of the master job is split.
+     * Division N selects the keys from split point N-1 (inclusive) to split
+     * point N (exclusive), while the first and last divisions are unbounded
+     * downwards and upwards respectively.
+     *
+     * @param masterJob
+     * @param keyColumn
+     * @return an ascending list of split points, which has fewer than
+     *         <code>divisionCount - 1</code> elements if the key range is too
+     *         narrow
+     */
+    public List<Long> calculateSplitPoints(final AnalysisJob masterJob, final Column keyColumn) {
+        final List<Number> splitPoints;
+        try (DatastoreConnection connection = masterJob.getDatastore().openConnection()) {
+            splitPoints = KeyRangeSplitter.calculateSplitPoints(connection.getDataContext(), keyColumn,
+                    Collections.emptyList(), _divisionCount, true);
+        }
+        return splitPoints.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    private static Table getSourceTable(final AnalysisJob masterJob) {
+        for (final InputColumn<?> sourceColumn : masterJob.getSourceColumns()) {
+            final Column physicalColumn = sourceColumn.getPhysicalColumn();
+            if (physicalColumn != null) {
+                return physicalColumn.getTable();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNumber(final Column column) {
+        return column.getType() != null && column.getType().isNumber();
+    }
+}
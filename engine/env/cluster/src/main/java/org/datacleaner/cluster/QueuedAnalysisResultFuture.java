@@ -0,0 +1,287 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.runner.AnalysisJobFailedException;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.job.runner.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AnalysisResultFuture} for a single chunk of a job in a
+ * {@link SlaveJobQueue}. The chunk may be attempted by several slaves (when it
+ * is speculatively dispatched), in which case the result of the first
+ * successful attempt is used.
+ */
+final class QueuedAnalysisResultFuture implements AnalysisResultFuture {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueuedAnalysisResultFuture.class);
+
+    private final int _chunkIndex;
+    private final CountDownLatch _latch;
+    private final List<AnalysisResultFuture> _runningAttempts;
+    private AnalysisJob _slaveJob;
+    private int _attemptCount;
+    private long _startMillis;
+    private volatile AnalysisResultFuture _result;
+    private volatile boolean _cancelled;
+
+    public QueuedAnalysisResultFuture(final int chunkIndex) {
+        _chunkIndex = chunkIndex;
+        _latch = new CountDownLatch(1);
+        _runningAttempts = new ArrayList<>();
+        _cancelled = false;
+    }
+
+    public int getChunkIndex() {
+        return _chunkIndex;
+    }
+
+    /**
+     * Gets the slave job of this chunk, building it on first request.
+     *
+     * @param slaveJobFactory
+     * @return
+     */
+    public synchronized AnalysisJob getSlaveJob(final IntFunction<AnalysisJob> slaveJobFactory) {
+        if (_slaveJob == null) {
+            _slaveJob = slaveJobFactory.apply(_chunkIndex);
+        }
+        return _slaveJob;
+    }
+
+    /**
+     * Registers that a slave has taken this chunk.
+     */
+    public synchronized void beginAttempt() {
+        if (_attemptCount == 0) {
+            _startMillis = System.currentTimeMillis();
+        }
+        _attemptCount++;
+    }
+
+    public synchronized int getAttemptCount() {
+        return _attemptCount;
+    }
+
+    /**
+     * Gets the number of milliseconds since the first attempt of this chunk
+     * began.
+     *
+     * @return
+     */
+    public synchronized long getRunningMillis() {
+        if (_attemptCount == 0) {
+            return 0;
+        }
+        return System.currentTimeMillis() - _startMillis;
+    }
+
+    /**
+     * Registers a dispatched attempt, so that it can be cancelled if another
+     * attempt finishes first or the chunk is cancelled.
+     *
+     * @param attempt
+     */
+    public void attemptDispatched(final AnalysisResultFuture attempt) {
+        synchronized (this) {
+            if (!isDone()) {
+                _runningAttempts.add(attempt);
+                return;
+            }
+        }
+        cancelAttempt(attempt);
+    }
+
+    /**
+     * Registers a finished attempt.
+     *
+     * @param attempt
+     * @return whether or not the attempt completed this chunk. Failed attempts
+     *         only complete the chunk if no other attempt is still running.
+     */
+    public boolean attemptFinished(final AnalysisResultFuture attempt) {
+        final List<AnalysisResultFuture> attemptsToCancel;
+        synchronized (this) {
+            _runningAttempts.remove(attempt);
+            if (isDone()) {
+                return false;
+            }
+            if (attempt.isErrornous() && !_runningAttempts.isEmpty()) {
+                logger.warn("Attempt of chunk {} failed, awaiting the {} other attempt(s)", _chunkIndex + 1,
+                        _runningAttempts.size());
+                return false;
+            }
+            attemptsToCancel = new ArrayList<>(_runningAttempts);
+            _runningAttempts.clear();
+            _result = attempt;
+            _latch.countDown();
+        }
+        for (final AnalysisResultFuture attemptToCancel : attemptsToCancel) {
+            cancelAttempt(attemptToCancel);
+        }
+        return true;
+    }
+
+    private void cancelAttempt(final AnalysisResultFuture attempt) {
+        try {
+            attempt.cancel();
+        } catch (final UnsupportedOperationException e) {
+            logger.debug("Could not cancel attempt of chunk {}: {}", _chunkIndex + 1, e.getMessage());
+        }
+    }
+
+    @Override
+    public void cancel() {
+        final List<AnalysisResultFuture> attemptsToCancel;
+        synchronized (this) {
+            if (isDone()) {
+                return;
+            }
+            attemptsToCancel = new ArrayList<>(_runningAttempts);
+            _runningAttempts.clear();
+            _cancelled = true;
+            _latch.countDown();
+        }
+        for (final AnalysisResultFuture attempt : attemptsToCancel) {
+            cancelAttempt(attempt);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return _cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return _latch.getCount() == 0;
+    }
+
+    @Override
+    public void await() {
+        try {
+            _latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void await(final long timeout, final TimeUnit timeUnit) {
+        try {
+            _latch.await(timeout, timeUnit);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isErrornous() {
+        return getStatus() == JobStatus.ERRORNOUS;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+        return getStatus() == JobStatus.SUCCESSFUL;
+    }
+
+    @Override
+    public JobStatus getStatus() {
+        if (!isDone()) {
+            return JobStatus.NOT_FINISHED;
+        }
+        if (_cancelled) {
+            return JobStatus.ERRORNOUS;
+        }
+        return _result.getStatus();
+    }
+
+    @Override
+    public Date getCreationDate() {
+        if (_result == null) {
+            return null;
+        }
+        return _result.getCreationDate();
+    }
+
+    @Override
+    public List<AnalyzerResult> getResults() throws AnalysisJobFailedException {
+        await();
+        if (_result == null) {
+            return Collections.emptyList();
+        }
+        return _result.getResults();
+    }
+
+    @Override
+    public AnalyzerResult getResult(final ComponentJob componentJob) throws AnalysisJobFailedException {
+        await();
+        if (_result == null) {
+            return null;
+        }
+        return _result.getResult(componentJob);
+    }
+
+    @Override
+    public <R extends AnalyzerResult> List<? extends R> getResults(final Class<R> resultClass) {
+        await();
+        if (_result == null) {
+            return Collections.emptyList();
+        }
+        return _result.getResults(resultClass);
+    }
+
+    @Override
+    public Map<ComponentJob, AnalyzerResult> getResultMap() throws AnalysisJobFailedException {
+        await();
+        if (_result == null) {
+            return Collections.emptyMap();
+        }
+        return _result.getResultMap();
+    }
+
+    @Override
+    public List<Throwable> getErrors() {
+        if (_result == null) {
+            // cancelled chunks carry no errors of their own
+            return Collections.emptyList();
+        }
+        return _result.getErrors();
+    }
+
+    @Override
+    public String toString() {
+        return "QueuedAnalysisResultFuture[chunk=" + (_chunkIndex + 1) + ",status=" + getStatus() + "]";
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.IntFunction;
+
+import org.apache.metamodel.util.SharedExecutorService;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.runner.AnalysisListener;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A work queue of slave jobs (chunks) that is processed by a fixed number of
+ * slaves. Each slave pulls the next chunk from the queue when its previous
+ * chunk is finished, and when the queue has run empty, idle slaves may
+ * speculatively attempt chunks that are running for a long time on other
+ * slaves.
+ *
+ * If a chunk fails, the remaining chunks in the queue are cancelled, since the
+ * job as a whole has failed anyway.
+ *
+ * @see WorkQueueJobDivisionManager
+ */
+final class SlaveJobQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaveJobQueue.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final DataCleanerConfiguration _configuration;
+    private final ClusterManager _clusterManager;
+    private final AnalysisJob _masterJob;
+    private final AnalysisListener _analysisListener;
+    private final IntFunction<AnalysisJob> _slaveJobFactory;
+    private final int _slaveCount;
+    private final double _speculationFactor;
+    private final List<QueuedAnalysisResultFuture> _chunks;
+    private final Queue<QueuedAnalysisResultFuture> _queue;
+    private final List<Long> _chunkDurations;
+    private boolean _aborted;
+
+    public SlaveJobQueue(final DataCleanerConfiguration configuration, final ClusterManager clusterManager,
+            final AnalysisJob masterJob, final AnalysisListener analysisListener, final int chunkCount,
+            final IntFunction<AnalysisJob> slaveJobFactory, final int slaveCount, final double speculationFactor) {
+        _configuration = configuration;
+        _clusterManager = clusterManager;
+        _masterJob = masterJob;
+        _analysisListener = analysisListener;
+        _slaveJobFactory = slaveJobFactory;
+        _slaveCount = slaveCount;
+        _speculationFactor = speculationFactor;
+        _chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            _chunks.add(new QueuedAnalysisResultFuture(i));
+        }
+        _queue = new LinkedList<>(_chunks);
+        _chunkDurations = new ArrayList<>();
+        _aborted = false;
+    }
+
+    /**
+     * Starts pulling chunks from the queue, one thread per slave.
+     *
+     * @return the result futures of the chunks, in chunk order
+     */
+    public List<AnalysisResultFuture> start() {
+        final int slaveCount = Math.min(_slaveCount, _chunks.size());
+        logger.info("Starting {} slave(s) to process a queue of {} chunks", slaveCount, _chunks.size());
+        for (int i = 0; i < slaveCount; i++) {
+            final int slaveIndex = i;
+            SharedExecutorService.get().execute(() -> runSlave(slaveIndex));
+        }
+        return new ArrayList<>(_chunks);
+    }
+
+    private void runSlave(final int slaveIndex) {
+        while (true) {
+            final QueuedAnalysisResultFuture chunk = nextChunk();
+            if (chunk == null) {
+                logger.debug("No more chunks for slave {}", slaveIndex + 1);
+                return;
+            }
+            runChunk(slaveIndex, chunk);
+        }
+    }
+
+    private void runChunk(final int slaveIndex, final QueuedAnalysisResultFuture chunk) {
+        final int chunkIndex = chunk.getChunkIndex();
+        final long startMillis = System.currentTimeMillis();
+
+        AnalysisResultFuture attempt;
+        try {
+            final AnalysisJob slaveJob = chunk.getSlaveJob(_slaveJobFactory);
+            final DistributedJobContext context =
+                    new DistributedJobContextImpl(_configuration, _masterJob, chunkIndex, _chunks.size(), slaveIndex);
+
+            logger.info("Dispatching slave job {} of {} to slave {} (attempt {})", chunkIndex + 1, _chunks.size(),
+                    slaveIndex + 1, chunk.getAttemptCount());
+            attempt = _clusterManager.dispatchJob(slaveJob, context);
+            chunk.attemptDispatched(attempt);
+            attempt.await();
+        } catch (final Exception e) {
+            logger.error("Failed to dispatch slave job {} to slave {}", chunkIndex + 1, slaveIndex + 1, e);
+            attempt = new FailedAnalysisResultFuture(e);
+        }
+
+        if (!chunk.attemptFinished(attempt)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (chunk.isErrornous()) {
+                if (attempt instanceof FailedAnalysisResultFuture) {
+                    _analysisListener.errorUnknown(_masterJob, attempt.getErrors().get(0));
+                }
+                abort();
+            } else {
+                _chunkDurations.add(System.currentTimeMillis() - startMillis);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Gets the next chunk for an idle slave, either from the queue or (when the
+     * queue is empty) a running chunk that is eligible for speculative
+     * execution. Blocks while there are running chunks that may later become
+     * eligible for speculative execution.
+     *
+     * @return the next chunk, or null if there is no more work for the slave
+     */
+    private synchronized QueuedAnalysisResultFuture nextChunk() {
+        while (!_aborted) {
+            QueuedAnalysisResultFuture chunk = _queue.poll();
+            while (chunk != null && chunk.isDone()) {
+                // cancelled while in the queue
+                chunk = _queue.poll();
+            }
+            if (chunk == null && _speculationFactor > 0) {
+                if (isAllChunksDone()) {
+                    return null;
+                }
+                chunk = findStraggler();
+                if (chunk == null) {
+                    try {
+                        wait(IDLE_POLL_MILLIS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                    continue;
+                }
+                logger.info("Speculatively dispatching chunk {} which has been running for {} ms",
+                        chunk.getChunkIndex() + 1, chunk.getRunningMillis());
+            }
+            if (chunk != null) {
+                chunk.beginAttempt();
+            }
+            return chunk;
+        }
+        return null;
+    }
+
+    private boolean isAllChunksDone() {
+        for (final QueuedAnalysisResultFuture chunk : _chunks) {
+            if (!chunk.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the running chunk that has been running for the longest time, if
+     * that is longer than the speculation factor times the median chunk
+     * duration. Only chunks with a single attempt are eligible.
+     *
+     * @return
+     */
+    private QueuedAnalysisResultFuture findStraggler() {
+        if (_chunkDurations.isEmpty()) {
+            return null;
+        }
+        final List<Long> durations = new ArrayList<>(_chunkDurations);
+        Collections.sort(durations);
+        final long threshold = (long) (durations.get(durations.size() / 2) * _speculationFactor);
+
+        QueuedAnalysisResultFuture straggler = null;
+        long stragglerMillis = threshold;
+        for (final QueuedAnalysisResultFuture chunk : _chunks) {
+            if (chunk.isDone() || chunk.getAttemptCount() != 1) {
+                continue;
+            }
+            final long runningMillis = chunk.getRunningMillis();
+            if (runningMillis > stragglerMillis) {
+                straggler = chunk;
+                stragglerMillis = runningMillis;
+            }
+        }
+        return straggler;
+    }
+
+    private void abort() {
+        if (_aborted) {
+            return;
+        }
+        _aborted = true;
+        logger.info("Chunk failed, cancelling the {} remaining chunks in the queue", _queue.size());
+        for (final QueuedAnalysisResultFuture chunk : _queue) {
+            chunk.cancel();
+        }
+        _queue.clear();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import org.datacleaner.job.AnalysisJob;
+
+/**
+ * A {@link JobDivisionManager} which divides the master job into many small
+ * chunks, which are then put in a work queue. Each slave node pulls the next
+ * chunk from the queue when it has finished its previous chunk, so that fast
+ * slaves process more chunks than slow (or busy) slaves, instead of every slave
+ * being handed one equally sized slice of the job.
+ *
+ * The chunks themselves are divided by another {@link JobDivisionManager}, eg.
+ * a {@link FixedDivisionsCountJobDivisionManager} or a
+ * {@link KeyRangeJobDivisionManager}, which should produce a number of chunks
+ * that is a few times the number of slaves.
+ *
+ * Optionally chunks that are still running when the queue has run empty can be
+ * speculatively dispatched once more to an idle slave, if they have been
+ * running for longer than a factor of the median chunk duration. The result of
+ * the first attempt that finishes is used and the other attempt is cancelled.
+ * Speculative execution should only be used for jobs without side effects,
+ * since components such as writers would otherwise write the records of a chunk
+ * twice.
+ */
+public class WorkQueueJobDivisionManager implements JobDivisionManager {
+
+    public static final int DEFAULT_CHUNKS_PER_SLAVE = 4;
+
+    private final int _slaveCount;
+    private final JobDivisionManager _chunkDivisionManager;
+    private final double _speculationFactor;
+
+    /**
+     * Creates a {@link WorkQueueJobDivisionManager} which divides jobs into
+     * {@link #DEFAULT_CHUNKS_PER_SLAVE} chunks per slave, without speculative
+     * execution.
+     *
+     * @param slaveCount
+     *            the number of slave nodes to pull chunks from the queue
+     */
+    public WorkQueueJobDivisionManager(final int slaveCount) {
+        this(slaveCount, new FixedDivisionsCountJobDivisionManager(slaveCount * DEFAULT_CHUNKS_PER_SLAVE), 0);
+    }
+
+    /**
+     * Creates a {@link WorkQueueJobDivisionManager}
+     *
+     * @param slaveCount
+     *            the number of slave nodes to pull chunks from the queue
+     * @param chunkDivisionManager
+     *            the {@link JobDivisionManager} used to divide the job into
+     *            chunks
+     * @param speculationFactor
+     *            how many times longer than the median chunk duration a chunk
+     *            may run before it is dispatched once more to an idle slave, or
+     *            zero to disable speculative execution
+     */
+    public WorkQueueJobDivisionManager(final int slaveCount, final JobDivisionManager chunkDivisionManager,
+            final double speculationFactor) {
+        if (slaveCount <= 0) {
+            throw new IllegalArgumentException("Slave count must be a positive integer");
+        }
+        if (chunkDivisionManager == null) {
+            throw new IllegalArgumentException("Chunk division manager cannot be null");
+        }
+        if (speculationFactor < 0) {
+            throw new IllegalArgumentException("Speculation factor cannot be negative");
+        }
+        _slaveCount = slaveCount;
+        _chunkDivisionManager = chunkDivisionManager;
+        _speculationFactor = speculationFactor;
+    }
+
+    @Override
+    public int calculateDivisionCount(final AnalysisJob masterJob, final int expectedRows) {
+        final int divisionCount = _chunkDivisionManager.calculateDivisionCount(masterJob, expectedRows);
+
+        // don't build chunks without any rows
+        return Math.max(1, Math.min(divisionCount, expectedRows));
+    }
+
+    public int getSlaveCount() {
+        return _slaveCount;
+    }
+
+    public JobDivisionManager getChunkDivisionManager() {
+        return _chunkDivisionManager;
+    }
+
+    public double getSpeculationFactor() {
+        return _speculationFactor;
+    }
+
+    public boolean isSpeculativeExecutionEnabled() {
+        return _speculationFactor > 0;
+    }
+}
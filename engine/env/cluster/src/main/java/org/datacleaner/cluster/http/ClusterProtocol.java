@@ -0,0 +1,294 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.SimpleAnalysisResult;
+import org.datacleaner.util.ChangeAwareObjectInputStream;
+
+/**
+ * The binary protocol used between the {@link HttpClusterManager} and the
+ * {@link SlaveServlet}s of a cluster.
+ *
+ * A message starts with a magic number followed by a sequence of frames, each
+ * consisting of a frame type byte, the length of the payload and the payload
+ * itself, which is deflate-compressed. A job is sent as a single frame with
+ * the job XML, while a result is sent as one frame per analyzer result,
+ * followed by an end frame. This allows both sides to encode and decode the
+ * analyzer results one at a time, instead of (de)serializing the complete
+ * result graph at once. When reading a result, the analyzer result frames are
+ * kept compressed and are only decoded while the result map is being iterated,
+ * so that the master only holds one decoded analyzer result of a slave at a
+ * time while reducing it.
+ */
+public final class ClusterProtocol {
+
+    public static final String CONTENT_TYPE = "application/x-datacleaner-cluster";
+
+    private static final int MAGIC = 0x44434331;
+
+    private static final byte FRAME_END = 0;
+    private static final byte FRAME_JOB = 1;
+    private static final byte FRAME_RESULT = 2;
+    private static final byte FRAME_ERRORS = 3;
+
+    private ClusterProtocol() {
+        // prevent instantiation
+    }
+
+    /**
+     * Determines if a content type header value denotes this protocol.
+     *
+     * @param contentType
+     * @return
+     */
+    public static boolean isProtocolContentType(final String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE);
+    }
+
+    public static void writeJob(final OutputStream out, final byte[] jobDefinition) throws IOException {
+        final DataOutputStream dataOutput = new DataOutputStream(out);
+        dataOutput.writeInt(MAGIC);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressed)) {
+            deflaterOutput.write(jobDefinition);
+        }
+        writeFrame(dataOutput, FRAME_JOB, compressed);
+        dataOutput.flush();
+    }
+
+    /**
+     * Reads a job message.
+     *
+     * @param in
+     * @return a stream of the (uncompressed) job XML
+     * @throws IOException
+     */
+    public static InputStream readJob(final InputStream in) throws IOException {
+        final DataInputStream dataInput = new DataInputStream(in);
+        readMagic(dataInput);
+        final byte frameType = dataInput.readByte();
+        if (frameType != FRAME_JOB) {
+            throw new IOException("Expected job frame, but got frame type " + frameType);
+        }
+        return readFramePayload(dataInput);
+    }
+
+    /**
+     * Writes a result message.
+     *
+     * @param out
+     * @param resultObject
+     *            either an {@link AnalysisResult} or a list of errors, as
+     *            produced by
+     *            {@link SlaveServletHelper#serializeResult(org.datacleaner.job.runner.AnalysisResultFuture, String)}
+     * @throws IOException
+     */
+    public static void writeResult(final OutputStream out, final Serializable resultObject) throws IOException {
+        final DataOutputStream dataOutput = new DataOutputStream(out);
+        dataOutput.writeInt(MAGIC);
+
+        final Date creationDate;
+        if (resultObject instanceof AnalysisResult) {
+            final AnalysisResult analysisResult = (AnalysisResult) resultObject;
+            for (final Entry<ComponentJob, AnalyzerResult> entry : analysisResult.getResultMap().entrySet()) {
+                writeFrame(dataOutput, FRAME_RESULT, compress(new Serializable[] { entry.getKey(), entry.getValue() }));
+            }
+            creationDate = analysisResult.getCreationDate();
+        } else if (resultObject instanceof List) {
+            writeFrame(dataOutput, FRAME_ERRORS, compress(resultObject));
+            creationDate = new Date();
+        } else {
+            throw new IllegalArgumentException("Unexpected result payload: " + resultObject);
+        }
+
+        writeFrame(dataOutput, FRAME_END, compress(creationDate));
+        dataOutput.flush();
+    }
+
+    /**
+     * Reads a result message. The analyzer results are decoded one frame at a
+     * time, whenever the entries of the result map are iterated.
+     *
+     * @param in
+     * @param errors
+     *            a list to add errors reported by the slave to
+     * @return the result, or null if the slave reported errors
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static AnalysisResult readResult(final InputStream in, final List<Throwable> errors)
+            throws IOException, ClassNotFoundException {
+        final DataInputStream dataInput = new DataInputStream(in);
+        readMagic(dataInput);
+
+        final List<byte[]> resultFrames = new ArrayList<>();
+        boolean errornous = false;
+        while (true) {
+            final byte frameType;
+            try {
+                frameType = dataInput.readByte();
+            } catch (final EOFException e) {
+                throw new IOException("Result message ended without an end frame", e);
+            }
+
+            final byte[] compressedPayload = readFrame(dataInput);
+            if (frameType == FRAME_RESULT) {
+                resultFrames.add(compressedPayload);
+                continue;
+            }
+
+            final Object payload = deserialize(decompress(compressedPayload));
+            switch (frameType) {
+            case FRAME_ERRORS:
+                @SuppressWarnings("unchecked") final List<Throwable> slaveErrors = (List<Throwable>) payload;
+                errors.addAll(slaveErrors);
+                errornous = true;
+                break;
+            case FRAME_END:
+                if (errornous) {
+                    return null;
+                }
+                return new SimpleAnalysisResult(new FramedResultMap(resultFrames), (Date) payload);
+            default:
+                throw new IOException("Unexpected frame type: " + frameType);
+            }
+        }
+    }
+
+    private static void readMagic(final DataInputStream dataInput) throws IOException {
+        final int magic = dataInput.readInt();
+        if (magic != MAGIC) {
+            throw new IOException("Not a cluster protocol message (magic number: " + Integer.toHexString(magic) + ")");
+        }
+    }
+
+    private static void writeFrame(final DataOutputStream dataOutput, final byte frameType,
+            final ByteArrayOutputStream compressedPayload) throws IOException {
+        dataOutput.writeByte(frameType);
+        dataOutput.writeInt(compressedPayload.size());
+        compressedPayload.writeTo(dataOutput);
+    }
+
+    private static InputStream readFramePayload(final DataInputStream dataInput) throws IOException {
+        return decompress(readFrame(dataInput));
+    }
+
+    private static byte[] readFrame(final DataInputStream dataInput) throws IOException {
+        final int length = dataInput.readInt();
+        if (length < 0) {
+            throw new IOException("Illegal frame length: " + length);
+        }
+        final byte[] compressed = new byte[length];
+        dataInput.readFully(compressed);
+        return compressed;
+    }
+
+    private static InputStream decompress(final byte[] compressed) {
+        return new InflaterInputStream(new ByteArrayInputStream(compressed));
+    }
+
+    private static ByteArrayOutputStream compress(final Object object) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(new DeflaterOutputStream(compressed))) {
+            objectOutput.writeObject(object);
+        }
+        return compressed;
+    }
+
+    private static Object deserialize(final InputStream in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInput = new ChangeAwareObjectInputStream(in)) {
+            return objectInput.readObject();
+        }
+    }
+
+    /**
+     * A result map backed by the compressed analyzer result frames of a result
+     * message. Every iteration decodes the frames one at a time, without
+     * holding on to the decoded analyzer results.
+     */
+    private static final class FramedResultMap extends AbstractMap<ComponentJob, AnalyzerResult>
+            implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<byte[]> _frames;
+
+        private FramedResultMap(final List<byte[]> frames) {
+            _frames = frames;
+        }
+
+        @Override
+        public Set<Entry<ComponentJob, AnalyzerResult>> entrySet() {
+            return new AbstractSet<Entry<ComponentJob, AnalyzerResult>>() {
+                @Override
+                public Iterator<Entry<ComponentJob, AnalyzerResult>> iterator() {
+                    final Iterator<byte[]> frames = _frames.iterator();
+                    return new Iterator<Entry<ComponentJob, AnalyzerResult>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return frames.hasNext();
+                        }
+
+                        @Override
+                        public Entry<ComponentJob, AnalyzerResult> next() {
+                            final Object[] entry;
+                            try {
+                                entry = (Object[]) deserialize(decompress(frames.next()));
+                            } catch (final IOException | ClassNotFoundException e) {
+                                throw new IllegalStateException("Could not decode analyzer result frame", e);
+                            }
+                            return new SimpleImmutableEntry<>((ComponentJob) entry[0], (AnalyzerResult) entry[1]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return _frames.size();
+                }
+            };
+        }
+    }
+}
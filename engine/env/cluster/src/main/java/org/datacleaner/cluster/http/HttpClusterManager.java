@@ -20,30 +20,32 @@
 package org.datacleaner.cluster.http;
 
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
-import org.apache.http.message.BasicNameValuePair;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.LazyRef;
 import org.datacleaner.cluster.ClusterManager;
 import org.datacleaner.cluster.DistributedJobContext;
 import org.datacleaner.cluster.FixedDivisionsCountJobDivisionManager;
 import org.datacleaner.cluster.JobDivisionManager;
+import org.datacleaner.cluster.KeyRangeJobDivisionManager;
 import org.datacleaner.cluster.LazyRefAnalysisResultFuture;
+import org.datacleaner.cluster.WorkQueueJobDivisionManager;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.JaxbJobWriter;
 import org.datacleaner.job.runner.AnalysisResultFuture;
@@ -67,6 +69,7 @@ public class HttpClusterManager implements ClusterManager {
     private final HttpClient _httpClient;
     private final List<String> _slaveEndpoints;
     private final HttpClientContext _httpClientContext;
+    private final JobDivisionManager _jobDivisionManager;
 
     /**
      * Creates a new HTTP cluster manager
@@ -92,28 +95,53 @@ public class HttpClusterManager implements ClusterManager {
      */
     public HttpClusterManager(final HttpClient httpClient, final HttpClientContext context,
             final List<String> slaveEndpoints) {
+        this(httpClient, context, slaveEndpoints, new FixedDivisionsCountJobDivisionManager(slaveEndpoints.size()));
+    }
+
+    /**
+     * Create a new HTTP cluster manager
+     *
+     * @param httpClient
+     *            http client to use for invoking slave endpoints. Must be
+     *            capable of executing multiple requests at the same time (see
+     *            {@link PoolingClientConnectionManager}).
+     * @param context
+     * @param slaveEndpoints
+     *            the endpoint URLs of the slaves
+     * @param jobDivisionManager
+     *            the {@link JobDivisionManager} to use for dividing jobs into
+     *            slave jobs, eg. a {@link KeyRangeJobDivisionManager} or a
+     *            {@link WorkQueueJobDivisionManager}. When using a
+     *            {@link WorkQueueJobDivisionManager}, it's slave count should
+     *            be the number of slave endpoints.
+     */
+    public HttpClusterManager(final HttpClient httpClient, final HttpClientContext context,
+            final List<String> slaveEndpoints, final JobDivisionManager jobDivisionManager) {
         _httpClient = httpClient;
         _httpClientContext = context;
         _slaveEndpoints = slaveEndpoints;
+        _jobDivisionManager = jobDivisionManager;
     }
 
     @Override
     public JobDivisionManager getJobDivisionManager() {
-        return new FixedDivisionsCountJobDivisionManager(_slaveEndpoints.size());
+        return _jobDivisionManager;
     }
 
     @Override
     public AnalysisResultFuture dispatchJob(final AnalysisJob job, final DistributedJobContext context)
             throws Exception {
         // determine endpoint url
-        final int index = context.getJobDivisionIndex();
+        final int index = context.getSlaveIndex();
         final String slaveEndpoint = _slaveEndpoints.get(index);
 
-        // write the job as XML
+        // write the job as XML, encoded in the cluster protocol
         final JaxbJobWriter jobWriter = new JaxbJobWriter(context.getMasterConfiguration());
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         jobWriter.write(job, baos);
-        final byte[] bytes = baos.toByteArray();
+        final ByteArrayOutputStream message = new ByteArrayOutputStream();
+        ClusterProtocol.writeJob(message, baos.toByteArray());
+        final byte[] bytes = message.toByteArray();
 
         // send the request in another thread
         final List<Throwable> errors = new LinkedList<>();
@@ -137,15 +165,13 @@ public class HttpClusterManager implements ClusterManager {
             @Override
             protected AnalysisResult fetch() throws Throwable {
                 // send the HTTP request
-                final HttpPost request = new HttpPost(slaveEndpoint);
-
-                final List<NameValuePair> parameters = new ArrayList<>();
-                parameters.add(new BasicNameValuePair(HTTP_PARAM_SLAVE_JOB_ID, slaveJobId));
-                parameters.add(new BasicNameValuePair(HTTP_PARAM_ACTION, ACTION_RUN));
-                parameters.add(new BasicNameValuePair(HTTP_PARAM_JOB_DEF, new String(bytes)));
-
-                final UrlEncodedFormEntity entity = new UrlEncodedFormEntity(parameters);
-                request.setEntity(entity);
+                // the parameters are sent in the query string, since the
+                // request body carries the job
+                final RequestBuilder rb = RequestBuilder.post(slaveEndpoint);
+                rb.addParameter(HTTP_PARAM_SLAVE_JOB_ID, slaveJobId);
+                rb.addParameter(HTTP_PARAM_ACTION, ACTION_RUN);
+                rb.setEntity(new ByteArrayEntity(bytes, ContentType.create(ClusterProtocol.CONTENT_TYPE)));
+                final HttpUriRequest request = rb.build();
 
                 logger.info("Firing run request to slave server '{}' for job id '{}'", slaveEndpoint, slaveJobId);
 
@@ -159,8 +185,13 @@ public class HttpClusterManager implements ClusterManager {
                                     + statusLine.getReasonPhrase() + " (" + statusLine.getStatusCode() + ")");
                 }
 
-                final InputStream inputStream = response.getEntity().getContent();
+                final HttpEntity responseEntity = response.getEntity();
+                final Header contentType = responseEntity.getContentType();
+                final InputStream inputStream = responseEntity.getContent();
                 try {
+                    if (contentType != null && ClusterProtocol.isProtocolContentType(contentType.getValue())) {
+                        return ClusterProtocol.readResult(inputStream, errors);
+                    }
                     return readResult(inputStream, errors);
                 } finally {
                     FileHelper.safeClose(inputStream);
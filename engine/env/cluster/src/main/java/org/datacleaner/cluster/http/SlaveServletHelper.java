@@ -192,7 +192,11 @@ public class SlaveServletHelper {
             }
 
             try {
-                sendResponse(response, resultObject);
+                if (ClusterProtocol.isProtocolContentType(request.getContentType())) {
+                    sendProtocolResponse(response, resultObject);
+                } else {
+                    sendResponse(response, resultObject);
+                }
             } catch (final IOException e) {
                 logger.error("Failed to send job result through HTTP response", e);
                 throw e;
@@ -241,7 +245,9 @@ public class SlaveServletHelper {
         final String jobDefinition = request.getParameter(HttpClusterManager.HTTP_PARAM_JOB_DEF);
 
         final InputStream inputStream;
-        if (jobDefinition == null) {
+        if (ClusterProtocol.isProtocolContentType(request.getContentType())) {
+            inputStream = ClusterProtocol.readJob(request.getInputStream());
+        } else if (jobDefinition == null) {
             // backwards compatibility node
             inputStream = request.getInputStream();
         } else {
@@ -324,4 +330,23 @@ public class SlaveServletHelper {
             outputStream.flush();
         }
     }
+
+    /**
+     * Sends a result object (an analysis result or a list of errors) encoded
+     * in the {@link ClusterProtocol}.
+     *
+     * @param response
+     * @param object
+     * @throws IOException
+     */
+    public void sendProtocolResponse(final HttpServletResponse response, final Serializable object)
+            throws IOException {
+        response.setContentType(ClusterProtocol.CONTENT_TYPE);
+        final ServletOutputStream outputStream = response.getOutputStream();
+        try {
+            ClusterProtocol.writeResult(outputStream, object);
+        } finally {
+            outputStream.flush();
+        }
+    }
 }
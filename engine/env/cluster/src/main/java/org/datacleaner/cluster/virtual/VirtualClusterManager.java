@@ -36,11 +36,16 @@ import org.datacleaner.job.runner.AnalysisRunner;
 public class VirtualClusterManager implements ClusterManager {
 
     private final DataCleanerConfiguration _configuration;
-    private final int _nodeCount;
+    private final JobDivisionManager _jobDivisionManager;
 
     public VirtualClusterManager(final DataCleanerConfiguration configuration, final int nodeCount) {
+        this(configuration, new FixedDivisionsCountJobDivisionManager(nodeCount));
+    }
+
+    public VirtualClusterManager(final DataCleanerConfiguration configuration,
+            final JobDivisionManager jobDivisionManager) {
         _configuration = configuration;
-        _nodeCount = nodeCount;
+        _jobDivisionManager = jobDivisionManager;
     }
 
     @Override
@@ -51,7 +56,7 @@ public class VirtualClusterManager implements ClusterManager {
 
     @Override
     public JobDivisionManager getJobDivisionManager() {
-        return new FixedDivisionsCountJobDivisionManager(_nodeCount);
+        return _jobDivisionManager;
     }
 
 }
@@ -43,6 +43,7 @@ import org.datacleaner.beans.valuematch.ValueMatchAnalyzer;
 import org.datacleaner.beans.valuematch.ValueMatchAnalyzerResult;
 import org.datacleaner.beans.writers.InsertIntoTableAnalyzer;
 import org.datacleaner.beans.writers.WriteBufferSizeOption;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter;
 import org.datacleaner.components.maxrows.MaxRowsFilter.Category;
 import org.datacleaner.configuration.DataCleanerConfiguration;
@@ -107,11 +108,13 @@ public class ClusterTestHelper {
         }
         final SimpleDescriptorProvider descriptorProvider = new SimpleDescriptorProvider(true);
         descriptorProvider.addFilterBeanDescriptor(Descriptors.ofFilter(MaxRowsFilter.class));
+        descriptorProvider.addFilterBeanDescriptor(Descriptors.ofFilter(KeyRangeFilter.class));
         descriptorProvider.addTransformerBeanDescriptor(Descriptors.ofTransformer(MockTransformerThatWillFail.class));
         descriptorProvider.addTransformerBeanDescriptor(Descriptors.ofTransformer(ConcatenatorTransformer.class));
         descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(InsertIntoTableAnalyzer.class));
         descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(CompletenessAnalyzer.class));
         descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(ValueMatchAnalyzer.class));
+        descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(NumberAnalyzer.class));
         descriptorProvider.addAnalyzerBeanDescriptor(Descriptors.ofAnalyzer(MockAnalyzerWithBadReducer.class));
 
         final DataCleanerEnvironment environment =
@@ -180,6 +183,11 @@ public class ClusterTestHelper {
 
     public static void runBasicAnalyzersJob(final DataCleanerConfiguration configuration,
             final ClusterManager clusterManager) throws Throwable {
+        runBasicAnalyzersJob(configuration, clusterManager, null);
+    }
+
+    public static void runBasicAnalyzersJob(final DataCleanerConfiguration configuration,
+            final ClusterManager clusterManager, final JobCheckpointStore checkpointStore) throws Throwable {
         // build a job that concats names and inserts the concatenated names
         // into a file
         final AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration);
@@ -196,12 +204,15 @@ public class ClusterTestHelper {
         final AnalysisJob job = jobBuilder.toAnalysisJob();
 
         // run the job in a distributed fashion
-        final DistributedAnalysisRunner runner = new DistributedAnalysisRunner(configuration, clusterManager);
+        final DistributedAnalysisRunner runner =
+                new DistributedAnalysisRunner(configuration, clusterManager, checkpointStore);
         final AnalysisResultFuture resultFuture = runner.run(job);
         jobBuilder.close();
 
+        // slave jobs may already have failed, their errors are thrown below
         Assert.assertTrue(
-                resultFuture.getStatus() == JobStatus.NOT_FINISHED || resultFuture.getStatus() == JobStatus.SUCCESSFUL);
+                resultFuture.getStatus() == JobStatus.NOT_FINISHED || resultFuture.getStatus() == JobStatus.SUCCESSFUL
+                        || resultFuture.getStatus() == JobStatus.ERRORNOUS);
 
         resultFuture.await();
 
@@ -525,6 +536,48 @@ public class ClusterTestHelper {
         Assert.assertTrue(analyzerResult instanceof StringAnalyzerResult);
     }
 
+    public static void runSingleRecordJob(final DataCleanerConfiguration configuration,
+            final ClusterManager clusterManager) throws Throwable {
+        final AnalysisJob job;
+        {
+            try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+                // build a job that analyzes the names of only a single
+                // customer
+                jobBuilder.setDatastore("orderdb");
+                jobBuilder.addSourceColumns("CUSTOMERS.CUSTOMERNUMBER", "CUSTOMERS.CONTACTFIRSTNAME",
+                        "CUSTOMERS.CONTACTLASTNAME");
+
+                final FilterComponentBuilder<EqualsFilter, EqualsFilter.Category> equalsFilter =
+                        jobBuilder.addFilter(EqualsFilter.class);
+                equalsFilter.addInputColumn(jobBuilder.getSourceColumnByName("CUSTOMERNUMBER"));
+                equalsFilter.getComponentInstance().setValues(new String[] { "103" });
+
+                final AnalyzerComponentBuilder<StringAnalyzer> stringAnalyzer =
+                        jobBuilder.addAnalyzer(StringAnalyzer.class);
+                stringAnalyzer.addInputColumns(jobBuilder.getAvailableInputColumns(String.class));
+                stringAnalyzer.setRequirement(equalsFilter, EqualsFilter.Category.EQUALS);
+
+                job = jobBuilder.toAnalysisJob();
+            }
+        }
+
+        final DistributedAnalysisRunner analysisRunner = new DistributedAnalysisRunner(configuration, clusterManager);
+
+        final AnalysisResultFuture resultFuture = analysisRunner.run(job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        final List<AnalyzerResult> results = resultFuture.getResults();
+        Assert.assertEquals(1, results.size());
+
+        final StringAnalyzerResult analyzerResult = (StringAnalyzerResult) results.get(0);
+        for (final InputColumn<?> column : analyzerResult.getColumns()) {
+            Assert.assertEquals(1, analyzerResult.getRowCount(column));
+        }
+    }
+
     public static void runCancelJobJob(final DataCleanerConfiguration configuration,
             final ClusterManager clusterManager) throws Throwable {
         // build a job that concats names and inserts the concatenated names
@@ -19,13 +19,20 @@
  */
 package org.datacleaner.cluster;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.components.keyrange.KeyRangeFilter;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.FilterJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.job.runner.AnalysisResultFuture;
@@ -88,6 +95,164 @@ public class DistributedAnalysisRunnerTest extends TestCase {
         ClusterTestHelper.runBasicAnalyzersJob(configuration, new VirtualClusterManager(configuration, 10));
     }
 
+    public void testRunBasicAnalyzersKeyRangeDivision() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final List<AnalysisJob> slaveJobs = new ArrayList<>();
+        final VirtualClusterManager clusterManager =
+                new VirtualClusterManager(configuration, new KeyRangeJobDivisionManager(6, "CUSTOMERNUMBER")) {
+                    @Override
+                    public AnalysisResultFuture dispatchJob(final AnalysisJob job,
+                            final DistributedJobContext context) {
+                        slaveJobs.add(job);
+                        return super.dispatchJob(job, context);
+                    }
+                };
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+
+        assertEquals(6, slaveJobs.size());
+        for (final AnalysisJob slaveJob : slaveJobs) {
+            final FilterJob filterJob = slaveJob.getFilterJobs().get(0);
+            assertEquals(KeyRangeFilter.class, filterJob.getDescriptor().getComponentClass());
+        }
+
+        ClusterTestHelper.runBasicAnalyzersJob(configuration,
+                new VirtualClusterManager(configuration, new KeyRangeJobDivisionManager(10, "CUSTOMERNUMBER")));
+    }
+
+    public void testKeyRangeDivisionWithEmptyRanges() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final List<AnalysisJob> slaveJobs = new ArrayList<>();
+        final VirtualClusterManager clusterManager =
+                new VirtualClusterManager(configuration, new KeyRangeJobDivisionManager(4, "CUSTOMERNUMBER")) {
+                    @Override
+                    public AnalysisResultFuture dispatchJob(final AnalysisJob job,
+                            final DistributedJobContext context) {
+                        slaveJobs.add(job);
+                        return super.dispatchJob(job, context);
+                    }
+                };
+
+        // only one of the key ranges contains the single record that passes
+        // the job's filter
+        ClusterTestHelper.runSingleRecordJob(configuration, clusterManager);
+
+        assertEquals(4, slaveJobs.size());
+        for (final AnalysisJob slaveJob : slaveJobs) {
+            final List<FilterJob> filterJobs = slaveJob.getFilterJobs();
+            assertEquals(2, filterJobs.size());
+            assertTrue(filterJobs.stream()
+                    .anyMatch(filterJob -> filterJob.getDescriptor().getComponentClass() == KeyRangeFilter.class));
+        }
+    }
+
+    public void testRunBasicAnalyzersWorkQueue() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        final List<DistributedJobContext> contexts = Collections.synchronizedList(new ArrayList<>());
+        final VirtualClusterManager clusterManager =
+                new VirtualClusterManager(configuration, new WorkQueueJobDivisionManager(3)) {
+                    @Override
+                    public AnalysisResultFuture dispatchJob(final AnalysisJob job,
+                            final DistributedJobContext context) {
+                        contexts.add(context);
+                        return super.dispatchJob(job, context);
+                    }
+                };
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+
+        assertEquals(12, contexts.size());
+        final Set<Integer> chunkIndexes = new TreeSet<>();
+        for (final DistributedJobContext context : contexts) {
+            assertEquals(12, context.getJobDivisionCount());
+            assertTrue(context.getSlaveIndex() >= 0 && context.getSlaveIndex() < 3);
+            chunkIndexes.add(context.getJobDivisionIndex());
+        }
+        assertEquals("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11]", chunkIndexes.toString());
+    }
+
+    public void testRunBasicAnalyzersWorkQueueWithKeyRangeChunksAndSpeculation() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, new VirtualClusterManager(configuration,
+                new WorkQueueJobDivisionManager(2, new KeyRangeJobDivisionManager(8, "CUSTOMERNUMBER"), 1.5)));
+    }
+
+    public void testCancelWorkQueue() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+
+        ClusterTestHelper.runCancelJobJob(configuration,
+                new VirtualClusterManager(configuration, new WorkQueueJobDivisionManager(2)));
+    }
+
+    public void testErrorHandlingWorkQueue() throws Exception {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+
+        final List<Throwable> errors = ClusterTestHelper.runErrorHandlingJob(configuration,
+                new VirtualClusterManager(configuration, new WorkQueueJobDivisionManager(2)));
+
+        assertFalse(errors.isEmpty());
+        for (final Throwable throwable : errors) {
+            final String message = throwable.getMessage();
+            if (!"I am just a dummy transformer!".equals(message) && !"A previous exception has occurred"
+                    .equals(message)) {
+                fail("Unexpected exception: " + message + " (" + throwable.getClass().getName() + ")");
+            }
+        }
+    }
+
+    public void testResumeFromCheckpoint() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+
+        final File checkpointFile = new File("target/" + getName() + ".checkpoint");
+        checkpointFile.delete();
+        final JobCheckpointStore checkpointStore = new JobCheckpointStore(checkpointFile);
+        final JobDivisionManager jobDivisionManager =
+                new WorkQueueJobDivisionManager(1, new KeyRangeJobDivisionManager(4, "CUSTOMERNUMBER"), 0);
+
+        // the first run fails in the third window
+        final VirtualClusterManager failingClusterManager =
+                new VirtualClusterManager(configuration, jobDivisionManager) {
+                    @Override
+                    public AnalysisResultFuture dispatchJob(final AnalysisJob job,
+                            final DistributedJobContext context) {
+                        if (context.getJobDivisionIndex() == 2) {
+                            return new FailedAnalysisResultFuture(new IllegalStateException("Simulated failure"));
+                        }
+                        return super.dispatchJob(job, context);
+                    }
+                };
+
+        try {
+            ClusterTestHelper.runBasicAnalyzersJob(configuration, failingClusterManager, checkpointStore);
+            fail("Exception expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("Simulated failure", e.getMessage());
+        }
+
+        final JobCheckpoint checkpoint = checkpointStore.read();
+        assertNotNull(checkpoint);
+        assertEquals(4, checkpoint.getWindowDescriptions().size());
+        assertEquals("CUSTOMERNUMBER >= null AND CUSTOMERNUMBER < 1354", checkpoint.getWindowDescriptions().get(0));
+        assertEquals("[0, 1]", checkpoint.getCompletedWindows().toString());
+
+        // the second run only runs the remaining windows, and yields the same
+        // results as a complete run
+        final List<DistributedJobContext> contexts = Collections.synchronizedList(new ArrayList<>());
+        final VirtualClusterManager clusterManager = new VirtualClusterManager(configuration, jobDivisionManager) {
+            @Override
+            public AnalysisResultFuture dispatchJob(final AnalysisJob job, final DistributedJobContext context) {
+                contexts.add(context);
+                return super.dispatchJob(job, context);
+            }
+        };
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager, checkpointStore);
+
+        assertEquals(2, contexts.size());
+        assertFalse(checkpointFile.exists());
+    }
+
     public void testErrorHandlingSingleSlave() throws Exception {
         final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
 
@@ -0,0 +1,82 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.metamodel.schema.Column;
+import org.datacleaner.beans.StringAnalyzer;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+
+import junit.framework.TestCase;
+
+public class KeyRangeJobDivisionManagerTest extends TestCase {
+
+    public void testPrimaryKeyRanges() throws Exception {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+        final AnalysisJob job = createJob(configuration, "orderdb", "ORDERS.STATUS");
+
+        final KeyRangeJobDivisionManager divisionManager = new KeyRangeJobDivisionManager(4);
+        final Column keyColumn = divisionManager.getKeyColumn(job);
+        assertEquals("ORDERNUMBER", keyColumn.getName());
+
+        assertEquals(Arrays.asList(10182L, 10263L, 10344L), divisionManager.calculateSplitPoints(job, keyColumn));
+    }
+
+    public void testNarrowKeyRange() throws Exception {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+        final AnalysisJob job = createJob(configuration, "orderdb", "ORDERFACT.STATUS");
+
+        final KeyRangeJobDivisionManager divisionManager = new KeyRangeJobDivisionManager(100, "ORDERLINENUMBER");
+        final Column keyColumn = divisionManager.getKeyColumn(job);
+        assertEquals("ORDERLINENUMBER", keyColumn.getName());
+
+        // no empty ranges are produced
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L),
+                divisionManager.calculateSplitPoints(job, keyColumn));
+    }
+
+    public void testNoKeyColumn() throws Exception {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), false);
+        final AnalysisJob job = createJob(configuration, "csv", "testtable.name");
+
+        final KeyRangeJobDivisionManager divisionManager = new KeyRangeJobDivisionManager(4);
+        assertNull(divisionManager.getKeyColumn(job));
+
+        final Column idColumn = new KeyRangeJobDivisionManager(4, "id").getKeyColumn(job);
+        assertEquals("ID", idColumn.getName());
+
+        // empty table
+        assertEquals(Collections.emptyList(), divisionManager.calculateSplitPoints(job, idColumn));
+    }
+
+    private AnalysisJob createJob(final DataCleanerConfiguration configuration, final String datastoreName,
+            final String columnPath) {
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore(datastoreName);
+            jobBuilder.addSourceColumns(columnPath);
+            jobBuilder.addAnalyzer(StringAnalyzer.class).addInputColumns(jobBuilder.getSourceColumns());
+            return jobBuilder.toAnalysisJob();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.metamodel.util.LazyRef;
+import org.datacleaner.cluster.virtual.VirtualClusterManager;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.result.AnalysisResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the scheduling of slave jobs on a virtual cluster where one slave is a
+ * lot slower than the others, comparing one equal slice per slave with a work
+ * queue of smaller chunks by the number of chunks each slave is assigned.
+ */
+public class WorkQueueSchedulingTest extends TestCase {
+
+    /**
+     * A virtual cluster where each slave job is delayed proportionally to the
+     * size of the slice it represents, and to the (simulated) slowness of the
+     * slave it is dispatched to. The delays are spent asynchronously, like the
+     * response time of a remote slave.
+     */
+    private static class HeterogeneousVirtualClusterManager extends VirtualClusterManager {
+
+        private final long[] _slaveMillisPerJob;
+        private final AtomicIntegerArray _dispatchCounts;
+
+        public HeterogeneousVirtualClusterManager(final DataCleanerConfiguration configuration,
+                final JobDivisionManager jobDivisionManager, final long... slaveMillisPerJob) {
+            super(configuration, jobDivisionManager);
+            _slaveMillisPerJob = slaveMillisPerJob;
+            _dispatchCounts = new AtomicIntegerArray(slaveMillisPerJob.length);
+        }
+
+        @Override
+        public AnalysisResultFuture dispatchJob(final AnalysisJob job, final DistributedJobContext context) {
+            _dispatchCounts.incrementAndGet(context.getSlaveIndex());
+            final long delayMillis = _slaveMillisPerJob[context.getSlaveIndex()] / context.getJobDivisionCount();
+            final List<Throwable> errors = new CopyOnWriteArrayList<>();
+            final LazyRef<AnalysisResult> resultRef = new LazyRef<AnalysisResult>() {
+                @Override
+                protected AnalysisResult fetch() throws Throwable {
+                    Thread.sleep(delayMillis);
+                    final AnalysisResultFuture result = dispatchVirtualJob(job, context);
+                    result.await();
+                    errors.addAll(result.getErrors());
+                    return result;
+                }
+            };
+            resultRef.requestLoad(errors::add);
+            return new LazyRefAnalysisResultFuture(resultRef, errors);
+        }
+
+        private AnalysisResultFuture dispatchVirtualJob(final AnalysisJob job, final DistributedJobContext context) {
+            return super.dispatchJob(job, context);
+        }
+
+        public int[] getDispatchCounts() {
+            final int[] counts = new int[_dispatchCounts.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = _dispatchCounts.get(i);
+            }
+            return counts;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueueSchedulingTest.class);
+
+    private static final long[] SLAVE_MILLIS_PER_JOB = { 8000, 250, 250, 250 };
+
+    public void testOneSlowSlave() throws Throwable {
+        final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(getName(), true);
+        final int slaveCount = SLAVE_MILLIS_PER_JOB.length;
+
+        final int[] fixedCounts = run(configuration, new FixedDivisionsCountJobDivisionManager(slaveCount));
+        final int[] workQueueCounts = run(configuration, new WorkQueueJobDivisionManager(slaveCount));
+        final int[] speculativeCounts = run(configuration, new WorkQueueJobDivisionManager(slaveCount,
+                new FixedDivisionsCountJobDivisionManager(slaveCount * 4), 2.0));
+
+        logger.info("Chunks per slave with one slice per slave: {}", Arrays.toString(fixedCounts));
+        logger.info("Chunks per slave with a work queue: {}", Arrays.toString(workQueueCounts));
+        logger.info("Chunks per slave with speculative chunks: {}", Arrays.toString(speculativeCounts));
+
+        // every slave gets its slice, including the slow one
+        assertEquals("[1, 1, 1, 1]", Arrays.toString(fixedCounts));
+
+        // the fast slaves pull more chunks of the queue than the slow slave
+        assertEquals(slaveCount * 4, sum(workQueueCounts));
+        assertSlowSlaveAssignedFewestChunks(workQueueCounts);
+
+        // the chunk of the slow slave is also run by an idle fast slave
+        assertTrue("No chunk was dispatched speculatively: " + Arrays.toString(speculativeCounts),
+                sum(speculativeCounts) > slaveCount * 4);
+        assertSlowSlaveAssignedFewestChunks(speculativeCounts);
+    }
+
+    private static void assertSlowSlaveAssignedFewestChunks(final int[] counts) {
+        for (int i = 1; i < counts.length; i++) {
+            assertTrue("Slow slave was assigned as many chunks as a fast slave: " + Arrays.toString(counts),
+                    counts[0] < counts[i]);
+        }
+    }
+
+    private static int sum(final int[] counts) {
+        int sum = 0;
+        for (final int count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private int[] run(final DataCleanerConfiguration configuration, final JobDivisionManager jobDivisionManager)
+            throws Throwable {
+        final HeterogeneousVirtualClusterManager clusterManager =
+                new HeterogeneousVirtualClusterManager(configuration, jobDivisionManager, SLAVE_MILLIS_PER_JOB);
+        ClusterTestHelper.runBasicAnalyzersJob(configuration, clusterManager);
+        return clusterManager.getDispatchCounts();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.cluster.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.ImmutableAnalyzerJob;
+import org.datacleaner.result.AnalysisResult;
+import org.datacleaner.result.NumberResult;
+import org.datacleaner.result.SimpleAnalysisResult;
+import org.datacleaner.test.MockAnalyzer;
+
+import junit.framework.TestCase;
+
+public class ClusterProtocolTest extends TestCase {
+
+    public void testJobRoundTrip() throws Exception {
+        final StringBuilder sb = new StringBuilder("<job>");
+        for (int i = 0; i < 1000; i++) {
+            sb.append("<column id=\"col_").append(i).append("\"/>");
+        }
+        sb.append("</job>");
+        final byte[] jobDefinition = sb.toString().getBytes("UTF-8");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClusterProtocol.writeJob(out, jobDefinition);
+
+        // the job XML is compressed
+        assertTrue(out.size() < jobDefinition.length / 4);
+
+        final InputStream in = ClusterProtocol.readJob(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sb.toString(), new String(IOUtils.toByteArray(in), "UTF-8"));
+    }
+
+    public void testResultRoundTrip() throws Exception {
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        final ComponentJob job1 = createComponentJob("job1");
+        final ComponentJob job2 = createComponentJob("job2");
+        resultMap.put(job1, new NumberResult(42));
+        resultMap.put(job2, new NumberResult(43));
+        final Date creationDate = new Date(1234567890L);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClusterProtocol.writeResult(out, new SimpleAnalysisResult(resultMap, creationDate));
+
+        final List<Throwable> errors = new ArrayList<>();
+        final AnalysisResult result = ClusterProtocol.readResult(new ByteArrayInputStream(out.toByteArray()), errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(creationDate, result.getCreationDate());
+        assertEquals(2, result.getResultMap().size());
+        assertEquals("[42, 43]", result.getResults().toString());
+    }
+
+    public void testResultFramesAreDecodedWhenIterated() throws Exception {
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        resultMap.put(createComponentJob("job1"), new NumberResult(42));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClusterProtocol.writeResult(out, new SimpleAnalysisResult(resultMap));
+
+        final AnalysisResult result =
+                ClusterProtocol.readResult(new ByteArrayInputStream(out.toByteArray()), new ArrayList<>());
+
+        // the decoded analyzer results are not held by the result map
+        final AnalyzerResult result1 = result.getResultMap().values().iterator().next();
+        final AnalyzerResult result2 = result.getResultMap().values().iterator().next();
+        assertEquals("42", result1.toString());
+        assertEquals("42", result2.toString());
+        assertNotSame(result1, result2);
+    }
+
+    public void testErrorsRoundTrip() throws Exception {
+        final ArrayList<Throwable> slaveErrors = new ArrayList<>();
+        slaveErrors.add(new IllegalStateException("foo"));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClusterProtocol.writeResult(out, slaveErrors);
+
+        final List<Throwable> errors = new ArrayList<>();
+        final AnalysisResult result = ClusterProtocol.readResult(new ByteArrayInputStream(out.toByteArray()), errors);
+
+        assertNull(result);
+        assertEquals(1, errors.size());
+        assertEquals("foo", errors.get(0).getMessage());
+    }
+
+    public void testTruncatedMessage() throws Exception {
+        final Map<ComponentJob, AnalyzerResult> resultMap = new LinkedHashMap<>();
+        resultMap.put(createComponentJob("job1"), new NumberResult(42));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ClusterProtocol.writeResult(out, new SimpleAnalysisResult(resultMap));
+        final byte[] bytes = out.toByteArray();
+
+        final ByteArrayInputStream in = new ByteArrayInputStream(bytes, 0, bytes.length - 10);
+        try {
+            ClusterProtocol.readResult(in, new ArrayList<>());
+            fail("Exception expected");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    public void testNotAProtocolMessage() throws Exception {
+        try {
+            ClusterProtocol.readJob(new ByteArrayInputStream("<job></job>".getBytes()));
+            fail("Exception expected");
+        } catch (final IOException e) {
+            assertEquals("Not a cluster protocol message (magic number: 3c6a6f62)", e.getMessage());
+        }
+    }
+
+    private ComponentJob createComponentJob(final String name) {
+        return new ImmutableAnalyzerJob(name, Descriptors.ofAnalyzer(MockAnalyzer.class), null, null, null);
+    }
+}
@@ -19,11 +19,21 @@
  */
 package org.datacleaner.cluster.http;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.beans.NumberAnalyzer;
+import org.datacleaner.beans.NumberAnalyzerResult;
 import org.datacleaner.cluster.ClusterTestHelper;
+import org.datacleaner.cluster.DistributedAnalysisRunner;
 import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.builder.AnalysisJobBuilder;
+import org.datacleaner.job.runner.AnalysisResultFuture;
+import org.datacleaner.job.runner.AnalysisRunnerImpl;
+import org.datacleaner.result.AnalysisResult;
 import org.eclipse.jetty.server.NetworkTrafficServerConnector;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.webapp.WebAppContext;
@@ -35,6 +45,7 @@ public class HttpClusterManagerTest extends TestCase {
     private Server server1;
     private Server server2;
     private Server server3;
+    private List<String> slaveEndpoints;
     private HttpClusterManager clusterManager;
 
     @Override
@@ -45,7 +56,7 @@ public class HttpClusterManagerTest extends TestCase {
         server2 = createServer(8883, false);
         server3 = createServer(8884, true);
 
-        final List<String> slaveEndpoints = new ArrayList<>();
+        slaveEndpoints = new ArrayList<>();
         slaveEndpoints.add("http://localhost:8882/slave_endpoint");
         slaveEndpoints.add("http://localhost:8883/slave_endpoint");
         slaveEndpoints.add("http://localhost:8884/slave_endpoint");
@@ -96,6 +107,53 @@ public class HttpClusterManagerTest extends TestCase {
         ClusterTestHelper.runCompletenessAndValueMatcherAnalyzerJob(configuration, clusterManager);
     }
 
+    public void testStreamedNumberAnalyzerResults() throws Throwable {
+        final DataCleanerConfiguration configuration =
+                ClusterTestHelper.createConfiguration(getClass().getSimpleName() + "_" + getName(), false);
+
+        // fail if a slave responds with a serialized result instead of the
+        // streamed cluster protocol
+        final HttpClusterManager streamingClusterManager = new HttpClusterManager(slaveEndpoints) {
+            @Override
+            protected AnalysisResult readResult(final InputStream inputStream, final List<Throwable> errors) {
+                throw new IllegalStateException("Slave did not respond in the cluster protocol");
+            }
+        };
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder jobBuilder = new AnalysisJobBuilder(configuration)) {
+            jobBuilder.setDatastore("orderdb");
+            jobBuilder.addSourceColumns("CUSTOMERS.SALESREPEMPLOYEENUMBER");
+            jobBuilder.addAnalyzer(NumberAnalyzer.class).addInputColumns(jobBuilder.getSourceColumns());
+            job = jobBuilder.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture localResult = new AnalysisRunnerImpl(configuration).run(job);
+        final AnalysisResultFuture distributedResult =
+                new DistributedAnalysisRunner(configuration, streamingClusterManager).run(job);
+        if (distributedResult.isErrornous()) {
+            throw distributedResult.getErrors().get(0);
+        }
+
+        final NumberAnalyzerResult expected = (NumberAnalyzerResult) localResult.getResults().get(0);
+        final NumberAnalyzerResult actual = (NumberAnalyzerResult) distributedResult.getResults().get(0);
+        final InputColumn<? extends Number> column = expected.getColumns()[0];
+
+        // the column has nulls, which the statistics must not count
+        assertTrue(expected.getNullCount(column).intValue() > 0);
+        assertEquals(expected.getRowCount(column).intValue(), actual.getRowCount(column).intValue());
+        assertEquals(expected.getNullCount(column).intValue(), actual.getNullCount(column).intValue());
+        assertEquals(expected.getSum(column).doubleValue(), actual.getSum(column).doubleValue(), 0.0001);
+        assertEquals(expected.getMean(column).doubleValue(), actual.getMean(column).doubleValue(), 0.0001);
+        assertEquals(expected.getGeometricMean(column).doubleValue(), actual.getGeometricMean(column).doubleValue(),
+                0.0001);
+        assertEquals(expected.getVariance(column).doubleValue(), actual.getVariance(column).doubleValue(), 0.0001);
+        assertEquals(expected.getStandardDeviation(column).doubleValue(),
+                actual.getStandardDeviation(column).doubleValue(), 0.0001);
+        assertEquals(expected.getSecondMoment(column).doubleValue(), actual.getSecondMoment(column).doubleValue(),
+                0.01);
+    }
+
     private Server createServer(final int port, final boolean multiThreaded) throws Exception {
         final String testName = getClass().getSimpleName() + "_" + getName();
         final DataCleanerConfiguration configuration = ClusterTestHelper.createConfiguration(testName, multiThreaded);
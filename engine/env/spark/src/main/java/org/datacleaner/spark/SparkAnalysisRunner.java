@@ -19,9 +19,15 @@
  */
 package org.datacleaner.spark;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.metamodel.csv.CsvConfiguration;
 import org.apache.metamodel.fixedwidth.FixedWidthConfiguration;
 import org.apache.metamodel.util.Resource;
@@ -33,18 +39,24 @@ import org.datacleaner.api.InputRow;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.FixedWidthDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.job.runner.AnalysisRunner;
-import org.datacleaner.spark.functions.AnalyzerResultReduceFunction;
+import org.datacleaner.spark.functions.AnalyzerResultCombiner;
+import org.datacleaner.spark.functions.AssignRowIdFunction;
 import org.datacleaner.spark.functions.CsvParserFunction;
 import org.datacleaner.spark.functions.ExtractAnalyzerResultFunction;
 import org.datacleaner.spark.functions.FixedWidthParserFunction;
+import org.datacleaner.spark.functions.JdbcQueryFunction;
 import org.datacleaner.spark.functions.JsonParserFunction;
 import org.datacleaner.spark.functions.RowProcessingFunction;
 import org.datacleaner.spark.functions.TuplesToTuplesFunction;
 import org.datacleaner.spark.functions.ValuesToInputRowFunction;
+import org.datacleaner.spark.io.CsvInputFormat;
+import org.datacleaner.spark.io.JdbcPartition;
+import org.datacleaner.spark.io.JdbcPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,6 +99,7 @@ public class SparkAnalysisRunner implements AnalysisRunner {
 
     public AnalysisResultFuture run() {
         _sparkJobContext.triggerOnJobStart();
+        _sparkJobContext.broadcastReferenceData(_sparkContext);
         final AnalysisJob analysisJob = _sparkJobContext.getAnalysisJob();
         final Datastore datastore = analysisJob.getDatastore();
 
@@ -107,8 +120,12 @@ public class SparkAnalysisRunner implements AnalysisRunner {
                 final JavaPairRDD<String, NamedAnalyzerResult> partialNamedAnalyzerResultsRDD =
                         processedTuplesRdd.mapPartitionsToPair(new TuplesToTuplesFunction<>(), preservePartitions);
 
-                namedAnalyzerResultsRDD =
-                        partialNamedAnalyzerResultsRDD.reduceByKey(new AnalyzerResultReduceFunction(_sparkJobContext));
+                // combine the results of each component in groups rather than
+                // pairwise, so that each reducer is invoked with many results
+                final AnalyzerResultCombiner combiner = new AnalyzerResultCombiner(_sparkJobContext);
+                namedAnalyzerResultsRDD = partialNamedAnalyzerResultsRDD
+                        .combineByKey(combiner::createCombiner, combiner::mergeValue, combiner::mergeCombiners)
+                        .mapValues(combiner::finish);
             } else {
                 // call count() to block and wait for RDD to be fully processed
                 processedTuplesRdd.count();
@@ -158,22 +175,19 @@ public class SparkAnalysisRunner implements AnalysisRunner {
 
             final CsvConfiguration csvConfiguration = csvDatastore.getCsvConfiguration();
 
-            final JavaRDD<String> rawInput;
-            if (_minPartitions != null) {
-                rawInput = _sparkContext.textFile(datastorePath, _minPartitions);
-            } else {
-                rawInput = _sparkContext.textFile(datastorePath);
-            }
-            final JavaRDD<Object[]> parsedInput = rawInput.map(new CsvParserFunction(csvConfiguration));
+            final Configuration hadoopConfiguration = createHadoopConfiguration(datastorePath);
+            CsvInputFormat.configure(hadoopConfiguration, csvConfiguration);
 
-            JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
+            final JavaPairRDD<LongWritable, Text> rawInput = _sparkContext
+                    .newAPIHadoopFile(datastorePath, CsvInputFormat.class, LongWritable.class, Text.class,
+                            hadoopConfiguration);
 
-            if (csvConfiguration.getColumnNameLineNumber() != CsvConfiguration.NO_COLUMN_NAME_LINE) {
-                zipWithIndex =
-                        zipWithIndex.filter(new SkipHeaderLineFunction(csvConfiguration.getColumnNameLineNumber()));
-            }
+            // parsing, skipping the header and numbering the rows is all done
+            // within each partition, so that no extra pass is needed
+            final JavaRDD<Tuple2<Object[], Long>> parsedInput =
+                    rawInput.mapPartitionsWithIndex(new CsvParserFunction(csvConfiguration), true);
 
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+            return parsedInput.map(new ValuesToInputRowFunction(_sparkJobContext));
         } else if (datastore instanceof JsonDatastore) {
             final JsonDatastore jsonDatastore = (JsonDatastore) datastore;
             final String datastorePath = jsonDatastore.getResource().getQualifiedPath();
@@ -185,8 +199,9 @@ public class SparkAnalysisRunner implements AnalysisRunner {
             }
 
             final JavaRDD<Object[]> parsedInput = rawInput.map(new JsonParserFunction(jsonDatastore));
-            final JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+            final JavaRDD<Tuple2<Object[], Long>> indexedInput =
+                    parsedInput.mapPartitionsWithIndex(new AssignRowIdFunction<>(), true);
+            return indexedInput.map(new ValuesToInputRowFunction(_sparkJobContext));
         } else if (datastore instanceof FixedWidthDatastore) {
 
             final FixedWidthDatastore fixedWidthDatastore = (FixedWidthDatastore) datastore;
@@ -203,16 +218,50 @@ public class SparkAnalysisRunner implements AnalysisRunner {
 
             final JavaRDD<Object[]> parsedInput = rawInput.map(new FixedWidthParserFunction(fixedWidthConfiguration));
 
-            JavaPairRDD<Object[], Long> zipWithIndex = parsedInput.zipWithIndex();
+            JavaRDD<Tuple2<Object[], Long>> indexedInput =
+                    parsedInput.mapPartitionsWithIndex(new AssignRowIdFunction<>(), true);
 
             if (fixedWidthConfiguration.getColumnNameLineNumber() != FixedWidthConfiguration.NO_COLUMN_NAME_LINE) {
-                zipWithIndex = zipWithIndex
+                indexedInput = indexedInput
                         .filter(new SkipHeaderLineFunction(fixedWidthConfiguration.getColumnNameLineNumber()));
             }
 
-            return zipWithIndex.map(new ValuesToInputRowFunction(_sparkJobContext));
+            return indexedInput.map(new ValuesToInputRowFunction(_sparkJobContext));
+        } else if (datastore instanceof JdbcDatastore) {
+            int partitions = _sparkJobContext.getJdbcPartitions();
+            if (partitions == 0) {
+                partitions = _minPartitions != null ? _minPartitions : _sparkContext.defaultParallelism();
+            }
+
+            final List<JdbcPartition> jdbcPartitions = new JdbcPartitioner(_sparkJobContext).createPartitions(partitions);
+            final JavaRDD<Tuple2<Object[], Long>> rawInput = _sparkContext
+                    .parallelize(jdbcPartitions, jdbcPartitions.size())
+                    .mapPartitionsWithIndex(new JdbcQueryFunction(_sparkJobContext), true);
+
+            return rawInput.map(new ValuesToInputRowFunction(_sparkJobContext));
         }
 
         throw new UnsupportedOperationException("Unsupported datastore type or configuration: " + datastore);
     }
+
+    /**
+     * Creates the Hadoop configuration for reading a file with
+     * {@link JavaSparkContext#newAPIHadoopFile(String, Class, Class, Class, Configuration)}
+     * . If a minimum number of partitions is set, the split size is capped the
+     * same way {@link JavaSparkContext#textFile(String, int)} does it.
+     */
+    private Configuration createHadoopConfiguration(final String path) {
+        final Configuration hadoopConfiguration = new Configuration(_sparkContext.hadoopConfiguration());
+        if (_minPartitions != null) {
+            final Path hadoopPath = new Path(path);
+            try {
+                final long length =
+                        hadoopPath.getFileSystem(hadoopConfiguration).getContentSummary(hadoopPath).getLength();
+                hadoopConfiguration.setLong(FileInputFormat.SPLIT_MAXSIZE, Math.max(1, length / _minPartitions));
+            } catch (final IOException e) {
+                throw new IllegalStateException("Failed to determine size of " + path, e);
+            }
+        }
+        return hadoopConfiguration;
+    }
 }
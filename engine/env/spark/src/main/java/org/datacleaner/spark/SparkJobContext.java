@@ -29,13 +29,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.metamodel.util.CollectionUtils;
 import org.apache.metamodel.util.HdfsResource;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
 import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.DataCleanerConfigurationImpl;
 import org.datacleaner.configuration.JaxbConfigurationReader;
+import org.datacleaner.descriptors.ConfiguredPropertyDescriptor;
 import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.ComponentJob;
 import org.datacleaner.job.JaxbJobReader;
@@ -43,6 +47,12 @@ import org.datacleaner.job.OutputDataStreamJob;
 import org.datacleaner.job.builder.AnalysisJobBuilder;
 import org.datacleaner.job.builder.AnalyzerComponentBuilder;
 import org.datacleaner.job.builder.ComponentBuilder;
+import org.datacleaner.reference.Dictionary;
+import org.datacleaner.reference.ReferenceDataCatalog;
+import org.datacleaner.reference.ReferenceDataCatalogImpl;
+import org.datacleaner.reference.SynonymCatalog;
+import org.datacleaner.reference.TextFileDictionary;
+import org.datacleaner.reference.TextFileSynonymCatalog;
 import org.datacleaner.spark.utils.HdfsHelper;
 import org.datacleaner.util.InputStreamToPropertiesMapFunc;
 import org.datacleaner.util.SystemProperties;
@@ -60,6 +70,11 @@ public class SparkJobContext implements Serializable {
     private static final Logger logger = LoggerFactory.getLogger(SparkJobContext.class);
     private static final String PROPERTY_RESULT_PATH = "datacleaner.result.hdfs.path";
     private static final String PROPERTY_RESULT_ENABLED = "datacleaner.result.hdfs.enabled";
+    private static final String PROPERTY_PARTITION_THREADS = "datacleaner.spark.partition.threads";
+    private static final String PROPERTY_PARTITION_QUEUE_SIZE = "datacleaner.spark.partition.queue.size";
+    private static final String PROPERTY_REDUCE_FAN_IN = "datacleaner.spark.reduce.fanin";
+    private static final String PROPERTY_JDBC_PARTITIONS = "datacleaner.spark.jdbc.partitions";
+    private static final String PROPERTY_JDBC_PARTITION_COLUMN = "datacleaner.spark.jdbc.partition.column";
 
     private static final long serialVersionUID = 1L;
 
@@ -68,9 +83,12 @@ public class SparkJobContext implements Serializable {
     private final String _analysisJobXml;
     private final Map<String, String> _customProperties;
     private final List<SparkJobLifeCycleListener> _sparkJobLifeCycleListeners = new ArrayList<>();
+    private Broadcast<ReferenceDataCatalog> _referenceDataBroadcast;
 
     // cached/transient state
+    private transient String _configurationKey;
     private transient DataCleanerConfiguration _dataCleanerConfiguration;
+    private transient AnalysisJob _analysisJob;
     private transient AnalysisJobBuilder _analysisJobBuilder;
 
     public SparkJobContext(final URI dataCleanerConfigurationPath, final URI analysisJobXmlPath,
@@ -128,17 +146,121 @@ public class SparkJobContext implements Serializable {
             // ensure parsability of result path
             getResultPath();
         }
+        if (getPartitionThreads() < 1) {
+            throw new IllegalArgumentException(PROPERTY_PARTITION_THREADS + " must be a positive number");
+        }
+        if (getPartitionQueueSize() < 1) {
+            throw new IllegalArgumentException(PROPERTY_PARTITION_QUEUE_SIZE + " must be a positive number");
+        }
+        if (getReduceFanIn() < 2) {
+            throw new IllegalArgumentException(PROPERTY_REDUCE_FAN_IN + " must be at least 2");
+        }
+        if (getJdbcPartitions() < 0) {
+            throw new IllegalArgumentException(PROPERTY_JDBC_PARTITIONS + " must be a positive number");
+        }
     }
 
+    /**
+     * Gets the configuration of the job. The parsed configuration is cached
+     * in the JVM, so that the tasks of an executor share it instead of each
+     * reading the XML again.
+     *
+     * @return
+     */
     public DataCleanerConfiguration getConfiguration() {
         if (_dataCleanerConfiguration == null) {
-            final JaxbConfigurationReader confReader =
-                    new JaxbConfigurationReader(new SparkConfigurationReaderInterceptor(_customProperties));
-            _dataCleanerConfiguration = confReader.read(createInputStream(_configurationXml));
+            _dataCleanerConfiguration =
+                    SparkJobContextCache.getConfiguration(getConfigurationKey(), this::readConfiguration);
         }
         return _dataCleanerConfiguration;
     }
 
+    private DataCleanerConfiguration readConfiguration() {
+        final JaxbConfigurationReader confReader =
+                new JaxbConfigurationReader(new SparkConfigurationReaderInterceptor(_customProperties));
+        final DataCleanerConfiguration configuration = confReader.read(createInputStream(_configurationXml));
+        if (_referenceDataBroadcast == null) {
+            return configuration;
+        }
+        final ReferenceDataCatalog referenceDataCatalog =
+                new SparkReferenceDataCatalog(configuration.getReferenceDataCatalog(), _referenceDataBroadcast);
+        return new DataCleanerConfigurationImpl(configuration.getEnvironment(), configuration.getHomeFolder(),
+                configuration.getDatastoreCatalog(), referenceDataCatalog,
+                configuration.getServerInformationCatalog());
+    }
+
+    private String getConfigurationKey() {
+        if (_configurationKey == null) {
+            final String broadcastId =
+                    _referenceDataBroadcast == null ? null : Long.toString(_referenceDataBroadcast.id());
+            _configurationKey = SparkJobContextCache
+                    .hash(_configurationXml, new TreeMap<>(_customProperties).toString(), broadcastId);
+        }
+        return _configurationKey;
+    }
+
+    /**
+     * Loads the file based dictionaries and synonym catalogs that the job uses
+     * on the driver and ships them to the executors as a broadcast variable.
+     * Connections opened on the executors then use the broadcast in-memory
+     * copy instead of every task reading and indexing the files again. Must be
+     * invoked before the job's functions are submitted to Spark.
+     *
+     * @param sparkContext
+     */
+    public void broadcastReferenceData(final JavaSparkContext sparkContext) {
+        if (_referenceDataBroadcast != null) {
+            return;
+        }
+
+        final DataCleanerConfiguration configuration = getConfiguration();
+        final Map<String, Dictionary> dictionaries = new TreeMap<>();
+        final Map<String, SynonymCatalog> synonymCatalogs = new TreeMap<>();
+        getAnalysisJob().flattened().flatMap(job -> job.getComponentJobs().stream()).forEach(componentJob -> {
+            for (final ConfiguredPropertyDescriptor property : componentJob.getDescriptor()
+                    .getConfiguredPropertiesByType(Dictionary.class, true)) {
+                for (final Object value : toArray(componentJob.getConfiguration().getProperty(property))) {
+                    if (value instanceof TextFileDictionary) {
+                        final TextFileDictionary dictionary = (TextFileDictionary) value;
+                        dictionaries.computeIfAbsent(dictionary.getName(),
+                                name -> dictionary.toSimpleDictionary(configuration));
+                    }
+                }
+            }
+            for (final ConfiguredPropertyDescriptor property : componentJob.getDescriptor()
+                    .getConfiguredPropertiesByType(SynonymCatalog.class, true)) {
+                for (final Object value : toArray(componentJob.getConfiguration().getProperty(property))) {
+                    if (value instanceof TextFileSynonymCatalog) {
+                        final TextFileSynonymCatalog synonymCatalog = (TextFileSynonymCatalog) value;
+                        synonymCatalogs.computeIfAbsent(synonymCatalog.getName(),
+                                name -> synonymCatalog.toSimpleSynonymCatalog(configuration));
+                    }
+                }
+            }
+        });
+
+        if (dictionaries.isEmpty() && synonymCatalogs.isEmpty()) {
+            return;
+        }
+
+        logger.info("Broadcasting reference data - dictionaries: {}, synonym catalogs: {}", dictionaries.keySet(),
+                synonymCatalogs.keySet());
+        _referenceDataBroadcast = sparkContext.broadcast(
+                new ReferenceDataCatalogImpl(new ArrayList<>(dictionaries.values()),
+                        new ArrayList<>(synonymCatalogs.values()), new ArrayList<>()));
+        _configurationKey = null;
+    }
+
+    private static Object[] toArray(final Object value) {
+        if (value == null) {
+            return new Object[0];
+        }
+        if (value.getClass().isArray()) {
+            return (Object[]) value;
+        }
+        return new Object[] { value };
+    }
+
     public String getJobName() {
         return _jobName;
     }
@@ -152,10 +274,29 @@ public class SparkJobContext implements Serializable {
         }
     }
 
+    /**
+     * Gets the job to run. Like the configuration, the job is cached in the
+     * JVM and shared by all tasks of an executor. It reflects the job as
+     * defined in the XML, not any changes made to the builder returned by
+     * {@link #getAnalysisJobBuilder()}.
+     *
+     * @return
+     */
     public AnalysisJob getAnalysisJob() {
-        return getAnalysisJobBuilder().toAnalysisJob();
+        if (_analysisJob == null) {
+            final String key = getConfigurationKey() + "." + SparkJobContextCache.hash(_analysisJobXml);
+            _analysisJob = SparkJobContextCache.getAnalysisJob(key, () -> getAnalysisJobBuilder().toAnalysisJob());
+        }
+        return _analysisJob;
     }
 
+    /**
+     * Gets a job builder of the job, parsed from the XML. Unlike the job, the
+     * builder is specific to this instance, so that it can be modified
+     * safely.
+     *
+     * @return
+     */
     public AnalysisJobBuilder getAnalysisJobBuilder() {
         if (_analysisJobBuilder == null) {
             // set HDFS as default scheme to avoid file resources
@@ -256,6 +397,75 @@ public class SparkJobContext implements Serializable {
         return !"false".equalsIgnoreCase(enabledString);
     }
 
+    /**
+     * Gets the number of threads that process the rows of a single partition,
+     * as defined in the job properties file. Defaults to 1, which processes
+     * rows on the Spark task thread.
+     *
+     * @return
+     */
+    public int getPartitionThreads() {
+        return getIntProperty(PROPERTY_PARTITION_THREADS, 1);
+    }
+
+    /**
+     * Gets the maximum number of rows that are read ahead of the partition
+     * threads, as defined in the job properties file.
+     *
+     * @return
+     */
+    public int getPartitionQueueSize() {
+        return getIntProperty(PROPERTY_PARTITION_QUEUE_SIZE, 1000 * getPartitionThreads());
+    }
+
+    /**
+     * Gets the maximum number of analyzer results that are passed to a result
+     * reducer at once, as defined in the job properties file.
+     *
+     * @return
+     */
+    public int getReduceFanIn() {
+        return getIntProperty(PROPERTY_REDUCE_FAN_IN, 100);
+    }
+
+    /**
+     * Gets the number of partitions that a JDBC source table is read in, as
+     * defined in the job properties file. Returns 0 if not defined, in which
+     * case the runner decides.
+     *
+     * @return
+     */
+    public int getJdbcPartitions() {
+        return getIntProperty(PROPERTY_JDBC_PARTITIONS, 0);
+    }
+
+    /**
+     * Gets the name of the numeric column that a JDBC source table is
+     * partitioned by, as defined in the job properties file. Returns null if
+     * not defined, in which case a numeric primary key is used.
+     *
+     * @return
+     */
+    public String getJdbcPartitionColumn() {
+        final String str = _customProperties.get(PROPERTY_JDBC_PARTITION_COLUMN);
+        if (Strings.isNullOrEmpty(str)) {
+            return null;
+        }
+        return str.trim();
+    }
+
+    private int getIntProperty(final String key, final int defaultValue) {
+        final String str = _customProperties.get(key);
+        if (Strings.isNullOrEmpty(str)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(str.trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid number for " + key + ": " + str, e);
+        }
+    }
+
     /**
      * Adds a listener for the job life cycle.
      *
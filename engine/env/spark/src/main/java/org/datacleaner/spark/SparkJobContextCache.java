@@ -0,0 +1,104 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.util.CollectionUtils2;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * JVM wide cache of the configurations and jobs parsed by
+ * {@link SparkJobContext}s. Every task deserializes its own copy of the job
+ * context, so without this cache each task would read the configuration and
+ * job XML again. Entries are keyed by a hash of the content they were parsed
+ * from, which makes it safe to share them between all tasks of an executor.
+ */
+final class SparkJobContextCache {
+
+    private static final int MAXIMUM_SIZE = 10;
+    private static final long EXPIRY_SECONDS = 60 * 60;
+
+    private static final Cache<String, DataCleanerConfiguration> configurations =
+            CollectionUtils2.createCache(MAXIMUM_SIZE, EXPIRY_SECONDS);
+    private static final Cache<String, AnalysisJob> analysisJobs =
+            CollectionUtils2.createCache(MAXIMUM_SIZE, EXPIRY_SECONDS);
+
+    private SparkJobContextCache() {
+        // prevent instantiation
+    }
+
+    public static DataCleanerConfiguration getConfiguration(final String key,
+            final Callable<DataCleanerConfiguration> loader) {
+        return get(configurations, key, loader);
+    }
+
+    public static AnalysisJob getAnalysisJob(final String key, final Callable<AnalysisJob> loader) {
+        return get(analysisJobs, key, loader);
+    }
+
+    /**
+     * Creates a content hash to use as (part of) a cache key.
+     *
+     * @param contents
+     * @return
+     */
+    public static String hash(final String... contents) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (final String content : contents) {
+            if (content != null) {
+                digest.update(content.getBytes(StandardCharsets.UTF_8));
+            }
+            // separator, so that the boundaries between contents count
+            digest.update((byte) 0);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static <V> V get(final Cache<String, V> cache, final String key, final Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
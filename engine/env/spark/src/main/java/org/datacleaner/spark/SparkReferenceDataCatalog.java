@@ -0,0 +1,85 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import org.apache.spark.broadcast.Broadcast;
+import org.datacleaner.reference.Dictionary;
+import org.datacleaner.reference.ReferenceDataCatalog;
+import org.datacleaner.reference.StringPattern;
+import org.datacleaner.reference.SynonymCatalog;
+
+/**
+ * A {@link ReferenceDataCatalog} used on the Spark executors. Dictionaries and
+ * synonym catalogs that were loaded on the driver and broadcast by the
+ * {@link SparkJobContext} are served from the broadcast copy, which is shared
+ * by all tasks of an executor. Everything else is delegated to the catalog of
+ * the configuration.
+ */
+public class SparkReferenceDataCatalog implements ReferenceDataCatalog {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ReferenceDataCatalog _delegate;
+    private final Broadcast<ReferenceDataCatalog> _broadcastCatalog;
+
+    public SparkReferenceDataCatalog(final ReferenceDataCatalog delegate,
+            final Broadcast<ReferenceDataCatalog> broadcastCatalog) {
+        _delegate = delegate;
+        _broadcastCatalog = broadcastCatalog;
+    }
+
+    @Override
+    public String[] getDictionaryNames() {
+        return _delegate.getDictionaryNames();
+    }
+
+    @Override
+    public Dictionary getDictionary(final String name) {
+        final Dictionary dictionary = _broadcastCatalog.value().getDictionary(name);
+        if (dictionary != null) {
+            return dictionary;
+        }
+        return _delegate.getDictionary(name);
+    }
+
+    @Override
+    public String[] getSynonymCatalogNames() {
+        return _delegate.getSynonymCatalogNames();
+    }
+
+    @Override
+    public SynonymCatalog getSynonymCatalog(final String name) {
+        final SynonymCatalog synonymCatalog = _broadcastCatalog.value().getSynonymCatalog(name);
+        if (synonymCatalog != null) {
+            return synonymCatalog;
+        }
+        return _delegate.getSynonymCatalog(name);
+    }
+
+    @Override
+    public String[] getStringPatternNames() {
+        return _delegate.getStringPatternNames();
+    }
+
+    @Override
+    public StringPattern getStringPattern(final String name) {
+        return _delegate.getStringPattern(name);
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.AnalyzerResultReducer;
+import org.datacleaner.api.PartialAnalyzerResult;
+import org.datacleaner.configuration.DataCleanerConfiguration;
+import org.datacleaner.configuration.InjectionManager;
+import org.datacleaner.descriptors.ComponentDescriptor;
+import org.datacleaner.descriptors.Descriptors;
+import org.datacleaner.descriptors.ResultDescriptor;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.spark.NamedAnalyzerResult;
+import org.datacleaner.spark.SparkJobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the functions for combining the partial results of the partitions
+ * of a job, per component key, using Spark's combineByKey.
+ *
+ * Results are collected in groups and each group is passed to the
+ * {@link AnalyzerResultReducer} of the component in one go. To bound the
+ * memory used by a group, it is reduced into a single result whenever it
+ * reaches the configured maximum fan-in, which makes the reduction a tree when
+ * there are many partitions. {@link PartialAnalyzerResult}s are instead merged
+ * into each other as soon as they meet. If a group holds both partial and
+ * other results, the partial results are turned into final results and
+ * passed to the reducer as well.
+ *
+ * Reducers are initialized once per key and task, instead of once per pair of
+ * results.
+ */
+public final class AnalyzerResultCombiner implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyzerResultCombiner.class);
+
+    private final SparkJobContext _sparkJobContext;
+    private final int _maxFanIn;
+
+    private transient Map<String, AnalyzerResultReducer<AnalyzerResult>> _reducers;
+
+    public AnalyzerResultCombiner(final SparkJobContext sparkJobContext) {
+        _sparkJobContext = sparkJobContext;
+        _maxFanIn = sparkJobContext.getReduceFanIn();
+    }
+
+    public List<NamedAnalyzerResult> createCombiner(final NamedAnalyzerResult namedAnalyzerResult) {
+        final List<NamedAnalyzerResult> group = new ArrayList<>();
+        group.add(namedAnalyzerResult);
+        return group;
+    }
+
+    public List<NamedAnalyzerResult> mergeValue(final List<NamedAnalyzerResult> group,
+            final NamedAnalyzerResult namedAnalyzerResult) {
+        add(group, namedAnalyzerResult);
+        return group;
+    }
+
+    public List<NamedAnalyzerResult> mergeCombiners(final List<NamedAnalyzerResult> group1,
+            final List<NamedAnalyzerResult> group2) {
+        for (final NamedAnalyzerResult namedAnalyzerResult : group2) {
+            add(group1, namedAnalyzerResult);
+        }
+        return group1;
+    }
+
+    /**
+     * Reduces a (complete) group of results into the final result of the
+     * component.
+     *
+     * @param group
+     * @return
+     */
+    public NamedAnalyzerResult finish(final List<NamedAnalyzerResult> group) {
+        if (group.size() == 1) {
+            return group.get(0);
+        }
+        return reduce(group);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void add(final List<NamedAnalyzerResult> group, final NamedAnalyzerResult namedAnalyzerResult) {
+        final AnalyzerResult analyzerResult = namedAnalyzerResult.getAnalyzerResult();
+        if (group.size() == 1 && isMergeable(group.get(0).getAnalyzerResult(), analyzerResult)) {
+            final PartialAnalyzerResult partialResult = (PartialAnalyzerResult) group.get(0).getAnalyzerResult();
+            final AnalyzerResult merged = (AnalyzerResult) partialResult.merge((PartialAnalyzerResult) analyzerResult);
+            group.set(0, new NamedAnalyzerResult(namedAnalyzerResult.getName(), merged));
+            return;
+        }
+
+        group.add(namedAnalyzerResult);
+        if (group.size() >= _maxFanIn) {
+            final NamedAnalyzerResult reduced = reduce(group);
+            group.clear();
+            group.add(reduced);
+        }
+    }
+
+    /**
+     * Determines whether a result can be merged into another, ie. if both are
+     * partial results of the same type. Otherwise they are passed to the
+     * reducer of the component.
+     */
+    private static boolean isMergeable(final AnalyzerResult result, final AnalyzerResult otherResult) {
+        return result instanceof PartialAnalyzerResult && otherResult instanceof PartialAnalyzerResult
+                && result.getClass() == otherResult.getClass();
+    }
+
+    private NamedAnalyzerResult reduce(final List<NamedAnalyzerResult> group) {
+        final String key = group.get(0).getName();
+        final List<AnalyzerResult> analyzerResults = new ArrayList<>(group.size());
+        for (final NamedAnalyzerResult namedAnalyzerResult : group) {
+            assert key.equals(namedAnalyzerResult.getName());
+            final AnalyzerResult analyzerResult = namedAnalyzerResult.getAnalyzerResult();
+            if (analyzerResult instanceof PartialAnalyzerResult) {
+                // reducers only know the final results
+                analyzerResults.add(((PartialAnalyzerResult<?, ?>) analyzerResult).toResult());
+            } else {
+                analyzerResults.add(analyzerResult);
+            }
+        }
+
+        logger.info("Reducing {} results with key '{}' of type: {}", analyzerResults.size(), key,
+                analyzerResults.get(0).getClass());
+
+        final AnalyzerResultReducer<AnalyzerResult> reducer = getReducer(key, analyzerResults.get(0));
+        final AnalyzerResult reducedAnalyzerResult = reducer.reduce(analyzerResults);
+        return new NamedAnalyzerResult(key, reducedAnalyzerResult);
+    }
+
+    private AnalyzerResultReducer<AnalyzerResult> getReducer(final String key, final AnalyzerResult analyzerResult) {
+        if (_reducers == null) {
+            _reducers = new HashMap<>();
+        }
+        AnalyzerResultReducer<AnalyzerResult> reducer = _reducers.get(key);
+        if (reducer == null) {
+            final ComponentJob componentJob = _sparkJobContext.getComponentByKey(key);
+            final ResultDescriptor rd = getResultDescriptor(componentJob, analyzerResult);
+            final Class<? extends AnalyzerResultReducer<?>> resultReducerClass = rd.getResultReducerClass();
+
+            if (resultReducerClass == null) {
+                throw new IllegalStateException("The result type (" + analyzerResult + ") is not distributable!");
+            }
+
+            reducer = initializeReducer(resultReducerClass);
+            _reducers.put(key, reducer);
+        }
+        return reducer;
+    }
+
+    private AnalyzerResultReducer<AnalyzerResult> initializeReducer(
+            final Class<? extends AnalyzerResultReducer<?>> resultReducerClass) {
+
+        final DataCleanerConfiguration configuration = _sparkJobContext.getConfiguration();
+        final InjectionManager injectionManager = configuration.getEnvironment().getInjectionManagerFactory()
+                .getInjectionManager(configuration, _sparkJobContext.getAnalysisJob());
+        final LifeCycleHelper lifeCycleHelper = new LifeCycleHelper(injectionManager, false);
+
+        final ComponentDescriptor<? extends AnalyzerResultReducer<?>> reducerDescriptor =
+                Descriptors.ofComponent(resultReducerClass);
+
+        @SuppressWarnings("unchecked") final AnalyzerResultReducer<AnalyzerResult> reducer =
+                (AnalyzerResultReducer<AnalyzerResult>) reducerDescriptor.newInstance();
+
+        lifeCycleHelper.assignProvidedProperties(reducerDescriptor, reducer);
+        lifeCycleHelper.initialize(reducerDescriptor, reducer);
+
+        return reducer;
+    }
+
+    protected ResultDescriptor getResultDescriptor(final ComponentJob componentJob,
+            final AnalyzerResult analyzerResult) {
+        final ComponentDescriptor<?> descriptor = componentJob.getDescriptor();
+        if (descriptor instanceof ResultDescriptor) {
+            return (ResultDescriptor) descriptor;
+        }
+        // slightly more expensive, but potentially also better / more specific!
+        return Descriptors.ofResult(analyzerResult);
+    }
+}
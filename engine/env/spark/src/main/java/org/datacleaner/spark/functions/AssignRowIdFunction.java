@@ -0,0 +1,71 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.Iterator;
+
+import org.apache.spark.api.java.function.Function2;
+
+import scala.Tuple2;
+
+/**
+ * Pairs the elements of a partition with row ids that are unique across
+ * partitions, without the extra job that {@code zipWithIndex()} runs to count
+ * the elements of each partition. Ids in the first partition start at 0, so
+ * header lines at the beginning of a single input file keep their line index.
+ *
+ * @param <T>
+ */
+public final class AssignRowIdFunction<T> implements Function2<Integer, Iterator<T>, Iterator<Tuple2<T, Long>>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int ROW_INDEX_BITS = 40;
+
+    /**
+     * Creates the id of a row from the index of its partition and its index
+     * within the partition.
+     *
+     * @param partitionIndex
+     * @param rowIndex
+     * @return
+     */
+    public static long createRowId(final int partitionIndex, final long rowIndex) {
+        return ((long) partitionIndex << ROW_INDEX_BITS) + rowIndex;
+    }
+
+    @Override
+    public Iterator<Tuple2<T, Long>> call(final Integer partitionIndex, final Iterator<T> elements) throws Exception {
+        return new Iterator<Tuple2<T, Long>>() {
+
+            private long _rowIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public Tuple2<T, Long> next() {
+                return new Tuple2<>(elements.next(), createRowId(partitionIndex, _rowIndex++));
+            }
+        };
+    }
+}
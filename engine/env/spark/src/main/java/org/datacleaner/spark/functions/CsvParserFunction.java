@@ -19,22 +19,34 @@
  */
 package org.datacleaner.spark.functions;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.metamodel.csv.CsvConfiguration;
-import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.datacleaner.spark.io.CsvInputFormat;
 
 import com.opencsv.CSVParser;
 
-public final class CsvParserFunction implements Function<String, Object[]> {
+import scala.Tuple2;
+
+/**
+ * Parses the records of a partition read by {@link CsvInputFormat}, using a
+ * single {@link CSVParser} for the whole partition. The header lines are
+ * skipped in the partition that holds the beginning of the file, and the
+ * remaining rows are given ids by {@link AssignRowIdFunction#createRowId(int, long)}.
+ */
+public final class CsvParserFunction
+        implements Function2<Integer, Iterator<Tuple2<LongWritable, Text>>, Iterator<Tuple2<Object[], Long>>> {
 
     private static final long serialVersionUID = 1L;
 
     private final CsvConfiguration _csvConfiguration;
 
     public CsvParserFunction(final CsvConfiguration csvConfiguration) {
-        if (csvConfiguration.isMultilineValues()) {
-            throw new IllegalStateException("Multiline CSV files are not supported");
-        }
-
         final String encoding = csvConfiguration.getEncoding();
         switch (encoding.toUpperCase()) {
         case "UTF-8":
@@ -50,11 +62,56 @@ public final class CsvParserFunction implements Function<String, Object[]> {
     }
 
     @Override
-    public Object[] call(final String csvLine) throws Exception {
+    public Iterator<Tuple2<Object[], Long>> call(final Integer partitionIndex,
+            final Iterator<Tuple2<LongWritable, Text>> records) throws Exception {
         final CSVParser csvParser =
                 new CSVParser(_csvConfiguration.getSeparatorChar(), _csvConfiguration.getQuoteChar(),
                         _csvConfiguration.getEscapeChar());
-        return csvParser.parseLine(csvLine);
+        final int headerLines = _csvConfiguration.getColumnNameLineNumber();
+
+        return new Iterator<Tuple2<Object[], Long>>() {
+
+            private boolean _started = false;
+            private Tuple2<LongWritable, Text> _next = null;
+            private long _rowIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (!_started) {
+                    _started = true;
+                    if (headerLines != CsvConfiguration.NO_COLUMN_NAME_LINE && records.hasNext()) {
+                        _next = records.next();
+                        if (_next._1.get() == 0) {
+                            // this partition holds the beginning of the file
+                            _next = null;
+                            for (int i = 1; i < headerLines && records.hasNext(); i++) {
+                                records.next();
+                            }
+                        }
+                    }
+                }
+                return _next != null || records.hasNext();
+            }
+
+            @Override
+            public Tuple2<Object[], Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Tuple2<LongWritable, Text> record = _next == null ? records.next() : _next;
+                _next = null;
+                final Object[] values = parse(csvParser, record._2.toString());
+                return new Tuple2<>(values, AssignRowIdFunction.createRowId(partitionIndex, _rowIndex++));
+            }
+        };
+    }
+
+    private static Object[] parse(final CSVParser csvParser, final String record) {
+        try {
+            return csvParser.parseLine(record);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to parse CSV record: " + record, e);
+        }
     }
 
 }
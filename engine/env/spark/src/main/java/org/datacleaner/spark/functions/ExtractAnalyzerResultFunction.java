@@ -21,6 +21,7 @@ package org.datacleaner.spark.functions;
 
 import org.apache.spark.api.java.function.Function;
 import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.PartialAnalyzerResult;
 import org.datacleaner.spark.NamedAnalyzerResult;
 
 public final class ExtractAnalyzerResultFunction implements Function<NamedAnalyzerResult, AnalyzerResult> {
@@ -28,6 +29,10 @@ public final class ExtractAnalyzerResultFunction implements Function<NamedAnalyz
 
     @Override
     public AnalyzerResult call(final NamedAnalyzerResult namedAnalyzerResult) throws Exception {
-        return namedAnalyzerResult.getAnalyzerResult();
+        final AnalyzerResult analyzerResult = namedAnalyzerResult.getAnalyzerResult();
+        if (analyzerResult instanceof PartialAnalyzerResult) {
+            return ((PartialAnalyzerResult<?, ?>) analyzerResult).toResult();
+        }
+        return analyzerResult;
     }
 }
@@ -0,0 +1,169 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.function.Function2;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.io.JdbcPartition;
+import org.datacleaner.spark.io.JdbcPartitioner;
+
+import scala.Tuple2;
+
+/**
+ * Reads the {@link JdbcPartition}s created by {@link JdbcPartitioner} from the
+ * job's datastore, streaming the rows of the partition. The values
+ * of each row are placed at the column numbers of their columns, like the
+ * values of the file based sources.
+ */
+public final class JdbcQueryFunction
+        implements Function2<Integer, Iterator<JdbcPartition>, Iterator<Tuple2<Object[], Long>>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SparkJobContext _sparkJobContext;
+
+    public JdbcQueryFunction(final SparkJobContext sparkJobContext) {
+        _sparkJobContext = sparkJobContext;
+    }
+
+    @Override
+    public Iterator<Tuple2<Object[], Long>> call(final Integer partitionIndex,
+            final Iterator<JdbcPartition> partitions) throws Exception {
+        final Datastore datastore = _sparkJobContext.getAnalysisJob().getDatastore();
+        final DatastoreConnection connection = datastore.openConnection();
+
+        final JdbcPartitioner partitioner = new JdbcPartitioner(_sparkJobContext);
+        final List<Query> queries = new ArrayList<>();
+        while (partitions.hasNext()) {
+            queries.addAll(partitioner.createQueries(connection.getDataContext(), partitions.next()));
+        }
+        final QueryIterator iterator = new QueryIterator(connection, queries.iterator(), partitionIndex);
+
+        final TaskContext taskContext = TaskContext.get();
+        if (taskContext != null) {
+            // make sure the connection is released if the partition is not
+            // fully consumed
+            taskContext.addTaskCompletionListener(context -> iterator.close());
+        }
+        return iterator;
+    }
+
+    private static class QueryIterator implements Iterator<Tuple2<Object[], Long>> {
+
+        private final DatastoreConnection _connection;
+        private final Iterator<Query> _queries;
+        private final int _partitionIndex;
+        private DataSet _dataSet;
+        private int[] _columnNumbers;
+        private int _rowLength;
+        private Tuple2<Object[], Long> _next;
+        private long _rowIndex = 0;
+        private boolean _closed;
+
+        private QueryIterator(final DatastoreConnection connection, final Iterator<Query> queries,
+                final int partitionIndex) {
+            _connection = connection;
+            _queries = queries;
+            _partitionIndex = partitionIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (_next == null) {
+                _next = fetch();
+            }
+            return _next != null;
+        }
+
+        @Override
+        public Tuple2<Object[], Long> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Tuple2<Object[], Long> next = _next;
+            _next = null;
+            return next;
+        }
+
+        private Tuple2<Object[], Long> fetch() {
+            while (!_closed) {
+                if (_dataSet == null) {
+                    if (!_queries.hasNext()) {
+                        close();
+                        return null;
+                    }
+                    openDataSet(_queries.next());
+                }
+
+                if (_dataSet.next()) {
+                    final Row row = _dataSet.getRow();
+                    final Object[] values = new Object[_rowLength];
+                    for (int i = 0; i < _columnNumbers.length; i++) {
+                        values[_columnNumbers[i]] = row.getValue(i);
+                    }
+                    return new Tuple2<>(values, AssignRowIdFunction.createRowId(_partitionIndex, _rowIndex++));
+                }
+
+                _dataSet.close();
+                _dataSet = null;
+            }
+            return null;
+        }
+
+        private void openDataSet(final Query query) {
+            final DataContext dataContext = _connection.getDataContext();
+
+            final List<SelectItem> selectItems = query.getSelectClause().getItems();
+            _columnNumbers = new int[selectItems.size()];
+            _rowLength = 0;
+            for (int i = 0; i < _columnNumbers.length; i++) {
+                _columnNumbers[i] = selectItems.get(i).getColumn().getColumnNumber();
+                _rowLength = Math.max(_rowLength, _columnNumbers[i] + 1);
+            }
+
+            _dataSet = dataContext.executeQuery(query);
+        }
+
+        private synchronized void close() {
+            if (_closed) {
+                return;
+            }
+            _closed = true;
+            if (_dataSet != null) {
+                _dataSet.close();
+                _dataSet = null;
+            }
+            _connection.close();
+        }
+    }
+}
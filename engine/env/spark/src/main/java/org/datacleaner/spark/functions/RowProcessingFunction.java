@@ -27,6 +27,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.csv.CsvConfiguration;
 import org.apache.metamodel.util.FileResource;
@@ -37,6 +44,7 @@ import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.datacleaner.api.AnalyzerResult;
 import org.datacleaner.api.AnalyzerResultFuture;
 import org.datacleaner.api.HasAnalyzerResult;
+import org.datacleaner.api.HasPartialAnalyzerResult;
 import org.datacleaner.api.InputRow;
 import org.datacleaner.configuration.DataCleanerConfiguration;
 import org.datacleaner.connection.CsvDatastore;
@@ -79,6 +87,14 @@ public final class RowProcessingFunction
     private static final Logger logger = LoggerFactory.getLogger(RowProcessingFunction.class);
 
     private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of rows handed off to a partition thread at a time
+     */
+    private static final int CHUNK_SIZE = 100;
+
+    private static final List<InputRow> END_OF_PARTITION = new ArrayList<>(0);
+
     private final SparkJobContext _sparkJobContext;
 
     public RowProcessingFunction(final SparkJobContext sparkJobContext) {
@@ -104,11 +120,17 @@ public final class RowProcessingFunction
             final Iterator<InputRow> inputRowIterator) throws Exception {
         logger.info("call({}, Iterator) invoked", partitionNumber);
 
-        final AnalysisJobBuilder jobBuilder = _sparkJobContext.getAnalysisJobBuilder();
+        final AnalysisJob analysisJob;
+        if (hasPartitionSpecificConfiguration(_sparkJobContext.getAnalysisJob())) {
+            final AnalysisJobBuilder jobBuilder = _sparkJobContext.getAnalysisJobBuilder();
 
-        configureComponentsBeforeBuilding(jobBuilder, partitionNumber.intValue());
+            configureComponentsBeforeBuilding(jobBuilder, partitionNumber.intValue());
 
-        final AnalysisJob analysisJob = jobBuilder.toAnalysisJob();
+            analysisJob = jobBuilder.toAnalysisJob();
+        } else {
+            // the job is the same for all partitions, use the shared instance
+            analysisJob = _sparkJobContext.getAnalysisJob();
+        }
 
         final List<Tuple2<String, NamedAnalyzerResult>> analyzerResults =
                 executePartition(inputRowIterator, analysisJob);
@@ -118,6 +140,21 @@ public final class RowProcessingFunction
         return analyzerResults.iterator();
     }
 
+    /**
+     * Determines if any component of the job has properties that
+     * {@link #configureComponentsBeforeBuilding(AnalysisJobBuilder, int)}
+     * may replace with partition-specific values.
+     *
+     * @param analysisJob
+     * @return
+     */
+    private boolean hasPartitionSpecificConfiguration(final AnalysisJob analysisJob) {
+        return analysisJob.flattened().flatMap(job -> job.getComponentJobs().stream()).anyMatch(
+                componentJob -> !componentJob.getDescriptor()
+                        .getConfiguredPropertiesByType(UpdateableDatastore.class, false).isEmpty() || !componentJob
+                        .getDescriptor().getConfiguredPropertiesByType(Resource.class, false).isEmpty());
+    }
+
     /**
      * Applies any partition-specific configuration to the job builder before
      * building it.
@@ -243,14 +280,21 @@ public final class RowProcessingFunction
         }
 
         // fire row processing on each row
-        while (inputRowIterator.hasNext()) {
-            final InputRow inputRow = inputRowIterator.next();
-            consumeRowHandler.consumeRow(inputRow);
-            logger.debug("Consumed row no. {}", inputRow.getId());
+        final int partitionThreads = _sparkJobContext.getPartitionThreads();
+        if (partitionThreads > 1) {
+            consumeRowsConcurrently(inputRowIterator, consumeRowHandler, partitionThreads);
+        } else {
+            while (inputRowIterator.hasNext()) {
+                final InputRow inputRow = inputRowIterator.next();
+                consumeRowHandler.consumeRow(inputRow);
+                logger.debug("Consumed row no. {}", inputRow.getId());
+            }
         }
 
         logger.info("Row processing complete - continuing to fetching results");
 
+        consumeRowHandler.flushBufferedRows();
+
         // collect results
         final List<Tuple2<String, NamedAnalyzerResult>> analyzerResults =
                 getAnalyzerResults(consumeRowHandler.getConsumers());
@@ -278,14 +322,122 @@ public final class RowProcessingFunction
         return analyzerResults;
     }
 
+    /**
+     * Consumes the rows of a partition using a pool of worker threads. The
+     * calling thread reads the partition and hands off chunks of rows through
+     * a bounded queue, so that reading never gets far ahead of processing. The
+     * components are shared between the threads just like in the local
+     * engine, ie. the {@link ConsumeRowHandler} synchronizes on components
+     * that are not concurrent.
+     *
+     * @param inputRowIterator
+     * @param consumeRowHandler
+     * @param threads
+     */
+    private void consumeRowsConcurrently(final Iterator<InputRow> inputRowIterator,
+            final ConsumeRowHandler consumeRowHandler, final int threads) {
+        final int queueCapacity = Math.max(1, _sparkJobContext.getPartitionQueueSize() / CHUNK_SIZE);
+        final BlockingQueue<List<InputRow>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread =
+                    new Thread(runnable, "RowProcessingFunction-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        logger.info("Processing partition with {} threads", threads);
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        while (true) {
+                            final List<InputRow> chunk = queue.take();
+                            if (chunk == END_OF_PARTITION) {
+                                return;
+                            }
+                            for (final InputRow inputRow : chunk) {
+                                consumeRowHandler.consumeRow(inputRow);
+                                logger.debug("Consumed row no. {}", inputRow.getId());
+                            }
+                        }
+                    } catch (final Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                });
+            }
+
+            List<InputRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (inputRowIterator.hasNext() && error.get() == null) {
+                chunk.add(inputRowIterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    handOff(queue, chunk, error);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                handOff(queue, chunk, error);
+            }
+            for (int i = 0; i < threads; i++) {
+                handOff(queue, END_OF_PARTITION, error);
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (error.get() != null) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Throwable throwable = error.get();
+        if (throwable != null) {
+            if (throwable instanceof RuntimeException) {
+                throw (RuntimeException) throwable;
+            }
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            }
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    /**
+     * Puts a chunk of rows on the queue, unless processing has failed, in
+     * which case the workers might not be taking chunks anymore.
+     */
+    private static void handOff(final BlockingQueue<List<InputRow>> queue, final List<InputRow> chunk,
+            final AtomicReference<Throwable> error) throws InterruptedException {
+        while (error.get() == null) {
+            if (queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
     private List<Tuple2<String, NamedAnalyzerResult>> getAnalyzerResults(
             final Collection<RowProcessingConsumer> rowProcessingConsumers) {
         final List<Tuple2<String, NamedAnalyzerResult>> analyzerResults = new ArrayList<>();
 
         for (final RowProcessingConsumer consumer : rowProcessingConsumers) {
             if (consumer.isResultProducer()) {
-                final HasAnalyzerResult<?> resultProducer = (HasAnalyzerResult<?>) consumer.getComponent();
-                final AnalyzerResult analyzerResult = resultProducer.getResult();
+                final Object component = consumer.getComponent();
+                final AnalyzerResult analyzerResult;
+                if (component instanceof HasPartialAnalyzerResult) {
+                    // partial results are merged and turned into the final
+                    // result after all partitions have been processed
+                    analyzerResult = ((HasPartialAnalyzerResult<?>) component).getPartialResult();
+                } else {
+                    analyzerResult = ((HasAnalyzerResult<?>) component).getResult();
+                }
                 final String key = _sparkJobContext.getComponentKey(consumer.getComponentJob());
                 final NamedAnalyzerResult namedAnalyzerResult = new NamedAnalyzerResult(key, analyzerResult);
                 final Tuple2<String, NamedAnalyzerResult> tuple = new Tuple2<>(key, namedAnalyzerResult);
@@ -54,7 +54,7 @@ public class ValuesToInputRowFunction implements Function<Tuple2<Object[], Long>
         final Object[] values = tuple._1;
         final Long rowNumber = tuple._2;
 
-        final MockInputRow inputRow = new MockInputRow(rowNumber.intValue());
+        final MockInputRow inputRow = new MockInputRow(rowNumber.longValue());
         final List<InputColumn<?>> sourceColumns = _sparkJobContext.getAnalysisJob().getSourceColumns();
         for (final InputColumn<?> sourceColumn : sourceColumns) {
             assert sourceColumn.isPhysicalColumn();
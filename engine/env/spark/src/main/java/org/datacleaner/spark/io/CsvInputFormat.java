@@ -0,0 +1,98 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.metamodel.csv.CsvConfiguration;
+
+/**
+ * Hadoop {@link FileInputFormat} for CSV files. Records are keyed by their
+ * byte offset in the file and may span several lines when the CSV
+ * configuration allows multiline values. Uncompressed files are split, and the
+ * {@link CsvRecordReader} of each split determines where the first complete
+ * record after the split start begins.
+ */
+public class CsvInputFormat extends FileInputFormat<LongWritable, Text> {
+
+    public static final String PROPERTY_SEPARATOR_CHAR = "datacleaner.csv.separator.char";
+    public static final String PROPERTY_QUOTE_CHAR = "datacleaner.csv.quote.char";
+    public static final String PROPERTY_ESCAPE_CHAR = "datacleaner.csv.escape.char";
+    public static final String PROPERTY_MULTILINE_VALUES = "datacleaner.csv.multiline.values";
+    public static final String PROPERTY_BOUNDARY_LOOKAHEAD = "datacleaner.csv.boundary.lookahead";
+
+    public static final int DEFAULT_BOUNDARY_LOOKAHEAD = 1024 * 1024;
+
+    /**
+     * Stores the parts of a {@link CsvConfiguration} that are relevant for
+     * finding records in the Hadoop {@link Configuration}.
+     *
+     * @param hadoopConfiguration
+     * @param csvConfiguration
+     */
+    public static void configure(final Configuration hadoopConfiguration, final CsvConfiguration csvConfiguration) {
+        hadoopConfiguration.setInt(PROPERTY_SEPARATOR_CHAR, toByte(csvConfiguration.getSeparatorChar()));
+        hadoopConfiguration.setInt(PROPERTY_QUOTE_CHAR, toByte(csvConfiguration.getQuoteChar()));
+        hadoopConfiguration.setInt(PROPERTY_ESCAPE_CHAR, toByte(csvConfiguration.getEscapeChar()));
+        hadoopConfiguration.setBoolean(PROPERTY_MULTILINE_VALUES, csvConfiguration.isMultilineValues());
+    }
+
+    /**
+     * Converts a CSV special character to the byte that represents it in an
+     * UTF-8 encoded file. Only ASCII characters can be found reliably by
+     * scanning bytes, so other characters are rejected.
+     */
+    private static int toByte(final char c) {
+        if (c == CsvConfiguration.NOT_A_CHAR) {
+            return CsvRecordReader.NONE;
+        }
+        if (c > 127) {
+            throw new IllegalStateException(
+                    "Unsupported CSV special character: '" + c + "'. Only ASCII characters are supported on Hadoop.");
+        }
+        return c;
+    }
+
+    @Override
+    public RecordReader<LongWritable, Text> createRecordReader(final InputSplit split,
+            final TaskAttemptContext context) throws IOException, InterruptedException {
+        final Configuration conf = context.getConfiguration();
+        return new CsvRecordReader(conf.getInt(PROPERTY_SEPARATOR_CHAR, CsvConfiguration.DEFAULT_SEPARATOR_CHAR),
+                conf.getInt(PROPERTY_QUOTE_CHAR, CsvConfiguration.DEFAULT_QUOTE_CHAR),
+                conf.getInt(PROPERTY_ESCAPE_CHAR, CsvConfiguration.DEFAULT_ESCAPE_CHAR),
+                conf.getBoolean(PROPERTY_MULTILINE_VALUES, false),
+                conf.getInt(PROPERTY_BOUNDARY_LOOKAHEAD, DEFAULT_BOUNDARY_LOOKAHEAD));
+    }
+
+    @Override
+    protected boolean isSplitable(final JobContext context, final Path file) {
+        return new CompressionCodecFactory(context.getConfiguration()).getCodec(file) == null;
+    }
+}
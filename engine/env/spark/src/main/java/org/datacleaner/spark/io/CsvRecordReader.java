@@ -0,0 +1,355 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * {@link RecordReader} for {@link CsvInputFormat}. Works directly on the bytes
+ * of the file, which is safe for UTF-8 since all the CSV special characters are
+ * ASCII.
+ *
+ * A split reads all records that start after its start offset and no later
+ * than its end offset (the first split also reads the record at offset 0). When
+ * multiline values are enabled, a newline only ends a record when it is not
+ * inside quotes. Since the quote state at a split start is unknown, the reader
+ * follows the bytes from there under both assumptions (inside and outside
+ * quotes) and drops an assumption as soon as it leads to malformed CSV, e.g. an
+ * opening quote in the middle of a value. If both assumptions survive the
+ * lookahead, the split start is assumed to be outside quotes.
+ */
+public class CsvRecordReader extends RecordReader<LongWritable, Text> {
+
+    /**
+     * Marker for a special character that is not used, e.g. no escape char.
+     */
+    static final int NONE = -2;
+
+    private static final int EOF = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int _separator;
+    private final int _quote;
+    private final int _escape;
+    private final boolean _multilineValues;
+    private final int _lookahead;
+    private final byte[] _buffer = new byte[BUFFER_SIZE];
+    private final LongWritable _key = new LongWritable();
+    private final Text _value = new Text();
+
+    private InputStream _in;
+    private FSDataInputStream _fileIn;
+    private int _bufferLength;
+    private int _bufferPosition;
+    private long _start;
+    private long _end;
+    private long _pos;
+    private byte[] _record = new byte[1024];
+    private int _recordLength;
+
+    public CsvRecordReader(final int separator, final int quote, final int escape, final boolean multilineValues,
+            final int lookahead) {
+        _separator = separator;
+        _quote = quote;
+        _escape = escape == quote ? NONE : escape;
+        _multilineValues = multilineValues;
+        _lookahead = lookahead;
+    }
+
+    @Override
+    public void initialize(final InputSplit genericSplit, final TaskAttemptContext context) throws IOException {
+        final FileSplit split = (FileSplit) genericSplit;
+        final Configuration conf = context.getConfiguration();
+        final Path file = split.getPath();
+
+        _fileIn = file.getFileSystem(conf).open(file);
+        final CompressionCodec codec = new CompressionCodecFactory(conf).getCodec(file);
+        if (codec != null) {
+            // compressed files are not split
+            _in = codec.createInputStream(_fileIn);
+            _start = 0;
+            _end = Long.MAX_VALUE;
+            _pos = 0;
+            return;
+        }
+
+        _in = _fileIn;
+        _start = split.getStart();
+        _end = _start + split.getLength();
+        if (_start == 0) {
+            _pos = 0;
+            return;
+        }
+
+        long scanStart = _start;
+        seek(scanStart - 1);
+        int previous = read();
+        while (_multilineValues && (previous == _quote || previous == _escape) && scanStart > 1) {
+            // a quote or escape char right before the split start changes the
+            // meaning of what follows (e.g. half of a doubled quote), so let
+            // the scan include it
+            scanStart--;
+            seek(scanStart - 1);
+            previous = read();
+        }
+        final long recordStart = _multilineValues ? findRecordStart(previous) : findLineStart();
+        if (recordStart == EOF) {
+            // no record starts within this split
+            _pos = Long.MAX_VALUE;
+        } else {
+            seek(recordStart);
+        }
+    }
+
+    private long findLineStart() throws IOException {
+        int b;
+        while ((b = read()) != EOF) {
+            if (b == '\n') {
+                return _pos;
+            }
+        }
+        return EOF;
+    }
+
+    private long findRecordStart(final int previous) throws IOException {
+        final QuoteState outside = new QuoteState(false, previous);
+        final QuoteState inside = new QuoteState(true, previous);
+        int b;
+        while ((b = read()) != EOF) {
+            outside.accept(b);
+            inside.accept(b);
+
+            if (outside._alive && inside._alive) {
+                if (_pos - _start > _lookahead) {
+                    // nothing contradicts either assumption, most likely there
+                    // are no quoted values around here at all
+                    inside._alive = false;
+                }
+            } else if (outside._alive) {
+                if (outside._recordStart != EOF) {
+                    return outside._recordStart;
+                }
+            } else if (inside._alive) {
+                if (inside._recordStart != EOF) {
+                    return inside._recordStart;
+                }
+            } else {
+                // malformed either way, fall back to plain lines
+                return outside._lineStart != EOF ? outside._lineStart : findLineStart();
+            }
+        }
+
+        if (outside._alive) {
+            return outside._recordStart;
+        }
+        return inside._alive ? inside._recordStart : outside._lineStart;
+    }
+
+    private boolean readRecord() throws IOException {
+        _recordLength = 0;
+        boolean inQuotes = false;
+        boolean read = false;
+        int b;
+        while ((b = read()) != EOF) {
+            read = true;
+            if (b == '\n' && !inQuotes) {
+                break;
+            }
+            append(b);
+            if (!_multilineValues) {
+                continue;
+            }
+            if (b == _escape) {
+                final int next = peek();
+                if (next == _quote || next == _escape) {
+                    append(read());
+                }
+            } else if (b == _quote) {
+                if (inQuotes && peek() == _quote) {
+                    append(read());
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            }
+        }
+        if (_recordLength > 0 && _record[_recordLength - 1] == '\r') {
+            _recordLength--;
+        }
+        return read;
+    }
+
+    private void append(final int b) {
+        if (_recordLength == _record.length) {
+            _record = Arrays.copyOf(_record, _record.length * 2);
+        }
+        _record[_recordLength++] = (byte) b;
+    }
+
+    private int read() throws IOException {
+        if (_bufferPosition == _bufferLength && !fill()) {
+            return EOF;
+        }
+        _pos++;
+        return _buffer[_bufferPosition++] & 0xff;
+    }
+
+    private int peek() throws IOException {
+        if (_bufferPosition == _bufferLength && !fill()) {
+            return EOF;
+        }
+        return _buffer[_bufferPosition] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        _bufferPosition = 0;
+        _bufferLength = Math.max(0, _in.read(_buffer, 0, _buffer.length));
+        return _bufferLength > 0;
+    }
+
+    private void seek(final long position) throws IOException {
+        _fileIn.seek(position);
+        _bufferPosition = 0;
+        _bufferLength = 0;
+        _pos = position;
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        while (_pos <= _end) {
+            final long recordStart = _pos;
+            if (!readRecord()) {
+                return false;
+            }
+            if (_recordLength > 0) {
+                _key.set(recordStart);
+                _value.set(_record, 0, _recordLength);
+                return true;
+            }
+            // skip blank lines
+        }
+        return false;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+        return _key;
+    }
+
+    @Override
+    public Text getCurrentValue() {
+        return _value;
+    }
+
+    @Override
+    public float getProgress() {
+        if (_end == _start || _end == Long.MAX_VALUE) {
+            return 0f;
+        }
+        return Math.min(1f, (_pos - _start) / (float) (_end - _start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_in != null) {
+            _in.close();
+        }
+    }
+
+    /**
+     * Follows the bytes after a split start under an assumed initial quote
+     * state.
+     */
+    private class QuoteState {
+
+        private boolean _alive = true;
+        private boolean _inQuotes;
+        private boolean _escaped;
+        private boolean _closed;
+        private int _previous;
+        private long _lineStart = EOF;
+        private long _recordStart = EOF;
+
+        private QuoteState(final boolean inQuotes, final int previous) {
+            _inQuotes = inQuotes;
+            _previous = previous;
+        }
+
+        private void accept(final int b) {
+            final int previous = _previous;
+            _previous = b;
+            if (b == '\n' && _lineStart == EOF) {
+                _lineStart = _pos;
+            }
+            if (!_alive) {
+                return;
+            }
+
+            if (_escaped) {
+                _escaped = false;
+                if (b == _quote || b == _escape) {
+                    return;
+                }
+            }
+            if (_closed) {
+                _closed = false;
+                if (b == _quote) {
+                    // doubled quote within a quoted value
+                    _inQuotes = true;
+                    return;
+                }
+                if (b != _separator && b != '\n' && b != '\r') {
+                    // a closing quote must end the value
+                    _alive = false;
+                    return;
+                }
+            }
+
+            if (b == _escape) {
+                _escaped = true;
+            } else if (b == _quote) {
+                if (_inQuotes) {
+                    _inQuotes = false;
+                    _closed = true;
+                } else if (previous == _separator || previous == '\n' || previous == '\r') {
+                    _inQuotes = true;
+                } else {
+                    // an opening quote must start the value
+                    _alive = false;
+                }
+            } else if (b == '\n' && !_inQuotes && _recordStart == EOF) {
+                _recordStart = _pos;
+            }
+        }
+    }
+}
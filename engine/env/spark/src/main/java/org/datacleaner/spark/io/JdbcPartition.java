@@ -0,0 +1,79 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import java.io.Serializable;
+
+/**
+ * Describes a range of the partition column of a JDBC source table, as
+ * created by {@link JdbcPartitioner}.
+ */
+public final class JdbcPartition implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String _columnName;
+    private final Number _lowerBound;
+    private final Number _upperBound;
+    private final boolean _includeNulls;
+
+    /**
+     * Creates a partition
+     *
+     * @param columnName
+     *            the partition column, or null if the table is not partitioned
+     * @param lowerBound
+     *            the inclusive lower bound, or null if unbounded
+     * @param upperBound
+     *            the exclusive upper bound, or null if unbounded
+     * @param includeNulls
+     *            whether the rows where the partition column is null belong to
+     *            this partition
+     */
+    public JdbcPartition(final String columnName, final Number lowerBound, final Number upperBound,
+            final boolean includeNulls) {
+        _columnName = columnName;
+        _lowerBound = lowerBound;
+        _upperBound = upperBound;
+        _includeNulls = includeNulls;
+    }
+
+    public String getColumnName() {
+        return _columnName;
+    }
+
+    public Number getLowerBound() {
+        return _lowerBound;
+    }
+
+    public Number getUpperBound() {
+        return _upperBound;
+    }
+
+    public boolean isIncludeNulls() {
+        return _includeNulls;
+    }
+
+    @Override
+    public String toString() {
+        return "JdbcPartition[column=" + _columnName + ",lowerBound=" + _lowerBound + ",upperBound=" + _upperBound
+                + ",includeNulls=" + _includeNulls + "]";
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.query.OperatorType;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.datacleaner.api.InputColumn;
+import org.datacleaner.components.keyrange.KeyRangeSplitter;
+import org.datacleaner.connection.Datastore;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.job.ComponentJob;
+import org.datacleaner.job.FilterJob;
+import org.datacleaner.job.concurrent.SingleThreadedTaskRunner;
+import org.datacleaner.job.runner.ErrorAwareAnalysisListener;
+import org.datacleaner.job.runner.RowProcessingConsumer;
+import org.datacleaner.job.runner.RowProcessingConsumerSorter;
+import org.datacleaner.job.runner.RowProcessingPublisher;
+import org.datacleaner.job.runner.RowProcessingPublishers;
+import org.datacleaner.job.runner.RowProcessingQueryOptimizer;
+import org.datacleaner.job.runner.RowProcessingQueryOptimizerImpl;
+import org.datacleaner.lifecycle.LifeCycleHelper;
+import org.datacleaner.spark.SparkJobContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plans the queries that read the source table of a job from a JDBC database
+ * in parallel. The table is divided into ranges of a numeric column (by
+ * default the primary key), with bounds found using MIN and MAX, and any query
+ * optimizable filters of the job are applied to every range.
+ *
+ * The driver only ships the bounds of each partition (see
+ * {@link JdbcPartition}) to the executors, which build the queries against
+ * their own connection. Shipping the queries themselves does not work since
+ * MetaModel's operator types do not survive serialization.
+ */
+public class JdbcPartitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcPartitioner.class);
+
+    private final SparkJobContext _sparkJobContext;
+
+    public JdbcPartitioner(final SparkJobContext sparkJobContext) {
+        _sparkJobContext = sparkJobContext;
+    }
+
+    /**
+     * Divides the source table into partitions.
+     *
+     * @param partitions
+     *            the desired number of partitions. Fewer partitions are
+     *            created if the range of the partition column is too small.
+     * @return
+     */
+    public List<JdbcPartition> createPartitions(final int partitions) {
+        final AnalysisJob job = _sparkJobContext.getAnalysisJob();
+        final Table table = getSourceColumns(job)[0].getTable();
+
+        final Column partitionColumn = getPartitionColumn(table);
+        if (partitionColumn == null || partitions < 2) {
+            return Collections.singletonList(new JdbcPartition(null, null, null, true));
+        }
+
+        final List<Number> splitPoints;
+        try (DatastoreConnection connection = job.getDatastore().openConnection()) {
+            final Query query = createQuery(connection.getDataContext());
+            splitPoints = KeyRangeSplitter.calculateSplitPoints(connection.getDataContext(), partitionColumn,
+                    query.getWhereClause().getItems(), partitions, false);
+        }
+        if (splitPoints.isEmpty()) {
+            // no range to divide (no rows, or a single distinct value)
+            logger.info("Reading table {} in a single partition, since column {} has no range to divide",
+                    table.getName(), partitionColumn.getName());
+            return Collections.singletonList(new JdbcPartition(null, null, null, true));
+        }
+        logger.info("Partitioning table {} by column {} at: {}", table.getName(), partitionColumn.getName(),
+                splitPoints);
+
+        // nulls fall outside of all ranges, read them in the first partition
+        final boolean nullable = !Boolean.FALSE.equals(partitionColumn.isNullable());
+        final List<JdbcPartition> result = new ArrayList<>();
+        for (int i = 0; i <= splitPoints.size(); i++) {
+            final Number lowerBound = i == 0 ? null : splitPoints.get(i - 1);
+            final Number upperBound = i == splitPoints.size() ? null : splitPoints.get(i);
+            result.add(new JdbcPartition(partitionColumn.getName(), lowerBound, upperBound, nullable && i == 0));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the queries that read a partition.
+     *
+     * @param dataContext
+     * @param partition
+     * @return
+     */
+    public List<Query> createQueries(final DataContext dataContext, final JdbcPartition partition) {
+        final Query query = createQuery(dataContext);
+        if (partition.getColumnName() == null) {
+            return Collections.singletonList(query);
+        }
+
+        final Column column = query.getFromClause().getItem(0).getTable().getColumnByName(partition.getColumnName());
+        final List<Query> queries = new ArrayList<>(2);
+
+        final Query rangeQuery = query.clone();
+        if (partition.getLowerBound() != null) {
+            rangeQuery.where(column, OperatorType.GREATER_THAN_OR_EQUAL, partition.getLowerBound());
+        }
+        if (partition.getUpperBound() != null) {
+            rangeQuery.where(column, OperatorType.LESS_THAN, partition.getUpperBound());
+        }
+        if (partition.isIncludeNulls() && partition.getLowerBound() == null && partition.getUpperBound() == null) {
+            // an unbounded range would read the nulls too
+            rangeQuery.where(column, OperatorType.DIFFERENT_FROM, null);
+        }
+        queries.add(rangeQuery);
+
+        if (partition.isIncludeNulls()) {
+            final Query nullQuery = query.clone();
+            nullQuery.where(column, OperatorType.EQUALS_TO, null);
+            queries.add(nullQuery);
+        }
+        return queries;
+    }
+
+    /**
+     * Creates the query of the whole source table, with any query optimizable
+     * filters applied.
+     */
+    private Query createQuery(final DataContext dataContext) {
+        final AnalysisJob job = _sparkJobContext.getAnalysisJob();
+        final Column[] columns = getSourceColumns(job);
+        final Table table = columns[0].getTable();
+        final Query baseQuery = dataContext.query().from(table).select(columns).toQuery();
+        return optimizeQuery(job, job.getDatastore(), table, baseQuery);
+    }
+
+    private Column[] getSourceColumns(final AnalysisJob job) {
+        final List<InputColumn<?>> sourceColumns = job.getSourceColumns();
+        final Column[] columns = new Column[sourceColumns.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = sourceColumns.get(i).getPhysicalColumn();
+            if (!columns[i].getTable().equals(columns[0].getTable())) {
+                throw new UnsupportedOperationException(
+                        "Jobs that read from multiple tables are not supported on Spark: " + job);
+            }
+        }
+        if (columns.length == 0) {
+            throw new IllegalStateException("Job has no source columns: " + job);
+        }
+        return columns;
+    }
+
+    private Column getPartitionColumn(final Table table) {
+        final String columnName = _sparkJobContext.getJdbcPartitionColumn();
+        if (columnName != null) {
+            final Column column = table.getColumnByName(columnName);
+            if (column == null) {
+                throw new IllegalArgumentException("No such partition column in " + table.getName() + ": " + columnName);
+            }
+            if (column.getType() == null || !column.getType().isNumber()) {
+                throw new IllegalArgumentException("Partition column is not numeric: " + column.getName());
+            }
+            return column;
+        }
+
+        final List<Column> primaryKeys = table.getPrimaryKeys();
+        if (primaryKeys.size() == 1 && primaryKeys.get(0).getType() != null && primaryKeys.get(0).getType()
+                .isNumber()) {
+            return primaryKeys.get(0);
+        }
+
+        logger.warn("Table {} has no numeric primary key, reading it in a single partition. Set a partition "
+                + "column in the job properties to read it in parallel.", table.getName());
+        return null;
+    }
+
+    /**
+     * Applies the query optimizable filters of the job to the base query, the
+     * same way that the local runner does it. The filters are not initialized
+     * here, they only need their configuration to optimize the query.
+     */
+    private Query optimizeQuery(final AnalysisJob job, final Datastore datastore, final Table table,
+            final Query baseQuery) {
+        final LifeCycleHelper lifeCycleHelper =
+                new LifeCycleHelper(_sparkJobContext.getConfiguration(), job, false);
+        final ErrorAwareAnalysisListener analysisListener = new ErrorAwareAnalysisListener();
+        final RowProcessingPublishers publishers =
+                new RowProcessingPublishers(job, analysisListener, analysisListener, new SingleThreadedTaskRunner(),
+                        lifeCycleHelper);
+        final RowProcessingPublisher publisher = publishers.getRowProcessingPublisher(publishers.getStream(table));
+
+        final List<RowProcessingConsumer> consumers =
+                new RowProcessingConsumerSorter(publisher.getConsumers()).createProcessOrderedConsumerList();
+        for (final RowProcessingConsumer consumer : consumers) {
+            final ComponentJob componentJob = consumer.getComponentJob();
+            if (componentJob instanceof FilterJob) {
+                lifeCycleHelper.assignConfiguredProperties(componentJob.getDescriptor(), consumer.getComponent(),
+                        ((FilterJob) componentJob).getConfiguration());
+            }
+        }
+
+        final RowProcessingQueryOptimizer optimizer =
+                new RowProcessingQueryOptimizerImpl(datastore, consumers, baseQuery);
+        final Query optimizedQuery = optimizer.getOptimizedQuery();
+        if (optimizedQuery.getMaxRows() != null || optimizedQuery.getFirstRow() != null) {
+            logger.info("Not applying filters to the partition queries since they limit the rows of the whole "
+                    + "table: {}", optimizedQuery);
+            return baseQuery;
+        }
+        return optimizedQuery;
+    }
+}
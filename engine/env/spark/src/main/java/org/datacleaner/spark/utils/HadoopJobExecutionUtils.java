@@ -37,6 +37,7 @@ import org.datacleaner.configuration.DomConfigurationWriter;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.Datastore;
 import org.datacleaner.connection.FixedWidthDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
 import org.datacleaner.descriptors.ConfiguredPropertyDescriptor;
 import org.datacleaner.job.AnalysisJob;
@@ -59,10 +60,15 @@ import com.google.common.collect.Iterators;
 public class HadoopJobExecutionUtils {
 
     public static boolean isValidSourceDatastore(final Datastore datastore) {
+        if (datastore instanceof JdbcDatastore) {
+            // read in parallel by the Spark runner, see JdbcPartitioner
+            return true;
+        }
         if (isHdfsResourcedDatastore(datastore)) {
             if (datastore instanceof CsvDatastore) {
                 final CsvDatastore csvDatastore = (CsvDatastore) datastore;
-                if (!isValidMultilines(csvDatastore) || !isValidEnconding(csvDatastore)) {
+                // multiline values are supported by CsvInputFormat
+                if (!isValidEnconding(csvDatastore)) {
                     return false;
                 }
             }
@@ -108,14 +114,6 @@ public class HadoopJobExecutionUtils {
         return true;
     }
 
-    public static boolean isValidMultilines(final CsvDatastore datastore) {
-        final CsvConfiguration csvConfiguration = datastore.getCsvConfiguration();
-        if (csvConfiguration.isMultilineValues()) {
-            return false;
-        }
-        return true;
-    }
-
     private static boolean isHdfsResource(final Resource resource) {
         if (resource instanceof HdfsResource) {
             return true;
@@ -26,6 +26,7 @@ import org.apache.metamodel.util.HdfsResource;
 import org.datacleaner.connection.CsvDatastore;
 import org.datacleaner.connection.ExcelDatastore;
 import org.datacleaner.connection.FixedWidthDatastore;
+import org.datacleaner.connection.JdbcDatastore;
 import org.datacleaner.connection.JsonDatastore;
 import org.datacleaner.connection.Neo4jDatastore;
 import org.datacleaner.spark.utils.HadoopJobExecutionUtils;
@@ -42,7 +43,7 @@ public class HadoopConfigurationUtilsTest extends TestCase {
         final CsvDatastore csvDatastore = new CsvDatastore("MyCsv", hdfsResource);
         assertTrue(csvDatastore.getCsvConfiguration().isMultilineValues());
         assertEquals(FileHelper.UTF_8_ENCODING, csvDatastore.getEncoding());
-        assertFalse(HadoopJobExecutionUtils.isValidSourceDatastore(csvDatastore));
+        assertTrue(HadoopJobExecutionUtils.isValidSourceDatastore(csvDatastore));
     }
 
     @Test
@@ -62,6 +63,12 @@ public class HadoopConfigurationUtilsTest extends TestCase {
         assertTrue(HadoopJobExecutionUtils.isValidSourceDatastore(jsonDatastore));
     }
 
+    @Test
+    public void testJdbc() {
+        final JdbcDatastore jdbcDatastore = new JdbcDatastore("orders", "jdbc:hsqldb:mem:orders", "org.hsqldb.jdbcDriver");
+        assertTrue(HadoopJobExecutionUtils.isValidSourceDatastore(jdbcDatastore));
+    }
+
     @Test
     public void testInvalidDatastore() {
         final ExcelDatastore excelDatastore = new ExcelDatastore("MyTest", new FileResource("C://test"), "Test");
@@ -26,6 +26,8 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FileUtils;
@@ -45,6 +47,7 @@ import org.datacleaner.job.AnalysisJob;
 import org.datacleaner.job.runner.AnalysisResultFuture;
 import org.datacleaner.result.ReducedSingleValueDistributionResult;
 import org.datacleaner.result.ValueCountingAnalyzerResult;
+import org.datacleaner.spark.io.JdbcPartitionerTest;
 import org.datacleaner.util.SystemProperties;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -116,6 +119,32 @@ public class SparkAnalysisRunnerTest {
         assertEquals(7, upperCaseChars);
     }
 
+    @Test
+    public void testVanillaScenarioWithPartitionThreads() throws Exception {
+        final AnalysisResultFuture result =
+                runAnalysisJob("DCTest - " + getName(), URI.create("src/test/resources/vanilla-job.analysis.xml"),
+                        URI.create("src/test/resources/jobProperties/partitionThreads.properties"), "vanilla-job",
+                        true, null);
+
+        final StringAnalyzerResult stringAnalyzerResult = result.getResults(StringAnalyzerResult.class).get(0);
+        final int rowCount = stringAnalyzerResult.getRowCount(stringAnalyzerResult.getColumns()[0]);
+        assertEquals(7, rowCount);
+        assertEquals(7, stringAnalyzerResult.getEntirelyUpperCaseCount(stringAnalyzerResult.getColumns()[0]));
+    }
+
+    @Test
+    public void testJdbcScenario() throws Exception {
+        JdbcPartitionerTest.createOrdersTable();
+
+        final AnalysisResultFuture result =
+                runAnalysisJob("DCTest - " + getName(), URI.create("src/test/resources/jdbc-job.analysis.xml"),
+                        "jdbc-job", true);
+
+        final StringAnalyzerResult stringAnalyzerResult = result.getResults(StringAnalyzerResult.class).get(0);
+        assertEquals(90, stringAnalyzerResult.getRowCount(stringAnalyzerResult.getColumns()[0]));
+        assertEquals(0, stringAnalyzerResult.getNullCount(stringAnalyzerResult.getColumns()[0]));
+    }
+
     @Test
     public void testFixedWidthJobScenario() throws Exception {
         final AnalysisResultFuture result =
@@ -304,6 +333,21 @@ public class SparkAnalysisRunnerTest {
         assertEquals(0, completeValueDistributionAnalyzerResult.getNullCount());
     }
 
+    @Test
+    public void testValueDistributionReducerWithSmallFanIn() throws Exception {
+        final AnalysisResultFuture result = runAnalysisJob("DCTest - " + getName(),
+                URI.create("src/test/resources/distributable-value-dist.analysis.xml"),
+                URI.create("src/test/resources/jobProperties/reduceFanIn.properties"), "distributable-value-dist",
+                true, null);
+
+        final ValueDistributionAnalyzerResult completeValueDistributionAnalyzerResult =
+                result.getResults(ValueDistributionAnalyzerResult.class).get(0);
+        assertEquals(7, completeValueDistributionAnalyzerResult.getTotalCount());
+        assertEquals(Integer.valueOf(7), completeValueDistributionAnalyzerResult.getUniqueCount());
+        assertEquals(Integer.valueOf(7), completeValueDistributionAnalyzerResult.getDistinctCount());
+        assertEquals(0, completeValueDistributionAnalyzerResult.getNullCount());
+    }
+
     @Test
     public void testGroupedValueDistributionReducer() throws Exception {
         final AnalysisResultFuture result = runAnalysisJob("DCTest - testGroupedValueDistributionReducer",
@@ -336,6 +380,22 @@ public class SparkAnalysisRunnerTest {
         }
     }
 
+    @Test
+    public void testReferenceDataScenario() throws Exception {
+        final AnalysisResultFuture result = runAnalysisJob("DCTest - " + getName(),
+                URI.create("src/test/resources/reference-data-job.analysis.xml"), "reference-data-job", true);
+
+        final List<? extends ValueDistributionAnalyzerResult> results =
+                result.getResults(ValueDistributionAnalyzerResult.class);
+        assertEquals(2, results.size());
+
+        final Set<String> valueCounts = new TreeSet<>();
+        for (final ValueDistributionAnalyzerResult valueDistributionAnalyzerResult : results) {
+            valueCounts.add(valueDistributionAnalyzerResult.getValueCounts().toString());
+        }
+        assertEquals("[[[DK->4], [NL->3]], [[true->4], [false->3]]]", valueCounts.toString());
+    }
+
     @Test
     public void testJsonDatastore() throws Exception {
         final String appName = "DCTest - " + getName();
@@ -410,12 +470,19 @@ public class SparkAnalysisRunnerTest {
     private AnalysisResultFuture runAnalysisJob(final String appName, final URI analysisJobXmlPath,
             final String expectedAnalysisJobName, final boolean useMinPartitions,
             final SparkJobLifeCycleListener sparkJobLifeCycleListener) throws Exception {
+        return runAnalysisJob(appName, analysisJobXmlPath, null, expectedAnalysisJobName, useMinPartitions,
+                sparkJobLifeCycleListener);
+    }
+
+    private AnalysisResultFuture runAnalysisJob(final String appName, final URI analysisJobXmlPath,
+            final URI customPropertiesPath, final String expectedAnalysisJobName, final boolean useMinPartitions,
+            final SparkJobLifeCycleListener sparkJobLifeCycleListener) throws Exception {
         final AnalysisResultFuture result;
         final SparkConf sparkConf = new SparkConf().setMaster("local").setAppName(appName);
         try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
             final SparkJobContext sparkJobContext =
-                    new SparkJobContext(URI.create("src/test/resources/conf_local.xml"), analysisJobXmlPath, null,
-                            sparkContext);
+                    new SparkJobContext(URI.create("src/test/resources/conf_local.xml"), analysisJobXmlPath,
+                            customPropertiesPath, sparkContext);
             if (sparkJobLifeCycleListener != null) {
                 sparkJobContext.addSparkJobLifeCycleListener(sparkJobLifeCycleListener);
             }
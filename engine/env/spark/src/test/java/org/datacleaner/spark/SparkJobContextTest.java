@@ -0,0 +1,80 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.SerializationUtils;
+import org.datacleaner.job.AnalysisJob;
+import org.datacleaner.util.SystemProperties;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SparkJobContextTest {
+
+    @BeforeClass
+    public static void init() {
+        // use local filesystem as default during tests
+        System.setProperty(SystemProperties.DEFAULT_RESOURCE_SCHEME, "file");
+    }
+
+    @Test
+    public void testDeserializedCopiesShareConfigurationAndJob() throws Exception {
+        final SparkJobContext sparkJobContext = createSparkJobContext(Collections.emptyMap());
+        final AnalysisJob job = sparkJobContext.getAnalysisJob();
+        assertSame(job, sparkJobContext.getAnalysisJob());
+
+        // each task works on its own deserialized copy of the job context
+        final SparkJobContext taskJobContext1 = (SparkJobContext) SerializationUtils.clone(sparkJobContext);
+        final SparkJobContext taskJobContext2 = (SparkJobContext) SerializationUtils.clone(sparkJobContext);
+
+        assertSame(sparkJobContext.getConfiguration(), taskJobContext1.getConfiguration());
+        assertSame(sparkJobContext.getConfiguration(), taskJobContext2.getConfiguration());
+        assertSame(job, taskJobContext1.getAnalysisJob());
+        assertSame(job, taskJobContext2.getAnalysisJob());
+
+        // builders are not shared, since they are modified per partition
+        assertNotSame(taskJobContext1.getAnalysisJobBuilder(), taskJobContext2.getAnalysisJobBuilder());
+        assertEquals(sparkJobContext.getComponentKey(job.getAnalyzerJobs().get(0)),
+                taskJobContext1.getComponentKey(taskJobContext1.getAnalysisJobBuilder().toAnalysisJob()
+                        .getAnalyzerJobs().get(0)));
+    }
+
+    @Test
+    public void testDifferentContentIsNotShared() throws Exception {
+        final SparkJobContext sparkJobContext1 = createSparkJobContext(Collections.emptyMap());
+        final SparkJobContext sparkJobContext2 =
+                createSparkJobContext(Collections.singletonMap("datacleaner.spark.reduce.fanin", "10"));
+
+        assertNotSame(sparkJobContext1.getConfiguration(), sparkJobContext2.getConfiguration());
+        assertNotSame(sparkJobContext1.getAnalysisJob(), sparkJobContext2.getAnalysisJob());
+    }
+
+    private SparkJobContext createSparkJobContext(final Map<String, String> customProperties) throws Exception {
+        final String configurationXml = FileUtils.readFileToString(new File("src/test/resources/conf_local.xml"));
+        final String jobXml = FileUtils.readFileToString(new File("src/test/resources/vanilla-job.analysis.xml"));
+        return new SparkJobContext("vanilla-job", configurationXml, jobXml, customProperties);
+    }
+}
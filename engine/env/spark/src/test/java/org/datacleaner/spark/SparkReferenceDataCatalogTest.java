@@ -0,0 +1,97 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.datacleaner.reference.ReferenceDataCatalog;
+import org.datacleaner.reference.SimpleDictionary;
+import org.datacleaner.reference.SimpleSynonymCatalog;
+import org.datacleaner.reference.TextFileDictionary;
+import org.datacleaner.reference.TextFileSynonymCatalog;
+import org.datacleaner.util.SystemProperties;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+public class SparkReferenceDataCatalogTest {
+
+    @Rule
+    public TestName name = new TestName();
+
+    @BeforeClass
+    public static void init() {
+        // use local filesystem as default during tests
+        System.setProperty(SystemProperties.DEFAULT_RESOURCE_SCHEME, "file");
+    }
+
+    @Test
+    public void testResolveBroadcastReferenceData() throws Exception {
+        final SparkConf sparkConf = new SparkConf().setMaster("local").setAppName("DCTest - " + name.getMethodName());
+        try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+            final SparkJobContext sparkJobContext = new SparkJobContext(URI.create("src/test/resources/conf_local.xml"),
+                    URI.create("src/test/resources/reference-data-job.analysis.xml"), null, sparkContext);
+            sparkJobContext.broadcastReferenceData(sparkContext);
+
+            // the driver keeps using the configured reference data
+            final ReferenceDataCatalog driverCatalog = sparkJobContext.getConfiguration().getReferenceDataCatalog();
+            assertTrue(driverCatalog.getDictionary("nordic_countries") instanceof TextFileDictionary);
+
+            // a copy shipped to an executor resolves to the broadcast reference data
+            final SparkJobContext executorJobContext = (SparkJobContext) SerializationUtils.clone(sparkJobContext);
+            final ReferenceDataCatalog executorCatalog =
+                    executorJobContext.getConfiguration().getReferenceDataCatalog();
+            assertTrue(executorCatalog instanceof SparkReferenceDataCatalog);
+            assertTrue(executorCatalog.getDictionary("nordic_countries") instanceof SimpleDictionary);
+            assertTrue(executorCatalog.getSynonymCatalog("country_codes") instanceof SimpleSynonymCatalog);
+            assertSame(executorCatalog.getDictionary("nordic_countries"),
+                    executorCatalog.getDictionary("nordic_countries"));
+            assertEquals("[nordic_countries]", Arrays.toString(executorCatalog.getDictionaryNames()));
+
+            final SimpleDictionary dictionary = (SimpleDictionary) executorCatalog.getDictionary("nordic_countries");
+            assertTrue(dictionary.openConnection(null).containsValue("DENMARK"));
+            assertFalse(dictionary.openConnection(null).containsValue("Netherlands"));
+        }
+    }
+
+    @Test
+    public void testNoBroadcastWithoutFileBasedReferenceData() throws Exception {
+        final SparkConf sparkConf = new SparkConf().setMaster("local").setAppName("DCTest - " + name.getMethodName());
+        try (JavaSparkContext sparkContext = new JavaSparkContext(sparkConf)) {
+            final SparkJobContext sparkJobContext = new SparkJobContext(URI.create("src/test/resources/conf_local.xml"),
+                    URI.create("src/test/resources/vanilla-job.analysis.xml"), null, sparkContext);
+            sparkJobContext.broadcastReferenceData(sparkContext);
+
+            final SparkJobContext executorJobContext = (SparkJobContext) SerializationUtils.clone(sparkJobContext);
+            final ReferenceDataCatalog executorCatalog =
+                    executorJobContext.getConfiguration().getReferenceDataCatalog();
+            assertFalse(executorCatalog instanceof SparkReferenceDataCatalog);
+            assertTrue(executorCatalog.getDictionary("nordic_countries") instanceof TextFileDictionary);
+            assertTrue(executorCatalog.getSynonymCatalog("country_codes") instanceof TextFileSynonymCatalog);
+        }
+    }
+}
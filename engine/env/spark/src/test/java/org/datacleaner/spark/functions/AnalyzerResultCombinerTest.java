@@ -0,0 +1,111 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.functions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.datacleaner.api.AnalyzerResult;
+import org.datacleaner.api.PartialAnalyzerResult;
+import org.datacleaner.spark.NamedAnalyzerResult;
+import org.datacleaner.spark.SparkJobContext;
+import org.junit.Test;
+
+public class AnalyzerResultCombinerTest {
+
+    private static class CountResult implements AnalyzerResult {
+        private static final long serialVersionUID = 1L;
+
+        private final int _count;
+
+        CountResult(final int count) {
+            _count = count;
+        }
+    }
+
+    private static class PartialCountResult implements PartialAnalyzerResult<PartialCountResult, CountResult> {
+        private static final long serialVersionUID = 1L;
+
+        private int _count;
+
+        PartialCountResult(final int count) {
+            _count = count;
+        }
+
+        @Override
+        public PartialCountResult merge(final PartialCountResult other) {
+            _count += other._count;
+            return this;
+        }
+
+        @Override
+        public CountResult toResult() {
+            return new CountResult(_count);
+        }
+    }
+
+    @Test
+    public void testMergePartialResults() throws Exception {
+        final SparkJobContext sparkJobContext =
+                new SparkJobContext("job", null, null, Collections.<String, String> emptyMap());
+        final AnalyzerResultCombiner combiner = new AnalyzerResultCombiner(sparkJobContext);
+
+        final List<NamedAnalyzerResult> group1 = combiner.createCombiner(named(1));
+        combiner.mergeValue(group1, named(2));
+        final List<NamedAnalyzerResult> group2 = combiner.createCombiner(named(3));
+        combiner.mergeValue(group2, named(4));
+
+        final List<NamedAnalyzerResult> group = combiner.mergeCombiners(group1, group2);
+        assertEquals(1, group.size());
+
+        final NamedAnalyzerResult finished = combiner.finish(group);
+        assertEquals("key", finished.getName());
+
+        final AnalyzerResult result = new ExtractAnalyzerResultFunction().call(finished);
+        assertSame(CountResult.class, result.getClass());
+        assertEquals(10, ((CountResult) result)._count);
+    }
+
+    @Test
+    public void testDoNotMergePartialResultsWithOtherResults() throws Exception {
+        final SparkJobContext sparkJobContext =
+                new SparkJobContext("job", null, null, Collections.<String, String> emptyMap());
+        final AnalyzerResultCombiner combiner = new AnalyzerResultCombiner(sparkJobContext);
+
+        final NamedAnalyzerResult fullResult = new NamedAnalyzerResult("key", new CountResult(5));
+        final List<NamedAnalyzerResult> group1 = combiner.createCombiner(fullResult);
+        combiner.mergeValue(group1, named(1));
+        assertEquals(2, group1.size());
+        assertSame(fullResult, group1.get(0));
+
+        final List<NamedAnalyzerResult> group2 = combiner.createCombiner(named(2));
+        combiner.mergeValue(group2, fullResult);
+        combiner.mergeValue(group2, named(3));
+        assertEquals(3, group2.size());
+        assertEquals(2, ((PartialCountResult) group2.get(0).getAnalyzerResult())._count);
+    }
+
+    private static NamedAnalyzerResult named(final int count) {
+        return new NamedAnalyzerResult("key", new PartialCountResult(count));
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CsvRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMultilineRecordsAtEverySplitPoint() throws Exception {
+        final String csv = "id,name,comment\n" + "1,\"Doe, John\",\"first line\nsecond line\"\n"
+                + "2,Jane,\"says \"\"hi\"\"\r\nand \"\"bye\"\"\"\r\n" + "\n" + "3,\"\",\"a,\n\"\"b\"\",\nc\"\n"
+                + "4,Bob,\"escaped \\\" quote\n,\\\"\"\n" + "5,Alice,plain";
+
+        final List<String> expected = Arrays.asList("id,name,comment", "1,\"Doe, John\",\"first line\nsecond line\"",
+                "2,Jane,\"says \"\"hi\"\"\r\nand \"\"bye\"\"\"", "3,\"\",\"a,\n\"\"b\"\",\nc\"",
+                "4,Bob,\"escaped \\\" quote\n,\\\"\"", "5,Alice,plain");
+
+        final File file = write(csv);
+        assertEquals(expected, read(file, true, 0, file.length()));
+        for (long splitPoint = 1; splitPoint < file.length(); splitPoint++) {
+            final List<String> records = new ArrayList<>(read(file, true, 0, splitPoint));
+            records.addAll(read(file, true, splitPoint, file.length() - splitPoint));
+            assertEquals("Split at " + splitPoint, expected, records);
+        }
+    }
+
+    @Test
+    public void testLinesAtEverySplitPoint() throws Exception {
+        final String csv = "a,b\n\"1\",\"2\nx\"\r\n3,4\n";
+        final List<String> expected = Arrays.asList("a,b", "\"1\",\"2", "x\"", "3,4");
+
+        final File file = write(csv);
+        assertEquals(expected, read(file, false, 0, file.length()));
+        for (long splitPoint = 1; splitPoint < file.length(); splitPoint++) {
+            final List<String> records = new ArrayList<>(read(file, false, 0, splitPoint));
+            records.addAll(read(file, false, splitPoint, file.length() - splitPoint));
+            assertEquals("Split at " + splitPoint, expected, records);
+        }
+    }
+
+    private File write(final String csv) throws IOException {
+        final File file = folder.newFile("records.csv");
+        Files.write(file.toPath(), csv.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private List<String> read(final File file, final boolean multilineValues, final long start, final long length)
+            throws Exception {
+        final List<String> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(',', '"', '\\', multilineValues,
+                CsvInputFormat.DEFAULT_BOUNDARY_LOOKAHEAD)) {
+            reader.initialize(new FileSplit(new Path(file.toURI()), start, length, null),
+                    new TaskAttemptContextImpl(new Configuration(), new TaskAttemptID()));
+            while (reader.nextKeyValue()) {
+                records.add(reader.getCurrentValue().toString());
+            }
+        }
+        return records;
+    }
+}
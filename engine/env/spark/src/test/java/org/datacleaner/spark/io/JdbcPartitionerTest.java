@@ -0,0 +1,159 @@
+/**
+ * DataCleaner (community edition)
+ * Copyright (C) 2014 Free Software Foundation, Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.datacleaner.spark.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.metamodel.query.Query;
+import org.datacleaner.connection.DatastoreConnection;
+import org.datacleaner.spark.SparkJobContext;
+import org.datacleaner.spark.functions.JdbcQueryFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+import scala.Tuple2;
+
+public class JdbcPartitionerTest {
+
+    private SparkJobContext _sparkJobContext;
+
+    /**
+     * Creates the ORDERS table of the "orders_db" datastore in conf_local.xml,
+     * with 100 orders of which every tenth has no customer.
+     *
+     * @throws Exception
+     */
+    public static void createOrdersTable() throws Exception {
+        Class.forName("org.hsqldb.jdbcDriver");
+        try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:spark_orders_db", "SA", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE ORDERS IF EXISTS");
+                statement.execute("CREATE TABLE ORDERS (ID INTEGER PRIMARY KEY, CUSTOMER VARCHAR(50))");
+            }
+            try (PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO ORDERS (ID, CUSTOMER) VALUES (?, ?)")) {
+                for (int i = 1; i <= 100; i++) {
+                    statement.setInt(1, i);
+                    statement.setString(2, i % 10 == 0 ? null : "CUSTOMER " + i % 7);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        createOrdersTable();
+        _sparkJobContext = new SparkJobContext("jdbc-job",
+                FileUtils.readFileToString(new File("src/test/resources/conf_local.xml"), "UTF-8"),
+                FileUtils.readFileToString(new File("src/test/resources/jdbc-job.analysis.xml"), "UTF-8"),
+                Collections.emptyMap());
+    }
+
+    @Test
+    public void testCreatePartitions() throws Exception {
+        final JdbcPartitioner partitioner = new JdbcPartitioner(_sparkJobContext);
+        final List<JdbcPartition> partitions = partitioner.createPartitions(4);
+        assertEquals("[JdbcPartition[column=ID,lowerBound=null,upperBound=26,includeNulls=false], "
+                + "JdbcPartition[column=ID,lowerBound=26,upperBound=50,includeNulls=false], "
+                + "JdbcPartition[column=ID,lowerBound=50,upperBound=75,includeNulls=false], "
+                + "JdbcPartition[column=ID,lowerBound=75,upperBound=null,includeNulls=false]]", partitions.toString());
+
+        try (DatastoreConnection connection = _sparkJobContext.getAnalysisJob().getDatastore().openConnection()) {
+            final List<Query> queries = partitioner.createQueries(connection.getDataContext(), partitions.get(1));
+            assertEquals("[SELECT \"ORDERS\".\"ID\", \"ORDERS\".\"CUSTOMER\" FROM PUBLIC.\"ORDERS\" "
+                    + "WHERE \"ORDERS\".\"CUSTOMER\" IS NOT NULL AND \"ORDERS\".\"ID\" >= 26 AND "
+                    + "\"ORDERS\".\"ID\" < 50]", queries.toString());
+        }
+    }
+
+    @Test
+    public void testSingleDistinctKeyWithNulls() throws Exception {
+        Class.forName("org.hsqldb.jdbcDriver");
+        try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:spark_orders_db", "SA", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE ORDERS ADD COLUMN REGION INTEGER");
+            statement.execute("UPDATE ORDERS SET REGION = 1 WHERE MOD(ID, 2) = 0");
+        }
+        final SparkJobContext sparkJobContext = new SparkJobContext("jdbc-job",
+                FileUtils.readFileToString(new File("src/test/resources/conf_local.xml"), "UTF-8"),
+                FileUtils.readFileToString(new File("src/test/resources/jdbc-job.analysis.xml"), "UTF-8"),
+                Collections.singletonMap("datacleaner.spark.jdbc.partition.column", "REGION"));
+
+        final JdbcPartitioner partitioner = new JdbcPartitioner(sparkJobContext);
+        final List<JdbcPartition> partitions = partitioner.createPartitions(4);
+        assertEquals("[JdbcPartition[column=null,lowerBound=null,upperBound=null,includeNulls=true]]",
+                partitions.toString());
+
+        int rowCount = 0;
+        final Iterator<Tuple2<Object[], Long>> rows =
+                new JdbcQueryFunction(sparkJobContext).call(0, partitions.iterator());
+        while (rows.hasNext()) {
+            rows.next();
+            rowCount++;
+        }
+        assertEquals(90, rowCount);
+    }
+
+    @Test
+    public void testUnboundedRangeExcludesNulls() throws Exception {
+        final JdbcPartitioner partitioner = new JdbcPartitioner(_sparkJobContext);
+        try (DatastoreConnection connection = _sparkJobContext.getAnalysisJob().getDatastore().openConnection()) {
+            final List<Query> queries = partitioner
+                    .createQueries(connection.getDataContext(), new JdbcPartition("ID", null, null, true));
+            assertEquals("[SELECT \"ORDERS\".\"ID\", \"ORDERS\".\"CUSTOMER\" FROM PUBLIC.\"ORDERS\" "
+                    + "WHERE \"ORDERS\".\"CUSTOMER\" IS NOT NULL AND \"ORDERS\".\"ID\" IS NOT NULL, "
+                    + "SELECT \"ORDERS\".\"ID\", \"ORDERS\".\"CUSTOMER\" FROM PUBLIC.\"ORDERS\" "
+                    + "WHERE \"ORDERS\".\"CUSTOMER\" IS NOT NULL AND \"ORDERS\".\"ID\" IS NULL]",
+                    queries.toString());
+        }
+    }
+
+    @Test
+    public void testReadPartitions() throws Exception {
+        final List<JdbcPartition> partitions = new JdbcPartitioner(_sparkJobContext).createPartitions(4);
+
+        int rowCount = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            // partitions are serialized when shipped to the executors
+            final JdbcPartition partition = (JdbcPartition) SerializationUtils.clone(partitions.get(i));
+            final Iterator<Tuple2<Object[], Long>> rows =
+                    new JdbcQueryFunction(_sparkJobContext).call(i, Collections.singletonList(partition).iterator());
+            while (rows.hasNext()) {
+                final Object[] values = rows.next()._1;
+                assertNotNull(values[1]);
+                rowCount++;
+            }
+        }
+        assertEquals(90, rowCount);
+    }
+}
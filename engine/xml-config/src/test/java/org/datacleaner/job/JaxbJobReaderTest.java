@@ -29,7 +29,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -648,10 +647,8 @@ public class JaxbJobReaderTest extends TestCase {
         assertEquals(1, componentBuilders2.size());
         final ComponentBuilder createCsvComponentBuilder = componentBuilders2.get(0);
         assertEquals("Create CSV file", createCsvComponentBuilder.getDescriptor().getDisplayName());
-        final LinkedList<Object> linkedList = new LinkedList<>(createCsvComponentBuilder.getConfiguredProperties()
-                .values());
-        final FileResource propertyFile = (FileResource) linkedList
-                .get(3);
+        final FileResource propertyFile = (FileResource) createCsvComponentBuilder
+                .getConfiguredProperty(createCsvComponentBuilder.getDescriptor().getConfiguredProperty("File"));
         String absolutePath = propertyFile.getFile().getAbsolutePath();
         absolutePath = absolutePath.replace("\\", "/"); 
         absolutePath = absolutePath.replace("C:", "");
@@ -674,8 +671,8 @@ public class JaxbJobReaderTest extends TestCase {
         final ComponentBuilder componentBuilder = componentBuilders.get(0);
         final ComponentDescriptor<?> descriptor = componentBuilder.getDescriptor();
         assertEquals("Create CSV file", descriptor.getDisplayName());
-        final LinkedList<Object> linkedList = new LinkedList<>(componentBuilder.getConfiguredProperties().values());
-        final FileResource propertyFile = (FileResource) linkedList.get(3);
+        final FileResource propertyFile =
+                (FileResource) componentBuilder.getConfiguredProperty(descriptor.getConfiguredProperty("File"));
         String absolutePath = propertyFile.getFile().getAbsolutePath();
         absolutePath = absolutePath.replace("\\", "/");
         absolutePath = absolutePath.replace("C:", "");